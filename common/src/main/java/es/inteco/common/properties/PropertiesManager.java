@@ -21,17 +21,20 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * The Class PropertiesManager.
+ *
+ * Los ficheros de propiedades se cargan una sola vez y se comparten entre todas las instancias. Se puede usar desde varios hilos a la vez: las propiedades cargadas no se modifican después de
+ * publicarse en el mapa.
  */
 public class PropertiesManager {
 
     /** The Constant PROPERTIES_MAP. */
-    private static final Map<String, Properties> PROPERTIES_MAP = new HashMap<>();
+    private static final ConcurrentMap<String, Properties> PROPERTIES_MAP = new ConcurrentHashMap<>();
 
     static {
         initProperties();
@@ -45,11 +48,8 @@ public class PropertiesManager {
 	 */
     public final Properties getProperties(final String propertiesFile) {
         try {
-            if (!PROPERTIES_MAP.containsKey(propertiesFile)) {
-                loadProperties(propertiesFile);
-            }
-
-            return PROPERTIES_MAP.get(propertiesFile);
+            final Properties properties = PROPERTIES_MAP.get(propertiesFile);
+            return properties != null ? properties : loadProperties(propertiesFile);
         } catch (IOException e) {
             Logger.putLog("Error al acceder al fichero de propiedades " + propertiesFile, getClass(), Logger.LOG_LEVEL_ERROR, e);
             return new Properties();
@@ -71,19 +71,24 @@ public class PropertiesManager {
 	 * Load properties.
 	 *
 	 * @param propertiesFile the properties file
+	 * @return las propiedades cargadas o, si otro hilo las ha cargado a la vez, las de ese hilo
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-    private void loadProperties(final String propertiesFile) throws IOException {
+    private Properties loadProperties(final String propertiesFile) throws IOException {
         try {
             Properties properties = new Properties();
             InputStream is = this.getClass().getClassLoader().getResourceAsStream(propertiesFile);
             if (is != null) {
                 properties.load(is);
-                PROPERTIES_MAP.put(propertiesFile, properties);
+                final Properties previous = PROPERTIES_MAP.putIfAbsent(propertiesFile, properties);
+                if (previous != null) {
+                    properties = previous;
+                }
             } else {
                 throw new FileNotFoundException("El fichero de propiedades " + propertiesFile + " no se ha encontrado");
             }
             is.close();
+            return properties;
         } catch (IOException ioe) {
             Logger.putLog("Excepción de entrada/salida: ", PropertiesManager.class, Logger.LOG_LEVEL_ERROR, ioe);
             throw ioe;
@@ -0,0 +1,58 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.common.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Cálculo de hashes usados como claves de cachés y almacenes de contenido.
+ */
+public final class HashUtils {
+	/** Algoritmo de hash. */
+	private static final String SHA_256 = "SHA-256";
+
+	/**
+	 * Instantiates a new hash utils.
+	 */
+	private HashUtils() {
+	}
+
+	/**
+	 * Calcula el SHA-256 de unos bytes.
+	 *
+	 * @param bytes the bytes
+	 * @return el hash en hexadecimal (en minúsculas)
+	 */
+	public static String sha256Hex(final byte[] bytes) {
+		try {
+			return new String(Hex.encodeHex(MessageDigest.getInstance(SHA_256).digest(bytes)));
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 está disponible en todas las JVM
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Calcula el SHA-256 de un texto codificado en UTF-8.
+	 *
+	 * @param text the text
+	 * @return el hash en hexadecimal (en minúsculas)
+	 */
+	public static String sha256Hex(final String text) {
+		return sha256Hex(text.getBytes(StandardCharsets.UTF_8));
+	}
+}
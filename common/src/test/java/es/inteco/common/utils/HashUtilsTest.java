@@ -0,0 +1,27 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.common.utils;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HashUtilsTest {
+
+    @Test
+    public void testSha256Hex() {
+        Assert.assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", HashUtils.sha256Hex("abc"));
+        Assert.assertEquals(HashUtils.sha256Hex("añ"), HashUtils.sha256Hex("añ".getBytes(StandardCharsets.UTF_8)));
+    }
+}
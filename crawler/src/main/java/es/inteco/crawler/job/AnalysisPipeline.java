@@ -0,0 +1,385 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.crawler.job;
+
+import java.sql.Connection;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import es.gob.oaw.http.LinkVerifier;
+import es.inteco.common.logging.Logger;
+import es.inteco.common.properties.PropertiesManager;
+import es.inteco.crawler.common.Constants;
+import es.inteco.crawler.dao.EstadoObservatorioDAO;
+import es.inteco.intav.datos.AnalysisWriter;
+import es.inteco.plugin.WebAnalayzer;
+import es.inteco.plugin.dao.DataBaseManager;
+import es.inteco.plugin.dao.ExtraInfo;
+import es.inteco.plugin.dao.RastreoDAO;
+
+/**
+ * Análisis de las páginas de un rastreo a medida que se van recogiendo.
+ *
+ * Las páginas aceptadas por el rastreo se encolan en una cola acotada de la que las toman varios hilos de análisis, cada uno con su propio {@link WebAnalayzer}. Si la cola está llena el rastreo
+ * espera a que se libere un hueco, por lo que solo se mantienen en memoria las páginas pendientes de analizar. Una vez analizada una página se descarta su código fuente.
+ *
+ * La última página recibida no se encola hasta que llega la siguiente: al terminar el rastreo se analiza después de todas las demás como última página, ya que los cartuchos realizan en ella las
+ * comprobaciones que requieren el rastreo completo. Al terminar se espera a que se guarden todos los análisis ({@link AnalysisWriter#flush()}).
+ *
+ * El progreso se registra en el estado del observatorio agrupando las actualizaciones, como mucho una cada {@link #STATUS_INTERVAL} milisegundos, y siempre al terminar.
+ */
+final class AnalysisPipeline {
+	/** Propiedad con el número de hilos de análisis. */
+	private static final String WORKERS_PROPERTY = "crawler.analysis.workers";
+	/** Propiedad con el número máximo de páginas pendientes de analizar. */
+	private static final String QUEUE_SIZE_PROPERTY = "crawler.analysis.queue.size";
+	/** Tiempo de espera (en milisegundos) entre comprobaciones de cancelación. */
+	private static final long POLL_WAIT = 1000;
+	/** Tiempo mínimo (en milisegundos) entre dos escrituras del estado del observatorio. */
+	private static final long STATUS_INTERVAL = 2000;
+	/** Marca de fin de la cola para los hilos de análisis. */
+	private static final CrawledLink END = new CrawledLink(null, null, 0, 0);
+	/** Datos del rastreo. */
+	private final CrawlerData crawlerData;
+	/** Indica si el rastreo tiene cartuchos con los que analizar las páginas. */
+	private final boolean enabled;
+	/** Páginas pendientes de analizar. */
+	private final BlockingQueue<CrawledLink> queue;
+	/** Número de hilos de análisis. */
+	private final int numWorkers;
+	/** Pool de hilos de análisis. */
+	private final ExecutorService workers;
+	/** Fecha de inicio de los análisis. */
+	private final Date initFullDate = new Date();
+	/** URL raíz del rastreo. */
+	private final String urlRastreo;
+	/** Estado del observatorio o null si el rastreo no pertenece a un observatorio. */
+	private ObservatoryStatus estado;
+	/** Cookie con la que se analizan las páginas. */
+	private volatile String cookie;
+	/** Solicitud de cancelación. */
+	private volatile boolean cancelled = false;
+	/** Última página recibida, pendiente de encolar. Solo se usa desde el hilo del rastreo. */
+	private CrawledLink lastLink;
+	/** Número de páginas recibidas. */
+	private int submitted = 0;
+	/** Número de análisis iniciados. */
+	private int started = 0;
+	/** Número de páginas analizadas. */
+	private int analyzed = 0;
+	/** Momento de la última escritura del estado del observatorio. */
+	private long lastStatusUpdate = 0;
+
+	/**
+	 * Instantiates a new analysis pipeline.
+	 *
+	 * @param crawlerData the crawler data
+	 * @param numWorkers  número de hilos de análisis
+	 * @param queueSize   número máximo de páginas pendientes de analizar
+	 */
+	AnalysisPipeline(final CrawlerData crawlerData, final int numWorkers, final int queueSize) {
+		this.crawlerData = crawlerData;
+		this.enabled = crawlerData.getCartuchos() != null && crawlerData.getCartuchos().length > 0;
+		this.numWorkers = Math.max(1, numWorkers);
+		this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+		this.urlRastreo = (crawlerData.getUrls() != null && !crawlerData.getUrls().isEmpty()) ? crawlerData.getUrls().get(0) : "";
+		this.workers = Executors.newFixedThreadPool(this.numWorkers, new ThreadFactory() {
+			private final AtomicInteger counter = new AtomicInteger();
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "CrawlerJob-analysis-" + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Crea el análisis de un rastreo con la configuración del fichero crawler.core.properties y arranca sus hilos.
+	 *
+	 * @param crawlerData the crawler data
+	 * @return the analysis pipeline
+	 */
+	static AnalysisPipeline start(final CrawlerData crawlerData) {
+		final PropertiesManager pmgr = new PropertiesManager();
+		final AnalysisPipeline pipeline = new AnalysisPipeline(crawlerData, getIntValue(pmgr, WORKERS_PROPERTY, 2), getIntValue(pmgr, QUEUE_SIZE_PROPERTY, 8));
+		Logger.putLog("[A] Iniciando los análisis del rastreo id: " + crawlerData.getIdCrawling() + " (" + pipeline.urlRastreo + ")", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+		pipeline.initEstado();
+		for (int i = 0; i < pipeline.numWorkers; i++) {
+			pipeline.workers.execute(pipeline.new AnalysisWorker());
+		}
+		return pipeline;
+	}
+
+	/**
+	 * Obtiene un valor entero de la configuración.
+	 *
+	 * @param pmgr         the pmgr
+	 * @param key          the key
+	 * @param defaultValue valor por defecto si la propiedad no existe o no es válida
+	 * @return the int value
+	 */
+	private static int getIntValue(final PropertiesManager pmgr, final String key, final int defaultValue) {
+		try {
+			final String value = pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, key);
+			return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+		} catch (NumberFormatException e) {
+			Logger.putLog("Valor no válido para la propiedad " + key, AnalysisPipeline.class, Logger.LOG_LEVEL_WARNING);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Registra en base de datos el estado inicial del observatorio. Si el rastreo viene del servicio de diagnóstico su identificador es negativo y no se registra.
+	 */
+	private void initEstado() {
+		if (crawlerData.getIdCrawling() > 0) {
+			try (Connection connection = DataBaseManager.getConnection()) {
+				final ExtraInfo extra = RastreoDAO.getExtraInfo(connection, crawlerData.getIdFulfilledCrawling());
+				// Putting the tracking information into a database
+				final ObservatoryStatus status = EstadoObservatorioDAO.findEstadoObservatorio(connection, (int) crawlerData.getIdObservatory(), extra.getIdEjecucionObservatorio());
+				status.setIdObservatorio((int) crawlerData.getIdObservatory());
+				status.setIdEjecucionObservatorio(extra.getIdEjecucionObservatorio());
+				status.setNombre(extra.getNombreLista());
+				status.setUrl(urlRastreo);
+				status.setUltimaUrl(urlRastreo);
+				status.setActualUrl(urlRastreo);
+				status.setTotalUrl(0);
+				status.setFechaUltimaUrl(null);
+				status.setTiempoMedio(0);
+				status.setTiempoAcumulado(0);
+				status.setTotalUrlAnalizadas(0);
+				status.setTiempoEstimado(0);
+				status.setId(EstadoObservatorioDAO.updateEstado(connection, status));
+				estado = status;
+			} catch (Exception e) {
+				Logger.putLog("No se ha podido registrar el estado el análisis actual", CrawlerJob.class, Logger.LOG_LEVEL_ERROR, e);
+			}
+		}
+	}
+
+	/**
+	 * Establece la cookie con la que se analizan las páginas.
+	 *
+	 * @param cookie the cookie
+	 */
+	void setCookie(final String cookie) {
+		this.cookie = cookie;
+	}
+
+	/**
+	 * Recibe una página del rastreo. Si la cola de análisis está llena se espera a que se libere un hueco.
+	 *
+	 * @param crawledLink the crawled link
+	 */
+	void submit(final CrawledLink crawledLink) {
+		if (!enabled || cancelled) {
+			return;
+		}
+		synchronized (this) {
+			submitted++;
+		}
+		if (lastLink != null) {
+			enqueue(lastLink);
+		}
+		lastLink = crawledLink;
+	}
+
+	/**
+	 * Encola una página, esperando mientras la cola esté llena y no se cancele el análisis.
+	 *
+	 * @param crawledLink the crawled link
+	 */
+	private void enqueue(final CrawledLink crawledLink) {
+		try {
+			while (!cancelled && !queue.offer(crawledLink, POLL_WAIT, TimeUnit.MILLISECONDS)) {
+				Logger.putLog("Cola de análisis llena, el rastreo " + crawlerData.getIdCrawling() + " espera a que se analicen las páginas pendientes", CrawlerJob.class, Logger.LOG_LEVEL_DEBUG);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancel();
+		}
+	}
+
+	/**
+	 * Espera a que se analicen todas las páginas recibidas y analiza la última. Se invoca cuando ha terminado el rastreo. Aunque se interrumpa la espera, se guardan los análisis ya hechos.
+	 */
+	void finish() {
+		try {
+			for (int i = 0; i < numWorkers; i++) {
+				enqueue(END);
+			}
+			workers.shutdown();
+			try {
+				while (!workers.awaitTermination(POLL_WAIT, TimeUnit.MILLISECONDS)) {
+					Logger.putLog("Esperando a que terminen los análisis del rastreo " + crawlerData.getIdCrawling(), CrawlerJob.class, Logger.LOG_LEVEL_DEBUG);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+			}
+			if (lastLink != null && cancelled) {
+				// La última página no se analiza, pero los resultados del rastreo se liberan igualmente más abajo
+				Logger.putLog("Análisis del rastreo " + crawlerData.getIdCrawling() + " cancelado, no se analiza la última página " + lastLink.getUrl(), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+				lastLink = null;
+			}
+			if (lastLink != null) {
+				final PropertiesManager pmgr = new PropertiesManager();
+				analyze(new WebAnalayzer(), new SimpleDateFormat(pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, "crawler.date.format")), lastLink, true);
+				lastLink = null;
+			}
+		} finally {
+			// Los análisis se guardan en segundo plano, se espera a que estén todos en base de datos. Si se ha interrumpido el rastreo la espera es acotada
+			if (Thread.currentThread().isInterrupted()) {
+				AnalysisWriter.drain();
+			} else {
+				AnalysisWriter.flush();
+			}
+			LinkVerifier.release(crawlerData.getIdFulfilledCrawling());
+			synchronized (this) {
+				updateEstado(true);
+			}
+		}
+		final Date endFullDate = new Date();
+		Logger.putLog("[A] Finalizado los análisis del rastreo id: " + crawlerData.getIdCrawling() + " (" + urlRastreo + ")" + " tiempo empleado:  "
+				+ (endFullDate.getTime() - initFullDate.getTime()) / 1000 + " segundos", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+	}
+
+	/**
+	 * Cancela los análisis pendientes. Los análisis en curso terminan normalmente. La última página, que aún no se ha encolado, tampoco se analiza: como es en su análisis donde los cartuchos
+	 * terminan el rastreo, lo que se libera al terminar no depende de ella sino de {@link #finish()} o {@link #close()}, que hay que llamar siempre.
+	 */
+	void cancel() {
+		cancelled = true;
+		queue.clear();
+	}
+
+	/**
+	 * Cancela los análisis pendientes y libera los hilos de análisis y los resultados de la verificación de enlaces del rastreo.
+	 */
+	void close() {
+		cancel();
+		workers.shutdownNow();
+		LinkVerifier.release(crawlerData.getIdFulfilledCrawling());
+	}
+
+	/**
+	 * Analiza una página con los cartuchos del rastreo y registra el progreso en el estado del observatorio.
+	 *
+	 * @param webAnalyzer the web analyzer
+	 * @param df          formato de la fecha del análisis
+	 * @param crawledLink the crawled link
+	 * @param isLast      si es la última página del rastreo
+	 */
+	private void analyze(final WebAnalayzer webAnalyzer, final DateFormat df, final CrawledLink crawledLink, final boolean isLast) {
+		if (cancelled) {
+			// If an interruption is requested, the analyses are abandoned
+			return;
+		}
+		// Logs of start and end of analysis
+		// Points to save date data, summary of the status of the observatory
+		final Date initDate = new Date();
+		final int number;
+		final int total;
+		synchronized (this) {
+			number = ++started;
+			total = submitted;
+			if (estado != null) {
+				estado.setActualUrl(crawledLink.getUrl());
+				updateEstado(false);
+			}
+		}
+		Logger.putLog("[I] Iniciando análisis del enlace número " + number + "/" + total + " (" + crawledLink.getUrl() + ")", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+		webAnalyzer.runCartuchos(crawledLink, df.format(initDate), crawlerData, cookie, isLast);
+		// El código fuente ya no se necesita
+		crawledLink.setSource(null);
+		final Date endDate = new Date();
+		Logger.putLog("[F] Finalizado análisis del enlace número " + number + "/" + total + " (" + crawledLink.getUrl() + ")", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+		Logger.putLog("Tiempo empleado:  " + (endDate.getTime() - initDate.getTime()) / 1000 + " segundos. Tiempo acumulado: " + (endDate.getTime() - initFullDate.getTime()) / 1000 + " segundos",
+				CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+		// We update the status
+		synchronized (this) {
+			analyzed++;
+			if (estado != null) {
+				// To prevent that sometimes you don't keep the right number, we also update it
+				estado.setTotalUrl(submitted);
+				estado.setUltimaUrl(crawledLink.getUrl());
+				estado.setFechaUltimaUrl(endDate);
+				estado.setTiempoMedio(((endDate.getTime() - initFullDate.getTime()) / analyzed) / 1000);
+				estado.setTiempoAcumulado((endDate.getTime() - initFullDate.getTime()) / 1000);
+				estado.setTotalUrlAnalizadas(analyzed);
+				updateEstado(false);
+			}
+		}
+	}
+
+	/**
+	 * Guarda el estado del observatorio en base de datos. Los cambios de estado se agrupan: salvo que se fuerce, solo se escribe si ha pasado un tiempo mínimo desde la última escritura.
+	 *
+	 * @param force si se escribe el estado aunque no haya pasado el tiempo mínimo
+	 */
+	private void updateEstado(final boolean force) {
+		final long now = System.currentTimeMillis();
+		if (estado != null && (force || now - lastStatusUpdate >= STATUS_INTERVAL)) {
+			lastStatusUpdate = now;
+			try (Connection connection = DataBaseManager.getConnection()) {
+				EstadoObservatorioDAO.updateEstado(connection, estado);
+			} catch (Exception e) {
+				Logger.putLog("No se ha podido registrar el estado el análisis actual", CrawlerJob.class, Logger.LOG_LEVEL_ERROR, e);
+			}
+		}
+	}
+
+	/**
+	 * Hilo de análisis. Toma páginas de la cola hasta recibir la marca de fin o hasta que se cancela el análisis.
+	 */
+	private final class AnalysisWorker implements Runnable {
+		/** Analizador propio del hilo, ya que reutiliza los cartuchos entre páginas. */
+		private final WebAnalayzer webAnalyzer = new WebAnalayzer();
+		/** Formato de la fecha de los análisis. */
+		private final DateFormat df = new SimpleDateFormat(new PropertiesManager().getValue(Constants.CRAWLER_CORE_PROPERTIES, "crawler.date.format"));
+
+		/**
+		 * Run.
+		 */
+		@Override
+		public void run() {
+			try {
+				while (!cancelled) {
+					final CrawledLink crawledLink = queue.poll(POLL_WAIT, TimeUnit.MILLISECONDS);
+					if (crawledLink == END) {
+						return;
+					}
+					if (crawledLink != null) {
+						try {
+							analyze(webAnalyzer, df, crawledLink, false);
+						} catch (Exception e) {
+							Logger.putLog("Error al analizar la url " + crawledLink.getUrl(), CrawlerJob.class, Logger.LOG_LEVEL_ERROR, e);
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
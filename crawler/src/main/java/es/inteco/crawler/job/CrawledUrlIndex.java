@@ -0,0 +1,86 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.crawler.job;
+
+import java.util.HashSet;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Índice de las URL incluidas en un rastreo.
+ *
+ * Permite comprobar en tiempo constante si una URL ya se ha rastreado y en tiempo logarítmico si alguna URL rastreada empieza por un prefijo dado, sin recorrer la lista de enlaces rastreados.
+ */
+final class CrawledUrlIndex {
+	/** URL rastreadas normalizadas. */
+	private final Set<String> normalizedUrls = new HashSet<>();
+	/** URL rastreadas ordenadas para las búsquedas por prefijo. */
+	private final NavigableSet<String> sortedUrls = new TreeSet<>();
+
+	/**
+	 * Añade una URL al índice.
+	 *
+	 * @param url the url
+	 */
+	void add(final String url) {
+		if (url != null && !url.isEmpty()) {
+			normalizedUrls.add(normalize(url));
+			sortedUrls.add(url);
+		}
+	}
+
+	/**
+	 * Comprueba si una URL está en el índice. Las URL que solo se diferencian en las barras o almohadillas finales se consideran la misma.
+	 *
+	 * @param url the url
+	 * @return true, si la URL ya está en el índice
+	 */
+	boolean contains(final String url) {
+		return url != null && normalizedUrls.contains(normalize(url));
+	}
+
+	/**
+	 * Comprueba si alguna URL del índice empieza por el prefijo dado.
+	 *
+	 * @param prefix the prefix
+	 * @return true, si existe alguna URL con ese prefijo
+	 */
+	boolean containsPrefix(final String prefix) {
+		final String candidate = sortedUrls.ceiling(prefix);
+		return candidate != null && candidate.startsWith(prefix);
+	}
+
+	/**
+	 * Número de URL del índice.
+	 *
+	 * @return the int
+	 */
+	int size() {
+		return sortedUrls.size();
+	}
+
+	/**
+	 * Normaliza una URL eliminando las barras y almohadillas finales.
+	 *
+	 * @param url the url
+	 * @return la URL normalizada
+	 */
+	static String normalize(final String url) {
+		int end = url.length();
+		while (end > 0 && (url.charAt(end - 1) == '/' || url.charAt(end - 1) == '#')) {
+			end--;
+		}
+		return url.substring(0, end);
+	}
+}
@@ -19,9 +19,6 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.CookieHandler;
-import java.net.CookieManager;
-import java.net.CookiePolicy;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
@@ -30,15 +27,28 @@ import java.net.URL;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -60,24 +70,22 @@ import ca.utoronto.atrc.tile.accessibilitychecker.CheckerParser;
 import ca.utoronto.atrc.tile.accessibilitychecker.EvaluatorUtility;
 import es.gob.oaw.MailException;
 import es.gob.oaw.MailService;
+import es.gob.oaw.http.ProxySettingsCache;
 import es.inteco.common.CheckAccessibility;
 import es.inteco.common.logging.Logger;
 import es.inteco.common.properties.PropertiesManager;
 import es.inteco.common.utils.StringUtils;
 import es.inteco.crawler.common.Constants;
-import es.inteco.crawler.dao.EstadoObservatorioDAO;
-import es.inteco.crawler.dao.ProxyDAO;
-import es.inteco.crawler.dao.ProxyForm;
 import es.inteco.crawler.dao.Seed;
 import es.inteco.crawler.ignored.links.IgnoredLink;
 import es.inteco.crawler.ignored.links.Utils;
+import es.inteco.intav.form.ProxyForm;
 import es.inteco.intav.utils.EvaluatorUtils;
-import es.inteco.plugin.WebAnalayzer;
 import es.inteco.plugin.dao.DataBaseManager;
-import es.inteco.plugin.dao.ExtraInfo;
 import es.inteco.plugin.dao.RastreoDAO;
 import es.inteco.utils.CrawlerDOMUtils;
 import es.inteco.utils.CrawlerUtils;
+import es.inteco.utils.FetchedPage;
 
 /**
  * CrawlerJob. Clase para realizar el rastreo de URL.
@@ -89,20 +97,30 @@ public class CrawlerJob implements InterruptableJob {
 	private static final String EMPTY_STRING = "";
 	/** Listado de dominios rastreados. */
 	private final List<CrawledLink> crawlingDomains = new ArrayList<>();
-	/** Listado de dominios auxiliares para completar los dominios rastreados. */
-	private final List<String> auxDomains = new ArrayList<>();
+	/** Índice de las URL de los dominios rastreados. */
+	private final CrawledUrlIndex crawledUrls = new CrawledUrlIndex();
+	/** Dominios auxiliares para completar los dominios rastreados, en orden de aparición. */
+	private final Set<String> auxDomains = new LinkedHashSet<>();
 	/** Contenido de las URL rastreadas en MD5. */
-	private final List<String> md5Content = new ArrayList<>();
-	/** Listado de dominios rechazados. */
-	private final List<String> rejectedDomains = new ArrayList<>();
+	private final Set<String> md5Content = new HashSet<>();
+	/** Dominios rechazados. */
+	private final Set<String> rejectedDomains = new HashSet<>();
 	/** {@link MailService}. */
 	private final MailService mailService = new MailService();
 	/** Solicitud de interrupción. */
-	private boolean interrupt = false;
+	private volatile boolean interrupt = false;
 	/** The extended depth. */
 	private int extendedDepth = 0;
 	/** The extended width. */
 	private int extendedWidth = 0;
+	/** Número de enlaces candidatos que se comprueban en paralelo. */
+	private int linkConcurrency = 1;
+	/** Pool de hilos para comprobar los enlaces candidatos. */
+	private ExecutorService linkExecutor;
+	/** Descargas de páginas del rastreo. */
+	private PageFetcher pageFetcher;
+	/** Análisis de las páginas del rastreo. */
+	private volatile AnalysisPipeline analysisPipeline;
 
 	/**
 	 * Execute.
@@ -141,29 +159,14 @@ public class CrawlerJob implements InterruptableJob {
 	}
 
 	/**
-	 * Comprueba si la lista de {@link CrawledLink} contiene una URL.
+	 * Añade un enlace a los dominios rastreados y lo envía a analizar.
 	 *
-	 * @param crawledLinks Lista de {@link CrawledLink}.
-	 * @param url          URL a validar.
-	 * @return true, si la URL está en la lista. false en caso contrario.
+	 * @param crawledLink the crawled link
 	 */
-	private boolean contains(final List<CrawledLink> crawledLinks, final String url) {
-		for (CrawledLink crawledLink : crawledLinks) {
-			if (crawledLink.getUrl().equals(url)) {
-				return true;
-			}
-			// Check if ended / or # check if contains without this end char
-			if ((url.endsWith("/") || url.endsWith("#")) && crawledLink.getUrl().equals(url.substring(0, url.length() - 1))) {
-				return true;
-			}
-			if (!url.endsWith("/") && crawledLink.getUrl().equals(url + "/")) {
-				return true;
-			}
-			if (!url.endsWith("#") && crawledLink.getUrl().equals(url + "/")) {
-				return true;
-			}
-		}
-		return false;
+	private void addCrawledLink(final CrawledLink crawledLink) {
+		crawlingDomains.add(crawledLink);
+		crawledUrls.add(crawledLink.getUrl());
+		analysisPipeline.submit(crawledLink);
 	}
 
 	/**
@@ -385,10 +388,6 @@ public class CrawlerJob implements InterruptableJob {
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
 	public void makeCrawl(final CrawlerData crawlerData) throws IOException {
-		// Cookies
-		CookieManager cookieManager = new CookieManager();
-		CookieHandler.setDefault(cookieManager);
-		cookieManager.setCookiePolicy(CookiePolicy.ACCEPT_ALL);
 		final PropertiesManager pmgr = new PropertiesManager();
 		final int maxNumRetries = Integer.parseInt(pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, "max.number.retries"));
 		final int maxNumRedirections = Integer.parseInt(pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, "max.number.redirections"));
@@ -397,164 +396,158 @@ public class CrawlerJob implements InterruptableJob {
 		String cookie = null;
 		int depth = crawlerData.getProfundidad();
 		int width = crawlerData.getTopN();
-		// Force to 1 page in this case
-		if (crawlerData.getIdCartridge() == 10) {
-			crawlerData.setTopN(1);
-			crawlerData.setProfundidad(1);
-			// If has more than one URL, took the first in this cartridge
-			if (crawlerData.getUrls() != null && !crawlerData.getUrls().isEmpty() && crawlerData.getUrls().size() > 1) {
-				String url = crawlerData.getUrls().get(0);
-				List<String> singleUrl = new ArrayList<String>();
-				singleUrl.add(url);
-				crawlerData.setUrls(singleUrl);
-			}
-		} else {
-			// if is a realaunched crawl, extend top depth antd width
-			if (crawlerData.isRetry()) {
-				extendedDepth = crawlerData.getExtendedDepth();
-				extendedWidth = crawlerData.getExtendedWidth();
-			} else {
-				// Apply seed complex only if is not basic service an only if is not manual selection
-				if (crawlerData.getIdCrawling() > 0 && crawlerData.getUrls().size() == 1) {
-					try {
-						Seed s = RastreoDAO.getSeedFromCrawling(DataBaseManager.getConnection(), crawlerData.getIdCrawling());
-						if (s != null) {
-							depth = s.getDepth();
-							width = s.getWidth();
-							// Set to recursive calls
-							crawlerData.setTopN(width);
-							crawlerData.setProfundidad(depth);
+		pageFetcher = new PageFetcher(crawlerData);
+		startLinkExecutor(pmgr);
+		try {
+			try {
+				// Force to 1 page in this case
+				if (crawlerData.getIdCartridge() == 10) {
+					crawlerData.setTopN(1);
+					crawlerData.setProfundidad(1);
+					// If has more than one URL, took the first in this cartridge
+					if (crawlerData.getUrls() != null && !crawlerData.getUrls().isEmpty() && crawlerData.getUrls().size() > 1) {
+						String url = crawlerData.getUrls().get(0);
+						List<String> singleUrl = new ArrayList<String>();
+						singleUrl.add(url);
+						crawlerData.setUrls(singleUrl);
+					}
+				} else {
+					// if is a realaunched crawl, extend top depth antd width
+					if (crawlerData.isRetry()) {
+						extendedDepth = crawlerData.getExtendedDepth();
+						extendedWidth = crawlerData.getExtendedWidth();
+					} else {
+						// Apply seed complex only if is not basic service an only if is not manual selection
+						if (crawlerData.getIdCrawling() > 0 && crawlerData.getUrls().size() == 1) {
+							try {
+								Seed s = RastreoDAO.getSeedFromCrawling(DataBaseManager.getConnection(), crawlerData.getIdCrawling());
+								if (s != null) {
+									depth = s.getDepth();
+									width = s.getWidth();
+									// Set to recursive calls
+									crawlerData.setTopN(width);
+									crawlerData.setProfundidad(depth);
+								}
+							} catch (Exception e) {
+								Logger.putLog("Error al obtener la complejidad de la semilla del rastreo id=" + crawlerData.getIdCrawling(), CrawlerJob.class, Logger.LOG_LEVEL_ERROR, e);
+							}
 						}
-					} catch (Exception e) {
-						Logger.putLog("Error al obtener la complejidad de la semilla del rastreo id=" + crawlerData.getIdCrawling(), CrawlerJob.class, Logger.LOG_LEVEL_ERROR, e);
 					}
 				}
-			}
-		}
-		// Make crawl
-		for (String url : crawlerData.getUrls()) {
-			String domain = null;
-			// Additional URL filter
-			if (url != null && !url.isEmpty() && !url.toLowerCase().startsWith("javascript") && !url.toLowerCase().startsWith("mailto") && !url.toLowerCase().startsWith("tel")
-					&& !url.toLowerCase().endsWith(".doc") && !url.endsWith(".epub") && !url.endsWith(".xml") && !url.endsWith(".xls") && !url.endsWith(".wsdl")) {
-				try {
-					HttpURLConnection connection = CrawlerUtils.getConnection(url, null, false);
-					updateTimeouts(crawlerData, connection);
-					int numRetries = 0;
-					int numRedirections = 0;
-					int responseCode = Integer.MAX_VALUE;
-					while ((numRetries < maxNumRetries) && (responseCode >= HttpURLConnection.HTTP_MULT_CHOICE) && (numRedirections < maxNumRedirections)) {
-						url = connection.getURL().toString();
-						connection.connect();
-						responseCode = connection.getResponseCode();
-						if (numRedirections == 0) {
-							cookie = CrawlerUtils.getCookie(connection);
-						}
-						if (responseCode < HttpURLConnection.HTTP_MULT_CHOICE && !contains(crawlingDomains, url) && !CrawlerUtils.isOpenDNSResponse(connection)) {
-							// Si hay redirecciones, puede que el dominio cambie
-							domain = connection.getURL().getHost();
-							HttpURLConnection generateRendererConnection = CrawlerUtils.generateRendererConnection(url, domain);
-							updateTimeouts(crawlerData, generateRendererConnection);
-							final InputStream markableInputStream = CrawlerUtils.getMarkableInputStream(generateRendererConnection);
-							generateRendererConnection = CrawlerUtils.generateRendererConnection(url, domain);
-							updateTimeouts(crawlerData, generateRendererConnection);
-							final String textContent = CrawlerUtils.getTextContent(generateRendererConnection, markableInputStream);
-							markableInputStream.reset();
-							// Recuerar el charset
-							final String charset = CrawlerUtils.getCharset(connection, markableInputStream);
-							markableInputStream.close();
-							final Document document = CrawlerDOMUtils.getDocument(textContent);
-							final String metaRedirect = CrawlerDOMUtils.getMetaRedirect(url, document);
-							if (checkIfContentIsNotHTML(textContent)) {
-								Logger.putLog(String.format("La url %s ha sido rechazada por ser un RSS", url), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-								rejectedDomains.add(url);
-							} else if (StringUtils.isEmpty(metaRedirect)) {
-								final String textContentHash = CrawlerUtils.getHash(textContent);
-								// Si no está ya incluida en el rastreo
-								if (!md5Content.contains(textContentHash)) {
-									final CrawledLink crawledLink = new CrawledLink(url, textContent, numRetries, numRedirections);
-									// Propagar el charset
-									crawledLink.setCharset(charset);
-									crawlingDomains.add(crawledLink);
-									md5Content.add(textContentHash);
-									Logger.putLog(String.format("Introducida la URL número %d: %s", crawlingDomains.size(), url), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-									if (depth > 1 || width != 1) {
-										// Si se trata de un observatorio, o la
-										// petición viene del servicio básico
-										if (crawlerData.getIdObservatory() != 0 || crawlerData.getIdCrawling() < 0) {
-											// Cogemos lista de idiomas para no
-											// coger enlaces de cambio de idioma
-											ignoredLinks = Utils.getIgnoredLinks();
+				// Las páginas se analizan a medida que se rastrean
+				startAnalysis(crawlerData);
+				// Make crawl
+				for (String url : crawlerData.getUrls()) {
+					String domain = null;
+					// Additional URL filter
+					if (url != null && !url.isEmpty() && !url.toLowerCase().startsWith("javascript") && !url.toLowerCase().startsWith("mailto") && !url.toLowerCase().startsWith("tel")
+							&& !url.toLowerCase().endsWith(".doc") && !url.endsWith(".epub") && !url.endsWith(".xml") && !url.endsWith(".xls") && !url.endsWith(".wsdl")) {
+						try {
+							FetchedPage page = pageFetcher.fetch(url, null, null, false, true);
+							int numRetries = 0;
+							int numRedirections = 0;
+							int responseCode = Integer.MAX_VALUE;
+							while ((numRetries < maxNumRetries) && (responseCode >= HttpURLConnection.HTTP_MULT_CHOICE) && (numRedirections < maxNumRedirections)) {
+								url = page.getUrl();
+								responseCode = page.getResponseCode();
+								if (numRedirections == 0) {
+									cookie = CrawlerUtils.getCookie(page.getHeaders());
+									analysisPipeline.setCookie(cookie);
+								}
+								if (responseCode < HttpURLConnection.HTTP_MULT_CHOICE && !crawledUrls.contains(url) && !CrawlerUtils.isOpenDNSResponse(page)) {
+									// Si hay redirecciones, puede que el dominio cambie
+									domain = new URL(url).getHost();
+									final FetchedPage renderedPage = pageFetcher.render(url, domain);
+									final String textContent = renderedPage.getTextContent();
+									// Recuerar el charset
+									final String charset = CrawlerUtils.getCharset(page.getHeaderField("Content-type"), renderedPage.getInputStream());
+									final Document document = renderedPage.getDocument();
+									final String metaRedirect = CrawlerDOMUtils.getMetaRedirect(url, document);
+									if (checkIfContentIsNotHTML(textContent)) {
+										Logger.putLog(String.format("La url %s ha sido rechazada por ser un RSS", url), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+										rejectedDomains.add(url);
+									} else if (StringUtils.isEmpty(metaRedirect)) {
+										final String textContentHash = CrawlerUtils.getHash(textContent);
+										// Si no está ya incluida en el rastreo
+										if (!md5Content.contains(textContentHash)) {
+											final CrawledLink crawledLink = new CrawledLink(url, textContent, numRetries, numRedirections);
+											// Propagar el charset
+											crawledLink.setCharset(charset);
+											addCrawledLink(crawledLink);
+											md5Content.add(textContentHash);
+											Logger.putLog(String.format("Introducida la URL número %d: %s", crawlingDomains.size(), url), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+											if (depth > 1 || width != 1) {
+												// Si se trata de un observatorio, o la
+												// petición viene del servicio básico
+												if (crawlerData.getIdObservatory() != 0 || crawlerData.getIdCrawling() < 0) {
+													// Cogemos lista de idiomas para no
+													// coger enlaces de cambio de idioma
+													ignoredLinks = Utils.getIgnoredLinks();
+												}
+												crawlerData.setCheckFormPage(true);
+												crawlerData.setCheckTablePage(true);
+												crawlFrontier(domain, url, cookie, crawlerData, ignoredLinks);
+											}
+										} else {
+											Logger.putLog(String.format("La url %s ha sido rechazada por estar incluida en el rastreo", url), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+											rejectedDomains.add(url);
 										}
-										crawlerData.setCheckFormPage(true);
-										crawlerData.setCheckTablePage(true);
-										makeCrawl(domain, url, url, cookie, crawlerData, ignoredLinks);
+									} else {
+										numRedirections++;
+										page = pageFetcher.followRedirection(cookie, new URL(url), metaRedirect);
+										responseCode = Integer.MAX_VALUE;
 									}
+								} else if (responseCode >= HttpURLConnection.HTTP_MULT_CHOICE && responseCode < HttpURLConnection.HTTP_BAD_REQUEST) {
+									numRedirections++;
+									page = pageFetcher.followRedirection(cookie, new URL(url), page.getHeaderField("location"));
 								} else {
-									Logger.putLog(String.format("La url %s ha sido rechazada por estar incluida en el rastreo", url), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-									rejectedDomains.add(url);
-								}
-							} else {
-								numRedirections++;
-								connection = CrawlerUtils.followRedirection(cookie, new URL(url), metaRedirect);
-								responseCode = Integer.MAX_VALUE;
-							}
-						} else if (responseCode >= HttpURLConnection.HTTP_MULT_CHOICE && responseCode < HttpURLConnection.HTTP_BAD_REQUEST) {
-							numRedirections++;
-							connection = CrawlerUtils.followRedirection(cookie, new URL(url), connection.getHeaderField("location"));
-						} else {
-							if (CrawlerUtils.isOpenDNSResponse(connection)) {
-								Logger.putLog("La URL solicitada ha provocado la respuesta del OpenDNS", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-								if ((numRetries < maxNumRetries - 1) && (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST)) {
-									Thread.sleep(timeRetry);
-								}
-								numRetries++;
-							} else if (contains(crawlingDomains, url)) {
-								Logger.putLog(String.format("La url %s ha sido rechazada por estar incluida en el rastreo", url), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-								rejectedDomains.add(url);
-							} else {
-								Logger.putLog(String.format("No se ha podido acceder a la raiz del rastreo configurado %s ya que ha respondido con el código %d", url, responseCode), CrawlerJob.class,
-										Logger.LOG_LEVEL_INFO);
-								if (numRetries < maxNumRetries - 1) {
-									Thread.sleep(timeRetry);
+									if (CrawlerUtils.isOpenDNSResponse(page)) {
+										Logger.putLog("La URL solicitada ha provocado la respuesta del OpenDNS", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+										if ((numRetries < maxNumRetries - 1) && (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST)) {
+											Thread.sleep(timeRetry);
+										}
+										numRetries++;
+									} else if (crawledUrls.contains(url)) {
+										Logger.putLog(String.format("La url %s ha sido rechazada por estar incluida en el rastreo", url), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+										rejectedDomains.add(url);
+									} else {
+										Logger.putLog(String.format("No se ha podido acceder a la raiz del rastreo configurado %s ya que ha respondido con el código %d", url, responseCode), CrawlerJob.class,
+												Logger.LOG_LEVEL_INFO);
+										if (numRetries < maxNumRetries - 1) {
+											Thread.sleep(timeRetry);
+										}
+										numRetries++;
+									}
 								}
-								numRetries++;
 							}
-						}
-					}
-					connection.disconnect();
-					Collections.reverse(auxDomains);
-					for (String auxDomain : auxDomains) {
-						try {
-							if ((!interrupt) && (crawlingDomains.size() <= (depth * width))) {
-								if (!contains(crawlingDomains, auxDomain) && !rejectedDomains.contains(auxDomain)) {
-									isLinkToAdd(url, domain, auxDomain, cookie, null, crawlerData, false, ignoredLinks, false, false);
-								}
-							} else {
-								break;
+							addAuxiliaryDomains(url, domain, cookie, crawlerData, ignoredLinks, depth * width);
+							pageFetcher.logStatistics(url);
+							Logger.putLog(String.format("Terminado el rastreo para %s, se han recogido %d enlaces: ", url, crawlingDomains.size()), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+							for (CrawledLink crawledLink : crawlingDomains) {
+								Logger.putLog(crawledLink.getUrl(), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
 							}
 						} catch (Exception e) {
-							Logger.putLog(String.format("Error al intentar introducir la url auxiliar %s: %s", auxDomain, e.getMessage()), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+							Logger.putLog(String.format("Error al rastrear el dominio %s: %s", url, e.getMessage()), CrawlerJob.class, Logger.LOG_LEVEL_INFO, e);
 						}
+					} else {
+						Logger.putLog("Rechazada la url " + url, CrawlerJob.class, Logger.LOG_LEVEL_INFO);
 					}
-					Logger.putLog(String.format("Terminado el rastreo para %s, se han recogido %d enlaces: ", url, crawlingDomains.size()), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-					for (CrawledLink crawledLink : crawlingDomains) {
-						Logger.putLog(crawledLink.getUrl(), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-					}
-				} catch (Exception e) {
-					Logger.putLog(String.format("Error al rastrear el dominio %s: %s", url, e.getMessage()), CrawlerJob.class, Logger.LOG_LEVEL_INFO, e);
 				}
-			} else {
-				Logger.putLog("Rechazada la url " + url, CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+			} finally {
+				// Las comprobaciones de enlaces pendientes no deben sobrevivir al rastreo
+				linkExecutor.shutdownNow();
 			}
+			// Avisa si se han rastreado menos páginas de las debidas y no es un
+			// crawling de 'test'
+			if (!crawlerData.isTest() && incompleteCrawl(crawlerData, depth)) {
+				warnIncompleteCrawl(crawlerData);
+			}
+			// Esperamos a que terminen los análisis de las páginas rastreadas
+			analysisPipeline.finish();
+		} finally {
+			// También si el rastreo falla o se interrumpe
+			closeAnalysis();
 		}
-		// Avisa si se han rastreado menos páginas de las debidas y no es un
-		// crawling de 'test'
-		if (!crawlerData.isTest() && incompleteCrawl(crawlerData, depth)) {
-			warnIncompleteCrawl(crawlerData);
-		}
-		// Llamamos al analizador
-		analyze(crawlingDomains, crawlerData, cookie);
 	}
 
 	/**
@@ -625,12 +618,11 @@ public class CrawlerJob implements InterruptableJob {
 			String proxyActive = "";
 			String proxyHttpHost = "";
 			String proxyHttpPort = "";
-			try (Connection c = DataBaseManager.getConnection()) {
-				ProxyForm proxy = ProxyDAO.getProxy(c);
+			try {
+				ProxyForm proxy = ProxySettingsCache.getProxy();
 				proxyActive = proxy.getStatus() > 0 ? "true" : "false";
 				proxyHttpHost = proxy.getUrl();
 				proxyHttpPort = proxy.getPort();
-				DataBaseManager.closeConnection(c);
 			} catch (Exception e) {
 				Logger.putLog("Error: ", CrawlerUtils.class, Logger.LOG_LEVEL_ERROR, e);
 			}
@@ -698,6 +690,29 @@ public class CrawlerJob implements InterruptableJob {
 		return null;
 	}
 
+	/**
+	 * Arranca el análisis de las páginas del rastreo.
+	 *
+	 * @param crawlerData the crawler data
+	 */
+	private void startAnalysis(final CrawlerData crawlerData) {
+		analysisPipeline = AnalysisPipeline.start(crawlerData);
+		// La interrupción puede haberse pedido antes de arrancar el análisis
+		if (interrupt) {
+			analysisPipeline.cancel();
+		}
+	}
+
+	/**
+	 * Libera los hilos de análisis del rastreo y los resultados de la verificación de enlaces compartidos entre sus páginas.
+	 */
+	private void closeAnalysis() {
+		final AnalysisPipeline pipeline = analysisPipeline;
+		if (pipeline != null) {
+			pipeline.close();
+		}
+	}
+
 	/**
 	 * Analiza los datos recopilados.
 	 *
@@ -706,86 +721,16 @@ public class CrawlerJob implements InterruptableJob {
 	 * @param cookie         the cookie
 	 */
 	private void analyze(final List<CrawledLink> analyzeDomains, final CrawlerData crawlerData, final String cookie) {
-		final PropertiesManager pmgr = new PropertiesManager();
-		final DateFormat df = new SimpleDateFormat(pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, "crawler.date.format"));
-		int cont = 0;
-		final WebAnalayzer webAnalyzer = new WebAnalayzer();
-		Date initFullDate = new Date();
-		String urlRastreo = (crawlerData.getUrls() != null && !crawlerData.getUrls().isEmpty()) ? crawlerData.getUrls().get(0) : "";
-		Logger.putLog("[A] Iniciando los análisis del rastreo id: " + crawlerData.getIdCrawling() + " (" + urlRastreo + ")", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-		try (Connection connection = DataBaseManager.getConnection()) {
-			// If it comes from the diagnostic service the trace ID is negative
-			ObservatoryStatus estado = null;
-			if (crawlerData.getIdCrawling() > 0) {
-				ExtraInfo extra = RastreoDAO.getExtraInfo(DataBaseManager.getConnection(), crawlerData.getIdFulfilledCrawling());
-				// Putting the tracking information into a database
-				estado = EstadoObservatorioDAO.findEstadoObservatorio(connection, (int) crawlerData.getIdObservatory(), extra.getIdEjecucionObservatorio());
-				estado.setIdObservatorio((int) crawlerData.getIdObservatory());
-				estado.setIdEjecucionObservatorio(extra.getIdEjecucionObservatorio());
-				estado.setNombre(extra.getNombreLista());
-				estado.setUrl(crawlerData.getUrls().get(0));
-				estado.setUltimaUrl(crawlerData.getUrls().get(0));
-				estado.setActualUrl(crawlerData.getUrls().get(0));
-				estado.setTotalUrl(crawlingDomains.size());
-				estado.setFechaUltimaUrl(null);
-				estado.setTiempoMedio(0);
-				estado.setTiempoAcumulado(0);
-				estado.setTotalUrlAnalizadas(0);
-				estado.setTiempoEstimado(0);
-				estado.setId(EstadoObservatorioDAO.updateEstado(connection, estado));
-			}
-			DataBaseManager.closeConnection(connection);
+		try {
+			startAnalysis(crawlerData);
+			analysisPipeline.setCookie(cookie);
 			for (CrawledLink crawledLink : analyzeDomains) {
-				// Logs of start and end of analysis
-				// Points to save date data, summary of the status of the observatory
-				Date initDate = new Date();
-				Logger.putLog("[I] Iniciando análisis del enlace número " + (cont + 1) + "/" + analyzeDomains.size() + " (" + crawledLink.getUrl() + ")", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-				try (Connection connection2 = DataBaseManager.getConnection()) {
-					// If it comes from the diagnostic service the trace ID is negative
-					if (crawlerData.getIdCrawling() > 0) {
-						estado.setActualUrl(crawledLink.getUrl());
-						EstadoObservatorioDAO.updateEstado(connection2, estado);
-					}
-					DataBaseManager.closeConnection(connection2);
-				} catch (Exception e) {
-					Logger.putLog("No se ha podido registrar el estado el análisis actual", CrawlerJob.class, Logger.LOG_LEVEL_ERROR, e);
-				}
-				if (!interrupt && (crawlerData.getCartuchos() != null && crawlerData.getCartuchos().length > 0)) {
-					final boolean isLast = (cont >= analyzeDomains.size() - 1);
-					webAnalyzer.runCartuchos(crawledLink, df.format(initDate), crawlerData, cookie, isLast);
-				} else {
-					// If an interruption is requested, the analyses are abandoned
-					break;
-				}
-				Date endDate = new Date();
-				Logger.putLog("[F] Finalizado análisis del enlace número " + (cont + 1) + "/" + analyzeDomains.size() + " (" + crawledLink.getUrl() + ")", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-				Logger.putLog(
-						"Tiempo empleado:  " + (endDate.getTime() - initDate.getTime()) / 1000 + " segundos. Tiempo acumulado: " + (endDate.getTime() - initFullDate.getTime()) / 1000 + " segundos",
-						CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-				cont++;
-				// We update the status
-				try (Connection connection2 = DataBaseManager.getConnection()) {
-					// If it comes from the diagnostic service the trace ID is negative
-					if (crawlerData.getIdCrawling() > 0) {
-						// To prevent that sometimes you don't keep the right number, we also update it
-						estado.setTotalUrl(analyzeDomains.size());
-						estado.setUltimaUrl(crawledLink.getUrl());
-						estado.setFechaUltimaUrl(endDate);
-						estado.setTiempoMedio(((endDate.getTime() - initFullDate.getTime()) / cont) / 1000);
-						estado.setTiempoAcumulado((endDate.getTime() - initFullDate.getTime()) / 1000);
-						estado.setTotalUrlAnalizadas(cont);
-						EstadoObservatorioDAO.updateEstado(connection2, estado);
-					}
-					DataBaseManager.closeConnection(connection2);
-				} catch (Exception e) {
-					Logger.putLog("No se ha podido registrar el estado el análisis actual", CrawlerJob.class, Logger.LOG_LEVEL_ERROR, e);
-				}
+				analysisPipeline.submit(crawledLink);
 			}
-			Date endFullDate = new Date();
-			Logger.putLog("[A] Finalizado los análisis del rastreo id: " + crawlerData.getIdCrawling() + " (" + urlRastreo + ")" + " tiempo empleado:  "
-					+ (endFullDate.getTime() - initFullDate.getTime()) / 1000 + " segundos", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-		} catch (Exception e) {
-			Logger.putLog("No se ha podido registrar el estado el análisis actual", CrawlerJob.class, Logger.LOG_LEVEL_ERROR, e);
+			analysisPipeline.finish();
+		} finally {
+			// También si el análisis falla o se interrumpe
+			closeAnalysis();
 		}
 	}
 
@@ -799,42 +744,100 @@ public class CrawlerJob implements InterruptableJob {
 	 * @return true, if is valid url
 	 */
 	private boolean isValidUrl(final String urlRoot, final String domain, final String urlLink, final CrawlerData crawlerData) {
+		final String rejection = getRejectionReason(urlRoot, domain, urlLink, crawlerData);
+		if (rejection != null) {
+			Logger.putLog(String.format("La URL %s ha sido rechazada %s", urlLink, rejection), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Comprueba, sin registrar nada en el log, si una URL es válida para añadir al rastreo.
+	 *
+	 * @param urlRoot     the url root
+	 * @param domain      the domain
+	 * @param urlLink     the url link
+	 * @param crawlerData the crawler data
+	 * @return el motivo por el que se rechaza la URL o null si es válida
+	 */
+	private String getRejectionReason(final String urlRoot, final String domain, final String urlLink, final CrawlerData crawlerData) {
 		final PropertiesManager pmgr = new PropertiesManager();
-		if (urlLink.length() < Integer.parseInt(pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, "link.chars.max.length"))) {
-			if (crawlerData.isExhaustive() || !isOuterDomain(domain, urlLink)) {
-				if (!crawlerData.isInDirectory() || isInTheSameDirectory(urlLink, urlRoot)) {
-					if (!contains(crawlingDomains, urlLink)) {
-						if (!rejectedDomains.contains(urlLink)) {
-							if (crawlerData.getExceptions() == null || !CrawlerUtils.domainMatchs(crawlerData.getExceptions(), urlLink)) {
-								if (crawlerData.getCrawlingList() == null || CrawlerUtils.domainMatchs(crawlerData.getCrawlingList(), urlLink)) {
-									return true;
-								} else {
-									Logger.putLog(String.format("La URL %s ha sido rechazada por no estar incluida en la lista de dominio rastreable", urlLink), CrawlerJob.class,
-											Logger.LOG_LEVEL_INFO);
-								}
-							} else {
-								Logger.putLog(String.format("La URL %s ha sido rechazada por estar incluida en la lista de excepciones", urlLink), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-							}
-						} else {
-							Logger.putLog(String.format("La URL %s ha sido rechazada por haber sido rechazada previamente", urlLink), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-						}
-					} else {
-						Logger.putLog(String.format("La URL %s ha sido rechazada por estar incluida en el rastreo", urlLink), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-					}
-				} else {
-					Logger.putLog(String.format("La URL %s ha sido rechazada por no estar en el mismo directorio pedido", urlLink), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+		if (urlLink.length() >= Integer.parseInt(pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, "link.chars.max.length"))) {
+			return "por ser demasiado larga";
+		} else if (!crawlerData.isExhaustive() && isOuterDomain(domain, urlLink)) {
+			return "por ser encontrarse fuera del dominio";
+		} else if (crawlerData.isInDirectory() && !isInTheSameDirectory(urlLink, urlRoot)) {
+			return "por no estar en el mismo directorio pedido";
+		} else if (crawledUrls.contains(urlLink)) {
+			return "por estar incluida en el rastreo";
+		} else if (rejectedDomains.contains(urlLink)) {
+			return "por haber sido rechazada previamente";
+		} else if (crawlerData.getExceptions() != null && CrawlerUtils.domainMatchs(crawlerData.getExceptions(), urlLink)) {
+			return "por estar incluida en la lista de excepciones";
+		} else if (crawlerData.getCrawlingList() != null && !CrawlerUtils.domainMatchs(crawlerData.getCrawlingList(), urlLink)) {
+			return "por no estar incluida en la lista de dominio rastreable";
+		}
+		return null;
+	}
+
+	/**
+	 * Crea el pool de hilos con el que se comprueban los enlaces candidatos de cada página.
+	 *
+	 * @param pmgr the pmgr
+	 */
+	private void startLinkExecutor(final PropertiesManager pmgr) {
+		final String concurrency = pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, "crawler.link.concurrency");
+		try {
+			linkConcurrency = concurrency != null ? Math.max(1, Integer.parseInt(concurrency.trim())) : 1;
+		} catch (NumberFormatException e) {
+			Logger.putLog("Valor no válido para la propiedad crawler.link.concurrency", CrawlerJob.class, Logger.LOG_LEVEL_WARNING);
+			linkConcurrency = 1;
+		}
+		linkExecutor = Executors.newFixedThreadPool(linkConcurrency, new ThreadFactory() {
+			private final AtomicInteger counter = new AtomicInteger();
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "CrawlerJob-links-" + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Realiza el rastreo en anchura a partir de una URL raíz.
+	 * 
+	 * Las páginas aceptadas se encolan en una frontera y se expanden por orden de llegada. Cada expansión consume un nivel de profundidad, igual que hacía el rastreo recursivo, por lo que el número
+	 * de páginas recogidas sigue dependiendo de {@link CrawlerData#getProfundidad()} y {@link CrawlerData#getTopN()}.
+	 *
+	 * @param domain       the domain
+	 * @param rootUrl      the root url
+	 * @param cookie       the cookie
+	 * @param crawlerData  the crawler data
+	 * @param ignoredLinks the ignored links
+	 */
+	private void crawlFrontier(final String domain, final String rootUrl, final String cookie, final CrawlerData crawlerData, final List<IgnoredLink> ignoredLinks) {
+		final Deque<String> frontier = new ArrayDeque<>();
+		frontier.add(rootUrl);
+		while (!frontier.isEmpty() && (crawlerData.getProfundidad() > 0 || (crawlerData.isRetry() && extendedDepth > 0)) && !interrupt) {
+			final List<CrawledLink> levelLinks = expandPage(domain, rootUrl, frontier.poll(), cookie, crawlerData, ignoredLinks);
+			if (levelLinks != null) {
+				crawlerData.setProfundidad(crawlerData.getProfundidad() - 1);
+				// Control retry depth
+				if (crawlerData.isRetry()) {
+					extendedDepth--;
+				}
+				for (CrawledLink levelLink : levelLinks) {
+					frontier.add(levelLink.getUrl());
 				}
-			} else {
-				Logger.putLog(String.format("La URL %s ha sido rechazada por ser encontrarse fuera del dominio", urlLink), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
 			}
-		} else {
-			Logger.putLog(String.format("La URL %s ha sido rechazada por ser demasiado larga", urlLink), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
 		}
-		return false;
 	}
 
 	/**
-	 * Realiza el rastreo completo de una URL.
+	 * Obtiene los enlaces de una página y selecciona los que se añaden al rastreo.
 	 *
 	 * @param domain       the domain
 	 * @param rootUrl      the root url
@@ -842,81 +845,217 @@ public class CrawlerJob implements InterruptableJob {
 	 * @param cookie       the cookie
 	 * @param crawlerData  the crawler data
 	 * @param ignoredLinks the ignored links
-	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @return los enlaces añadidos al rastreo desde esta página o null si no se ha podido acceder a ella
 	 */
-	private void makeCrawl(final String domain, final String rootUrl, final String url, final String cookie, final CrawlerData crawlerData, final List<IgnoredLink> ignoredLinks) throws IOException {
+	private List<CrawledLink> expandPage(final String domain, final String rootUrl, final String url, final String cookie, final CrawlerData crawlerData, final List<IgnoredLink> ignoredLinks) {
+		try {
+			if (pageFetcher.fetch(url, domain, cookie, true).getResponseCode() != HttpURLConnection.HTTP_OK) {
+				return null;
+			}
+			final FetchedPage renderedPage = pageFetcher.render(url, domain);
+			final String textContentHash = CrawlerUtils.getHash(renderedPage.getTextContent());
+			md5Content.add(textContentHash);
+			final Document document = renderedPage.getDocument();
+			final List<String> urlLinks = CrawlerDOMUtils.getDomLinks(document, ignoredLinks);
+			if (crawlerData.isPseudoaleatorio()) {
+				Collections.shuffle(urlLinks, new Random(System.currentTimeMillis()));
+			}
+			final List<String> absoluteUrlLinks = new ArrayList<>(urlLinks.size());
+			for (String urlLink : urlLinks) {
+				try {
+					absoluteUrlLinks.add(CrawlerUtils.getAbsoluteUrl(document, url, CrawlerUtils.encodeUrl(urlLink)).toString().replaceAll("\\.\\./", EMPTY_STRING));
+				} catch (Exception e) {
+					Logger.putLog("La URL " + urlLink + " del enlace encontrado ha dado problemas de conexión: " + e.getMessage(), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+				}
+			}
+			final List<CrawledLink> levelLinks = new ArrayList<>();
+			selectLinks(domain, rootUrl, absoluteUrlLinks, cookie, levelLinks, crawlerData, ignoredLinks);
+			return levelLinks;
+		} catch (Exception e) {
+			Logger.putLog("La url " + url + " ha dado problemas de conexión: " + e.getMessage(), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+			return null;
+		}
+	}
+
+	/**
+	 * Selecciona, respetando el orden de aparición, los enlaces de una página que se añaden al rastreo.
+	 * 
+	 * Los enlaces se comprueban por bloques: las peticiones de cada bloque se lanzan en paralelo y después se decide secuencialmente qué enlaces se aceptan, de modo que la amplitud, la búsqueda de
+	 * páginas con formularios o tablas y los enlaces auxiliares se comportan igual que en un rastreo secuencial.
+	 *
+	 * @param domain       the domain
+	 * @param rootUrl      the root url
+	 * @param urlLinks     los enlaces absolutos de la página
+	 * @param cookie       the cookie
+	 * @param levelLinks   lista donde se añaden los enlaces aceptados
+	 * @param crawlerData  the crawler data
+	 * @param ignoredLinks the ignored links
+	 */
+	private void selectLinks(final String domain, final String rootUrl, final List<String> urlLinks, final String cookie, final List<CrawledLink> levelLinks, final CrawlerData crawlerData,
+			final List<IgnoredLink> ignoredLinks) {
 		final PropertiesManager pmgr = new PropertiesManager();
 		final int unlimitedTopN = Integer.parseInt(pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, "amplitud.ilimitada.value"));
-		if ((crawlerData.getProfundidad() > 0 || (crawlerData.isRetry() && extendedDepth > 0)) && !interrupt) {
-//		if (crawlerData.getProfundidad() > 0 && !interrupt) {
-			final List<CrawledLink> levelLinks = new ArrayList<>();
-			final HttpURLConnection connection = CrawlerUtils.getConnection(url, domain, true);
-			try {
-				connection.setRequestProperty("Cookie", cookie);
-				connection.connect();
-				int responseCode = connection.getResponseCode();
-				if (responseCode == HttpURLConnection.HTTP_OK) {
-					final HttpURLConnection generateRendererConnection = CrawlerUtils.generateRendererConnection(url, domain);
-					updateTimeouts(crawlerData, generateRendererConnection);
-					final InputStream markableInputStream = CrawlerUtils.getMarkableInputStream(generateRendererConnection);
-					// final String textContent = CrawlerUtils.getTextContent(connection, markableInputStream);
-					final String textContent = CrawlerUtils.getTextContent(CrawlerUtils.generateRendererConnection(url, domain), markableInputStream);
-					markableInputStream.close();
-					final String textContentHash = CrawlerUtils.getHash(textContent);
-					if (!md5Content.contains(textContentHash)) {
-						md5Content.add(textContentHash);
-					}
-					final Document document = CrawlerDOMUtils.getDocument(textContent);
-					final List<String> urlLinks = CrawlerDOMUtils.getDomLinks(document, ignoredLinks);
-					if (crawlerData.isPseudoaleatorio()) {
-						Collections.shuffle(urlLinks, new Random(System.currentTimeMillis()));
+		int maxIntentosBuscarTipos = 0;
+		int cont = 0;
+		for (int index = 0; index < urlLinks.size() && !interrupt; index += linkConcurrency) {
+			final List<String> window = urlLinks.subList(index, Math.min(index + linkConcurrency, urlLinks.size()));
+			final Map<String, Future<LinkProbe>> probes;
+			if (isInWidth(crawlerData, cont, maxIntentosBuscarTipos, unlimitedTopN)) {
+				// Solo se piden los enlaces que pasan los filtros del rastreo; la
+				// decisión final se vuelve a tomar abajo con el estado actualizado
+				final List<String> candidates = new ArrayList<>(window.size());
+				for (String absoluteUrlLink : window) {
+					if (getRejectionReason(rootUrl, domain, absoluteUrlLink, crawlerData) == null) {
+						candidates.add(absoluteUrlLink);
 					}
-					int maxIntentosBuscarTipos = 0;
-					int cont = 0;
-					for (String urlLink : urlLinks) {
-						try {
-							final String absoluteUrlLink = CrawlerUtils.getAbsoluteUrl(document, url, CrawlerUtils.encodeUrl(urlLink)).toString().replaceAll("\\.\\./", EMPTY_STRING);
-							if (isValidUrl(rootUrl, domain, absoluteUrlLink, crawlerData)) {
-								if ((crawlerData.getTopN() == unlimitedTopN)
-										|| ((cont < crawlerData.getTopN() || (crawlerData.isRetry() && cont < extendedWidth)) && maxIntentosBuscarTipos < crawlerData.getMaxIntentosBuscarTipos())) {
-//								if ((crawlerData.getTopN() == unlimitedTopN) || ((cont < crawlerData.getTopN()) && maxIntentosBuscarTipos < crawlerData.getMaxIntentosBuscarTipos())) {
-									if (isLinkToAdd(rootUrl, domain, absoluteUrlLink, cookie, levelLinks, crawlerData, true, ignoredLinks, crawlerData.isCheckFormPage(),
-											crawlerData.isCheckTablePage())) {
-										cont++;
-									} else if (!auxDomains.contains(absoluteUrlLink)) {
-										// La guardamos como auxiliar
-										// para que
-										// la finalizar el reastreo se puedan
-										// incluir si no llegamos al número de
-										// URL requeridas en el rastreo y
-										// aumentamos el contador de número
-										// máximo de búsquedas
-										// de tipos para salir de este bucle
-										auxDomains.add(absoluteUrlLink);
-										maxIntentosBuscarTipos++;
-									}
-								} else if (!auxDomains.contains(absoluteUrlLink)) {
-									auxDomains.add(absoluteUrlLink);
-									cont++;
-								}
+				}
+				probes = probeLinks(candidates, domain, cookie, crawlerData.isCheckFormPage() || crawlerData.isCheckTablePage(),
+						!(crawlerData.isCheckFormPage() && crawlerData.isCheckTablePage()));
+			} else {
+				probes = Collections.emptyMap();
+			}
+			for (String absoluteUrlLink : window) {
+				try {
+					if (isValidUrl(rootUrl, domain, absoluteUrlLink, crawlerData)) {
+						if (isInWidth(crawlerData, cont, maxIntentosBuscarTipos, unlimitedTopN)) {
+							if (isLinkToAdd(rootUrl, domain, absoluteUrlLink, getProbe(probes, absoluteUrlLink), cookie, levelLinks, crawlerData, true, ignoredLinks,
+									crawlerData.isCheckFormPage(), crawlerData.isCheckTablePage())) {
+								cont++;
+							} else if (!auxDomains.contains(absoluteUrlLink)) {
+								// La guardamos como auxiliar para que al finalizar el
+								// rastreo se puedan incluir si no llegamos al número de
+								// URL requeridas en el rastreo y aumentamos el contador
+								// de número máximo de búsquedas de tipos para salir de
+								// este bucle
+								auxDomains.add(absoluteUrlLink);
+								maxIntentosBuscarTipos++;
 							}
-						} catch (Exception e) {
-							Logger.putLog("La URL " + urlLink + " del enlace encontrado ha dado problemas de conexión: " + e.getMessage(), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+						} else if (!auxDomains.contains(absoluteUrlLink)) {
+							auxDomains.add(absoluteUrlLink);
+							cont++;
 						}
 					}
-					crawlerData.setProfundidad(crawlerData.getProfundidad() - 1);
-					// Control retry depth
-					if (crawlerData.isRetry()) {
-						extendedDepth--;
+				} catch (Exception e) {
+					Logger.putLog("La URL " + absoluteUrlLink + " del enlace encontrado ha dado problemas de conexión: " + e.getMessage(), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Comprueba si aún no se ha alcanzado la amplitud de la página que se está expandiendo.
+	 *
+	 * @param crawlerData            the crawler data
+	 * @param cont                   número de enlaces contabilizados
+	 * @param maxIntentosBuscarTipos número de intentos de búsqueda de páginas con formularios o tablas
+	 * @param unlimitedTopN          valor de amplitud ilimitada
+	 * @return true, if is in width
+	 */
+	private boolean isInWidth(final CrawlerData crawlerData, final int cont, final int maxIntentosBuscarTipos, final int unlimitedTopN) {
+		return (crawlerData.getTopN() == unlimitedTopN)
+				|| ((cont < crawlerData.getTopN() || (crawlerData.isRetry() && cont < extendedWidth)) && maxIntentosBuscarTipos < crawlerData.getMaxIntentosBuscarTipos());
+	}
+
+	/**
+	 * Completa el rastreo con los enlaces auxiliares si no se ha alcanzado el número de páginas requerido.
+	 *
+	 * @param url          the url
+	 * @param domain       the domain
+	 * @param cookie       the cookie
+	 * @param crawlerData  the crawler data
+	 * @param ignoredLinks the ignored links
+	 * @param maxLinks     número de páginas a partir del cual no se añaden más enlaces
+	 */
+	private void addAuxiliaryDomains(final String url, final String domain, final String cookie, final CrawlerData crawlerData, final List<IgnoredLink> ignoredLinks, final int maxLinks) {
+		final List<String> candidates = new ArrayList<>(auxDomains);
+		Collections.reverse(candidates);
+		for (int index = 0; index < candidates.size() && !interrupt && crawlingDomains.size() <= maxLinks; index += linkConcurrency) {
+			final List<String> window = candidates.subList(index, Math.min(index + linkConcurrency, candidates.size()));
+			final Map<String, Future<LinkProbe>> probes = probeLinks(window, domain, cookie, false, true);
+			for (String auxDomain : window) {
+				try {
+					if ((!interrupt) && (crawlingDomains.size() <= maxLinks)) {
+						if (!crawledUrls.contains(auxDomain) && !rejectedDomains.contains(auxDomain)) {
+							isLinkToAdd(url, domain, auxDomain, getProbe(probes, auxDomain), cookie, null, crawlerData, false, ignoredLinks, false, false);
+						}
+					} else {
+						return;
 					}
-					for (CrawledLink levelLink : levelLinks) {
-						makeCrawl(domain, rootUrl, levelLink.getUrl(), cookie, crawlerData, ignoredLinks);
+				} catch (Exception e) {
+					Logger.putLog(String.format("Error al intentar introducir la url auxiliar %s: %s", auxDomain, e.getMessage()), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Lanza en paralelo las peticiones de un bloque de enlaces candidatos.
+	 * 
+	 * Solo se piden los enlaces que con el estado actual del rastreo podrían llegar a añadirse. Las peticiones no modifican el estado del rastreo, que se actualiza después al decidir sobre cada enlace.
+	 *
+	 * @param urlLinks   los enlaces candidatos
+	 * @param domain     the domain
+	 * @param cookie     the cookie
+	 * @param loadTypes  si se debe obtener el DOM para buscar formularios y tablas
+	 * @param loadAccess si se debe acceder al contenido de la página
+	 * @return las peticiones lanzadas indexadas por URL
+	 */
+	private Map<String, Future<LinkProbe>> probeLinks(final List<String> urlLinks, final String domain, final String cookie, final boolean loadTypes, final boolean loadAccess) {
+		final Map<String, Future<LinkProbe>> probes = new HashMap<>();
+		if (domain == null) {
+			return probes;
+		}
+		for (final String urlLink : urlLinks) {
+			try {
+				if (!probes.containsKey(urlLink) && !crawledUrls.contains(urlLink) && !rejectedDomains.contains(urlLink)) {
+					// Si ya hay una página del mismo directorio la URL no pasará a
+					// la comprobación de acceso
+					final boolean access = loadAccess && !isSameDirectoryCrawled(domain, urlLink);
+					if (loadTypes || access) {
+						probes.put(urlLink, linkExecutor.submit(new Callable<LinkProbe>() {
+							@Override
+							public LinkProbe call() {
+								final LinkProbe probe = new LinkProbe();
+								if (loadTypes) {
+									probe.loadTypes(domain, urlLink, cookie);
+								}
+								if (access) {
+									probe.loadHtml(domain, urlLink, cookie);
+									if (probe.htmlError == null && probe.isHtml()) {
+										probe.loadAccess(domain, urlLink, cookie);
+									}
+								}
+								return probe;
+							}
+						}));
 					}
 				}
 			} catch (Exception e) {
-				Logger.putLog("La url " + url + " ha dado problemas de conexión: " + e.getMessage(), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+				// Se comprobará de forma secuencial
+				Logger.putLog("No se ha podido comprobar en paralelo la URL " + urlLink, CrawlerJob.class, Logger.LOG_LEVEL_INFO);
 			}
 		}
+		return probes;
+	}
+
+	/**
+	 * Obtiene el resultado de la petición de un enlace o una petición vacía si no se lanzó.
+	 *
+	 * @param probes  the probes
+	 * @param urlLink the url link
+	 * @return the probe
+	 * @throws InterruptedException the interrupted exception
+	 */
+	private LinkProbe getProbe(final Map<String, Future<LinkProbe>> probes, final String urlLink) throws InterruptedException {
+		final Future<LinkProbe> future = probes.get(urlLink);
+		if (future != null) {
+			try {
+				return future.get();
+			} catch (ExecutionException e) {
+				Logger.putLog("Error al comprobar en paralelo la URL " + urlLink, CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+			}
+		}
+		return new LinkProbe();
 	}
 
 	/**
@@ -925,6 +1064,7 @@ public class CrawlerJob implements InterruptableJob {
 	 * @param rootUrl           the root url
 	 * @param domain            the domain
 	 * @param urlLink           the url link
+	 * @param probe             las peticiones ya realizadas al enlace
 	 * @param cookie            the cookie
 	 * @param levelLinks        the level links
 	 * @param crawlerData       the crawler data
@@ -935,14 +1075,14 @@ public class CrawlerJob implements InterruptableJob {
 	 * @return true, if is link to add
 	 * @throws Exception the exception
 	 */
-	private boolean isLinkToAdd(String rootUrl, String domain, String urlLink, String cookie, List<CrawledLink> levelLinks, CrawlerData crawlerData, boolean addAuxiliaryLinks,
+	private boolean isLinkToAdd(String rootUrl, String domain, String urlLink, LinkProbe probe, String cookie, List<CrawledLink> levelLinks, CrawlerData crawlerData, boolean addAuxiliaryLinks,
 			List<IgnoredLink> ignoredLinks, boolean checkIsFormPage, boolean checkIsTablePage) throws Exception {
 		boolean ckecks = checkIsFormPage && checkIsTablePage;
 		boolean isFormPage = false;
 		boolean isTablePage = false;
 		// Comprobar si es necesario buscar de tipos indicados
 		if (checkIsFormPage || checkIsTablePage) {
-			Document doc = loadDocumentFromURL(domain, urlLink, cookie);
+			Document doc = loadDocumentFromURL(domain, urlLink, cookie, probe);
 			if (checkIsFormPage && doc != null && doc.getElementsByTagName("form") != null && doc.getElementsByTagName("form").getLength() != 0) {
 				isTablePage = true;
 				// Quitamos el flag ya que ya hemos encontrado al menos una
@@ -969,7 +1109,7 @@ public class CrawlerJob implements InterruptableJob {
 		}
 		// En caso contrario (no hay otra del mismo directorio y pasó los
 		// checks) seguimos con las comprobaciones
-		return isHtmlTextContent(domain, urlLink, cookie) && hasAccessToUrl(rootUrl, domain, urlLink, cookie, levelLinks, crawlerData, addAuxiliaryLinks, ignoredLinks);
+		return isHtmlTextContent(domain, urlLink, cookie, probe) && hasAccessToUrl(rootUrl, domain, urlLink, cookie, probe, levelLinks, crawlerData, addAuxiliaryLinks, ignoredLinks);
 	}
 
 	/**
@@ -982,13 +1122,25 @@ public class CrawlerJob implements InterruptableJob {
 	 * @return true si ya existe otra URL del mismo directorio. false en caso contrario.
 	 */
 	private boolean checkIsSameDirectory(String domain, String urlLink) {
-		boolean crawledLinkSameDirectory = false;
+		final boolean crawledLinkSameDirectory = isSameDirectoryCrawled(domain, urlLink);
+		if (crawledLinkSameDirectory) {
+			Logger.putLog("*******  La URL " + urlLink + " se ha descartado inicialmente por existir otras en el mismo directorio.", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+		}
+		return crawledLinkSameDirectory;
+	}
+
+	/**
+	 * Comprueba, sin registrar nada en el log, si existe una URL rastreada del mismo directorio que la URL dada.
+	 *
+	 * @param domain  Dominio de la página.
+	 * @param urlLink URL a comprobar
+	 * @return true si ya existe otra URL del mismo directorio. false en caso contrario.
+	 */
+	private boolean isSameDirectoryCrawled(String domain, String urlLink) {
 		// Es un directorio del que ya tenemos alguna página
 		// Si es la raiz va a descartar todo
 		// URLs en directorio
 		if (urlLink.lastIndexOf("/") > 0) {
-			// String directorio = urlLink.substring(0,
-			// urlLink.lastIndexOf("/") + 1);
 			String part1 = urlLink.substring(0, urlLink.indexOf(domain) + domain.length());
 			String dirTmp = urlLink.substring(urlLink.indexOf(part1) + part1.length());
 			String dirTmp2 = dirTmp.indexOf("/") != -1 ? dirTmp.substring(dirTmp.indexOf("/") + 1) : "";
@@ -996,16 +1148,10 @@ public class CrawlerJob implements InterruptableJob {
 			// Si el patrón está en la lista este de descarta temporalmente
 			// Si el directorio no la raiz
 			if (!StringUtils.isEmpty(directorio)) {
-				for (CrawledLink link : crawlingDomains) {
-					if (link != null && !StringUtils.isEmpty(link.getUrl()) && link.getUrl().startsWith(directorio)) {
-						crawledLinkSameDirectory = true;
-						Logger.putLog("*******  La URL " + urlLink + " se ha descartado inicialmente por existir otras en el mismo directorio.", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-						break;
-					}
-				}
+				return crawledUrls.containsPrefix(directorio);
 			}
 		}
-		return crawledLinkSameDirectory;
+		return false;
 	}
 
 	/**
@@ -1014,45 +1160,57 @@ public class CrawlerJob implements InterruptableJob {
 	 * @param domain  the domain
 	 * @param urlLink the url link
 	 * @param cookie  the cookie
+	 * @param probe   las peticiones ya realizadas al enlace
+	 * @return the document
+	 * @throws Exception the exception
+	 */
+	private Document loadDocumentFromURL(String domain, String urlLink, String cookie, LinkProbe probe) throws Exception {
+		if (!probe.typesLoaded) {
+			probe.loadTypes(domain, urlLink, cookie);
+		}
+		if (probe.typesError != null) {
+			throw probe.typesError;
+		}
+		if (probe.typesResponseCode != HttpURLConnection.HTTP_OK) {
+			Logger.putLog(String.format("La url %s ha sido rechazada por devolver el código %d", urlLink, probe.typesResponseCode), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+			rejectedDomains.add(urlLink);
+		}
+		return probe.typesDocument;
+	}
+
+	/**
+	 * Parsea el DOM de una página ya descargada.
+	 *
+	 * @param page    la respuesta de la URL
+	 * @param urlLink the url link
 	 * @return the document
 	 * @throws IOException Signals that an I/O exception has occurred.
-	 * @throws Exception   the exception
 	 */
-	private Document loadDocumentFromURL(String domain, String urlLink, String cookie) throws IOException, Exception {
+	private static Document parseDocument(final FetchedPage page, final String urlLink) throws IOException {
 		Document doc = null;
-		final HttpURLConnection connection = CrawlerUtils.getConnection(urlLink, domain, true);
-		connection.setRequestProperty("Cookie", cookie);
-		connection.connect();
-		int responseCode = connection.getResponseCode();
-		if (responseCode == HttpURLConnection.HTTP_OK) {
-			if (connection.getHeaderField("content-type") != null && connection.getHeaderField("content-type").contains("text/html")) {
-				CheckAccessibility checkAccessibility = new CheckAccessibility();
-				checkAccessibility.setUrl(urlLink);
-				CheckerParser parser = new CheckerParser();
-				String content = StringUtils.getContentAsString(connection.getInputStream(), "UTF-8");
-				for (int i = 0; i < 2 && doc == null; i++) {
-					content = addFinalTags(content);
-					final InputStream newInputStream = new ByteArrayInputStream(content.getBytes("UTF-8"));
-					if (newInputStream.markSupported()) {
-						newInputStream.mark(Integer.MAX_VALUE);
-					}
-					try {
-						// Reseteamos el stream para volver a analizarlo
-						newInputStream.reset();
-						final InputSource inputSource = new InputSource(newInputStream);
-						parser.parse(inputSource);
-						doc = parser.getDocument();
-					} catch (Exception e) {
-						parser = new CheckerParser(true);
-						Logger.putLog("Error al parsear al documento. Se intentará de nuevo con el balanceo de etiquetas", EvaluatorUtility.class, Logger.LOG_LEVEL_WARNING);
-					}
+		if (page.isHtml()) {
+			CheckAccessibility checkAccessibility = new CheckAccessibility();
+			checkAccessibility.setUrl(urlLink);
+			CheckerParser parser = new CheckerParser();
+			String content = StringUtils.getContentAsString(page.getInputStream(), "UTF-8");
+			for (int i = 0; i < 2 && doc == null; i++) {
+				content = addFinalTags(content);
+				final InputStream newInputStream = new ByteArrayInputStream(content.getBytes("UTF-8"));
+				if (newInputStream.markSupported()) {
+					newInputStream.mark(Integer.MAX_VALUE);
+				}
+				try {
+					// Reseteamos el stream para volver a analizarlo
+					newInputStream.reset();
+					final InputSource inputSource = new InputSource(newInputStream);
+					parser.parse(inputSource);
+					doc = parser.getDocument();
+				} catch (Exception e) {
+					parser = new CheckerParser(true);
+					Logger.putLog("Error al parsear al documento. Se intentará de nuevo con el balanceo de etiquetas", EvaluatorUtility.class, Logger.LOG_LEVEL_WARNING);
 				}
 			}
-		} else {
-			Logger.putLog(String.format("La url %s ha sido rechazada por devolver el código %d", urlLink, responseCode), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-			rejectedDomains.add(urlLink);
 		}
-		connection.disconnect();
 		return doc;
 	}
 
@@ -1084,26 +1242,28 @@ public class CrawlerJob implements InterruptableJob {
 	 * @param refererUrl cadena con la URL de la que proviene
 	 * @param urlLink    cadena la URL de la página a comprobar
 	 * @param cookie     cadena con las cookies enviadas por el servidor
+	 * @param probe      las peticiones ya realizadas al enlace
 	 * @return true si la URL corresponde a un recurso text/html o false en caso contrario
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	private boolean isHtmlTextContent(final String refererUrl, final String urlLink, final String cookie) throws IOException {
-		final HttpURLConnection connection = CrawlerUtils.getConnection(urlLink, refererUrl, true);
-		connection.setRequestProperty("Cookie", cookie);
-		connection.connect();
-		int responseCode = connection.getResponseCode();
-		if (responseCode == HttpURLConnection.HTTP_OK) {
-			if (connection.getHeaderField("content-type") != null && connection.getHeaderField("content-type").contains("text/html")) {
+	private boolean isHtmlTextContent(final String refererUrl, final String urlLink, final String cookie, final LinkProbe probe) throws IOException {
+		if (!probe.htmlLoaded) {
+			probe.loadHtml(refererUrl, urlLink, cookie);
+		}
+		if (probe.htmlError != null) {
+			throw probe.htmlError;
+		}
+		if (probe.htmlResponseCode == HttpURLConnection.HTTP_OK) {
+			if (probe.isHtml()) {
 				return true;
 			} else {
 				Logger.putLog(String.format("La url %s ha sido rechazada por no ser un documento de tipo text/html", urlLink), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
 				rejectedDomains.add(urlLink);
 			}
 		} else {
-			Logger.putLog(String.format("La url %s ha sido rechazada por devolver el código %d", urlLink, responseCode), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+			Logger.putLog(String.format("La url %s ha sido rechazada por devolver el código %d", urlLink, probe.htmlResponseCode), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
 			rejectedDomains.add(urlLink);
 		}
-		connection.disconnect();
 		return false;
 	}
 
@@ -1114,6 +1274,7 @@ public class CrawlerJob implements InterruptableJob {
 	 * @param domain            the domain
 	 * @param urlLink           the url link
 	 * @param cookie            the cookie
+	 * @param probe             las peticiones ya realizadas al enlace
 	 * @param levelLinks        the level links
 	 * @param crawlerData       the crawler data
 	 * @param addAuxiliaryLinks the add auxiliary links
@@ -1121,99 +1282,181 @@ public class CrawlerJob implements InterruptableJob {
 	 * @return true, if successful
 	 * @throws Exception the exception
 	 */
-	private boolean hasAccessToUrl(final String rootUrl, final String domain, final String urlLink, final String cookie, final List<CrawledLink> levelLinks, final CrawlerData crawlerData,
-			final boolean addAuxiliaryLinks, final List<IgnoredLink> ignoredLinks) throws Exception {
-		// Follow redirects en le primera conexión a la url
-		HttpURLConnection connection = CrawlerUtils.getConnection(urlLink, domain, true);
-		connection.setRequestProperty("Cookie", cookie);
-		int responseCode = Integer.MAX_VALUE;
-		int numRetries = 0;
-		int numRedirections = 0;
-		final PropertiesManager pmgr = new PropertiesManager();
-		final int maxNumRetries = Integer.parseInt(pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, "max.number.retries"));
-		final int maxNumRedirections = Integer.parseInt(pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, "max.number.redirections"));
-		while ((responseCode >= HttpURLConnection.HTTP_MULT_CHOICE) && (numRetries < maxNumRetries) && (numRedirections < maxNumRedirections)) {
-			final String connectedURL = connection.getURL().toString();
-			connection.connect();
-			responseCode = connection.getResponseCode();
-			if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
-				numRetries++;
-			} else if (responseCode >= HttpURLConnection.HTTP_MULT_CHOICE && responseCode < HttpURLConnection.HTTP_BAD_REQUEST) {
-				numRedirections++;
-				connection = CrawlerUtils.followRedirection(cookie, new URL(connectedURL), connection.getHeaderField("location"));
-			} else if (responseCode < HttpURLConnection.HTTP_MULT_CHOICE) {
-				// final InputStream markableInputStream = CrawlerUtils.getMarkableInputStream(connection);
-				final HttpURLConnection generateRendererConnection = CrawlerUtils.generateRendererConnection(urlLink, domain);
-				updateTimeouts(crawlerData, generateRendererConnection);
-				final InputStream markableInputStream = CrawlerUtils.getMarkableInputStream(generateRendererConnection);
-				// Generate renderer connection (applies proxy config)
-				final String remoteContent = CrawlerUtils.getTextContent(CrawlerUtils.generateRendererConnection(urlLink, domain), markableInputStream);
-				markableInputStream.close();
-				if (!CrawlerUtils.isRss(remoteContent)) {
-					final Document document = CrawlerDOMUtils.getDocument(remoteContent);
-					final String metaRedirect = CrawlerDOMUtils.getMetaRedirect(connectedURL, document);
-					if (StringUtils.isEmpty(metaRedirect)) {
-						final String remoteContentHash = CrawlerUtils.getHash(remoteContent);
-						if (isValidUrl(rootUrl, domain, connectedURL, crawlerData)) {
-							if (!md5Content.contains(remoteContentHash)) {
-								final CrawledLink crawledLink = new CrawledLink(connectedURL, remoteContent, numRetries, numRedirections);
-								if (levelLinks != null) {
-									levelLinks.add(crawledLink);
-								}
-								crawlingDomains.add(crawledLink);
-								md5Content.add(remoteContentHash);
-								Logger.putLog(String.format("Introducida la URL número %d: %s", crawlingDomains.size(), connectedURL), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-								return true;
-							} else {
-								Logger.putLog(String.format("La url %s ha sido rechazada por estar incluida en el rastreo", connectedURL), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
-								rejectedDomains.add(connectedURL);
-							}
-							if (addAuxiliaryLinks) {
-								final List<String> urlLinks = CrawlerDOMUtils.getDomLinks(document, ignoredLinks);
-								for (String urlLinkAux : urlLinks) {
-									try {
-										urlLinkAux = CrawlerUtils.getAbsoluteUrl(document, connectedURL, CrawlerUtils.encodeUrl(urlLinkAux)).toString().replaceAll("\\.\\./", EMPTY_STRING);
-										if (!auxDomains.contains(urlLinkAux)) {
-											auxDomains.add(urlLinkAux);
-										}
-									} catch (Exception e) {
-										Logger.putLog(String.format("La URL %s del enlace encontrado ha dado problemas de conexión: %s", connectedURL, e.getMessage()), CrawlerJob.class,
-												Logger.LOG_LEVEL_INFO);
-									}
-								}
+	private boolean hasAccessToUrl(final String rootUrl, final String domain, final String urlLink, final String cookie, final LinkProbe probe, final List<CrawledLink> levelLinks,
+			final CrawlerData crawlerData, final boolean addAuxiliaryLinks, final List<IgnoredLink> ignoredLinks) throws Exception {
+		if (!probe.accessLoaded) {
+			probe.loadAccess(domain, urlLink, cookie);
+		}
+		if (probe.accessError != null) {
+			throw probe.accessError;
+		}
+		final String connectedURL = probe.connectedURL;
+		if (probe.remoteContent != null) {
+			final String remoteContentHash = CrawlerUtils.getHash(probe.remoteContent);
+			if (isValidUrl(rootUrl, domain, connectedURL, crawlerData)) {
+				if (!md5Content.contains(remoteContentHash)) {
+					final CrawledLink crawledLink = new CrawledLink(connectedURL, probe.remoteContent, probe.numRetries, probe.numRedirections);
+					if (levelLinks != null) {
+						levelLinks.add(crawledLink);
+					}
+					addCrawledLink(crawledLink);
+					md5Content.add(remoteContentHash);
+					Logger.putLog(String.format("Introducida la URL número %d: %s", crawlingDomains.size(), connectedURL), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+					return true;
+				} else {
+					Logger.putLog(String.format("La url %s ha sido rechazada por estar incluida en el rastreo", connectedURL), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+					rejectedDomains.add(connectedURL);
+				}
+				if (addAuxiliaryLinks) {
+					final List<String> urlLinks = CrawlerDOMUtils.getDomLinks(probe.remoteDocument, ignoredLinks);
+					for (String urlLinkAux : urlLinks) {
+						try {
+							urlLinkAux = CrawlerUtils.getAbsoluteUrl(probe.remoteDocument, connectedURL, CrawlerUtils.encodeUrl(urlLinkAux)).toString().replaceAll("\\.\\./", EMPTY_STRING);
+							if (!auxDomains.contains(urlLinkAux)) {
+								auxDomains.add(urlLinkAux);
 							}
+						} catch (Exception e) {
+							Logger.putLog(String.format("La URL %s del enlace encontrado ha dado problemas de conexión: %s", connectedURL, e.getMessage()), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
 						}
-					} else {
-						numRedirections++;
-						connection = CrawlerUtils.followRedirection(cookie, new URL(connectedURL), metaRedirect);
-						responseCode = Integer.MAX_VALUE;
 					}
-				} else {
-					Logger.putLog(String.format("La url %s ha sido rechazada por tratarse de un RSS", connectedURL), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
 				}
-			} else {
-				Logger.putLog(String.format("La url %s ha respondido con el código %d y no se le pasara al analizador", connectedURL, responseCode), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
 			}
 		}
-		connection.disconnect();
 		return false;
 	}
 
 	/**
-	 * Update timeouts. Checks if crawler data alter default timeout
-	 *
-	 * @param crawlerData                the crawler data
-	 * @param generateRendererConnection the generate renderer connection
+	 * Peticiones realizadas a un enlace candidato.
+	 * 
+	 * Se rellenan desde los hilos del rastreo sin modificar el estado del {@link CrawlerJob}, salvo las respuestas que se guardan en el {@link PageFetcher}. Los errores de conexión se guardan para
+	 * lanzarlos cuando se decide sobre el enlace.
 	 */
-	private void updateTimeouts(final CrawlerData crawlerData, final HttpURLConnection generateRendererConnection) {
-		if (crawlerData.isExtendTimeout() && crawlerData.getExtendedTimeoutValue() != 0) {
-			generateRendererConnection.setConnectTimeout(crawlerData.getExtendedTimeoutValue() * 2);
-			generateRendererConnection.setReadTimeout(crawlerData.getExtendedTimeoutValue() * 2);
-			generateRendererConnection.addRequestProperty("extendedTimeout", String.valueOf(crawlerData.getExtendedTimeoutValue() * 2));
-		} else {
-			generateRendererConnection.setConnectTimeout(generateRendererConnection.getConnectTimeout() * 2);
-			generateRendererConnection.setReadTimeout(generateRendererConnection.getReadTimeout() * 2);
-			generateRendererConnection.addRequestProperty("extendedTimeout", String.valueOf(generateRendererConnection.getConnectTimeout() * 2));
+	private final class LinkProbe {
+		/** Indica si se ha pedido el DOM para buscar formularios y tablas. */
+		private boolean typesLoaded;
+		/** Código de respuesta de la petición del DOM. */
+		private int typesResponseCode;
+		/** DOM sin renderizar de la página. */
+		private Document typesDocument;
+		/** Error en la petición del DOM. */
+		private Exception typesError;
+		/** Indica si se ha comprobado el tipo de contenido. */
+		private boolean htmlLoaded;
+		/** Código de respuesta de la comprobación del tipo de contenido. */
+		private int htmlResponseCode;
+		/** Cabecera content-type de la respuesta. */
+		private String htmlContentType;
+		/** Error en la comprobación del tipo de contenido. */
+		private IOException htmlError;
+		/** Indica si se ha accedido al contenido de la página. */
+		private boolean accessLoaded;
+		/** Última URL a la que se ha conectado tras seguir las redirecciones. */
+		private String connectedURL;
+		/** Contenido renderizado de la página, null si no se ha podido obtener. */
+		private String remoteContent;
+		/** DOM del contenido renderizado. */
+		private Document remoteDocument;
+		/** Número de reintentos. */
+		private int numRetries;
+		/** Número de redirecciones. */
+		private int numRedirections;
+		/** Error en el acceso al contenido. */
+		private Exception accessError;
+
+		/**
+		 * Pide el DOM sin renderizar de la página.
+		 *
+		 * @param domain  the domain
+		 * @param urlLink the url link
+		 * @param cookie  the cookie
+		 */
+		private void loadTypes(final String domain, final String urlLink, final String cookie) {
+			typesLoaded = true;
+			try {
+				final FetchedPage page = pageFetcher.fetch(urlLink, domain, cookie, true);
+				typesResponseCode = page.getResponseCode();
+				if (typesResponseCode == HttpURLConnection.HTTP_OK) {
+					typesDocument = parseDocument(page, urlLink);
+				}
+			} catch (Exception e) {
+				typesError = e;
+			}
+		}
+
+		/**
+		 * Comprueba el tipo de contenido de la página.
+		 *
+		 * @param refererUrl the referer url
+		 * @param urlLink    the url link
+		 * @param cookie     the cookie
+		 */
+		private void loadHtml(final String refererUrl, final String urlLink, final String cookie) {
+			htmlLoaded = true;
+			try {
+				final FetchedPage page = pageFetcher.fetch(urlLink, refererUrl, cookie, true);
+				htmlResponseCode = page.getResponseCode();
+				htmlContentType = page.getHeaderField("content-type");
+			} catch (IOException e) {
+				htmlError = e;
+			}
+		}
+
+		/**
+		 * Checks if is html.
+		 *
+		 * @return true, if is html
+		 */
+		private boolean isHtml() {
+			return htmlResponseCode == HttpURLConnection.HTTP_OK && htmlContentType != null && htmlContentType.contains("text/html");
+		}
+
+		/**
+		 * Accede al contenido renderizado de la página siguiendo las redirecciones HTTP y las redirecciones mediante meta.
+		 *
+		 * @param domain      the domain
+		 * @param urlLink     the url link
+		 * @param cookie      the cookie
+		 */
+		private void loadAccess(final String domain, final String urlLink, final String cookie) {
+			accessLoaded = true;
+			try {
+				// Follow redirects en le primera conexión a la url
+				FetchedPage page = pageFetcher.fetch(urlLink, domain, cookie, true);
+				int responseCode = Integer.MAX_VALUE;
+				final PropertiesManager pmgr = new PropertiesManager();
+				final int maxNumRetries = Integer.parseInt(pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, "max.number.retries"));
+				final int maxNumRedirections = Integer.parseInt(pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, "max.number.redirections"));
+				while ((responseCode >= HttpURLConnection.HTTP_MULT_CHOICE) && (numRetries < maxNumRetries) && (numRedirections < maxNumRedirections)) {
+					connectedURL = page.getUrl();
+					responseCode = page.getResponseCode();
+					if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+						numRetries++;
+					} else if (responseCode >= HttpURLConnection.HTTP_MULT_CHOICE && responseCode < HttpURLConnection.HTTP_BAD_REQUEST) {
+						numRedirections++;
+						page = pageFetcher.followRedirection(cookie, new URL(connectedURL), page.getHeaderField("location"));
+					} else {
+						// Generate renderer connection (applies proxy config)
+						final FetchedPage renderedPage = pageFetcher.render(urlLink, domain);
+						final String content = renderedPage.getTextContent();
+						if (!CrawlerUtils.isRss(content)) {
+							final Document document = renderedPage.getDocument();
+							final String metaRedirect = CrawlerDOMUtils.getMetaRedirect(connectedURL, document);
+							if (StringUtils.isEmpty(metaRedirect)) {
+								remoteContent = content;
+								remoteDocument = document;
+							} else {
+								numRedirections++;
+								page = pageFetcher.followRedirection(cookie, new URL(connectedURL), metaRedirect);
+								responseCode = Integer.MAX_VALUE;
+							}
+						} else {
+							Logger.putLog(String.format("La url %s ha sido rechazada por tratarse de un RSS", connectedURL), CrawlerJob.class, Logger.LOG_LEVEL_INFO);
+						}
+					}
+				}
+			} catch (Exception e) {
+				accessError = e;
+			}
 		}
 	}
 
@@ -1231,6 +1474,10 @@ public class CrawlerJob implements InterruptableJob {
 	public void interrupt() throws UnableToInterruptJobException {
 		Logger.putLog("Se ha pedido una interrupción!!", CrawlerJob.class, Logger.LOG_LEVEL_INFO);
 		interrupt = true;
+		final AnalysisPipeline pipeline = analysisPipeline;
+		if (pipeline != null) {
+			pipeline.cancel();
+		}
 	}
 
 	/**
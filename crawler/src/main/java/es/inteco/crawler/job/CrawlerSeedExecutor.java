@@ -0,0 +1,349 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.crawler.job;
+
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import es.inteco.common.logging.Logger;
+import es.inteco.common.properties.PropertiesManager;
+import es.inteco.crawler.common.Constants;
+
+/**
+ * Ejecutor de rastreos de semillas en paralelo.
+ *
+ * Lanza cada semilla en su propio {@link CrawlerJob} sobre un pool de hilos acotado. Para no saturar un mismo servidor se limita el número de semillas de un mismo host que pueden rastrearse a la
+ * vez. Las semillas de un host que ya está al máximo quedan aparcadas en la cola de ese host y se lanzan cuando termina otra semilla del mismo host, sin ocupar ningún hilo mientras esperan.
+ */
+public class CrawlerSeedExecutor {
+	/** Propiedad con el número de semillas que se rastrean simultáneamente. */
+	private static final String POOL_SIZE_PROPERTY = "crawler.seed.pool.size";
+	/** Propiedad con el número máximo de semillas de un mismo host rastreadas simultáneamente. */
+	private static final String MAX_PER_HOST_PROPERTY = "crawler.seed.max.per.host";
+	/** Pool de hilos. */
+	private final ExecutorService executor;
+	/** Número máximo de semillas de un mismo host en ejecución. */
+	private final int maxPerHost;
+	/** Estado de cada host. Se accede siempre sincronizando sobre el propio mapa. */
+	private final Map<String, HostState> hosts = new HashMap<>();
+	/** Rastreos en ejecución. */
+	private final Set<CrawlerJob> runningJobs = Collections.newSetFromMap(new ConcurrentHashMap<CrawlerJob, Boolean>());
+	/** Semillas pendientes de finalizar (encoladas o en ejecución). */
+	private final AtomicInteger pending = new AtomicInteger();
+	/** Solicitud de interrupción. */
+	private volatile boolean interrupted = false;
+
+	/**
+	 * Receptor de errores no controlados por el {@link CrawlerJob}.
+	 */
+	public interface ErrorListener {
+		/**
+		 * Se invoca cuando el rastreo de una semilla termina con un error.
+		 *
+		 * @param crawlerData los datos del rastreo
+		 * @param error       el error producido
+		 */
+		void onError(CrawlerData crawlerData, Throwable error);
+	}
+
+	/**
+	 * Instantiates a new crawler seed executor.
+	 *
+	 * @param poolSize   número de semillas que se rastrean simultáneamente
+	 * @param maxPerHost número máximo de semillas de un mismo host rastreadas simultáneamente
+	 */
+	public CrawlerSeedExecutor(final int poolSize, final int maxPerHost) {
+		this.maxPerHost = Math.max(1, maxPerHost);
+		this.executor = Executors.newFixedThreadPool(Math.max(1, poolSize), new ThreadFactory() {
+			private final AtomicInteger counter = new AtomicInteger();
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "CrawlerSeedExecutor-" + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Crea un ejecutor con la configuración del fichero crawler.core.properties.
+	 *
+	 * @return the crawler seed executor
+	 */
+	public static CrawlerSeedExecutor newFromProperties() {
+		final PropertiesManager pmgr = new PropertiesManager();
+		final int poolSize = getIntValue(pmgr, POOL_SIZE_PROPERTY, Runtime.getRuntime().availableProcessors());
+		final int maxPerHost = getIntValue(pmgr, MAX_PER_HOST_PROPERTY, 1);
+		Logger.putLog(String.format("Rastreando semillas con %d hilos y un máximo de %d semillas por host", poolSize, maxPerHost), CrawlerSeedExecutor.class, Logger.LOG_LEVEL_INFO);
+		return new CrawlerSeedExecutor(poolSize, maxPerHost);
+	}
+
+	/**
+	 * Obtiene un valor entero de la configuración.
+	 *
+	 * @param pmgr         the pmgr
+	 * @param key          the key
+	 * @param defaultValue valor por defecto si la propiedad no existe o no es válida
+	 * @return the int value
+	 */
+	private static int getIntValue(final PropertiesManager pmgr, final String key, final int defaultValue) {
+		try {
+			final String value = pmgr.getValue(Constants.CRAWLER_CORE_PROPERTIES, key);
+			return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+		} catch (NumberFormatException e) {
+			Logger.putLog("Valor no válido para la propiedad " + key, CrawlerSeedExecutor.class, Logger.LOG_LEVEL_WARNING);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Encola el rastreo de una semilla.
+	 *
+	 * @param crawlerData   los datos del rastreo
+	 * @param errorListener receptor de errores, puede ser null
+	 */
+	public void submit(final CrawlerData crawlerData, final ErrorListener errorListener) {
+		if (interrupted) {
+			return;
+		}
+		pending.incrementAndGet();
+		final SeedTask task = new SeedTask(crawlerData, getHost(crawlerData), errorListener);
+		synchronized (hosts) {
+			if (interrupted) {
+				finish();
+				return;
+			}
+			HostState state = hosts.get(task.host);
+			if (state == null) {
+				state = new HostState();
+				hosts.put(task.host, state);
+			}
+			if (state.running >= maxPerHost) {
+				// Hay otras semillas del mismo host en curso, se aparca hasta que termine alguna
+				state.parked.add(task);
+				return;
+			}
+			state.running++;
+		}
+		enqueue(task);
+	}
+
+	/**
+	 * Libera el hueco de una semilla terminada en su host y lanza la siguiente semilla aparcada de ese host, si la hay.
+	 *
+	 * @param host the host
+	 */
+	private void release(final String host) {
+		final SeedTask next;
+		synchronized (hosts) {
+			final HostState state = hosts.get(host);
+			if (state == null) {
+				return;
+			}
+			next = interrupted ? null : state.parked.poll();
+			if (next == null) {
+				state.running--;
+				if (state.running <= 0 && state.parked.isEmpty()) {
+					hosts.remove(host);
+				}
+			}
+		}
+		if (next != null) {
+			enqueue(next);
+		}
+	}
+
+	/**
+	 * Encola una tarea en el pool.
+	 *
+	 * @param task the task
+	 */
+	private void enqueue(final SeedTask task) {
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			Logger.putLog("No se ha podido encolar la semilla " + task.host, CrawlerSeedExecutor.class, Logger.LOG_LEVEL_WARNING);
+			release(task.host);
+			finish();
+		}
+	}
+
+	/**
+	 * Espera a que terminen todas las semillas encoladas y libera el pool.
+	 *
+	 * @throws InterruptedException si se interrumpe la espera
+	 */
+	public void awaitCompletion() throws InterruptedException {
+		synchronized (pending) {
+			while (pending.get() > 0) {
+				pending.wait();
+			}
+		}
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Interrumpe todos los rastreos en curso y descarta los pendientes.
+	 */
+	public void interrupt() {
+		interrupted = true;
+		// Las semillas aparcadas no llegan a lanzarse
+		final List<SeedTask> discarded = new ArrayList<>();
+		synchronized (hosts) {
+			for (HostState state : hosts.values()) {
+				discarded.addAll(state.parked);
+				state.parked.clear();
+			}
+		}
+		for (int i = 0; i < discarded.size(); i++) {
+			finish();
+		}
+		for (CrawlerJob crawlerJob : runningJobs) {
+			try {
+				crawlerJob.interrupt();
+			} catch (Exception e) {
+				Logger.putLog("Error al interrumpir el rastreo", CrawlerSeedExecutor.class, Logger.LOG_LEVEL_WARNING, e);
+			}
+		}
+		synchronized (pending) {
+			pending.notifyAll();
+		}
+	}
+
+	/**
+	 * Checks if is interrupted.
+	 *
+	 * @return true, if is interrupted
+	 */
+	public boolean isInterrupted() {
+		return interrupted;
+	}
+
+	/**
+	 * Marca una semilla como finalizada.
+	 */
+	private void finish() {
+		synchronized (pending) {
+			pending.decrementAndGet();
+			pending.notifyAll();
+		}
+	}
+
+	/**
+	 * Obtiene el host de la primera URL del rastreo, que se usa como clave de cortesía.
+	 *
+	 * @param crawlerData the crawler data
+	 * @return the host
+	 */
+	private static String getHost(final CrawlerData crawlerData) {
+		if (crawlerData.getUrls() != null && !crawlerData.getUrls().isEmpty()) {
+			try {
+				return new URL(crawlerData.getUrls().get(0)).getHost().toLowerCase();
+			} catch (Exception e) {
+				return crawlerData.getUrls().get(0);
+			}
+		}
+		return String.valueOf(crawlerData.getIdCrawling());
+	}
+
+	/**
+	 * Tarea de rastreo de una semilla.
+	 */
+	private final class SeedTask implements Runnable {
+		/** The crawler data. */
+		private final CrawlerData crawlerData;
+		/** The host. */
+		private final String host;
+		/** The error listener. */
+		private final ErrorListener errorListener;
+
+		/**
+		 * Instantiates a new seed task.
+		 *
+		 * @param crawlerData   the crawler data
+		 * @param host          the host
+		 * @param errorListener the error listener
+		 */
+		private SeedTask(final CrawlerData crawlerData, final String host, final ErrorListener errorListener) {
+			this.crawlerData = crawlerData;
+			this.host = host;
+			this.errorListener = errorListener;
+		}
+
+		/**
+		 * Run.
+		 */
+		@Override
+		public void run() {
+			if (interrupted) {
+				release(host);
+				finish();
+				return;
+			}
+			final CrawlerJob crawlerJob = new CrawlerJob();
+			runningJobs.add(crawlerJob);
+			try {
+				if (!interrupted) {
+					crawlerJob.launchCrawler(crawlerData);
+				}
+			} catch (Exception e) {
+				Logger.putLog("Error al rastrear la semilla " + host, CrawlerSeedExecutor.class, Logger.LOG_LEVEL_WARNING, e);
+				notifyError(e);
+			} catch (OutOfMemoryError e) {
+				Logger.putLog("Se ha producido un OutOfMemory al rastrear la semilla " + host, CrawlerSeedExecutor.class, Logger.LOG_LEVEL_WARNING);
+				notifyError(e);
+			} finally {
+				runningJobs.remove(crawlerJob);
+				release(host);
+				finish();
+			}
+		}
+
+		/**
+		 * Notifica un error al receptor de errores.
+		 *
+		 * @param error the error
+		 */
+		private void notifyError(final Throwable error) {
+			if (errorListener != null) {
+				errorListener.onError(crawlerData, error);
+			}
+		}
+	}
+
+	/**
+	 * Estado de un host: semillas en ejecución y semillas aparcadas a la espera de hueco.
+	 */
+	private static final class HostState {
+		/** Semillas del host en ejecución o encoladas en el pool. */
+		private int running;
+		/** Semillas del host pendientes de hueco. */
+		private final Deque<SeedTask> parked = new ArrayDeque<>();
+	}
+}
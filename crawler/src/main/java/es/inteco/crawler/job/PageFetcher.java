@@ -0,0 +1,465 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.crawler.job;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import es.gob.oaw.http.HttpDiskCache;
+import es.gob.oaw.http.HttpMetrics;
+import es.inteco.common.logging.Logger;
+import es.inteco.common.properties.PropertiesManager;
+import es.inteco.common.utils.StringUtils;
+import es.inteco.crawler.common.Constants;
+import es.inteco.utils.CrawlerUtils;
+import es.inteco.utils.FetchedPage;
+
+/**
+ * Capa de descarga de páginas de un rastreo.
+ *
+ * Cada URL se descarga una sola vez por rastreo y la respuesta (código, cabeceras, contenido, codificación y DOM) se reutiliza en todas las comprobaciones posteriores. Se mantienen dos cachés: la
+ * de las peticiones directas, que se usan para seguir redirecciones y comprobar tipos de contenido, y la de las peticiones a través del renderizador, cuyo contenido es el que se analiza.
+ *
+ * Las respuestas con código de error no se guardan para que los reintentos vuelvan a realizar la petición.
+ *
+ * Entre rastreos, las páginas HTML se guardan en la caché HTTP en disco ({@link HttpDiskCache}) y se piden con peticiones condicionales, de modo que las que no han cambiado no se vuelven a descargar.
+ *
+ * Cada rastreo guarda sus propias cookies y las envía en sus peticiones, sin usar el {@link java.net.CookieHandler} global de la JVM, para que los rastreos que se ejecutan a la vez no compartan sesiones.
+ */
+public class PageFetcher {
+	/** Propiedad con el número máximo de respuestas guardadas en cada caché. */
+	private static final String CACHE_SIZE_PROPERTY = "crawler.fetch.cache.size";
+	/** Número máximo de respuestas guardadas por defecto. */
+	private static final int DEFAULT_CACHE_SIZE = 500;
+	/** Tamaño máximo de las respuestas sin contenido útil que se consumen para reutilizar la conexión. */
+	private static final long MAX_DRAINED_LENGTH = 64 * 1024;
+	/** Variante de la caché HTTP en disco para las peticiones a través del renderizador. */
+	private static final String RENDERED_VARIANT = "RENDER";
+	/** The crawler data. */
+	private final CrawlerData crawlerData;
+	/** Respuestas de las peticiones directas. */
+	private final Map<String, FetchedPage> pages;
+	/** Respuestas de las peticiones a través del renderizador. */
+	private final Map<String, FetchedPage> renderedPages;
+	/** Número de peticiones HTTP realizadas. */
+	private final AtomicInteger requests = new AtomicInteger();
+	/** Número de peticiones resueltas desde la caché. */
+	private final AtomicInteger hits = new AtomicInteger();
+	/** Caché HTTP en disco compartida entre rastreos. */
+	private final HttpDiskCache httpCache = HttpDiskCache.getInstance();
+	/** Cookies recibidas durante el rastreo. */
+	private final CookieManager cookieManager = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+
+	/**
+	 * Instantiates a new page fetcher.
+	 *
+	 * @param crawlerData the crawler data
+	 */
+	public PageFetcher(final CrawlerData crawlerData) {
+		this.crawlerData = crawlerData;
+		final int cacheSize = getCacheSize();
+		this.pages = createCache(cacheSize);
+		this.renderedPages = createCache(cacheSize);
+	}
+
+	/**
+	 * Obtiene el tamaño de las cachés de la configuración.
+	 *
+	 * @return the cache size
+	 */
+	private static int getCacheSize() {
+		final String value = new PropertiesManager().getValue(Constants.CRAWLER_CORE_PROPERTIES, CACHE_SIZE_PROPERTY);
+		try {
+			return value != null ? Integer.parseInt(value.trim()) : DEFAULT_CACHE_SIZE;
+		} catch (NumberFormatException e) {
+			Logger.putLog("Valor no válido para la propiedad " + CACHE_SIZE_PROPERTY, PageFetcher.class, Logger.LOG_LEVEL_WARNING);
+			return DEFAULT_CACHE_SIZE;
+		}
+	}
+
+	/**
+	 * Crea una caché LRU sincronizada.
+	 *
+	 * @param maxEntries número máximo de respuestas
+	 * @return the map
+	 */
+	private static Map<String, FetchedPage> createCache(final int maxEntries) {
+		return Collections.synchronizedMap(new LinkedHashMap<String, FetchedPage>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, FetchedPage> eldest) {
+				return size() > maxEntries;
+			}
+		});
+	}
+
+	/**
+	 * Realiza una petición directa a una URL.
+	 *
+	 * Si se siguen las redirecciones, solo se sigue una redirección 301, 302 o 303, igual que en {@link CrawlerUtils#getConnection(String, String, boolean)}. El contenido solo se descarga para las
+	 * respuestas 200 de tipo text/html.
+	 *
+	 * @param url             the url
+	 * @param refererUrl      the referer url
+	 * @param cookie          the cookie
+	 * @param followRedirects si se sigue una redirección
+	 * @return la respuesta
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public FetchedPage fetch(final String url, final String refererUrl, final String cookie, final boolean followRedirects) throws IOException {
+		return fetch(url, refererUrl, cookie, followRedirects, false);
+	}
+
+	/**
+	 * Realiza una petición directa a una URL.
+	 *
+	 * @param url             the url
+	 * @param refererUrl      the referer url
+	 * @param cookie          the cookie
+	 * @param followRedirects si se sigue una redirección
+	 * @param extendTimeouts  si se aplican los tiempos de espera ampliados del rastreo
+	 * @return la respuesta
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public FetchedPage fetch(final String url, final String refererUrl, final String cookie, final boolean followRedirects, final boolean extendTimeouts) throws IOException {
+		final FetchedPage page = fetchOnce(url, refererUrl, cookie, extendTimeouts);
+		if (followRedirects) {
+			final int status = page.getResponseCode();
+			if (status == HttpURLConnection.HTTP_MOVED_TEMP || status == HttpURLConnection.HTTP_MOVED_PERM || status == HttpURLConnection.HTTP_SEE_OTHER) {
+				final String newUrl = page.getHeaderField("Location");
+				if (newUrl != null) {
+					return fetchOnce(CrawlerUtils.encodeUrl(newUrl), refererUrl, cookie, extendTimeouts);
+				}
+			}
+		}
+		return page;
+	}
+
+	/**
+	 * Sigue una redirección HTTP o mediante meta.
+	 *
+	 * @param cookie     the cookie
+	 * @param url        la URL que redirige
+	 * @param redirectTo el destino de la redirección
+	 * @return la respuesta del destino
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public FetchedPage followRedirection(final String cookie, final URL url, final String redirectTo) throws IOException {
+		final URL metaRedirection = new URL(url, redirectTo);
+		Logger.putLog(String.format("Siguiendo la redirección de %s a %s", url, metaRedirection), PageFetcher.class, Logger.LOG_LEVEL_INFO);
+		return fetchOnce(metaRedirection.toString(), url.toString(), cookie, false);
+	}
+
+	/**
+	 * Obtiene el contenido de una URL a través del renderizador (aplicando la configuración de proxy).
+	 *
+	 * @param url        the url
+	 * @param refererUrl the referer url
+	 * @return la respuesta con el contenido
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public FetchedPage render(final String url, final String refererUrl) throws IOException {
+		return render(url, refererUrl, true);
+	}
+
+	/**
+	 * Obtiene el contenido de una URL a través del renderizador.
+	 *
+	 * @param url         the url
+	 * @param refererUrl  the referer url
+	 * @param conditional si se envían las cabeceras condicionales de la caché HTTP en disco
+	 * @return la respuesta con el contenido
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private FetchedPage render(final String url, final String refererUrl, final boolean conditional) throws IOException {
+		final FetchedPage cached = renderedPages.get(url);
+		if (cached != null) {
+			hits.incrementAndGet();
+			return cached;
+		}
+		requests.incrementAndGet();
+		HttpMetrics.recordRequest();
+		final HttpURLConnection connection = CrawlerUtils.generateRendererConnection(url, refererUrl);
+		updateTimeouts(crawlerData, connection);
+		addCookies(connection, null);
+		final HttpDiskCache.Entry stored = conditional ? httpCache.prepare(connection, RENDERED_VARIANT, true) : null;
+		final long start = System.nanoTime();
+		try {
+			connection.connect();
+			storeCookies(connection);
+			final FetchedPage notModified = getNotModifiedPage(url, connection, stored);
+			if (notModified != null) {
+				HttpMetrics.recordResponseWait(System.nanoTime() - start);
+				renderedPages.put(url, notModified);
+				return notModified;
+			}
+			if (stored != null && connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				// El contenido guardado ya no se puede leer y se ha eliminado su entrada: se repite la petición sin cabeceras condicionales
+				connection.disconnect();
+				return render(url, refererUrl, false);
+			}
+			try (InputStream inputStream = connection.getInputStream()) {
+				HttpMetrics.recordResponseWait(System.nanoTime() - start);
+				final long readStart = System.nanoTime();
+				final byte[] content = readFully(inputStream);
+				HttpMetrics.recordRead(System.nanoTime() - readStart);
+				httpCache.store(connection, RENDERED_VARIANT, content);
+				final FetchedPage page = new FetchedPage(url, connection.getResponseCode(), connection.getHeaderFields(), content);
+				renderedPages.put(url, page);
+				return page;
+			}
+		} catch (IOException e) {
+			HttpMetrics.recordFailure();
+			connection.disconnect();
+			throw e;
+		}
+	}
+
+	/**
+	 * Realiza una petición directa sin seguir redirecciones.
+	 *
+	 * @param url            the url
+	 * @param refererUrl     the referer url
+	 * @param cookie         the cookie
+	 * @param extendTimeouts si se aplican los tiempos de espera ampliados del rastreo
+	 * @return la respuesta
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private FetchedPage fetchOnce(final String url, final String refererUrl, final String cookie, final boolean extendTimeouts) throws IOException {
+		return fetchOnce(url, refererUrl, cookie, extendTimeouts, true);
+	}
+
+	/**
+	 * Realiza una petición directa sin seguir redirecciones.
+	 *
+	 * @param url            the url
+	 * @param refererUrl     the referer url
+	 * @param cookie         the cookie
+	 * @param extendTimeouts si se aplican los tiempos de espera ampliados del rastreo
+	 * @param conditional    si se envían las cabeceras condicionales de la caché HTTP en disco
+	 * @return la respuesta
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private FetchedPage fetchOnce(final String url, final String refererUrl, final String cookie, final boolean extendTimeouts, final boolean conditional) throws IOException {
+		final FetchedPage cached = pages.get(url);
+		if (cached != null) {
+			hits.incrementAndGet();
+			return cached;
+		}
+		requests.incrementAndGet();
+		HttpMetrics.recordRequest();
+		final HttpURLConnection connection = CrawlerUtils.generateConnection(url, refererUrl);
+		addCookies(connection, cookie);
+		if (extendTimeouts) {
+			updateTimeouts(crawlerData, connection);
+		}
+		final HttpDiskCache.Entry stored = conditional ? httpCache.prepare(connection, true) : null;
+		try {
+			final long start = System.nanoTime();
+			connection.connect();
+			final int responseCode = connection.getResponseCode();
+			HttpMetrics.recordResponseWait(System.nanoTime() - start);
+			storeCookies(connection);
+			final FetchedPage notModified = getNotModifiedPage(connection.getURL().toString(), connection, stored);
+			if (notModified != null) {
+				pages.put(url, notModified);
+				return notModified;
+			}
+			if (stored != null && responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				// El contenido guardado ya no se puede leer y se ha eliminado su entrada: se repite la petición sin cabeceras condicionales
+				release(connection, responseCode);
+				return fetchOnce(url, refererUrl, cookie, extendTimeouts, false);
+			}
+			byte[] content = null;
+			if (responseCode == HttpURLConnection.HTTP_OK && connection.getHeaderField("content-type") != null && connection.getHeaderField("content-type").contains("text/html")) {
+				final long readStart = System.nanoTime();
+				try (InputStream inputStream = connection.getInputStream()) {
+					content = readFully(inputStream);
+				}
+				HttpMetrics.recordRead(System.nanoTime() - readStart);
+				httpCache.store(connection, content);
+			} else {
+				release(connection, responseCode);
+			}
+			final FetchedPage page = new FetchedPage(connection.getURL().toString(), responseCode, connection.getHeaderFields(), content);
+			if (responseCode < HttpURLConnection.HTTP_BAD_REQUEST) {
+				pages.put(url, page);
+			}
+			return page;
+		} catch (IOException e) {
+			HttpMetrics.recordFailure();
+			connection.disconnect();
+			throw e;
+		}
+	}
+
+	/**
+	 * Añade a la petición las cookies del rastreo para su URL. Las cookies indicadas explícitamente tienen prioridad sobre las guardadas con el mismo nombre.
+	 *
+	 * @param connection la conexión aún sin realizar
+	 * @param cookie     las cookies indicadas explícitamente o null
+	 */
+	private void addCookies(final HttpURLConnection connection, final String cookie) {
+		final StringBuilder header = new StringBuilder();
+		final Set<String> names = new HashSet<>();
+		if (!StringUtils.isEmpty(cookie)) {
+			header.append(cookie);
+			for (String pair : cookie.split(";")) {
+				names.add(pair.split("=", 2)[0].trim());
+			}
+		}
+		try {
+			final List<String> stored = cookieManager.get(connection.getURL().toURI(), Collections.<String, List<String>> emptyMap()).get("Cookie");
+			if (stored != null) {
+				for (String pair : stored) {
+					if (names.add(pair.split("=", 2)[0].trim())) {
+						header.append(header.length() > 0 ? "; " : "").append(pair);
+					}
+				}
+			}
+		} catch (URISyntaxException | IOException e) {
+			Logger.putLog("No se han podido obtener las cookies de " + connection.getURL(), PageFetcher.class, Logger.LOG_LEVEL_WARNING, e);
+		}
+		if (header.length() > 0) {
+			connection.setRequestProperty("Cookie", header.toString());
+		}
+	}
+
+	/**
+	 * Guarda las cookies que envía el servidor en la respuesta.
+	 *
+	 * @param connection la conexión ya realizada
+	 */
+	private void storeCookies(final HttpURLConnection connection) {
+		try {
+			cookieManager.put(connection.getURL().toURI(), connection.getHeaderFields());
+		} catch (URISyntaxException | IOException e) {
+			Logger.putLog("No se han podido guardar las cookies de " + connection.getURL(), PageFetcher.class, Logger.LOG_LEVEL_WARNING, e);
+		}
+	}
+
+	/**
+	 * Construye la respuesta a partir de la caché HTTP en disco si el servidor ha respondido que la página no ha cambiado desde la iteración anterior.
+	 *
+	 * @param url        la URL de la respuesta
+	 * @param connection la conexión ya realizada
+	 * @param stored     la entrada de la caché o null
+	 * @return la respuesta o null si hay que leer el contenido de la conexión o, si la respuesta es 304 pero el contenido guardado ya no se puede leer, repetir la petición
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private FetchedPage getNotModifiedPage(final String url, final HttpURLConnection connection, final HttpDiskCache.Entry stored) throws IOException {
+		if (!httpCache.isNotModified(connection, stored)) {
+			return null;
+		}
+		final byte[] content = stored.getBody();
+		if (content == null) {
+			Logger.putLog("El contenido guardado de " + url + " no se puede leer, se repite la petición", PageFetcher.class, Logger.LOG_LEVEL_WARNING);
+			httpCache.remove(stored);
+			return null;
+		}
+		hits.incrementAndGet();
+		final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+			if (header.getKey() != null) {
+				headers.put(header.getKey(), header.getValue());
+			}
+		}
+		if (stored.getContentType() != null) {
+			headers.put("Content-Type", Collections.singletonList(stored.getContentType()));
+		}
+		return new FetchedPage(url, HttpURLConnection.HTTP_OK, headers, content);
+	}
+
+	/**
+	 * Libera una conexión cuyo contenido no se va a usar.
+	 *
+	 * Las respuestas de redirecciones y errores suelen ser cortas, así que se consumen para que la conexión vuelva al pool de conexiones persistentes. El resto de respuestas (documentos que no son
+	 * HTML) se cierran sin descargarlas.
+	 *
+	 * @param connection   the connection
+	 * @param responseCode the response code
+	 */
+	private static void release(final HttpURLConnection connection, final int responseCode) {
+		if (responseCode >= HttpURLConnection.HTTP_MULT_CHOICE && connection.getContentLengthLong() >= 0 && connection.getContentLengthLong() <= MAX_DRAINED_LENGTH) {
+			try (InputStream inputStream = responseCode >= HttpURLConnection.HTTP_BAD_REQUEST ? connection.getErrorStream() : connection.getInputStream()) {
+				if (inputStream != null) {
+					readFully(inputStream);
+				}
+				return;
+			} catch (IOException e) {
+				// Se cierra la conexión
+			}
+		}
+		connection.disconnect();
+	}
+
+	/**
+	 * Lee completamente un stream.
+	 *
+	 * @param inputStream the input stream
+	 * @return the byte[]
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static byte[] readFully(final InputStream inputStream) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[8192];
+		int read;
+		while ((read = inputStream.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Registra en el log el número de peticiones realizadas y reutilizadas.
+	 *
+	 * @param url la URL raíz del rastreo
+	 */
+	public void logStatistics(final String url) {
+		Logger.putLog(String.format("Rastreo de %s: %d peticiones HTTP realizadas y %d reutilizadas", url, requests.get(), hits.get()), PageFetcher.class, Logger.LOG_LEVEL_INFO);
+		HttpMetrics.logSummary();
+	}
+
+	/**
+	 * Update timeouts. Checks if crawler data alter default timeout
+	 *
+	 * @param crawlerData                the crawler data
+	 * @param generateRendererConnection the generate renderer connection
+	 */
+	static void updateTimeouts(final CrawlerData crawlerData, final HttpURLConnection generateRendererConnection) {
+		if (crawlerData.isExtendTimeout() && crawlerData.getExtendedTimeoutValue() != 0) {
+			generateRendererConnection.setConnectTimeout(crawlerData.getExtendedTimeoutValue() * 2);
+			generateRendererConnection.setReadTimeout(crawlerData.getExtendedTimeoutValue() * 2);
+			generateRendererConnection.addRequestProperty("extendedTimeout", String.valueOf(crawlerData.getExtendedTimeoutValue() * 2));
+		} else {
+			generateRendererConnection.setConnectTimeout(generateRendererConnection.getConnectTimeout() * 2);
+			generateRendererConnection.setReadTimeout(generateRendererConnection.getReadTimeout() * 2);
+			generateRendererConnection.addRequestProperty("extendedTimeout", String.valueOf(generateRendererConnection.getConnectTimeout() * 2));
+		}
+	}
+}
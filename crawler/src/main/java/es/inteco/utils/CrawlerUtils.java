@@ -39,25 +39,23 @@ import java.util.regex.Pattern;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocketFactory;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
 import javax.servlet.http.HttpServletRequest;
 
 import org.mozilla.universalchardet.UniversalDetector;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import es.gob.oaw.http.HttpClientProvider;
+import es.gob.oaw.http.ProxySettingsCache;
 import es.inteco.common.IntavConstants;
 import es.inteco.common.logging.Logger;
 import es.inteco.common.properties.PropertiesManager;
 import es.inteco.common.utils.StringUtils;
 import es.inteco.crawler.common.Constants;
-import es.inteco.crawler.dao.ProxyDAO;
-import es.inteco.crawler.dao.ProxyForm;
 import es.inteco.crawler.ignored.links.IgnoredLink;
+import es.inteco.intav.form.ProxyForm;
 import es.inteco.plugin.dao.DataBaseManager;
 import es.inteco.plugin.dao.RastreoDAO;
 
@@ -341,11 +339,22 @@ public final class CrawlerUtils {
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
 	public static String getCharset(HttpURLConnection connection, InputStream markableInputStream) throws IOException {
+		return getCharset(connection.getHeaderField("Content-type"), markableInputStream);
+	}
+
+	/**
+	 * Gets the charset.
+	 *
+	 * @param header              la cabecera Content-type de la respuesta
+	 * @param markableInputStream the markable input stream
+	 * @return the charset
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static String getCharset(String header, InputStream markableInputStream) throws IOException {
 		String charset = Constants.DEFAULT_CHARSET;
 		boolean found = false;
 		// Buscamos primero en las cabeceras de la respuesta
 		try {
-			String header = connection.getHeaderField("Content-type");
 			String charsetValue = header.substring(header.indexOf("charset"));
 			charsetValue = charsetValue.substring(charsetValue.indexOf('=') + 1);
 			if (StringUtils.isNotEmpty(charsetValue)) {
@@ -480,12 +489,11 @@ public final class CrawlerUtils {
 		String proxyActive = "";
 		String proxyHttpHost = "";
 		String proxyHttpPort = "";
-		try (Connection c = DataBaseManager.getConnection()) {
-			ProxyForm proxy = ProxyDAO.getProxy(c);
+		try {
+			ProxyForm proxy = ProxySettingsCache.getProxy();
 			proxyActive = proxy.getStatus() > 0 ? "true" : "false";
 			proxyHttpHost = proxy.getUrl();
 			proxyHttpPort = proxy.getPort();
-			DataBaseManager.closeConnection(c);
 		} catch (Exception e) {
 			Logger.putLog("Error: ", CrawlerUtils.class, Logger.LOG_LEVEL_ERROR, e);
 		}
@@ -558,7 +566,7 @@ public final class CrawlerUtils {
 	 * @throws IOException           Signals that an I/O exception has occurred.
 	 * @throws MalformedURLException the malformed URL exception
 	 */
-	private static HttpURLConnection generateConnection(String url, String refererUrl) throws IOException, MalformedURLException {
+	public static HttpURLConnection generateConnection(String url, String refererUrl) throws IOException, MalformedURLException {
 		final PropertiesManager pmgr = new PropertiesManager();
 		HttpURLConnection connection = null;
 		Logger.putLog("Conectando con la URL: " + url, CrawlerUtils.class, Logger.LOG_LEVEL_ERROR);
@@ -592,37 +600,9 @@ public final class CrawlerUtils {
 	 * @return the naive SSL socket factory
 	 */
 	private static SSLSocketFactory getNaiveSSLSocketFactory() {
-		// Create a trust manager that does not validate certificate chains
-		final TrustManager[] trustAllCerts = new TrustManager[] { new X509TrustManager() {
-			public java.security.cert.X509Certificate[] getAcceptedIssuers() {
-				return null;
-			}
-
-			public void checkClientTrusted(java.security.cert.X509Certificate[] certs, String authType) {
-			}
-
-			public void checkServerTrusted(java.security.cert.X509Certificate[] certs, String authType) {
-			}
-		} };
-		// Install the all-trusting trust manager
-		try {
-			// Modificamos el protocolo SSL para solucionar la conexión con
-			// algunos páginas que no son accesibles con SSL/TSL (v1)
-			final SSLContext sc = SSLContext.getInstance("TLSv1.2");
-			sc.init(null, trustAllCerts, new java.security.SecureRandom());
-			SSLContext.setDefault(sc);
-			HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
-			HttpsURLConnection.setDefaultHostnameVerifier(new HostnameVerifier() {
-				@Override
-				public boolean verify(String s, SSLSession sslSession) {
-					return true;
-				}
-			});
-			return sc.getSocketFactory();
-		} catch (Exception e) {
-			Logger.putLog("Excepción: ", CrawlerUtils.class, Logger.LOG_LEVEL_ERROR, e);
-		}
-		return null;
+		// Se reutiliza siempre la misma factoría para que la JVM pueda
+		// reutilizar las conexiones persistentes
+		return HttpClientProvider.installNaiveSSLDefaults();
 	}
 
 	/**
@@ -651,11 +631,20 @@ public final class CrawlerUtils {
 	 * @return the cookie
 	 */
 	public static String getCookie(final HttpURLConnection connection) {
+		return getCookie(connection.getHeaderFields());
+	}
+
+	/**
+	 * Gets the cookie.
+	 *
+	 * @param headerFields las cabeceras de la respuesta
+	 * @return the cookie
+	 */
+	public static String getCookie(final Map<String, List<String>> headerFields) {
 		// Cogemos la lista de cookies, teniendo en cuenta que el parametro
 		// set-cookie no es sensible a mayusculas o minusculas
 		final StringBuilder headerText = new StringBuilder();
 		try {
-			final Map<String, List<String>> headerFields = connection.getHeaderFields();
 			final List<String> headers = new ArrayList<>();
 			if (headerFields != null && !headerFields.isEmpty()) {
 				for (Map.Entry<String, List<String>> entry : headerFields.entrySet()) {
@@ -689,6 +678,16 @@ public final class CrawlerUtils {
 		return connection.getHeaderField("Server") != null && connection.getHeaderField("Server").toLowerCase().contains("opendns");
 	}
 
+	/**
+	 * Comprueba si una respuesta ya descargada procede de la página de OpenDNS.
+	 *
+	 * @param page la respuesta que se quiere comprobar
+	 * @return true si la respuesta procede de la página de OpenDNS o false en caso contrario.
+	 */
+	public static boolean isOpenDNSResponse(final FetchedPage page) {
+		return page.getHeaderField("Server") != null && page.getHeaderField("Server").toLowerCase().contains("opendns");
+	}
+
 	/**
 	 * Comprueba si un contenido es un RSS.
 	 *
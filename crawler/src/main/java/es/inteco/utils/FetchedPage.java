@@ -0,0 +1,182 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.w3c.dom.Document;
+
+import es.inteco.common.utils.StringUtils;
+
+/**
+ * Respuesta HTTP ya descargada de una página.
+ *
+ * Guarda el código de respuesta, las cabeceras y el contenido para que todos los consumidores del rastreo trabajen sobre la misma descarga. El texto, la codificación y el DOM se calculan la primera
+ * vez que se piden.
+ */
+public class FetchedPage {
+	/** URL a la que finalmente se ha conectado. */
+	private final String url;
+	/** Código de respuesta. */
+	private final int responseCode;
+	/** Cabeceras de la respuesta (sin distinguir mayúsculas y minúsculas). */
+	private final Map<String, List<String>> headers;
+	/** Contenido descargado, null si no se ha descargado. */
+	private final byte[] content;
+	/** Codificación del contenido. */
+	private String charset;
+	/** Contenido textual sin comentarios HTML. */
+	private String textContent;
+	/** DOM del contenido textual. Nunca sale de esta clase, se entregan copias. */
+	private Document document;
+
+	/**
+	 * Instantiates a new fetched page.
+	 *
+	 * @param url          URL a la que finalmente se ha conectado
+	 * @param responseCode código de respuesta
+	 * @param headers      cabeceras de la respuesta
+	 * @param content      contenido descargado o null si no se ha descargado
+	 */
+	public FetchedPage(final String url, final int responseCode, final Map<String, List<String>> headers, final byte[] content) {
+		this.url = url;
+		this.responseCode = responseCode;
+		final Map<String, List<String>> headerMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		if (headers != null) {
+			for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+				// La línea de estado se devuelve con clave null
+				if (entry.getKey() != null) {
+					headerMap.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		this.headers = Collections.unmodifiableMap(headerMap);
+		this.content = content;
+	}
+
+	/**
+	 * Gets the url.
+	 *
+	 * @return the url
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * Gets the response code.
+	 *
+	 * @return the response code
+	 */
+	public int getResponseCode() {
+		return responseCode;
+	}
+
+	/**
+	 * Gets the headers.
+	 *
+	 * @return the headers
+	 */
+	public Map<String, List<String>> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * Obtiene el primer valor de una cabecera.
+	 *
+	 * @param name nombre de la cabecera
+	 * @return el valor o null si la respuesta no la incluye
+	 */
+	public String getHeaderField(final String name) {
+		final List<String> values = headers.get(name);
+		return values != null && !values.isEmpty() ? values.get(0) : null;
+	}
+
+	/**
+	 * Comprueba si la respuesta es un documento text/html.
+	 *
+	 * @return true, if is html
+	 */
+	public boolean isHtml() {
+		final String contentType = getHeaderField("content-type");
+		return contentType != null && contentType.contains("text/html");
+	}
+
+	/**
+	 * Checks for content.
+	 *
+	 * @return true si se ha descargado el contenido
+	 */
+	public boolean hasContent() {
+		return content != null;
+	}
+
+	/**
+	 * Devuelve un stream marcable sobre el contenido descargado.
+	 *
+	 * @return the input stream
+	 */
+	public InputStream getInputStream() {
+		final InputStream stream = new ByteArrayInputStream(content != null ? content : new byte[0]);
+		stream.mark(Integer.MAX_VALUE);
+		return stream;
+	}
+
+	/**
+	 * Gets the charset.
+	 *
+	 * @return the charset
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized String getCharset() throws IOException {
+		if (charset == null) {
+			charset = CrawlerUtils.getCharset(getHeaderField("Content-type"), getInputStream());
+		}
+		return charset;
+	}
+
+	/**
+	 * Obtiene el contenido textual sin comentarios HTML.
+	 *
+	 * @return the text content
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized String getTextContent() throws IOException {
+		if (textContent == null) {
+			textContent = CrawlerUtils.removeHtmlComments(StringUtils.getContentAsString(getInputStream(), getCharset()));
+		}
+		return textContent;
+	}
+
+	/**
+	 * Obtiene el DOM del contenido textual.
+	 *
+	 * El DOM de Xerces no admite accesos concurrentes, ni siquiera de lectura, y la misma página puede pedirse desde varios hilos de comprobación de enlaces. Por eso el contenido se parsea una sola
+	 * vez y cada llamada recibe su propia copia, hecha bajo el mismo bloqueo.
+	 *
+	 * @return una copia del documento
+	 * @throws Exception the exception
+	 */
+	public synchronized Document getDocument() throws Exception {
+		if (document == null) {
+			document = CrawlerDOMUtils.getDocument(getTextContent());
+		}
+		return document != null ? (Document) document.cloneNode(true) : null;
+	}
+}
@@ -0,0 +1,66 @@
+package es.inteco.crawler.job;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CrawledUrlIndexTest {
+
+    private CrawledUrlIndex index;
+
+    @Before
+    public void setUp() {
+        index = new CrawledUrlIndex();
+    }
+
+    @Test
+    public void normalizesTrailingSlashesAndHashes() {
+        Assert.assertEquals("http://www.example.com", CrawledUrlIndex.normalize("http://www.example.com/"));
+        Assert.assertEquals("http://www.example.com/page", CrawledUrlIndex.normalize("http://www.example.com/page#"));
+        Assert.assertEquals("http://www.example.com/page", CrawledUrlIndex.normalize("http://www.example.com/page/#/"));
+        Assert.assertEquals("http://www.example.com/page#section", CrawledUrlIndex.normalize("http://www.example.com/page#section"));
+        Assert.assertEquals("", CrawledUrlIndex.normalize("//"));
+    }
+
+    @Test
+    public void detectsDuplicatesIgnoringTrailingSlashesAndHashes() {
+        index.add("http://www.example.com/page");
+        Assert.assertTrue(index.contains("http://www.example.com/page"));
+        Assert.assertTrue(index.contains("http://www.example.com/page/"));
+        Assert.assertTrue(index.contains("http://www.example.com/page#"));
+        Assert.assertFalse(index.contains("http://www.example.com/page2"));
+        Assert.assertFalse(index.contains("http://www.example.com/page?id=1"));
+    }
+
+    @Test
+    public void detectsDuplicatesOfUrlsAddedWithTrailingSlash() {
+        index.add("http://www.example.com/dir/");
+        Assert.assertTrue(index.contains("http://www.example.com/dir"));
+    }
+
+    @Test
+    public void ignoresEmptyUrls() {
+        index.add(null);
+        index.add("");
+        Assert.assertEquals(0, index.size());
+        Assert.assertFalse(index.contains(null));
+    }
+
+    @Test
+    public void countsDistinctUrls() {
+        index.add("http://www.example.com/a");
+        index.add("http://www.example.com/a");
+        index.add("http://www.example.com/b");
+        Assert.assertEquals(2, index.size());
+    }
+
+    @Test
+    public void findsUrlsByPrefix() {
+        index.add("http://www.example.com/news/today.html");
+        index.add("http://www.example.com/about.html");
+        Assert.assertTrue(index.containsPrefix("http://www.example.com/news"));
+        Assert.assertTrue(index.containsPrefix("http://www.example.com/about"));
+        Assert.assertFalse(index.containsPrefix("http://www.example.com/contact"));
+        Assert.assertFalse(index.containsPrefix("http://www.example.org"));
+    }
+}
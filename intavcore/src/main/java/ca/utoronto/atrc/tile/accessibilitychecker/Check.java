@@ -67,7 +67,6 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.stream.StreamResult;
 
 import org.apache.xerces.util.DOMUtil;
@@ -103,6 +102,8 @@ import es.inteco.plugin.dao.DataBaseManager;
  * The Class Check.
  */
 public class Check {
+	/** Longitud máxima del texto de la página con el que se comprueba su idioma. */
+	private static final int GUESS_LANGUAGE_MAX_TEXT = 10000;
 	/** The check ok code. */
 	private int checkOkCode;
 	/** The id. */
@@ -130,14 +131,18 @@ public class Check {
 	private String keyElement;
 	/** The trigger element. */
 	private String triggerElement;
-	/** The language appropriate. */
-	private String languageAppropriate;
 	/** The prerequisites. */
 	@XmlTransient
 	private List<Integer> prerequisites;
 	/** The vector code. */
 	@XmlTransient
 	private List<CheckCode> vectorCode;
+	/** Texto del error en inglés, calculado al cargar las comprobaciones. */
+	@XmlTransient
+	private String errorString;
+	/** Texto de la explicación en inglés, calculado al cargar las comprobaciones. */
+	@XmlTransient
+	private String rationaleString;
 
 	public Map<String, Node> getNameMap() {
 		return nameMap;
@@ -163,18 +168,6 @@ public class Check {
 		this.rationaleHashtable = rationaleHashtable;
 	}
 
-	public String getLanguageAppropriate() {
-		return languageAppropriate;
-	}
-
-	public String getAppropriateData() {
-		return languageAppropriate;
-	}
-
-	public void setLanguageAppropriate(String languageAppropriate) {
-		this.languageAppropriate = languageAppropriate;
-	}
-
 	public void setCheckOkCode(int checkOkCode) {
 		this.checkOkCode = checkOkCode;
 	}
@@ -225,7 +218,6 @@ public class Check {
 		confidence = CheckFunctionConstants.CONFIDENCE_NOT_SET;
 		nameMap = new HashMap<>();
 		errorHashtable = new Hashtable<>();
-		languageAppropriate = IntavConstants.ENGLISH_ABB;
 		firstOccuranceOnly = false;
 		prerequisites = new ArrayList<>();
 		keyElement = null;
@@ -329,6 +321,9 @@ public class Check {
 	 * @return the error string
 	 */
 	public String getErrorString() {
+		if (errorString != null) {
+			return errorString;
+		}
 		Node nodeError = getError();
 		if (nodeError == null) {
 			return "";
@@ -352,6 +347,7 @@ public class Check {
 	 * @param language the language
 	 */
 	public void setRationaleText(String text, String language) {
+		rationaleString = null;
 		Node nodeRationale = rationaleHashtable.get(language);
 		if (nodeRationale != null) {
 			// remove all the child nodes (the current text)
@@ -373,6 +369,9 @@ public class Check {
 	 * @return the rationale string
 	 */
 	public String getRationaleString() {
+		if (rationaleString != null) {
+			return rationaleString;
+		}
 		Node nodeDescription = getRationale();
 		if (nodeDescription == null) {
 			return "";
@@ -380,6 +379,17 @@ public class Check {
 		return EvaluatorUtility.getElementText(nodeDescription);
 	}
 
+	/**
+	 * Calcula los textos del error y de la explicación. Se llama al terminar de cargar las comprobaciones para que las evaluaciones no tengan que recorrer los nodos del fichero de comprobaciones,
+	 * que no se pueden leer desde varios hilos a la vez.
+	 */
+	void loadTexts() {
+		errorString = null;
+		rationaleString = null;
+		errorString = getErrorString();
+		rationaleString = getRationaleString();
+	}
+
 	/**
 	 * Gets the trigger element.
 	 *
@@ -458,14 +468,15 @@ public class Check {
 	/**
 	 * Creates the vector functions.
 	 *
+	 * @param language the language
 	 * @return the list
 	 */
 	// Crea una lista de funciones basadas en el lenguage requerido
-	private List<CheckCode> createVectorFunctions() {
+	private List<CheckCode> createVectorFunctions(final String language) {
 		List<CheckCode> vectorFunctions = new ArrayList<>();
 		for (CheckCode checkCode : vectorCode) {
 			if (checkCode.getType() == CheckFunctionConstants.CODE_TYPE_LANGUAGE) {
-				if (checkCode.getLanguage().equals(languageAppropriate)) {
+				if (checkCode.getLanguage().equals(language)) {
 					List<CheckCode> vectorLanguageCode = checkCode.getVectorCode();
 					for (CheckCode aVectorLanguageCode : vectorLanguageCode) {
 						vectorFunctions.add(aVectorLanguageCode);
@@ -483,14 +494,14 @@ public class Check {
 	 * Do evaluation.
 	 *
 	 * @param elementGiven the element given
-	 * @param idAnalysis   the id analysis
+	 * @param context      el contexto de la evaluación (idioma e identificador del análisis)
 	 * @return true, if successful
 	 * @throws AccessibilityError the accessibility error
 	 */
 	// Lanza una excepción si hay un problema de accesibilidad
-	public boolean doEvaluation(Element elementGiven, final Long idAnalysis) throws AccessibilityError {
+	public boolean doEvaluation(Element elementGiven, final EvaluationContext context) throws AccessibilityError {
 		// Crea una lista de funciones basadas en el lenguage requerido
-		List<CheckCode> vectorFunctions = createVectorFunctions();
+		List<CheckCode> vectorFunctions = createVectorFunctions(context.getLanguage());
 		// Ejecuta las funciones
 		try {
 			for (CheckCode checkCode : vectorFunctions) {
@@ -498,9 +509,7 @@ public class Check {
 				// Las comprobaciones de CSS se ejecutan posteriormente en el
 				// método Evaluator.performEvaluation
 				if (!"css".equalsIgnoreCase(triggerElement)) {
-					// Add to checkcode the idAnalysys
-					checkCode.setIdAnalysis(idAnalysis);
-					if (evaluateCode(checkCode, elementGiven) != CheckFunctionConstants.CODE_RESULT_PROBLEM) {
+					if (evaluateCode(checkCode, elementGiven, context) != CheckFunctionConstants.CODE_RESULT_PROBLEM) {
 						return true;
 					}
 				}
@@ -517,10 +526,11 @@ public class Check {
 	 *
 	 * @param checkCode    the check code
 	 * @param elementGiven the element given
+	 * @param context      the context
 	 * @return the int
 	 */
 	// Evalúa un nodo en concreto
-	private int evaluateFunction(CheckCode checkCode, Element elementGiven) {
+	private int evaluateFunction(CheckCode checkCode, Element elementGiven, final EvaluationContext context) {
 		// get the node referenced by the 'node' parameter
 		Node nodeNode = null;
 		String stringNodeAttribute = checkCode.getNodeRelation();
@@ -605,7 +615,7 @@ public class Check {
 			Logger.putLog("unknown node: " + stringNodeAttribute, Check.class, Logger.LOG_LEVEL_INFO);
 			return CheckFunctionConstants.CODE_RESULT_NOPROBLEM;
 		}
-		return processCode(checkCode, nodeNode, elementGiven) ? CheckFunctionConstants.CODE_RESULT_PROBLEM : CheckFunctionConstants.CODE_RESULT_NOPROBLEM;
+		return processCode(checkCode, nodeNode, elementGiven, context) ? CheckFunctionConstants.CODE_RESULT_PROBLEM : CheckFunctionConstants.CODE_RESULT_NOPROBLEM;
 	}
 
 	// Evalua una condición 'and' entre varios elementos
@@ -617,14 +627,15 @@ public class Check {
 	 *
 	 * @param checkCode    the check code
 	 * @param elementGiven the element given
+	 * @param context      the context
 	 * @return the int
 	 */
 	// caracteres
-	private int evaluateConditionAnd(CheckCode checkCode, Element elementGiven) {
+	private int evaluateConditionAnd(CheckCode checkCode, Element elementGiven, final EvaluationContext context) {
 		List<CheckCode> vectorCodeFunctions = checkCode.getVectorCode();
 		boolean foundProblem = false;
 		for (CheckCode vectorCodeFunction : vectorCodeFunctions) {
-			int result = evaluateCode(vectorCodeFunction, elementGiven);
+			int result = evaluateCode(vectorCodeFunction, elementGiven, context);
 			if (result == CheckFunctionConstants.CODE_RESULT_NOPROBLEM) {
 				return CheckFunctionConstants.CODE_RESULT_NOPROBLEM;
 			}
@@ -640,13 +651,14 @@ public class Check {
 	 *
 	 * @param checkCode    the check code
 	 * @param elementGiven the element given
+	 * @param context      the context
 	 * @return the int
 	 */
 	// Evalua una condición 'or' entre varios elementos
-	private int evaluateConditionOr(CheckCode checkCode, Element elementGiven) {
+	private int evaluateConditionOr(CheckCode checkCode, Element elementGiven, final EvaluationContext context) {
 		List<CheckCode> vectorCodeFunctions = checkCode.getVectorCode();
 		for (CheckCode vectorCodeFunction : vectorCodeFunctions) {
-			if (evaluateCode(vectorCodeFunction, elementGiven) == CheckFunctionConstants.CODE_RESULT_PROBLEM) {
+			if (evaluateCode(vectorCodeFunction, elementGiven, context) == CheckFunctionConstants.CODE_RESULT_PROBLEM) {
 				return CheckFunctionConstants.CODE_RESULT_PROBLEM;
 			}
 		}
@@ -658,16 +670,17 @@ public class Check {
 	 *
 	 * @param checkCode    the check code
 	 * @param elementGiven the element given
+	 * @param context      the context
 	 * @return the int
 	 */
 	// Evalua una condición entre varios nodos
-	private int evaluateCondition(CheckCode checkCode, Element elementGiven) {
+	private int evaluateCondition(CheckCode checkCode, Element elementGiven, final EvaluationContext context) {
 		// all the functions within the 'and' must detect a problem to return a
 		// problem
 		if (checkCode.getConditionType() == CheckFunctionConstants.CONDITION_AND) {
-			return evaluateConditionAnd(checkCode, elementGiven);
+			return evaluateConditionAnd(checkCode, elementGiven, context);
 		} else if (checkCode.getConditionType() == CheckFunctionConstants.CONDITION_OR) {
-			return evaluateConditionOr(checkCode, elementGiven);
+			return evaluateConditionOr(checkCode, elementGiven, context);
 		} else {
 			Logger.putLog("Warning: check " + id + " has invalid condition type: " + checkCode.getType(), Check.class, Logger.LOG_LEVEL_WARNING);
 			return CheckFunctionConstants.CODE_RESULT_IGNORE;
@@ -680,20 +693,21 @@ public class Check {
 	 *
 	 * @param checkCode    the check code
 	 * @param elementGiven the element given
+	 * @param context      the context
 	 * @return the int
 	 */
 	// Devuelve un código con el resultado de la evaluación
-	private int evaluateCode(CheckCode checkCode, Element elementGiven) {
+	private int evaluateCode(CheckCode checkCode, Element elementGiven, final EvaluationContext context) {
 		// Hemos llegado a un nodo y hay que evaluarlo
 		if (checkCode.getType() == CheckFunctionConstants.CODE_TYPE_FUNCTION) {
-			return evaluateFunction(checkCode, elementGiven);
+			return evaluateFunction(checkCode, elementGiven, context);
 		} else if (checkCode.getType() == CheckFunctionConstants.CODE_TYPE_CONDITION) {
-			return evaluateCondition(checkCode, elementGiven);
+			return evaluateCondition(checkCode, elementGiven, context);
 		} else if (checkCode.getType() == CheckFunctionConstants.CODE_TYPE_LANGUAGE) {
-			if (checkCode.getLanguage().equals(languageAppropriate)) {
+			if (checkCode.getLanguage().equals(context.getLanguage())) {
 				List<CheckCode> vectorLanguageCode = checkCode.getVectorCode();
 				for (CheckCode aVectorLanguageCode : vectorLanguageCode) {
-					int result = evaluateCode(aVectorLanguageCode, elementGiven);
+					int result = evaluateCode(aVectorLanguageCode, elementGiven, context);
 					if (result != CheckFunctionConstants.CODE_RESULT_IGNORE) {
 						return result;
 					}
@@ -712,10 +726,11 @@ public class Check {
 	 * @param checkCode    the check code
 	 * @param nodeNode     the node node
 	 * @param elementGiven the element given
+	 * @param context      the context
 	 * @return true, if successful
 	 */
 	// Devuelve verdadero si hay un problema de accesibilidad
-	private boolean processCode(CheckCode checkCode, Node nodeNode, Element elementGiven) {
+	private boolean processCode(CheckCode checkCode, Node nodeNode, Element elementGiven, final EvaluationContext context) {
 		switch (checkCode.getFunctionId()) {
 		case CheckFunctionConstants.FUNCTION_TEXT_EQUALS:
 			return functionTextEquals(checkCode, nodeNode, elementGiven);
@@ -1028,19 +1043,19 @@ public class Check {
 		case CheckFunctionConstants.FUNCTION_AUTOCOMPLETE_VALID:
 			return !functionAutocompleteValid(checkCode, nodeNode, elementGiven);
 		case CheckFunctionConstants.FUNCTION_HAS_SECTION:
-			return !functionAccessibilityHasSection(checkCode, nodeNode, elementGiven);
+			return !functionAccessibilityHasSection(checkCode, nodeNode, elementGiven, context.getIdAnalysis());
 		case CheckFunctionConstants.FUNCTION_SECTION_HAS_TEXT:
-			return !functionSectionHasText(checkCode, nodeNode, elementGiven);
+			return !functionSectionHasText(checkCode, nodeNode, elementGiven, context.getIdAnalysis());
 		case CheckFunctionConstants.FUNCTION_SECTION_HAS_MAILTO:
-			return functionSectionMailto(checkCode, nodeNode, elementGiven);
+			return functionSectionMailto(checkCode, nodeNode, elementGiven, context.getIdAnalysis());
 		case CheckFunctionConstants.FUNCTION_SECTION_HAS_ELEMENT:
-			return functionSectionHasElement(checkCode, nodeNode, elementGiven);
+			return functionSectionHasElement(checkCode, nodeNode, elementGiven, context.getIdAnalysis());
 		case CheckFunctionConstants.FUNCTION_ACCESIBILITY_YEAR:
-			return functionAccesibilityYear(checkCode, nodeNode, elementGiven);
+			return functionAccesibilityYear(checkCode, nodeNode, elementGiven, context.getIdAnalysis());
 		case CheckFunctionConstants.FUNCTION_SECTION_HAS_DATE:
-			return !functionSectionHasRegex(checkCode, nodeNode, elementGiven);
+			return !functionSectionHasRegex(checkCode, nodeNode, elementGiven, context.getIdAnalysis());
 		case CheckFunctionConstants.FUNCTION_SECTION_HAS_PHONE:
-			return !functionSectionHasRegex(checkCode, nodeNode, elementGiven);
+			return !functionSectionHasRegex(checkCode, nodeNode, elementGiven, context.getIdAnalysis());
 		case CheckFunctionConstants.FUNCTION_EMPTY_TABLE_70:
 			return functionEmptyTable(checkCode, nodeNode, elementGiven);
 		case CheckFunctionConstants.FUNCTION_MORE_HEADERS_THAN_FIELDSETS:
@@ -1238,23 +1253,19 @@ public class Check {
 		final Document document = elementGiven.getOwnerDocument();
 		final String languageCode = extractLanguageCode(getLanguage(elementGiven, false));
 		if (!languageCode.isEmpty()) {
-			final ExtractTextHandler extractTextHandler = new ExtractTextHandler(languageCode);
-			try {
-				TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new SAXResult(extractTextHandler));
-				final String extractedText = extractTextHandler.getExtractedText();
-				// Caracteres mínimos para comprobar el idioma (menos caracteres
-				// da resultados poco fiables)
-				if (extractedText.length() < 50) {
-					return false;
-				}
-				final LanguageChecker languageChecker = new LanguageChecker(languageCode);
-				// Si son distintos hay que devolver true para indicar que es
-				// fallo
-				return !languageChecker.isExpectedLanguage(extractedText);
-			} catch (TransformerException e) {
-				Logger.putLog("Error al intentar extraer el texto en functionGuessLanguage", Check.class, Logger.LOG_LEVEL_ERROR, e);
+			// El texto se extrae directamente del DOM y solo hasta la longitud necesaria para detectar el idioma
+			final ExtractTextHandler extractTextHandler = new ExtractTextHandler(languageCode, true, null, GUESS_LANGUAGE_MAX_TEXT);
+			extractTextHandler.extract(document);
+			final String extractedText = extractTextHandler.getExtractedText();
+			// Caracteres mínimos para comprobar el idioma (menos caracteres
+			// da resultados poco fiables)
+			if (extractedText.length() < 50) {
+				return false;
 			}
-			return false;
+			final LanguageChecker languageChecker = new LanguageChecker(languageCode);
+			// Si son distintos hay que devolver true para indicar que es
+			// fallo
+			return !languageChecker.isExpectedLanguage(extractedText);
 		} else {
 			return false;
 		}
@@ -1295,22 +1306,17 @@ public class Check {
 				maxNumber = 4;
 			}
 			final ExtractTextHandler extractTextHandler = new ExtractTextHandler("en", false, new String[] { "abbr", "acronym" });
-			try {
-				TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new SAXResult(extractTextHandler));
-				final String extractedText = extractTextHandler.getExtractedText();
-				final String[] words = extractedText.toLowerCase().split("\\s+");
-				final List<String> enWords = new ArrayList<>();
-				for (String word : words) {
-					if (Diccionario.containsWord("en", word) && !enWords.contains(word)) {
-						enWords.add(word);
-					}
+			extractTextHandler.extract(document);
+			final String extractedText = extractTextHandler.getExtractedText();
+			final String[] words = extractedText.toLowerCase().split("\\s+");
+			final List<String> enWords = new ArrayList<>();
+			for (String word : words) {
+				if (Diccionario.containsWord("en", word) && !enWords.contains(word)) {
+					enWords.add(word);
 				}
-				document.setUserData("en_words", enWords, null);
-				return enWords.size() > maxNumber;
-			} catch (TransformerException e) {
-				Logger.putLog("Error al intentar extraer el texto en functionOtherLanguage", Check.class, Logger.LOG_LEVEL_ERROR, e);
 			}
-			return false;
+			document.setUserData("en_words", enWords, null);
+			return enWords.size() > maxNumber;
 		} else {
 			return false;
 		}
@@ -1613,10 +1619,12 @@ public class Check {
 	 * @return true, if successful
 	 */
 	protected boolean functionEmptyTable(CheckCode checkCode, Node nodeNode, Element elementGiven) {
-		checkCode.setFunctionNumber("30");
-		checkCode.setFunctionAttribute1("td");
-		checkCode.setFunctionAttribute2("th");
-		if (!functionTextCellsPercentageGreaterThan(checkCode, nodeNode, elementGiven)) {
+		// El código de la comprobación se comparte entre evaluaciones, los parámetros se cambian en una copia
+		final CheckCode emptyTableCode = new CheckCode(checkCode);
+		emptyTableCode.setFunctionNumber("30");
+		emptyTableCode.setFunctionAttribute1("td");
+		emptyTableCode.setFunctionAttribute2("th");
+		if (!functionTextCellsPercentageGreaterThan(emptyTableCode, nodeNode, elementGiven)) {
 			return true;
 		}
 		return false;
@@ -1632,15 +1640,17 @@ public class Check {
 	 */
 	// Comprueba si una tabla es o no de maquetacion
 	protected boolean functionLayoutTable(CheckCode checkCode, Node nodeNode, Element elementGiven) {
-		checkCode.setFunctionElement("table");
+		// El código de la comprobación se comparte entre evaluaciones, los parámetros se cambian en una copia
+		final CheckCode layoutCode = new CheckCode(checkCode);
+		layoutCode.setFunctionElement("table");
 		String maxLength;
 		try {
-			Integer.parseInt(checkCode.getFunctionAttribute1());
-			maxLength = checkCode.getFunctionAttribute1();
+			Integer.parseInt(layoutCode.getFunctionAttribute1());
+			maxLength = layoutCode.getFunctionAttribute1();
 		} catch (NumberFormatException nfe) {
 			maxLength = "400";
 		}
-		if (functionContains(checkCode, nodeNode, elementGiven)) {
+		if (functionContains(layoutCode, nodeNode, elementGiven)) {
 			// Una tabla que contiene otra tabla
 			return true;
 		} else if ("presentation".equalsIgnoreCase(elementGiven.getAttribute("role"))) {
@@ -1649,35 +1659,35 @@ public class Check {
 			 */
 			return true;
 		} else {
-			checkCode.setFunctionAttribute1("tr");
-			if (functionOnlyOneChild(checkCode, nodeNode, elementGiven)) {
+			layoutCode.setFunctionAttribute1("tr");
+			if (functionOnlyOneChild(layoutCode, nodeNode, elementGiven)) {
 				// Tabla con una sola fila (Si solo tiene una celda ya falla
 				// este o el siguiente)
 				return true;
 			} else {
-				checkCode.setFunctionElement("tr");
-				checkCode.setFunctionAttribute1("th");
-				checkCode.setFunctionAttribute2("td");
-				if (!functionMoreThanOneChildElement(checkCode, nodeNode, elementGiven)) {
+				layoutCode.setFunctionElement("tr");
+				layoutCode.setFunctionAttribute1("th");
+				layoutCode.setFunctionAttribute2("td");
+				if (!functionMoreThanOneChildElement(layoutCode, nodeNode, elementGiven)) {
 					// Tabla con una sola columna
 					return true;
 				} else {
-					checkCode.setFunctionNumber("70");
-					checkCode.setFunctionAttribute1("td");
-					checkCode.setFunctionAttribute2("th");
-					if (!functionTextCellsPercentageGreaterThan(checkCode, nodeNode, elementGiven)) {
+					layoutCode.setFunctionNumber("70");
+					layoutCode.setFunctionAttribute1("td");
+					layoutCode.setFunctionAttribute2("th");
+					if (!functionTextCellsPercentageGreaterThan(layoutCode, nodeNode, elementGiven)) {
 						// Tabla con menos del 70% de celdas con texto
 						return true;
 					} else {
-						checkCode.setFunctionElement("td");
-						checkCode.setFunctionValue(maxLength);
-						if (functionChildElementCharactersGreaterThan(checkCode, nodeNode, elementGiven)) {
+						layoutCode.setFunctionElement("td");
+						layoutCode.setFunctionValue(maxLength);
+						if (functionChildElementCharactersGreaterThan(layoutCode, nodeNode, elementGiven)) {
 							// Tabla con tds que contienen mas de 400 caracteres
 							return true;
 						} else {
-							checkCode.setFunctionElement("th");
-							checkCode.setFunctionValue(maxLength);
-							if (functionChildElementCharactersGreaterThan(checkCode, nodeNode, elementGiven)) {
+							layoutCode.setFunctionElement("th");
+							layoutCode.setFunctionValue(maxLength);
+							if (functionChildElementCharactersGreaterThan(layoutCode, nodeNode, elementGiven)) {
 								// Tabla con ths que contienen mas de 400
 								// caracteres
 								return true;
@@ -1704,8 +1714,6 @@ public class Check {
 		int count = 0;
 		String numCode = checkCode.getFunctionNumber();
 		for (int i = 0; i < nodeList.getLength(); i++) {
-			checkCode.setFunctionElement("table");
-			// checkCode.setFunctionNumber(numCode);
 			if (functionLayoutTable(checkCode, nodeNode, (Element) nodeList.item(i))) {
 				count++;
 			}
@@ -3295,11 +3303,20 @@ public class Check {
 	private boolean functionTooManyBrokenLinks(CheckCode checkCode, Node nodeNode, Element elementGiven) {
 		final Element elementRoot = elementGiven.getOwnerDocument().getDocumentElement();
 		if (elementRoot.getUserData("domainLinks") == null && elementRoot.getUserData("externalLinks") == null) {
-			((CheckedLinks) elementRoot.getUserData("checkedLinks")).setCheckedLinks(new ArrayList<String>());
+			((CheckedLinks) elementRoot.getUserData("checkedLinks")).getCheckedLinks().clear();
 			final List<Element> domainLinks = new LinkedList<>();
 			final List<Element> externalLinks = new LinkedList<>();
 			final String url = (String) elementRoot.getUserData("url");
 			final NodeList links = elementGiven.getElementsByTagName("A");
+			// Se verifican en paralelo todos los enlaces de la página antes de recorrerlos
+			final List<Node> hrefs = new ArrayList<>();
+			for (int i = 0; i < links.getLength(); i++) {
+				final Element link = (Element) links.item(i);
+				if (StringUtils.isNotEmpty(link.getAttribute("href"))) {
+					hrefs.add(link.getAttributeNode("href"));
+				}
+			}
+			CheckUtils.verifyLinks(elementRoot, hrefs);
 			for (int i = 0; i < links.getLength(); i++) {
 				final Element link = (Element) links.item(i);
 				if (StringUtils.isNotEmpty(link.getAttribute("href"))) {
@@ -4455,15 +4472,6 @@ public class Check {
 		return foundCheckName && foundCheckError;
 	}
 
-	/**
-	 * Sets the appropriate data.
-	 *
-	 * @param languageCode the new appropriate data
-	 */
-	public void setAppropriateData(String languageCode) {
-		languageAppropriate = languageCode;
-	}
-
 	/**
 	 * Function lang grammar.
 	 *
@@ -6033,9 +6041,10 @@ public class Check {
 	 * @param checkCode    the check code
 	 * @param nodeNode     the node node
 	 * @param elementGiven the element given
+	 * @param idAnalysis   the id analysis
 	 * @return true, if successful
 	 */
-	private boolean functionAccessibilityHasSection(CheckCode checkCode, Node nodeNode, Element elementGiven) {
+	private boolean functionAccessibilityHasSection(CheckCode checkCode, Node nodeNode, Element elementGiven, final Long idAnalysis) {
 		final NodeList links = elementGiven.getOwnerDocument().getElementsByTagName("a");
 		PropertiesManager pm = new PropertiesManager();
 		String regex = pm.getValue("check.patterns.properties", checkCode.getFunctionValue());
@@ -6058,7 +6067,7 @@ public class Check {
 			boolean hasSection = false;
 			// Save accesibility links
 			try {
-				TAnalisisAccesibilidadDAO.insert(DataBaseManager.getConnection(), checkCode.getIdAnalysis(), accessibilityLinks);
+				TAnalisisAccesibilidadDAO.insert(DataBaseManager.getConnection(), idAnalysis, accessibilityLinks);
 			} catch (Exception e1) {
 				Logger.putLog("Error al guardar los links de accesibilidad: ", Check.class, Logger.LOG_LEVEL_ERROR, e1);
 			}
@@ -6067,10 +6076,10 @@ public class Check {
 					final Document document = getAccesibilityDocument(elementRoot, accessibilityLink.getAttribute("href"));
 					if (document != null) {
 						// Save html
-						TAnalisisAccesibilidadDAO.saveDocument(DataBaseManager.getConnection(), checkCode.getIdAnalysis(), accessibilityLink, documentToHTML(document));
+						TAnalisisAccesibilidadDAO.saveDocument(DataBaseManager.getConnection(), idAnalysis, accessibilityLink, documentToHTML(document));
 						final boolean hasSection2 = AccesibilityDeclarationCheckUtils.hasSection(document, pm.getValue("check.patterns.properties", checkCode.getFunctionAttribute1()));
 						if (hasSection2) {
-							TAnalisisAccesibilidadDAO.incrementCheckOk(DataBaseManager.getConnection(), checkCode.getIdAnalysis(), accessibilityLink);
+							TAnalisisAccesibilidadDAO.incrementCheckOk(DataBaseManager.getConnection(), idAnalysis, accessibilityLink);
 						}
 						hasSection |= hasSection2;
 					}
@@ -6088,9 +6097,10 @@ public class Check {
 	 * @param checkCode    the check code
 	 * @param nodeNode     the node node
 	 * @param elementGiven the element given
+	 * @param idAnalysis   the id analysis
 	 * @return true, if successful
 	 */
-	private boolean functionSectionHasText(CheckCode checkCode, Node nodeNode, Element elementGiven) {
+	private boolean functionSectionHasText(CheckCode checkCode, Node nodeNode, Element elementGiven, final Long idAnalysis) {
 		final NodeList links = elementGiven.getOwnerDocument().getElementsByTagName("a");
 		PropertiesManager pm = new PropertiesManager();
 		String regex = pm.getValue("check.patterns.properties", checkCode.getFunctionValue());
@@ -6142,7 +6152,7 @@ public class Check {
 							try {
 								Pattern patterAutocomplete = Pattern.compile(stringPattern, Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
 								if (patterAutocomplete.matcher(textSection).find()) {
-									TAnalisisAccesibilidadDAO.incrementCheckOk(DataBaseManager.getConnection(), checkCode.getIdAnalysis(), accessibilityLink);
+									TAnalisisAccesibilidadDAO.incrementCheckOk(DataBaseManager.getConnection(), idAnalysis, accessibilityLink);
 									hasContact |= true;
 								}
 							} catch (Exception e) {
@@ -6165,9 +6175,10 @@ public class Check {
 	 * @param checkCode    the check code
 	 * @param nodeNode     the node node
 	 * @param elementGiven the element given
+	 * @param idAnalysis   the id analysis
 	 * @return true, if successful
 	 */
-	private boolean functionSectionHasRegex(CheckCode checkCode, Node nodeNode, Element elementGiven) {
+	private boolean functionSectionHasRegex(CheckCode checkCode, Node nodeNode, Element elementGiven, final Long idAnalysis) {
 		final NodeList links = elementGiven.getOwnerDocument().getElementsByTagName("a");
 		PropertiesManager pm = new PropertiesManager();
 		String regex = pm.getValue("check.patterns.properties", checkCode.getFunctionValue());
@@ -6215,7 +6226,7 @@ public class Check {
 						try {
 							Pattern patterAutocomplete = Pattern.compile(pm.getValue("check.patterns.properties", checkCode.getFunctionAttribute2()), Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
 							if (patterAutocomplete.matcher(textSection).find()) {
-								TAnalisisAccesibilidadDAO.incrementCheckOk(DataBaseManager.getConnection(), checkCode.getIdAnalysis(), accessibilityLink);
+								TAnalisisAccesibilidadDAO.incrementCheckOk(DataBaseManager.getConnection(), idAnalysis, accessibilityLink);
 								hasContact |= true;
 							}
 						} catch (Exception e) {
@@ -6238,9 +6249,10 @@ public class Check {
 	 * @param checkCode    the check code
 	 * @param nodeNode     the node node
 	 * @param elementGiven the element given
+	 * @param idAnalysis   the id analysis
 	 * @return true, if successful
 	 */
-	private boolean functionSectionMailto(CheckCode checkCode, Node nodeNode, Element elementGiven) {
+	private boolean functionSectionMailto(CheckCode checkCode, Node nodeNode, Element elementGiven, final Long idAnalysis) {
 		final NodeList links = elementGiven.getOwnerDocument().getElementsByTagName("a");
 		PropertiesManager pm = new PropertiesManager();
 		String regex = pm.getValue("check.patterns.properties", checkCode.getFunctionValue());
@@ -6291,7 +6303,7 @@ public class Check {
 								try {
 									Element link = (Element) linksC.item(i);
 									if (link.hasAttribute("href") && !link.getAttribute("href").toLowerCase().startsWith("mailto")) {
-										TAnalisisAccesibilidadDAO.incrementCheckOk(DataBaseManager.getConnection(), checkCode.getIdAnalysis(), accessibilityLink);
+										TAnalisisAccesibilidadDAO.incrementCheckOk(DataBaseManager.getConnection(), idAnalysis, accessibilityLink);
 										hasContact |= true;
 									}
 								} catch (Exception e) {
@@ -6315,9 +6327,10 @@ public class Check {
 	 * @param checkCode    the check code
 	 * @param nodeNode     the node node
 	 * @param elementGiven the element given
+	 * @param idAnalysis   the id analysis
 	 * @return true, if successful
 	 */
-	private boolean functionSectionHasElement(CheckCode checkCode, Node nodeNode, Element elementGiven) {
+	private boolean functionSectionHasElement(CheckCode checkCode, Node nodeNode, Element elementGiven, final Long idAnalysis) {
 		final NodeList links = elementGiven.getOwnerDocument().getElementsByTagName("a");
 		PropertiesManager pm = new PropertiesManager();
 		String regex = pm.getValue("check.patterns.properties", checkCode.getFunctionValue());
@@ -6357,7 +6370,7 @@ public class Check {
 							Element section = (Element) elements.get(j); // Get links ins section
 							final NodeList linksC = section.getElementsByTagName(checkCode.getFunctionAttribute2());
 							if (linksC.getLength() > 0) {
-								TAnalisisAccesibilidadDAO.incrementCheckOk(DataBaseManager.getConnection(), checkCode.getIdAnalysis(), accessibilityLink);
+								TAnalisisAccesibilidadDAO.incrementCheckOk(DataBaseManager.getConnection(), idAnalysis, accessibilityLink);
 								hasContact |= true;
 							}
 						}
@@ -6377,9 +6390,10 @@ public class Check {
 	 * @param checkCode    the check code
 	 * @param nodeNode     the node node
 	 * @param elementGiven the element given
+	 * @param idAnalysis   the id analysis
 	 * @return true, if successful
 	 */
-	private boolean functionAccesibilityYear(CheckCode checkCode, Node nodeNode, Element elementGiven) {
+	private boolean functionAccesibilityYear(CheckCode checkCode, Node nodeNode, Element elementGiven, final Long idAnalysis) {
 		final NodeList links = elementGiven.getOwnerDocument().getElementsByTagName("a");
 		PropertiesManager pm = new PropertiesManager();
 		String regex = pm.getValue("check.patterns.properties", checkCode.getFunctionValue());
@@ -6439,7 +6453,7 @@ public class Check {
 								SimpleDateFormat sdf = new SimpleDateFormat("YYYY");
 								final boolean dateComparision = sdf.parse(reviewYear).compareTo(sdf.parse(preparedYear)) > 2;
 								if (dateComparision) {
-									TAnalisisAccesibilidadDAO.incrementCheckOk(DataBaseManager.getConnection(), checkCode.getIdAnalysis(), accessibilityLink);
+									TAnalisisAccesibilidadDAO.incrementCheckOk(DataBaseManager.getConnection(), idAnalysis, accessibilityLink);
 								}
 								hasContact |= dateComparision;
 							}
@@ -81,8 +81,6 @@ public class CheckCode {
 	/** The vector code. */
 	@XmlTransient
 	private List<CheckCode> vectorCode;
-	/** The id analysis. */
-	private Long idAnalysis;
 
 	/**
 	 * Instantiates a new check code.
@@ -102,6 +100,26 @@ public class CheckCode {
 		stringFunctionPosition = "";
 	}
 
+	/**
+	 * Crea una copia de un código. Los códigos de las comprobaciones se comparten entre evaluaciones, así que las funciones que necesitan cambiar sus parámetros trabajan sobre una copia.
+	 *
+	 * @param checkCode el código a copiar
+	 */
+	public CheckCode(final CheckCode checkCode) {
+		type = checkCode.type;
+		conditionType = checkCode.conditionType;
+		functionId = checkCode.functionId;
+		vectorCode = checkCode.vectorCode;
+		stringNodeRelation = checkCode.stringNodeRelation;
+		stringLanguage = checkCode.stringLanguage;
+		stringFunctionValue = checkCode.stringFunctionValue;
+		stringFunctionElement = checkCode.stringFunctionElement;
+		stringFunctionNumber = checkCode.stringFunctionNumber;
+		stringFunctionAttribute1 = checkCode.stringFunctionAttribute1;
+		stringFunctionAttribute2 = checkCode.stringFunctionAttribute2;
+		stringFunctionPosition = checkCode.stringFunctionPosition;
+	}
+
 	public String getStringNodeRelation() {
 		return stringNodeRelation;
 	}
@@ -382,24 +400,6 @@ public class CheckCode {
 		this.stringLanguage = stringLanguage;
 	}
 
-	/**
-	 * Gets the id analysis.
-	 *
-	 * @return the id analysis
-	 */
-	public Long getIdAnalysis() {
-		return idAnalysis;
-	}
-
-	/**
-	 * Sets the id analysis.
-	 *
-	 * @param idAnalysis the new id analysis
-	 */
-	public void setIdAnalysis(Long idAnalysis) {
-		this.idAnalysis = idAnalysis;
-	}
-
 	/**
 	 * Creates the.
 	 *
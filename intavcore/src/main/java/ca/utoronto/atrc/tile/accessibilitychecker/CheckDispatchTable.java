@@ -0,0 +1,220 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package ca.utoronto.atrc.tile.accessibilitychecker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import es.inteco.common.logging.Logger;
+
+/**
+ * Tabla de las comprobaciones que se ejecutan sobre cada elemento para una normativa y un nivel.
+ *
+ * La tabla se calcula una sola vez por normativa y nivel y no se modifica después, de modo que la evaluación de cada nodo solo tiene que consultar el array de comprobaciones de su elemento. Para
+ * cada elemento con comprobaciones específicas se guardan esas comprobaciones seguidas de las generales (elemento <code>*</code>); el resto de elementos comparten el array de comprobaciones
+ * generales. Las comprobaciones de CSS se guardan aparte porque solo se ejecutan sobre el elemento <code>html</code>.
+ */
+final class CheckDispatchTable {
+	/** Array vacío de comprobaciones. */
+	private static final Check[] NO_CHECKS = new Check[0];
+	/** Tablas calculadas por normativa y nivel. */
+	private static final ConcurrentMap<String, CheckDispatchTable> TABLES = new ConcurrentHashMap<>();
+	/** Identificadores de las comprobaciones seleccionadas. */
+	private final List<Integer> checksSelected;
+	/** Comprobaciones agrupadas por el elemento que las dispara, en orden de prerrequisitos. */
+	private final Map<String, Check[]> triggerChecks;
+	/** Comprobaciones específicas y generales de cada elemento con comprobaciones específicas. */
+	private final Map<String, Check[]> elementChecks;
+	/** Comprobaciones generales. */
+	private final Check[] generalChecks;
+	/** Comprobaciones de CSS. */
+	private final Check[] cssChecks;
+
+	/**
+	 * Instantiates a new check dispatch table.
+	 *
+	 * @param checksSelected the checks selected
+	 * @param elementsMap    comprobaciones agrupadas por el elemento que las dispara
+	 */
+	private CheckDispatchTable(final List<Integer> checksSelected, final Map<String, List<Check>> elementsMap) {
+		this.checksSelected = Collections.unmodifiableList(new ArrayList<>(checksSelected));
+		this.triggerChecks = new HashMap<>();
+		for (Map.Entry<String, List<Check>> entry : elementsMap.entrySet()) {
+			triggerChecks.put(entry.getKey(), entry.getValue().toArray(new Check[entry.getValue().size()]));
+		}
+		this.generalChecks = getTriggerChecks("*");
+		this.cssChecks = getTriggerChecks("css");
+		this.elementChecks = new HashMap<>();
+		for (Map.Entry<String, Check[]> entry : triggerChecks.entrySet()) {
+			if (!"*".equals(entry.getKey()) && !"css".equals(entry.getKey())) {
+				final Check[] checks = new Check[entry.getValue().length + generalChecks.length];
+				System.arraycopy(entry.getValue(), 0, checks, 0, entry.getValue().length);
+				System.arraycopy(generalChecks, 0, checks, entry.getValue().length, generalChecks.length);
+				elementChecks.put(entry.getKey(), checks);
+			}
+		}
+	}
+
+	/**
+	 * Obtiene la tabla calculada para una normativa y un nivel.
+	 *
+	 * @param guidelineFile the guideline file
+	 * @param level         the level
+	 * @return la tabla o null si todavía no se ha calculado
+	 */
+	static CheckDispatchTable getTable(final String guidelineFile, final String level) {
+		return TABLES.get(getKey(guidelineFile, level));
+	}
+
+	/**
+	 * Guarda la tabla calculada para una normativa y un nivel. Si otro hilo ya la ha guardado se devuelve la de ese hilo.
+	 *
+	 * @param guidelineFile the guideline file
+	 * @param level         the level
+	 * @param table         the table
+	 * @return la tabla guardada
+	 */
+	static CheckDispatchTable putTable(final String guidelineFile, final String level, final CheckDispatchTable table) {
+		final CheckDispatchTable previous = TABLES.putIfAbsent(getKey(guidelineFile, level), table);
+		return previous != null ? previous : table;
+	}
+
+	/**
+	 * Descarta las tablas calculadas. Se debe llamar cuando se recargan las comprobaciones.
+	 */
+	static void clear() {
+		TABLES.clear();
+	}
+
+	/**
+	 * Calcula la tabla de un conjunto de comprobaciones.
+	 *
+	 * @param checksSelected the checks selected
+	 * @param allChecks      the all checks
+	 * @return the check dispatch table
+	 */
+	static CheckDispatchTable compile(final List<Integer> checksSelected, final AllChecks allChecks) {
+		return new CheckDispatchTable(checksSelected, createElementChecksLinks(checksSelected, allChecks));
+	}
+
+	/**
+	 * Identificadores de las comprobaciones seleccionadas.
+	 *
+	 * @return the checks selected
+	 */
+	List<Integer> getChecksSelected() {
+		return checksSelected;
+	}
+
+	/**
+	 * Comprobaciones de HTML que se ejecutan sobre un elemento: las específicas del elemento seguidas de las generales.
+	 *
+	 * @param elementName nombre del elemento en minúsculas
+	 * @return the checks
+	 */
+	Check[] getChecks(final String elementName) {
+		final Check[] checks = elementChecks.get(elementName);
+		return checks != null ? checks : generalChecks;
+	}
+
+	/**
+	 * Comprobaciones que dispara un elemento concreto, sin las generales.
+	 *
+	 * @param elementName the element name
+	 * @return the trigger checks
+	 */
+	Check[] getTriggerChecks(final String elementName) {
+		final Check[] checks = triggerChecks.get(elementName);
+		return checks != null ? checks : NO_CHECKS;
+	}
+
+	/**
+	 * Comprobaciones de CSS.
+	 *
+	 * @return the css checks
+	 */
+	Check[] getCssChecks() {
+		return cssChecks;
+	}
+
+	/**
+	 * Calcula la clave de una normativa y un nivel.
+	 *
+	 * @param guidelineFile the guideline file
+	 * @param level         the level
+	 * @return the key
+	 */
+	private static String getKey(final String guidelineFile, final String level) {
+		return guidelineFile + "#" + level;
+	}
+
+	// create an index that links each element to its required checks
+
+	/**
+	 * Creates the element checks links.
+	 *
+	 * @param checksSelected the checks selected
+	 * @param allChecks      the all checks
+	 * @return the map
+	 */
+	private static Map<String, List<Check>> createElementChecksLinks(final List<Integer> checksSelected, final AllChecks allChecks) {
+		final Map<String, List<Check>> elementsMap = new HashMap<>();
+		for (Integer integerSelectedCheck : checksSelected) {
+			final Check check = allChecks.getCheck(integerSelectedCheck);
+			if (check == null) {
+				Logger.putLog("Warning: Guideline contains check ID not found in master list: " + integerSelectedCheck, Evaluator.class, Logger.LOG_LEVEL_WARNING);
+			}
+			// add this check to our map
+			else {
+				final String elementName = check.getTriggerElement();
+				if ((elementName != null) && (elementName.length() != 0)) {
+					List<Check> listOfChecks = elementsMap.get(elementName);
+					if (listOfChecks == null) {
+						listOfChecks = new ArrayList<>();
+						elementsMap.put(elementName, listOfChecks);
+						listOfChecks.add(check);
+					} else {
+						// if this check is a prerequisite for any check in the
+						// list then
+						// insert it in front of that check otherwise add it at
+						// the end of the list
+						boolean checkAdded = false;
+						for (int y = 0; y < listOfChecks.size(); y++) {
+							Check tempCheck = listOfChecks.get(y);
+							if (tempCheck.isPrerequisite(check.getId())) {
+								listOfChecks.add(y, check);
+								checkAdded = true;
+								// check if this is a circular prerequisite
+								if (check.isPrerequisite(tempCheck.getId())) {
+									Logger.putLog("Warning: circular prerequisite, checks " + tempCheck.getId() + " and " + check.getId(), Evaluator.class, Logger.LOG_LEVEL_WARNING);
+								}
+								// note: I'm not testing the following checks
+								// for circular prerequisites
+								break;
+							}
+						}
+						if (!checkAdded) { // add it at the end of the list
+							listOfChecks.add(check);
+						}
+					}
+				}
+			}
+		}
+		return elementsMap;
+	}
+}
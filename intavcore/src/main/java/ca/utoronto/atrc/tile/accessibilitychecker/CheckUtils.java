@@ -24,7 +24,9 @@ import java.net.URL;
 import java.net.URLEncoder;
 import java.net.UnknownHostException;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,6 +43,7 @@ import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
+import es.gob.oaw.http.LinkVerifier;
 import es.inteco.common.IntavConstants;
 import es.inteco.common.logging.Logger;
 import es.inteco.common.properties.PropertiesManager;
@@ -266,46 +269,23 @@ public final class CheckUtils {
 		CheckedLinks checkedLinks = null;
 		try {
 			if (!isAbsolute(nodeNode.getTextContent().trim())) {
-				final String base = CheckUtils.getBaseUrl(elementRoot);
-				documentUrl = base != null ? new URL(base) : new URL((String) elementRoot.getUserData("url"));
-				remoteUrl = new URL(documentUrl, encodeUrl(nodeNode.getTextContent().trim()));
-			} else {
-				remoteUrl = new URL(encodeUrl(nodeNode.getTextContent().trim()));
-			}
-			if (!remoteUrl.getProtocol().startsWith("http")) {
-				return true;
+				documentUrl = getDocumentUrl(elementRoot);
 			}
-			// Consideramos que cualquier enlace a W3C (Internacional o España) o al portal TAW funcionan siempre además
-			// de enlaces a las redes sociales más famosas (twitter, facebook, flickr, tuenti,...).
-			if (WHITE_LIST.contains(getDomainFromHost(remoteUrl.getHost()))) {
-				return true;
-			}
-			final PropertiesManager pmgr = new PropertiesManager();
-			final List<String> allowedPorts = Arrays.asList(pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "broken.links.allowed.ports").split(";"));
-			if (allowedPorts.contains(String.valueOf(remoteUrl.getPort()))) {
-				checkedLinks = (CheckedLinks) elementRoot.getUserData("checkedLinks");
-				if (checkedLinks == null) {
-					checkedLinks = new CheckedLinks();
-					elementRoot.setUserData("checkedLinks", checkedLinks, null);
-				}
+			remoteUrl = getUrlToVerify(documentUrl, nodeNode.getTextContent().trim());
+			if (remoteUrl != null) {
+				checkedLinks = getCheckedLinks(elementRoot);
 				if (checkedLinks.getCheckedLinks().contains(remoteUrl.toString())) {
 					// Los enlaces ya verificados los damos por buenos, no puntúan mal varias veces
 					return true;
 				} else if (!checkedLinks.getBrokenLinks().contains(remoteUrl.toString()) && !checkedLinks.getAvailablelinks().contains(remoteUrl.toString())) {
 					Logger.putLog("Verificando que existe la URL " + nodeNode.getTextContent() + " --> " + remoteUrl.toString(), Check.class, Logger.LOG_LEVEL_DEBUG);
-					final HttpURLConnection connection = EvaluatorUtils.getConnection(remoteUrl.toString(), "GET", true);
-					if (documentUrl != null) {
-						connection.setRequestProperty("referer", documentUrl.toString());
-					}
-					connection.connect();
-					final int responseCode = connection.getResponseCode();
-					if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+					if (LinkVerifier.isAvailable(remoteUrl.toString(), documentUrl != null ? documentUrl.toString() : null)) {
+						checkedLinks.getAvailablelinks().add(remoteUrl.toString());
+						return true;
+					} else {
 						checkedLinks.getBrokenLinks().add(remoteUrl.toString());
 						Logger.putLog("Encontrado enlace roto: " + nodeNode.getTextContent() + " --> " + remoteUrl.toString(), Check.class, Logger.LOG_LEVEL_DEBUG);
 						return false;
-					} else {
-						checkedLinks.getAvailablelinks().add(remoteUrl.toString());
-						return true;
 					}
 				} else {
 					if (checkedLinks.getBrokenLinks().contains(remoteUrl.toString())) {
@@ -336,6 +316,82 @@ public final class CheckUtils {
 		return true;
 	}
 
+	/**
+	 * Verifica en paralelo los enlaces indicados que aún no se han verificado en el rastreo, de modo que las llamadas posteriores a {@link #isValidUrl(Element, Node)} solo consulten los resultados.
+	 *
+	 * @param elementRoot the element root
+	 * @param nodes       los nodos con las URL de los enlaces
+	 */
+	public static void verifyLinks(final Element elementRoot, final List<Node> nodes) {
+		final Map<String, String> links = new LinkedHashMap<>();
+		for (Node node : nodes) {
+			try {
+				final String href = node.getTextContent().trim();
+				final URL documentUrl = isAbsolute(href) ? null : getDocumentUrl(elementRoot);
+				final URL remoteUrl = getUrlToVerify(documentUrl, href);
+				if (remoteUrl != null && !links.containsKey(remoteUrl.toString())) {
+					links.put(remoteUrl.toString(), documentUrl != null ? documentUrl.toString() : null);
+				}
+			} catch (Exception e) {
+				// El enlace se tratará al evaluarlo
+			}
+		}
+		if (!links.isEmpty()) {
+			LinkVerifier.verify(links, getCheckedLinks(elementRoot));
+		}
+	}
+
+	/**
+	 * Obtiene la URL del documento respecto de la que se resuelven los enlaces relativos.
+	 *
+	 * @param elementRoot the element root
+	 * @return the document url
+	 * @throws MalformedURLException the malformed URL exception
+	 */
+	private static URL getDocumentUrl(final Element elementRoot) throws MalformedURLException {
+		final String base = CheckUtils.getBaseUrl(elementRoot);
+		return base != null ? new URL(base) : new URL((String) elementRoot.getUserData("url"));
+	}
+
+	/**
+	 * Obtiene la URL de un enlace que hay que verificar.
+	 *
+	 * @param documentUrl la URL del documento si el enlace es relativo o null
+	 * @param href        el enlace
+	 * @return la URL o null si el enlace se da por válido sin verificarlo
+	 * @throws MalformedURLException        the malformed URL exception
+	 * @throws UnsupportedEncodingException the unsupported encoding exception
+	 */
+	private static URL getUrlToVerify(final URL documentUrl, final String href) throws MalformedURLException, UnsupportedEncodingException {
+		final URL remoteUrl = documentUrl != null ? new URL(documentUrl, encodeUrl(href)) : new URL(encodeUrl(href));
+		if (!remoteUrl.getProtocol().startsWith("http")) {
+			return null;
+		}
+		// Consideramos que cualquier enlace a W3C (Internacional o España) o al portal TAW funcionan siempre además
+		// de enlaces a las redes sociales más famosas (twitter, facebook, flickr, tuenti,...).
+		if (WHITE_LIST.contains(getDomainFromHost(remoteUrl.getHost()))) {
+			return null;
+		}
+		final PropertiesManager pmgr = new PropertiesManager();
+		final List<String> allowedPorts = Arrays.asList(pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "broken.links.allowed.ports").split(";"));
+		return allowedPorts.contains(String.valueOf(remoteUrl.getPort())) ? remoteUrl : null;
+	}
+
+	/**
+	 * Obtiene los resultados de la verificación de enlaces asociados al documento.
+	 *
+	 * @param elementRoot the element root
+	 * @return the checked links
+	 */
+	private static CheckedLinks getCheckedLinks(final Element elementRoot) {
+		CheckedLinks checkedLinks = (CheckedLinks) elementRoot.getUserData("checkedLinks");
+		if (checkedLinks == null) {
+			checkedLinks = new CheckedLinks();
+			elementRoot.setUserData("checkedLinks", checkedLinks, null);
+		}
+		return checkedLinks;
+	}
+
 	/**
 	 * Checks if is absolute.
 	 *
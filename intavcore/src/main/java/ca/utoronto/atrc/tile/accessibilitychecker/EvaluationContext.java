@@ -0,0 +1,56 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package ca.utoronto.atrc.tile.accessibilitychecker;
+
+/**
+ * Datos propios de la evaluación de una página.
+ *
+ * Las comprobaciones ({@link Check}, {@link CheckCode}) y las normativas se cargan una sola vez y se comparten entre todas las evaluaciones, por lo que no se modifican al evaluar. Los datos que
+ * dependen de la página que se está evaluando (el idioma de los textos de las comprobaciones y el identificador del análisis) se pasan a las comprobaciones en un contexto que se crea para cada
+ * evaluación.
+ */
+public final class EvaluationContext {
+	/** Idioma de la evaluación. */
+	private final String language;
+	/** Identificador del análisis (del rastreo si la evaluación se lanza desde el rastreador). */
+	private final Long idAnalysis;
+
+	/**
+	 * Instantiates a new evaluation context.
+	 *
+	 * @param language   the language
+	 * @param idAnalysis the id analysis
+	 */
+	public EvaluationContext(final String language, final Long idAnalysis) {
+		this.language = language;
+		this.idAnalysis = idAnalysis;
+	}
+
+	/**
+	 * Gets the language.
+	 *
+	 * @return the language
+	 */
+	public String getLanguage() {
+		return language;
+	}
+
+	/**
+	 * Gets the id analysis.
+	 *
+	 * @return the id analysis
+	 */
+	public Long getIdAnalysis() {
+		return idAnalysis;
+	}
+}
@@ -45,11 +45,9 @@ import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.sql.Connection;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -60,11 +58,10 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.html.HTMLDocument;
 
-import com.opensymphony.oscache.base.NeedsRefreshException;
-
 import es.gob.oaw.css.CSSProblem;
 import es.gob.oaw.css.utils.CSSUtils;
 import es.gob.oaw.css.utils.ImportedCSSExtractor;
+import es.gob.oaw.http.LinkVerifier;
 import es.inteco.common.CheckAccessibility;
 import es.inteco.common.CheckFunctionConstants;
 import es.inteco.common.CssValidationError;
@@ -74,21 +71,21 @@ import es.inteco.common.logging.Logger;
 import es.inteco.common.properties.PropertiesManager;
 import es.inteco.intav.comun.Incidencia;
 import es.inteco.intav.datos.AnalisisDatos;
+import es.inteco.intav.datos.AnalysisWriter;
 import es.inteco.intav.datos.IncidenciaDatos;
-import es.inteco.intav.form.CheckedLinks;
 import es.inteco.intav.persistence.Analysis;
-import es.inteco.intav.utils.CacheUtils;
 import es.inteco.intav.utils.EvaluatorUtils;
-import es.inteco.plugin.dao.DataBaseManager;
 
 /**
  * The Class Evaluator.
+ *
+ * El evaluador no guarda datos de las páginas que evalúa: una misma instancia se puede usar desde varios hilos para evaluar páginas distintas a la vez. Ver {@link EvaluatorUtility}.
  */
 public class Evaluator {
 	/** The Constant ALL_HTML_VALIDATION_ERRORS. */
 	private static final String ALL_HTML_VALIDATION_ERRORS = "_ALL_ERRORS_";
-	/** The x path generator. */
-	private final XPathGenerator xPathGenerator = new XPathGenerator();
+	/** Array vacío de comprobaciones. */
+	private static final Check[] NO_CHECKS = new Check[0];
 
 	// evaluates the given file for accessibility problems
 	/**
@@ -137,31 +134,18 @@ public class Evaluator {
 	 * @return the evaluation
 	 */
 	private Evaluation evaluateWork(final CheckAccessibility checkAccessibility, final String language) {
-		final AllChecks allChecks = EvaluatorUtility.getAllChecks();
 		// create a list of checks that fulfill the given guidelines
-		final Guideline guideline = EvaluatorUtility.loadGuideline(checkAccessibility.getGuidelineFile());
-		final List<Integer> checksSelected = createCheckList(checkAccessibility, guideline);
+		final CheckDispatchTable dispatchTable = getDispatchTable(checkAccessibility);
+		final List<Integer> checksSelected = dispatchTable.getChecksSelected();
 		final boolean htmlValidationNeeded = EvaluatorUtils.isHtmlValidationNeeded(checksSelected);
 		final boolean cssValidationNeeded = EvaluatorUtils.isCssValidationNeeded(checksSelected);
 		final Document docHtml = EvaluatorUtility.loadHtmlFile(checkAccessibility, htmlValidationNeeded, cssValidationNeeded, language, false);
 		if (docHtml == null) {
 			return null;
 		} else {
-			final String cacheKey = IntavConstants.CHECKED_LINKS_CACHE_KEY + checkAccessibility.getIdRastreo();
-			CheckedLinks checkedLinks = new CheckedLinks();
-			if (checkAccessibility.getIdRastreo() > 0) {
-				try {
-					checkedLinks = (CheckedLinks) CacheUtils.getFromCache(cacheKey);
-				} catch (NeedsRefreshException e) {
-					// No hacemos nada
-				}
-			}
-			docHtml.getDocumentElement().setUserData("checkedLinks", checkedLinks, null);
-			final Evaluation evaluation = applyEvaluation(checkAccessibility, checksSelected, allChecks, docHtml, language);
-			if (checkAccessibility.getIdRastreo() > 0) {
-				CacheUtils.putInCache(docHtml.getDocumentElement().getUserData("checkedLinks"), cacheKey);
-			}
-			return evaluation;
+			// Los enlaces verificados se comparten entre todas las páginas del rastreo
+			docHtml.getDocumentElement().setUserData("checkedLinks", LinkVerifier.getPageCheckedLinks(checkAccessibility.getIdRastreo()), null);
+			return applyEvaluation(checkAccessibility, dispatchTable, docHtml, language);
 		}
 	}
 
@@ -174,10 +158,9 @@ public class Evaluator {
 	 * @throws UnsupportedEncodingException the unsupported encoding exception
 	 */
 	private Evaluation evaluateWorkFromContent(final CheckAccessibility checkAccessibility, final String language) throws UnsupportedEncodingException {
-		final AllChecks allChecks = EvaluatorUtility.getAllChecks();
-		final Guideline guideline = EvaluatorUtility.loadGuideline(checkAccessibility.getGuidelineFile());
 		// create a list of checks that fulfill the given guidelines
-		final List<Integer> checksSelected = createCheckList(checkAccessibility, guideline);
+		final CheckDispatchTable dispatchTable = getDispatchTable(checkAccessibility);
+		final List<Integer> checksSelected = dispatchTable.getChecksSelected();
 		final boolean htmlValidationNeeded = EvaluatorUtils.isHtmlValidationNeeded(checksSelected);
 		final boolean cssValidationNeeded = EvaluatorUtils.isCssValidationNeeded(checksSelected);
 		// Si se ha invocado desde el rastreador, llevará asociado un ID de
@@ -205,20 +188,9 @@ public class Evaluator {
 		if (docHtml == null) {
 			return null;
 		} else {
-			CheckedLinks checkedLinks = new CheckedLinks();
-			if (checkAccessibility.getIdRastreo() > 0) {
-				try {
-					checkedLinks = (CheckedLinks) CacheUtils.getFromCache("checkedLinks_" + checkAccessibility.getIdRastreo());
-				} catch (NeedsRefreshException e) {
-					// No hacemos nada
-				}
-			}
-			docHtml.getDocumentElement().setUserData("checkedLinks", checkedLinks, null);
-			final Evaluation evaluation = applyEvaluation(checkAccessibility, checksSelected, allChecks, docHtml, language);
-			if (checkAccessibility.getIdRastreo() > 0) {
-				CacheUtils.putInCache(docHtml.getDocumentElement().getUserData("checkedLinks"), "checkedLinks_" + checkAccessibility.getIdRastreo());
-			}
-			return evaluation;
+			// Los enlaces verificados se comparten entre todas las páginas del rastreo
+			docHtml.getDocumentElement().setUserData("checkedLinks", LinkVerifier.getPageCheckedLinks(checkAccessibility.getIdRastreo()), null);
+			return applyEvaluation(checkAccessibility, dispatchTable, docHtml, language);
 		}
 	}
 
@@ -226,26 +198,24 @@ public class Evaluator {
 	 * Apply evaluation.
 	 *
 	 * @param checkAccessibility the check accessibility
-	 * @param checksSelected     the checks selected
-	 * @param allChecks          the all checks
+	 * @param dispatchTable      the dispatch table
 	 * @param docHtml            the doc html
 	 * @param language           the language
 	 * @return the evaluation
 	 */
-	private Evaluation applyEvaluation(final CheckAccessibility checkAccessibility, final List<Integer> checksSelected, final AllChecks allChecks, final Document docHtml, final String language) {
+	private Evaluation applyEvaluation(final CheckAccessibility checkAccessibility, final CheckDispatchTable dispatchTable, final Document docHtml, final String language) {
 		// make sure there is at least one check in our vector
-		if (checksSelected.isEmpty()) {
+		if (dispatchTable.getChecksSelected().isEmpty()) {
 			Logger.putLog("Error: No checks selected for target guidelines", Evaluator.class, Logger.LOG_LEVEL_INFO);
 			return null;
 		} else {
 			try {
-				final Map<String, List<Check>> elementsMap = createElementChecksLinks(checksSelected, allChecks);
 				// find the HTML element and look for a 'lang' attribute
 				Node nodeHTML = EvaluatorUtils.getHtmlElement(docHtml);
 				nodeHTML = docHtml;
-				// set the appropriate language for selected checks
-				setAppropriateData(checksSelected, language);
-				return getEvaluation(checkAccessibility, nodeHTML, docHtml, elementsMap);
+				// the language of the selected checks is kept in the context of this evaluation (the checks are shared)
+				final EvaluationContext context = new EvaluationContext(language, checkAccessibility.getIdRastreo());
+				return getEvaluation(checkAccessibility, nodeHTML, docHtml, dispatchTable, context);
 			} catch (Exception e) {
 				Logger.putLog("Exception al evaluar " + checkAccessibility.getUrl() + ": ", Evaluator.class, Logger.LOG_LEVEL_ERROR, e);
 			}
@@ -285,59 +255,20 @@ public class Evaluator {
 		}
 		return checksSelected;
 	}
-	// create an index that links each element to its required checks
-
 	/**
-	 * Creates the element checks links.
+	 * Obtiene la tabla de comprobaciones de la normativa y el nivel del análisis. La tabla se calcula la primera vez que se evalúa una página con esa normativa y nivel.
 	 *
-	 * @param checksSelected the checks selected
-	 * @param allChecks      the all checks
-	 * @return the map
+	 * @param checkAccessibility the check accessibility
+	 * @return the dispatch table
 	 */
-	private Map<String, List<Check>> createElementChecksLinks(final List<Integer> checksSelected, final AllChecks allChecks) {
-		final Map<String, List<Check>> elementsMap = new HashMap<>();
-		for (Integer integerSelectedCheck : checksSelected) {
-			final Check check = allChecks.getCheck(integerSelectedCheck);
-			if (check == null) {
-				Logger.putLog("Warning: Guideline contains check ID not found in master list: " + integerSelectedCheck, Evaluator.class, Logger.LOG_LEVEL_WARNING);
-			}
-			// add this check to our map
-			else {
-				final String elementName = check.getTriggerElement();
-				if ((elementName != null) && (elementName.length() != 0)) {
-					List<Check> listOfChecks = elementsMap.get(elementName);
-					if (listOfChecks == null) {
-						listOfChecks = new ArrayList<>();
-						elementsMap.put(elementName, listOfChecks);
-						listOfChecks.add(check);
-					} else {
-						// if this check is a prerequisite for any check in the
-						// list then
-						// insert it in front of that check otherwise add it at
-						// the end of the list
-						boolean checkAdded = false;
-						for (int y = 0; y < listOfChecks.size(); y++) {
-							Check tempCheck = listOfChecks.get(y);
-							if (tempCheck.isPrerequisite(check.getId())) {
-								listOfChecks.add(y, check);
-								checkAdded = true;
-								// check if this is a circular prerequisite
-								if (check.isPrerequisite(tempCheck.getId())) {
-									Logger.putLog("Warning: circular prerequisite, checks " + tempCheck.getId() + " and " + check.getId(), Evaluator.class, Logger.LOG_LEVEL_WARNING);
-								}
-								// note: I'm not testing the following checks
-								// for circular prerequisites
-								break;
-							}
-						}
-						if (!checkAdded) { // add it at the end of the list
-							listOfChecks.add(check);
-						}
-					}
-				}
-			}
+	private CheckDispatchTable getDispatchTable(final CheckAccessibility checkAccessibility) {
+		final CheckDispatchTable dispatchTable = CheckDispatchTable.getTable(checkAccessibility.getGuidelineFile(), checkAccessibility.getLevel());
+		if (dispatchTable != null) {
+			return dispatchTable;
 		}
-		return elementsMap;
+		final Guideline guideline = EvaluatorUtility.loadGuideline(checkAccessibility.getGuidelineFile());
+		final List<Integer> checksSelected = createCheckList(checkAccessibility, guideline);
+		return CheckDispatchTable.putTable(checkAccessibility.getGuidelineFile(), checkAccessibility.getLevel(), CheckDispatchTable.compile(checksSelected, EvaluatorUtility.getAllChecks()));
 	}
 
 	/**
@@ -346,10 +277,12 @@ public class Evaluator {
 	 * @param checkAccesibility the check accesibility
 	 * @param nodeHTML          the node HTML
 	 * @param docHtml           the doc html
-	 * @param elementsMap       the elements map
+	 * @param dispatchTable     the dispatch table
+	 * @param context           the context
 	 * @return the evaluation
 	 */
-	private Evaluation getEvaluation(final CheckAccessibility checkAccesibility, final Node nodeHTML, final Document docHtml, final Map<String, List<Check>> elementsMap) {
+	private Evaluation getEvaluation(final CheckAccessibility checkAccesibility, final Node nodeHTML, final Document docHtml, final CheckDispatchTable dispatchTable,
+			final EvaluationContext context) {
 		final boolean isCrawling = checkAccesibility.getIdRastreo() != 0;
 		final Evaluation evaluation = new Evaluation();
 		evaluation.setFilename(checkAccesibility.getUrl());
@@ -360,24 +293,16 @@ public class Evaluator {
 		evaluation.setRastreo(checkAccesibility.getIdRastreo());
 		evaluation.addGuideline(checkAccesibility.getGuidelineFile());
 		// perform the evaluation
-		final List<Incidencia> incidenceList = evaluateLoop(nodeHTML, evaluation, elementsMap, isCrawling);
+		final List<Incidencia> incidenceList = evaluateLoop(nodeHTML, evaluation, dispatchTable, isCrawling, context);
 		// perform any special tests (doctype etc.)
-		evaluateSpecial(nodeHTML, evaluation, elementsMap);
+		evaluateSpecial(nodeHTML, evaluation, dispatchTable);
 		// resolve any potential problems
 		evaluation.resolveProblems();
 		// give each problem an ID number
 		evaluation.setIdProblems();
 		if (isCrawling) {
-			try (Connection conn = DataBaseManager.getConnection()) {
-				// create a global analysis in database
-				int idAnalisis = setAnalisisDB(evaluation, checkAccesibility);
-				// register DB analysis id in evaluation object
-				evaluation.setIdAnalisis(idAnalisis);
-				// save incidences
-				IncidenciaDatos.saveIncidenceList(conn, idAnalisis, incidenceList);
-			} catch (Exception e) {
-				Logger.putLog("Error al guardar las incidencias en base de datos", Evaluator.class, Logger.LOG_LEVEL_ERROR, e);
-			}
+			// the analysis and its incidences are stored in background together with those of other pages
+			AnalysisWriter.submit(createAnalysis(evaluation, checkAccesibility), evaluation.getCssResources(), incidenceList);
 		}
 		return evaluation;
 	}
@@ -392,12 +317,9 @@ public class Evaluator {
 	 * @param isCrawling    the is crawling
 	 */
 	private void addIncidenceToList(final Node node, final Check check, final Evaluation evaluation, final List<Incidencia> incidenceList, final boolean isCrawling) {
-		final PropertiesManager properties = new PropertiesManager();
-		final SimpleDateFormat format = new SimpleDateFormat(properties.getValue("intav.properties", "complet.date.format.ymd"));
 		final Problem problem = new Problem((Element) node);
-		problem.setDate(format.format(new Date()));
 		problem.setCheck(check);
-		problem.setXpath(xPathGenerator.getXpath(node));
+		problem.setXpathNode(node);
 		evaluation.addProblem(problem);
 		if (isCrawling) {
 			addIncidence(evaluation, problem, incidenceList);
@@ -440,21 +362,25 @@ public class Evaluator {
 	/**
 	 * Perform evaluation.
 	 *
-	 * @param node          the node
-	 * @param vectorChecks  the vector checks
-	 * @param evaluation    the evaluation
-	 * @param incidenceList the incidence list
-	 * @param isCrawling    the is crawling
+	 * @param node            the node
+	 * @param vectorChecks    the vector checks
+	 * @param cssChecks       las comprobaciones de CSS (solo se ejecutan sobre el elemento html)
+	 * @param evaluation      the evaluation
+	 * @param incidenceList   the incidence list
+	 * @param isCrawling      the is crawling
+	 * @param vectorChecksRun lista reutilizada entre nodos para los checks superados
+	 * @param context         the context
 	 */
 	// Realiza la evaluación de un conjunto de checks sobre un nodo
-	private void performEvaluation(final Node node, final List<Check> vectorChecks, final Evaluation evaluation, final List<Incidencia> incidenceList, final boolean isCrawling) {
+	private void performEvaluation(final Node node, final Check[] vectorChecks, final Check[] cssChecks, final Evaluation evaluation, final List<Incidencia> incidenceList, final boolean isCrawling,
+			final List<Integer> vectorChecksRun, final EvaluationContext context) {
 		// keep track of the checks that have run (needed for prerequisites)
-		final List<Integer> vectorChecksRun = new ArrayList<>();
+		vectorChecksRun.clear();
 		// Ejecutamos las comprobaciones de HTML
-		performEvaluationHTMLChecks(node, vectorChecks, evaluation, incidenceList, isCrawling, vectorChecksRun);
+		performEvaluationHTMLChecks(node, vectorChecks, evaluation, incidenceList, isCrawling, vectorChecksRun, context);
 		// Una vez acabadas las comprobaciones sobre HTML, ejecutamos las
 		// comprobaciones de CSS (que tienen estructura distinta)
-		performEvaluationCSSChecks(node, vectorChecks, evaluation, incidenceList, vectorChecksRun);
+		performEvaluationCSSChecks(node, cssChecks, evaluation, incidenceList, vectorChecksRun);
 	}
 
 	/**
@@ -466,8 +392,10 @@ public class Evaluator {
 	 * @param incidenceList   the incidence list
 	 * @param isCrawling      the is crawling
 	 * @param vectorChecksRun the vector checks run
+	 * @param context         the context
 	 */
-	private void performEvaluationHTMLChecks(Node node, List<Check> vectorChecks, Evaluation evaluation, List<Incidencia> incidenceList, boolean isCrawling, List<Integer> vectorChecksRun) {
+	private void performEvaluationHTMLChecks(Node node, Check[] vectorChecks, Evaluation evaluation, List<Incidencia> incidenceList, boolean isCrawling, List<Integer> vectorChecksRun,
+			EvaluationContext context) {
 		for (Check check : vectorChecks) {
 			// Comprobamos que el check está activo
 			if (check.getCheckOkCode() != CheckFunctionConstants.CHECK_STATUS_OK) {
@@ -493,7 +421,7 @@ public class Evaluator {
 				evaluation.setChecksExecutedStr(evaluation.getChecksExecutedStr().concat("," + check.getId()));
 			}
 			try {
-				if (check.doEvaluation((Element) node, evaluation.getRastreo())) {
+				if (check.doEvaluation((Element) node, context)) {
 					// Ha pasado el check, lo metemos en la lista de checks
 					// pasados con éxito
 					vectorChecksRun.add(check.getId());
@@ -609,7 +537,7 @@ public class Evaluator {
 	 * @param incidenceList   the incidence list
 	 * @param vectorChecksRun the vector checks run
 	 */
-	private void performEvaluationCSSChecks(Node node, List<Check> vectorChecks, Evaluation evaluation, List<Incidencia> incidenceList, List<Integer> vectorChecksRun) {
+	private void performEvaluationCSSChecks(Node node, Check[] vectorChecks, Evaluation evaluation, List<Incidencia> incidenceList, List<Integer> vectorChecksRun) {
 		for (Check check : vectorChecks) {
 			if ("html".equalsIgnoreCase(node.getNodeName()) && "css".equalsIgnoreCase(check.getTriggerElement())) {
 				for (CheckCode checkCode : check.getVectorCode()) {
@@ -828,70 +756,18 @@ public class Evaluator {
 		return problemTextNode;
 	}
 
-	/**
-	 * Adds the specific checks.
-	 *
-	 * @param checks      the checks
-	 * @param elementsMap the elements map
-	 * @param nameElement the name element
-	 */
-	// Añade los checks especificos de un elemento
-	private void addSpecificChecks(final List<Check> checks, final Map<String, List<Check>> elementsMap, final String nameElement) {
-		final List<Check> specificChecks = elementsMap.get(nameElement);
-		addChecks(checks, specificChecks);
-	}
-
-	/**
-	 * Adds the general checks.
-	 *
-	 * @param checks      the checks
-	 * @param elementsMap the elements map
-	 */
-	// Añade los checks generales de todos los elementos
-	private void addGeneralChecks(final List<Check> checks, final Map<String, List<Check>> elementsMap) {
-		// add the checks that apply to all elements
-		final List<Check> allElementsChecks = elementsMap.get("*");
-		addChecks(checks, allElementsChecks);
-	}
-
-	/**
-	 * Adds the css checks.
-	 *
-	 * @param checks      the checks
-	 * @param elementsMap the elements map
-	 */
-	// Añade los checks específicos de CSS
-	private void addCssChecks(final List<Check> checks, final Map<String, List<Check>> elementsMap) {
-		// add the checks that apply to css
-		final List<Check> cssChecks = elementsMap.get("css");
-		addChecks(checks, cssChecks);
-	}
-
-	/**
-	 * Adds the checks.
-	 *
-	 * @param checks    the checks
-	 * @param newChecks the new checks
-	 */
-	private void addChecks(final List<Check> checks, final List<Check> newChecks) {
-		if (newChecks != null) {
-			for (Check check : newChecks) {
-				checks.add(check);
-			}
-		}
-	}
-
 	/**
 	 * Evaluate loop.
 	 *
-	 * @param rootNode    the root node
-	 * @param evaluation  the evaluation
-	 * @param elementsMap the elements map
-	 * @param isCrawling  the is crawling
+	 * @param rootNode      the root node
+	 * @param evaluation    the evaluation
+	 * @param dispatchTable the dispatch table
+	 * @param isCrawling    the is crawling
+	 * @param context       the context
 	 * @return the list
 	 */
 	// Evalua la lista de nodos del documento
-	private List<Incidencia> evaluateLoop(final Node rootNode, final Evaluation evaluation, final Map<String, List<Check>> elementsMap, final boolean isCrawling) {
+	private List<Incidencia> evaluateLoop(final Node rootNode, final Evaluation evaluation, final CheckDispatchTable dispatchTable, final boolean isCrawling, final EvaluationContext context) {
 		final PropertiesManager pmgr = new PropertiesManager();
 		int maxNumElements = Integer.parseInt(pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "intav.max.num.html.elements"));
 		long time = System.currentTimeMillis();
@@ -899,6 +775,7 @@ public class Evaluator {
 		if (rootNode != null) {
 			extractCSSResources(rootNode, evaluation);
 			final List<Node> nodeList = EvaluatorUtils.generateNodeList(rootNode, new ArrayList<Node>(), IntavConstants.ALL_ELEMENTS);
+			final List<Integer> vectorChecksRun = new ArrayList<>();
 			int counter = 0;
 			for (Node node : nodeList) {
 				final String nameElement = node.getNodeName().toLowerCase();
@@ -907,12 +784,10 @@ public class Evaluator {
 						continue;
 					}
 					// get a list of checks for this element
-					final List<Check> checks = new ArrayList<>();
-					addSpecificChecks(checks, elementsMap, nameElement);
-					addGeneralChecks(checks, elementsMap);
-					addCssChecks(checks, elementsMap);
-					if (checks.size() > 0) {
-						performEvaluation(node, checks, evaluation, incidenceList, isCrawling);
+					final Check[] checks = dispatchTable.getChecks(nameElement);
+					final Check[] cssChecks = "html".equals(nameElement) ? dispatchTable.getCssChecks() : NO_CHECKS;
+					if (checks.length > 0 || cssChecks.length > 0) {
+						performEvaluation(node, checks, cssChecks, evaluation, incidenceList, isCrawling, vectorChecksRun, context);
 					}
 					counter++;
 				}
@@ -939,73 +814,48 @@ public class Evaluator {
 	/**
 	 * Evaluate special.
 	 *
-	 * @param nodeGiven   the node given
-	 * @param evaluation  the evaluation
-	 * @param elementsMap the elements map
+	 * @param nodeGiven     the node given
+	 * @param evaluation    the evaluation
+	 * @param dispatchTable the dispatch table
 	 */
 	// Evaluates any special tests (doctype etc.)
-	private void evaluateSpecial(final Node nodeGiven, final Evaluation evaluation, final Map<String, List<Check>> elementsMap) {
+	private void evaluateSpecial(final Node nodeGiven, final Evaluation evaluation, final CheckDispatchTable dispatchTable) {
 		// get a list of checks for this element
-		final List<Check> vectorChecks = elementsMap.get("doctype");
-		if (vectorChecks != null) {
-			for (Check check : vectorChecks) {
-				// check.properties -> contHTML.decDoctype
-				if (check.getId() == 29) {
-					final Element elementRoot = nodeGiven.getOwnerDocument().getDocumentElement();
-					final String hasDoctype = (String) elementRoot.getUserData("doctype");
-					if (hasDoctype.equals("false")) {
-						final Problem problem = new Problem((Element) nodeGiven);
-						problem.setCheck(check);
-						problem.setXpath(xPathGenerator.getXpath(nodeGiven));
-						evaluation.addProblem(problem);
-					}
+		for (Check check : dispatchTable.getTriggerChecks("doctype")) {
+			// check.properties -> contHTML.decDoctype
+			if (check.getId() == 29) {
+				final Element elementRoot = nodeGiven.getOwnerDocument().getDocumentElement();
+				final String hasDoctype = (String) elementRoot.getUserData("doctype");
+				if (hasDoctype.equals("false")) {
+					final Problem problem = new Problem((Element) nodeGiven);
+					problem.setCheck(check);
+					problem.setXpathNode(nodeGiven);
+					evaluation.addProblem(problem);
 				}
 			}
 		}
 	}
 
-	/**
-	 * Sets the appropriate data.
-	 *
-	 * @param checksIds the checks ids
-	 * @param language  the language
-	 */
-	// sets the 'appropriate' flag for all data used in the given checks
-	private void setAppropriateData(final List<Integer> checksIds, final String language) {
-		final AllChecks allChecks = EvaluatorUtility.getAllChecks();
-		for (Integer checkId : checksIds) {
-			Check check = allChecks.getCheck(checkId);
-			if (check != null) {
-				check.setAppropriateData(language);
-			}
-		}
-	}
-
 	// Saves the global information about the analysis in DataBase and return
 	/**
-	 * Sets the analisis DB.
+	 * Creates the analysis to be stored in database.
 	 *
 	 * @param evaluation         the evaluation
 	 * @param checkAccessibility the check accessibility
-	 * @return the int
+	 * @return the analysis
 	 */
-	// the id of the analysis
-	private int setAnalisisDB(final Evaluation evaluation, final CheckAccessibility checkAccessibility) {
-		try (Connection conn = DataBaseManager.getConnection()) {
-			final Analysis analysis = new Analysis();
-			analysis.setDate(new Date());
-			analysis.setFile("");
-			analysis.setUrl(evaluation.getFilename());
-			analysis.setEntity(evaluation.getEntidad());
-			analysis.setTracker(evaluation.getRastreo());
-			analysis.setGuideline(checkAccessibility.getGuidelineFile());
-			analysis.setTracker(checkAccessibility.getIdRastreo());
-			analysis.setSource(checkAccessibility.getContent());
-			return AnalisisDatos.setAnalisis(conn, analysis, evaluation.getCssResources());
-		} catch (Exception e) {
-			Logger.putLog("Error al guardar el análisis en base de datos", Evaluator.class, Logger.LOG_LEVEL_ERROR, e);
-			return -1;
-		}
+	private Analysis createAnalysis(final Evaluation evaluation, final CheckAccessibility checkAccessibility) {
+		final Analysis analysis = new Analysis();
+		analysis.setDate(new Date());
+		analysis.setFile("");
+		analysis.setUrl(evaluation.getFilename());
+		analysis.setEntity(evaluation.getEntidad());
+		analysis.setGuideline(checkAccessibility.getGuidelineFile());
+		analysis.setTracker(checkAccessibility.getIdRastreo());
+		analysis.setSource(checkAccessibility.getContent());
+		analysis.setChecksExecutedStr(evaluation.getChecksExecutedStr());
+		analysis.setStatus(IntavConstants.STATUS_SUCCESS);
+		return analysis;
 	}
 
 	// Gets the global information about the analysis from DataBase and returns
@@ -1098,6 +948,46 @@ public class Evaluator {
 		return eval;
 	}
 
+	/**
+	 * Obtiene las evaluaciones de todas las páginas de un rastreo para puntuarlas en el observatorio.
+	 *
+	 * Los análisis y sus incidencias se recuperan con una consulta para cada tabla en lugar de dos consultas por página. Como en {@link #getObservatoryAnalisisDB(Connection, long, Document)}, los
+	 * problemas solo contienen la verificación que ha fallado, sin la línea ni el código fuente de la incidencia.
+	 *
+	 * @param conn       the conn
+	 * @param idTracking the id tracking
+	 * @param doc        the doc
+	 * @return las evaluaciones ordenadas por el identificador del análisis
+	 */
+	public List<Evaluation> getObservatoryAnalisisByTracking(final Connection conn, final long idTracking, final Document doc) {
+		final List<Analysis> analysisList = AnalisisDatos.getObservatoryAnalysisByTracking(conn, idTracking);
+		final Map<Long, List<Incidencia>> incidencias = IncidenciaDatos.getObservatoryIncidenciasByTracking(conn, idTracking);
+		final AllChecks allChecks = EvaluatorUtility.getAllChecks();
+		final List<Evaluation> evaluations = new ArrayList<>(analysisList.size());
+		for (Analysis analysis : analysisList) {
+			final Evaluation eval = new Evaluation();
+			eval.setIdAnalisis(analysis.getCode());
+			eval.setHtmlDoc(doc);
+			eval.setFilename(analysis.getUrl());
+			eval.setEntidad(analysis.getEntity());
+			eval.setRastreo(analysis.getTracker());
+			eval.addGuideline(analysis.getGuideline());
+			eval.setChecksExecuted(getChecksExecuted(analysis.getChecksExecutedStr()));
+			final List<Incidencia> incidenciasAnalisis = incidencias.get((long) analysis.getCode());
+			if (incidenciasAnalisis != null) {
+				for (Incidencia inc : incidenciasAnalisis) {
+					final Problem problem = new Problem();
+					problem.setCheck(allChecks.getCheck(inc.getCodigoComprobacion()));
+					eval.addProblem(problem);
+				}
+				eval.setIdProblems();
+			}
+			eval.resolveProblems();
+			evaluations.add(eval);
+		}
+		return evaluations;
+	}
+
 	/**
 	 * Gets the checks executed.
 	 *
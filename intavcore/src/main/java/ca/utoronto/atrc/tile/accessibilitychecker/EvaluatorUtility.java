@@ -51,9 +51,9 @@ import java.net.URL;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -71,7 +71,8 @@ import org.xml.sax.InputSource;
 
 import com.tecnick.htmlutils.htmlentities.HTMLEntities;
 
-import es.gob.oaw.w3cvalidator.W3CValidatorProxy;
+import es.gob.oaw.http.HttpDiskCache;
+import es.gob.oaw.w3cvalidator.ValidatorBackends;
 import es.inteco.common.CheckAccessibility;
 import es.inteco.common.CssValidationError;
 import es.inteco.common.IntavConstants;
@@ -85,24 +86,28 @@ import es.inteco.intav.utils.EvaluatorUtils;
 
 /**
  * The Class EvaluatorUtility.
+ *
+ * Las comprobaciones y las normativas se cargan una sola vez y no se modifican durante las evaluaciones, de modo que varios hilos pueden evaluar páginas distintas a la vez con el mismo
+ * {@link Evaluator} y obtienen los mismos resultados que si las evaluaran una detrás de otra. Los datos propios de cada página se guardan en la {@link Evaluation} y en el
+ * {@link EvaluationContext} de esa evaluación.
  */
 public final class EvaluatorUtility {
 	/** The evaluator. */
 	// the evaluator
-	private static Evaluator evaluator = null;
+	private static volatile Evaluator evaluator = null;
 	/** The guideline map. */
 	// guideline
-	private static Map<String, Guideline> guidelineMap = new HashMap<>();
+	private static final ConcurrentMap<String, Guideline> guidelineMap = new ConcurrentHashMap<>();
 	/** The initialized. */
 	// initialization flag
-	private static boolean initialized = false;
+	private static volatile boolean initialized = false;
 	/** The all checks. */
-	// the collection of all the checks
-	private static AllChecks allChecks = new AllChecks();
+	// the collection of all the checks (se sustituye entera al recargar las comprobaciones)
+	private static volatile AllChecks allChecks = new AllChecks();
 	/** The iana languages. */
 	private static IanaLanguages ianaLanguages = new IanaLanguages();
 	/** The concurrent users. */
-	private static int concurrentUsers = 0;
+	private static volatile int concurrentUsers = 0;
 
 	/**
 	 * Instantiates a new evaluator utility.
@@ -391,25 +396,33 @@ public final class EvaluatorUtility {
 		// checks should only be loaded once but can be reloaded
 		if (!allChecks.isEmpty()) {
 			Logger.putLog("Note: Loading checks after they are already loaded.", EvaluatorUtility.class, Logger.LOG_LEVEL_INFO);
-			// clear the old collection of guidelines
-			allChecks.clear();
 		}
+		// Las comprobaciones se cargan en una colección nueva que se publica completa, así las evaluaciones en curso siguen usando la anterior
+		final AllChecks loadedChecks = new AllChecks();
 		final InputStream inputStream = EvaluatorUtility.class.getClassLoader().getResourceAsStream(pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "check.path"));
-		loadChecksFile(inputStream);
-		checkPrerequisites();
+		loadChecksFile(inputStream, loadedChecks);
+		checkPrerequisites(loadedChecks);
+		for (Check check : loadedChecks.getChecks()) {
+			check.loadTexts();
+		}
+		allChecks = loadedChecks;
+		// Las tablas de comprobaciones calculadas hacen referencia a los checks anteriores
+		CheckDispatchTable.clear();
 		return true;
 	}
 
 	/**
 	 * Check prerequisites.
+	 *
+	 * @param loadedChecks the loaded checks
 	 */
-	private static void checkPrerequisites() {
+	private static void checkPrerequisites(final AllChecks loadedChecks) {
 		// check the prerequisites for each check to make sure they are OK
-		final List<Check> checks = allChecks.getChecks();
+		final List<Check> checks = loadedChecks.getChecks();
 		for (Check check : checks) {
 			final List<Integer> prerequisites = check.getPrerequisites();
 			for (Integer prerequisiteId : prerequisites) {
-				final Check checkPrerequisite = allChecks.getCheck(prerequisiteId);
+				final Check checkPrerequisite = loadedChecks.getCheck(prerequisiteId);
 				if (checkPrerequisite == null) {
 					Logger.putLog("Warning: prerequisite check " + prerequisiteId + " on test " + check.getId() + " does not exist!", EvaluatorUtility.class, Logger.LOG_LEVEL_WARNING);
 				}
@@ -420,11 +433,12 @@ public final class EvaluatorUtility {
 	/**
 	 * Load checks file.
 	 *
-	 * @param inputStream the input stream
+	 * @param inputStream  the input stream
+	 * @param loadedChecks the loaded checks
 	 * @return true, if successful
 	 */
 	// load a file that contains accessibility checks
-	private static boolean loadChecksFile(final InputStream inputStream) {
+	private static boolean loadChecksFile(final InputStream inputStream, final AllChecks loadedChecks) {
 		try {
 			if (inputStream == null) {
 				Logger.putLog("Error: Can't open checks file", EvaluatorUtility.class, Logger.LOG_LEVEL_WARNING);
@@ -434,7 +448,7 @@ public final class EvaluatorUtility {
 				final DocumentBuilder builder = factory.newDocumentBuilder();
 				final Document docAllChecks = builder.parse(inputStream);
 				final Element nodeRoot = docAllChecks.getDocumentElement();
-				findChecksInMasterFile(nodeRoot);
+				findChecksInMasterFile(nodeRoot, loadedChecks);
 			}
 		} catch (Exception e) {
 			Logger.putLog("Exception: ", EvaluatorUtility.class, Logger.LOG_LEVEL_ERROR, e);
@@ -446,9 +460,10 @@ public final class EvaluatorUtility {
 	/**
 	 * Find checks in master file.
 	 *
-	 * @param nodeRoot the node root
+	 * @param nodeRoot     the node root
+	 * @param loadedChecks the loaded checks
 	 */
-	private static void findChecksInMasterFile(final Element nodeRoot) {
+	private static void findChecksInMasterFile(final Element nodeRoot, final AllChecks loadedChecks) {
 		// find all the checks in the master file
 		final NodeList childNodes = nodeRoot.getChildNodes();
 		for (int i = 0; i < childNodes.getLength(); i++) {
@@ -468,13 +483,13 @@ public final class EvaluatorUtility {
 					continue;
 				}
 				// have we already created this check?
-				Check check = allChecks.getCheck(idNumber);
+				Check check = loadedChecks.getCheck(idNumber);
 				if (check == null) {
 					// no, so create a new check
 					check = new Check();
 					// initialize the check and add it to the list of checks
 					if (check.initialize((Element) node, idNumber)) {
-						allChecks.addCheck(check);
+						loadedChecks.addCheck(check);
 					}
 				} else { // we already have the check
 					// add new language text to the check
@@ -517,8 +532,9 @@ public final class EvaluatorUtility {
 		} else {
 			fullFilename = filename;
 		}
-		if (guidelineMap.containsKey(fullFilename)) {
-			return guidelineMap.get(fullFilename);
+		final Guideline loadedGuideline = guidelineMap.get(fullFilename);
+		if (loadedGuideline != null) {
+			return loadedGuideline;
 		} else {
 			final Guideline guideline = new Guideline();
 			try (InputStream inputStream = EvaluatorUtility.class.getClassLoader().getResourceAsStream("guidelines/" + fullFilename)) {
@@ -526,8 +542,9 @@ public final class EvaluatorUtility {
 					Logger.putLog("Error: guideline did not initialize: " + fullFilename, EvaluatorUtility.class, Logger.LOG_LEVEL_WARNING);
 					return null;
 				} else {
-					guidelineMap.put(fullFilename, guideline);
-					return guideline;
+					// Si otro hilo ha cargado la normativa a la vez se usa la suya
+					final Guideline previous = guidelineMap.putIfAbsent(fullFilename, guideline);
+					return previous != null ? previous : guideline;
 				}
 			} catch (Exception e) {
 				Logger.putLog("Excepción: ", EvaluatorUtility.class, Logger.LOG_LEVEL_ERROR, e);
@@ -776,12 +793,12 @@ public final class EvaluatorUtility {
 					Logger.putLog("Tiempo tardado en validar el HTML: " + (System.currentTimeMillis() - time) + " milisegundos", EvaluatorUtility.class, Logger.LOG_LEVEL_INFO);
 				}
 			}
+			// Cargamos los CSS
+			loadCss(doc);
 			if (cssValidationNeeded) {
 				// Validamos los CSS
 				validateCss(doc, checkAccessibility, language);
 			}
-			// Cargamos los CSS
-			loadCss(doc);
 			// return the document
 			return doc;
 		} catch (IOException e) {
@@ -821,17 +838,8 @@ public final class EvaluatorUtility {
 	 */
 	private static void validateCss(final Document doc, final CheckAccessibility checkAccessibility, final String language) {
 		final Element elementRoot = doc.getDocumentElement();
-		final List<CssValidationError> cssValidationErrors = new ArrayList<>();
 		long time = System.currentTimeMillis();
-		if (StringUtils.isNotEmpty(checkAccessibility.getUrl())) {
-			cssValidationErrors.addAll(getCssValidationErrors(checkAccessibility.getUrl(), language));
-		} else {
-			cssValidationErrors.addAll(getCssValidationNotWorksMessage());
-			final List<Element> styleSheets = getStyleSheets(doc);
-			for (Element styleSheet : styleSheets) {
-				cssValidationErrors.addAll(getCssValidationErrors(styleSheet.getAttribute("href"), language));
-			}
-		}
+		final List<CssValidationError> cssValidationErrors = ValidatorBackends.getInstance().validateCss(doc, checkAccessibility.getUrl(), language);
 		Logger.putLog("Tiempo tardado en validar los CSS: " + (System.currentTimeMillis() - time) + " milisegundos", EvaluatorUtility.class, Logger.LOG_LEVEL_INFO);
 		elementRoot.setUserData("cssValidationErrors", cssValidationErrors, null);
 	}
@@ -866,10 +874,9 @@ public final class EvaluatorUtility {
 			final HttpURLConnection connection = EvaluatorUtils.getConnection(cssUrl.toString(), "GET", true);
 			// Add accept text/css to prevent some cases that text/html accpet produces 406 on server
 			connection.setRequestProperty("Accept", "text/css;text/html");
-			connection.connect();
-			int responseCode = connection.getResponseCode();
-			if (responseCode < HttpURLConnection.HTTP_BAD_REQUEST) {
-				styleSheet.setUserData("css", StringUtils.getContentAsString(connection.getInputStream()), null);
+			final byte[] content = HttpDiskCache.getInstance().getContent(connection);
+			if (content != null) {
+				styleSheet.setUserData("css", StringUtils.getContentAsString(new ByteArrayInputStream(content)), null);
 			}
 			connection.disconnect();
 		} catch (Exception e) {
@@ -883,7 +890,7 @@ public final class EvaluatorUtility {
 	 * @param doc the doc
 	 * @return the style sheets
 	 */
-	private static List<Element> getStyleSheets(final Document doc) {
+	public static List<Element> getStyleSheets(final Document doc) {
 		final List<Element> styleSheets = new ArrayList<>();
 		final NodeList links = doc.getElementsByTagName("link");
 		for (int i = 0; i < links.getLength(); i++) {
@@ -895,26 +902,6 @@ public final class EvaluatorUtility {
 		return styleSheets;
 	}
 
-	/**
-	 * Gets the css validation not works message.
-	 *
-	 * @return the css validation not works message
-	 */
-	private static List<CssValidationError> getCssValidationNotWorksMessage() {
-		final List<CssValidationError> cssValidationErrors = new ArrayList<>();
-		final CssValidationError cssValidationError = new CssValidationError();
-		final PropertiesManager pmgr = new PropertiesManager();
-		final String urlHuman = pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "url.w3c.css.validator.human.submit.code");
-		final String link = "<a href='" + urlHuman + "' title='Enlace externo'>Validador de hojas de estilo del W3C</a>";
-		cssValidationError
-				.setCode("En el modo de análisis de código fuente, la validación de las hojas de estilo solo funcionará si éstas se encuentran enlazadas desde algún servidor con acceso externo.");
-		cssValidationError.setCode(cssValidationError.getCode() + " Si no dispone de esta posibilidad, puede validar su hoja de estilos mediante el  " + link);
-		cssValidationError.setLine(1);
-		cssValidationError.setSummary(true);
-		cssValidationErrors.add(cssValidationError);
-		return cssValidationErrors;
-	}
-
 	/**
 	 * Gets the validation errors.
 	 *
@@ -935,7 +922,7 @@ public final class EvaluatorUtility {
 			} else {
 				contents = StringUtils.getContentAsString(inputStream, charset);
 			}
-			validationErrors = W3CValidatorProxy.callService(contents);
+			validationErrors = ValidatorBackends.getInstance().validateHtml(contents);
 			// Corregimos el desajuste de una línea al meter el código en una plantilla HTML cuando viene del WS y es un fragmento de código
 			if (checkAccessibility.isWebService() && StringUtils.isNotEmpty(checkAccessibility.getTemplateContent())) {
 				for (ValidationError validationError : validationErrors) {
@@ -944,6 +931,13 @@ public final class EvaluatorUtility {
 			}
 		} catch (Exception e) {
 			Logger.putLog("Error al validar el código HTML de " + checkAccessibility.getUrl(), EvaluatorUtility.class, Logger.LOG_LEVEL_ERROR, e);
+			// Si no se ha podido validar la página no se da por buena: se informa del fallo igual que con las hojas de estilo
+			validationErrors = new ArrayList<>();
+			try {
+				addValidationSummary(validationErrors, checkAccessibility.getUrl());
+			} catch (UnsupportedEncodingException uee) {
+				Logger.putLog("Error al generar el aviso de validación de " + checkAccessibility.getUrl(), EvaluatorUtility.class, Logger.LOG_LEVEL_ERROR, uee);
+			}
 		}
 		return validationErrors;
 	}
@@ -958,13 +952,15 @@ public final class EvaluatorUtility {
 	private static void addValidationSummary(final List<ValidationError> validationErrors, final String filename) throws UnsupportedEncodingException {
 		final ValidationError validationError = new ValidationError();
 		final PropertiesManager pmgr = new PropertiesManager();
-		final String urlHuman = pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "url.w3c.validator.human").replace("{0}", URLEncoder.encode(filename, "UTF-8"));
+		final String urlHuman = filename != null ? pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "url.w3c.validator.human").replace("{0}", URLEncoder.encode(filename, "UTF-8"))
+				: pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "url.w3c.validator.human.submit.code");
 		final String link = "<a href='" + urlHuman + "' title='Enlace externo'>Analizador sintáctico del W3C</a>";
 		validationError.setCode("Se ha producido un error al tratar de validar el código del HTML. Utilice la siguiente URL para verificar la sintaxis: " + link);
 		validationError.setLine(1);
 		validationError.setColumn(1);
 		validationError.setNumErrors(0);
 		validationError.setNumWarnings(0);
+		validationError.setMessageId("");
 		validationError.setSummary(true);
 		validationErrors.add(validationError);
 	}
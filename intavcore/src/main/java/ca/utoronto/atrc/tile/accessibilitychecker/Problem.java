@@ -51,10 +51,19 @@ import org.w3c.dom.Node;
 import es.inteco.common.properties.PropertiesManager;
 
 public class Problem {
+	/** Formato de las fechas de los problemas. */
+	private static final String DATE_FORMAT = new PropertiesManager().getValue("intav.properties", "complet.date.format.ymd");
+	/** Generador de las expresiones XPath, que no guarda estado entre llamadas. */
+	private static final XPathGenerator XPATH_GENERATOR = new XPathGenerator();
 	private Check check;
 	private Element element;
+	/** Momento en el que se detecta el problema. La fecha solo se formatea cuando se consulta. */
+	private final long time;
 	private String date;
+	/** Expresión XPath, que se calcula a partir de {@link #xpathNode} si se ha indicado. */
 	private String xpath;
+	/** Nodo del que se calcula la expresión XPath cuando se consulta. */
+	private Node xpathNode;
 	private String nameElement;
 	private String stringLineNumber;
 	private String stringColumnNumber;
@@ -64,9 +73,7 @@ public class Problem {
 	private boolean summary;
 
 	public Problem() {
-		final PropertiesManager properties = new PropertiesManager();
-		final SimpleDateFormat dateFormat = new SimpleDateFormat(properties.getValue("intav.properties", "complet.date.format.ymd"));
-		date = dateFormat.format(new Date());
+		time = System.currentTimeMillis();
 	}
 
 	// standard constructor using an element from the HTML document
@@ -84,6 +91,9 @@ public class Problem {
 	}
 
 	public String getDate() {
+		if (date == null) {
+			date = new SimpleDateFormat(DATE_FORMAT).format(new Date(time));
+		}
 		return date;
 	}
 
@@ -101,11 +111,26 @@ public class Problem {
 	}
 
 	public String getXpath() {
+		if (xpathNode != null) {
+			xpath = XPATH_GENERATOR.getXpath(xpathNode);
+			xpathNode = null;
+		}
 		return xpath;
 	}
 
 	public void setXpath(String anXpath) {
 		xpath = anXpath;
+		xpathNode = null;
+	}
+
+	/**
+	 * Indica el nodo del que se obtiene la expresión XPath del problema. La expresión solo se calcula cuando se consulta, de modo que no se calcula para los problemas que no se muestran.
+	 *
+	 * @param node el nodo
+	 */
+	public void setXpathNode(Node node) {
+		xpath = null;
+		xpathNode = node;
 	}
 
 	@XmlTransient
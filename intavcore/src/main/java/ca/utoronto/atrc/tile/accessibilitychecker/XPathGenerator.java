@@ -1,14 +1,27 @@
 package ca.utoronto.atrc.tile.accessibilitychecker;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 import org.w3c.dom.Attr;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 /**
  * Clase para generar una expresión XPath de un nodo.
+ *
+ * Las expresiones de los elementos y la posición de cada nodo entre sus hermanos se guardan como datos de usuario de los nodos, de modo que los hermanos de cada elemento se recorren una sola vez por
+ * documento y las expresiones de los ancestros comunes se reutilizan.
  */
 public class XPathGenerator {
 
+    /** Dato de usuario con la expresión XPath de un elemento. */
+    private static final String XPATH_USER_DATA = "xpathExpression";
+
+    /** Dato de usuario con el sufijo de posición de un nodo entre sus hermanos. */
+    private static final String SUFFIX_USER_DATA = "xpathSuffix";
+
     /**
      * Obtiene la expresión XPath que identifica al nodo (Node).
      *
@@ -16,43 +29,34 @@ public class XPathGenerator {
      * @return una cadena que representa la expresión xPath que identifica al nodo.
      */
     public String getXpath(final Node node) {
-        String expression;
-        String attribute = "";
-
         if (node.getNodeType() == Node.ATTRIBUTE_NODE) {
-            attribute = "/@" + node.getNodeName();
-            expression = ((Attr) node).getOwnerElement().getNodeName();
-        } else if (node.getNodeType() == Node.TEXT_NODE) {
-            expression = "text()";
-        } else {
-            expression = node.getNodeName();
+            return ("/" + ((Attr) node).getOwnerElement().getNodeName() + "/@" + node.getNodeName()).toLowerCase();
         }
-
-        String suffix = getXpathSuffix(node);
-        expression = expression.concat(suffix);
-        expression = expression.concat(attribute);
-
-        String fullExpression = "/" + getXpathLoop(node, expression);
-        return fullExpression.toLowerCase();
+        return getNodeXpath(node);
     }
 
-    // Recursive function that creates the Xpath expression
-    private String getXpathLoop(final Node node, final String expression) {
-        final Node nodeParent = node.getParentNode();
-        if (nodeParent == null || nodeParent.getNodeType() == Node.DOCUMENT_NODE) {
-            return expression;
+    // Calcula la expresión a partir de la de su padre, guardándola si el nodo es un elemento
+    private String getNodeXpath(final Node node) {
+        if (node.getNodeType() == Node.ELEMENT_NODE) {
+            final String cached = (String) node.getUserData(XPATH_USER_DATA);
+            if (cached != null) {
+                return cached;
+            }
         }
 
-        String stringParentName;
-        if (nodeParent.getNodeType() == Node.TEXT_NODE) {
-            stringParentName = "text()";
+        final String step = (node.getNodeType() == Node.TEXT_NODE ? "text()" : node.getNodeName()).concat(getXpathSuffix(node)).toLowerCase();
+        final Node nodeParent = node.getParentNode();
+        final String expression;
+        if (nodeParent == null || nodeParent.getNodeType() == Node.DOCUMENT_NODE) {
+            expression = "/" + step;
         } else {
-            stringParentName = nodeParent.getNodeName();
+            expression = getNodeXpath(nodeParent) + "/" + step;
         }
-        stringParentName = stringParentName.concat(getXpathSuffix(nodeParent));
 
-        String newExpression = stringParentName + "/" + expression;
-        return getXpathLoop(nodeParent, newExpression);
+        if (node.getNodeType() == Node.ELEMENT_NODE) {
+            node.setUserData(XPATH_USER_DATA, expression, null);
+        }
+        return expression;
     }
 
     private String getXpathSuffix(final Node node) {
@@ -65,22 +69,37 @@ public class XPathGenerator {
             return "";
         }
 
+        String suffix = (String) node.getUserData(SUFFIX_USER_DATA);
+        if (suffix == null) {
+            setXpathSuffixes(nodeParent);
+            suffix = (String) node.getUserData(SUFFIX_USER_DATA);
+        }
+        return suffix;
+    }
+
+    // Calcula de una vez los sufijos de todos los hijos de un nodo
+    private void setXpathSuffixes(final Node nodeParent) {
         final NodeList childNodes = nodeParent.getChildNodes();
-        int count = 0; // number of elements that are the same as the given element
-        int index = 1; // the index of the given element amongst all same elements
-        for (int x = 0; x < childNodes.getLength(); x++) {
-            if (childNodes.item(x) == node) {
-                index = count + 1;
-                count++;
-            } else if (childNodes.item(x).getNodeName().compareToIgnoreCase(node.getNodeName()) == 0) {
-                count++;
+        final int length = childNodes.getLength();
+        final String[] names = new String[length];
+        // number of elements with the same name
+        final Map<String, int[]> counts = new HashMap<>();
+        for (int x = 0; x < length; x++) {
+            names[x] = childNodes.item(x).getNodeName().toLowerCase(Locale.ENGLISH);
+            int[] count = counts.get(names[x]);
+            if (count == null) {
+                count = new int[2];
+                counts.put(names[x], count);
             }
+            count[0]++;
         }
 
-        if (count <= 1) {
-            return "";
+        for (int x = 0; x < length; x++) {
+            final int[] count = counts.get(names[x]);
+            // the index of the given element amongst all same elements
+            count[1]++;
+            final String suffix = count[0] <= 1 ? "" : "[" + count[1] + "]";
+            childNodes.item(x).setUserData(SUFFIX_USER_DATA, suffix, null);
         }
-
-        return String.format("[%s]", Integer.toString(index));
     }
 }
@@ -1,5 +1,6 @@
 package es.gob.oaw.css;
 
+import java.io.ByteArrayInputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -8,6 +9,7 @@ import java.net.URL;
 import org.w3c.dom.Element;
 
 import ca.utoronto.atrc.tile.accessibilitychecker.EvaluatorUtility;
+import es.gob.oaw.http.HttpDiskCache;
 import es.inteco.common.logging.Logger;
 import es.inteco.common.utils.StringUtils;
 import es.inteco.intav.utils.EvaluatorUtils;
@@ -112,10 +114,9 @@ public class CSSImportedResource implements CSSResource {
 				cssUrl = new URL(new URL(baseUrl), importUrl);
 			}
 			final HttpURLConnection connection = EvaluatorUtils.getConnection(cssUrl.toString(), "GET", true);
-			connection.connect();
-			int responseCode = connection.getResponseCode();
-			if (responseCode < HttpURLConnection.HTTP_BAD_REQUEST) {
-				return StringUtils.getContentAsString(connection.getInputStream());
+			final byte[] content = HttpDiskCache.getInstance().getContent(connection);
+			if (content != null) {
+				return StringUtils.getContentAsString(new ByteArrayInputStream(content));
 			}
 		} catch (Exception e) {
 			Logger.putLog("Error al cargar la hoja de estilo importada " + importUrl, EvaluatorUtility.class, Logger.LOG_LEVEL_WARNING, e);
@@ -4,11 +4,10 @@ import com.helger.css.ECSSVersion;
 import com.helger.css.decl.*;
 import com.helger.css.decl.visit.CSSVisitor;
 import com.helger.css.decl.visit.DefaultCSSVisitor;
-import com.helger.css.reader.CSSReader;
-import com.helger.css.reader.errorhandler.CollectingCSSParseErrorHandler;
 import com.helger.css.writer.CSSWriterSettings;
 
 import es.gob.oaw.css.utils.CSSSACUtils;
+import es.gob.oaw.css.utils.ParsedCSSCache;
 import es.inteco.common.logging.Logger;
 import org.dom4j.Document;
 import org.w3c.css.sac.InputSource;
@@ -77,7 +76,7 @@ public class OAWCSSVisitor extends DefaultCSSVisitor implements CSSAnalyzer {
         if (!cssResource.getContent().isEmpty()) {
             try {
                 resource = cssResource;
-                final CascadingStyleSheet aCSS = CSSReader.readFromString(cssResource.getContent(), ECSSVersion.CSS30, new CollectingCSSParseErrorHandler());
+                final CascadingStyleSheet aCSS = ParsedCSSCache.getInstance().getStyleSheet(cssResource.getContent());
                 if (aCSS != null) {
                     CSSVisitor.visitCSS(aCSS, this);
                 }
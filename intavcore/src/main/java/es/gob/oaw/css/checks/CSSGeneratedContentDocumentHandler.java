@@ -23,14 +23,13 @@ import com.helger.css.ECSSVersion;
 import com.helger.css.decl.CSSDeclaration;
 import com.helger.css.decl.CascadingStyleSheet;
 import com.helger.css.decl.visit.CSSVisitor;
-import com.helger.css.reader.CSSReader;
-import com.helger.css.reader.errorhandler.CollectingCSSParseErrorHandler;
 import com.helger.css.writer.CSSWriterSettings;
 
 import es.gob.oaw.css.CSSProblem;
 import es.gob.oaw.css.CSSResource;
 import es.gob.oaw.css.OAWCSSVisitor;
 import es.gob.oaw.css.utils.CSSSACUtils;
+import es.gob.oaw.css.utils.ParsedCSSCache;
 import es.inteco.common.logging.Logger;
 
 /**
@@ -63,7 +62,7 @@ public class CSSGeneratedContentDocumentHandler extends OAWCSSVisitor {
 		if (!cssResource.getContent().isEmpty() && !cssResource.isInline()) {
 			try {
 				resource = cssResource;
-				final CascadingStyleSheet aCSS = CSSReader.readFromString(cssResource.getContent(), ECSSVersion.CSS30, new CollectingCSSParseErrorHandler());
+				final CascadingStyleSheet aCSS = ParsedCSSCache.getInstance().getStyleSheet(cssResource.getContent());
 				if (aCSS != null) {
 					CSSVisitor.visitCSS(aCSS, this);
 				}
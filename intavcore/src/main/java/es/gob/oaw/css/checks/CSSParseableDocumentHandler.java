@@ -15,14 +15,13 @@ package es.gob.oaw.css.checks;
 import com.helger.css.ECSSVersion;
 import com.helger.css.decl.CascadingStyleSheet;
 import com.helger.css.decl.visit.CSSVisitor;
-import com.helger.css.reader.CSSReader;
 import com.helger.css.reader.errorhandler.CSSParseError;
-import com.helger.css.reader.errorhandler.CollectingCSSParseErrorHandler;
 import com.helger.css.writer.CSSWriterSettings;
 
 import es.gob.oaw.css.CSSProblem;
 import es.gob.oaw.css.CSSResource;
 import es.gob.oaw.css.OAWCSSVisitor;
+import es.gob.oaw.css.utils.ParsedCSSCache;
 import es.inteco.common.logging.Logger;
 import org.dom4j.Document;
 
@@ -46,11 +45,11 @@ public class CSSParseableDocumentHandler extends OAWCSSVisitor {
         if (!cssResource.getContent().isEmpty()) {
             try {
                 resource = cssResource;
-                final CollectingCSSParseErrorHandler errorHandler = new CollectingCSSParseErrorHandler();
-                final CascadingStyleSheet aCSS = CSSReader.readFromString(cssResource.getContent(), ECSSVersion.CSS30, errorHandler);
+                final ParsedCSSCache.ParsedCSS parsedCSS = ParsedCSSCache.getInstance().get(cssResource.getContent());
+                final CascadingStyleSheet aCSS = parsedCSS.getStyleSheet();
                 if (aCSS != null) {
                     CSSVisitor.visitCSS(aCSS, this);
-                    for (CSSParseError cssParseError : errorHandler.getAllParseErrors()) {
+                    for (CSSParseError cssParseError : parsedCSS.getParseErrors()) {
                         getProblems().add(createCSSParserError(cssParseError));
                     }
                 }
@@ -21,15 +21,13 @@ import javax.annotation.Nonnull;
 
 import org.dom4j.Document;
 
-import com.helger.css.ECSSVersion;
 import com.helger.css.decl.CSSDeclaration;
 import com.helger.css.decl.CascadingStyleSheet;
-import com.helger.css.reader.CSSReader;
-import com.helger.css.reader.errorhandler.CollectingCSSParseErrorHandler;
 
 import es.gob.oaw.css.CSSProblem;
 import es.gob.oaw.css.CSSResource;
 import es.gob.oaw.css.OAWCSSVisitor;
+import es.gob.oaw.css.utils.ParsedCSSCache;
 import es.gob.oaw.utils.AccesibilityDeclarationCheckUtils;
 import es.inteco.common.logging.Logger;
 import es.inteco.common.properties.PropertiesManager;
@@ -130,7 +128,7 @@ public class CSSResponsiveElementsDocumentHandler extends OAWCSSVisitor {
 			}
 			try {
 				resource = cssResource;
-				final CascadingStyleSheet aCSS = CSSReader.readFromString(cssResource.getContent(), ECSSVersion.CSS30, new CollectingCSSParseErrorHandler());
+				final CascadingStyleSheet aCSS = ParsedCSSCache.getInstance().getStyleSheet(cssResource.getContent());
 				if (aCSS != null) {
 					// Si encontramos las media query o los tas añadimos un error (que luego
 					// gestionaremos para devolver)
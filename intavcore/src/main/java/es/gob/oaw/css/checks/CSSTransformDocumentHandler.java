@@ -18,7 +18,6 @@ import java.util.regex.Pattern;
 
 import org.dom4j.Document;
 
-import com.helger.css.ECSSVersion;
 import com.helger.css.decl.CSSDeclaration;
 import com.helger.css.decl.CSSMediaExpression;
 import com.helger.css.decl.CSSMediaQuery;
@@ -26,12 +25,11 @@ import com.helger.css.decl.CSSMediaRule;
 import com.helger.css.decl.CSSStyleRule;
 import com.helger.css.decl.CascadingStyleSheet;
 import com.helger.css.decl.visit.CSSVisitor;
-import com.helger.css.reader.CSSReader;
-import com.helger.css.reader.errorhandler.CollectingCSSParseErrorHandler;
 
 import es.gob.oaw.css.CSSProblem;
 import es.gob.oaw.css.CSSResource;
 import es.gob.oaw.css.OAWCSSVisitor;
+import es.gob.oaw.css.utils.ParsedCSSCache;
 import es.inteco.common.logging.Logger;
 import es.inteco.common.utils.StringUtils;
 
@@ -70,7 +68,7 @@ public class CSSTransformDocumentHandler extends OAWCSSVisitor {
 		if (!cssResource.getContent().isEmpty()) {
 			try {
 				resource = cssResource;
-				final CascadingStyleSheet aCSS = CSSReader.readFromString(cssResource.getContent(), ECSSVersion.CSS30, new CollectingCSSParseErrorHandler());
+				final CascadingStyleSheet aCSS = ParsedCSSCache.getInstance().getStyleSheet(cssResource.getContent());
 				if (aCSS != null) {
 					// Si encontramos las media query o los tas añadimos un error (que luego
 					// gestionaremos para devolver)
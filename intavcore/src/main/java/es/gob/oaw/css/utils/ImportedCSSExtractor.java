@@ -8,13 +8,9 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.html.HTMLDocument;
 
-import com.helger.css.ECSSVersion;
 import com.helger.css.decl.CSSImportRule;
 import com.helger.css.decl.CSSMediaQuery;
 import com.helger.css.decl.CascadingStyleSheet;
-import com.helger.css.handler.DoNothingCSSParseExceptionCallback;
-import com.helger.css.reader.CSSReader;
-import com.helger.css.reader.errorhandler.DoNothingCSSParseErrorHandler;
 
 import es.gob.oaw.css.CSSImportedResource;
 import es.gob.oaw.css.CSSResource;
@@ -88,7 +84,7 @@ public class ImportedCSSExtractor {
 			try {
 				// La librería que se utiliza no maneja contenido UTF-8 con la marca BOM por lo que eliminamos el BOM si existe
 				final String cssContent = getCSSContentWithoutBOM(cssResource.getContent());
-				final CascadingStyleSheet aCSS = CSSReader.readFromString(cssContent, ECSSVersion.CSS30, new DoNothingCSSParseErrorHandler(), new DoNothingCSSParseExceptionCallback());
+				final CascadingStyleSheet aCSS = ParsedCSSCache.getInstance().getStyleSheet(cssContent);
 				if (aCSS != null && !aCSS.getAllImportRules().isEmpty()) {
 					for (CSSImportRule cssImportRule : aCSS.getAllImportRules()) {
 						if (isScreenMedia(cssImportRule.getAllMediaQueries())) {
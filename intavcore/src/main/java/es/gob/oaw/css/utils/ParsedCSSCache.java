@@ -0,0 +1,207 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.css.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.helger.css.ECSSVersion;
+import com.helger.css.decl.CascadingStyleSheet;
+import com.helger.css.reader.CSSReader;
+import com.helger.css.reader.errorhandler.CSSParseError;
+import com.helger.css.reader.errorhandler.CollectingCSSParseErrorHandler;
+
+import es.inteco.common.IntavConstants;
+import es.inteco.common.logging.Logger;
+import es.inteco.common.properties.PropertiesManager;
+import es.inteco.common.utils.HashUtils;
+
+/**
+ * Caché de hojas de estilo parseadas.
+ *
+ * Las comprobaciones de CSS y la extracción de reglas @import parsean el mismo contenido varias veces en cada página, y las hojas de estilo comunes de un sitio se repiten en todas sus páginas. La
+ * caché guarda el resultado del parseo indexado por el hash del contenido, de modo que cada contenido distinto se parsea una sola vez mientras permanezca en la caché. Cuando se supera el número
+ * máximo de entradas (propiedad <code>css.cache.max.entries</code>) se descartan las usadas hace más tiempo.
+ *
+ * Las hojas de estilo devueltas se comparten entre comprobaciones y entre hilos, por lo que no se deben modificar.
+ */
+public final class ParsedCSSCache {
+	/** Propiedad con el número máximo de hojas de estilo en caché. */
+	private static final String MAX_ENTRIES_PROPERTY = "css.cache.max.entries";
+	/** Número máximo de hojas de estilo en caché por defecto. */
+	private static final int DEFAULT_MAX_ENTRIES = 256;
+	/** Instancia compartida. */
+	private static ParsedCSSCache instance;
+	/** Hojas de estilo parseadas en orden de uso. */
+	private final Map<String, ParsedCSS> entries;
+	/** Número de consultas resueltas desde la caché. */
+	private long hits = 0;
+	/** Número de hojas de estilo parseadas. */
+	private long misses = 0;
+
+	/**
+	 * Instantiates a new parsed CSS cache.
+	 *
+	 * @param maxEntries número máximo de hojas de estilo en caché
+	 */
+	ParsedCSSCache(final int maxEntries) {
+		this.entries = new LinkedHashMap<String, ParsedCSS>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, ParsedCSS> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Obtiene la instancia compartida.
+	 *
+	 * @return the instance
+	 */
+	public static synchronized ParsedCSSCache getInstance() {
+		if (instance == null) {
+			instance = new ParsedCSSCache(getMaxEntries());
+		}
+		return instance;
+	}
+
+	/**
+	 * Obtiene una hoja de estilo parseada. Si el contenido no está en la caché se parsea y se guarda el resultado, aunque no se haya podido parsear.
+	 *
+	 * @param content el contenido CSS
+	 * @return el resultado del parseo
+	 */
+	public ParsedCSS get(final String content) {
+		final String key = getKey(content);
+		synchronized (this) {
+			final ParsedCSS cached = entries.get(key);
+			if (cached != null) {
+				hits++;
+				return cached;
+			}
+		}
+		// Se parsea fuera del bloqueo; si dos hilos parsean el mismo contenido ambos resultados son equivalentes
+		final CollectingCSSParseErrorHandler errorHandler = new CollectingCSSParseErrorHandler();
+		final ParsedCSS parsed = new ParsedCSS(CSSReader.readFromString(content, ECSSVersion.CSS30, errorHandler), errorHandler.getAllParseErrors());
+		synchronized (this) {
+			misses++;
+			entries.put(key, parsed);
+		}
+		return parsed;
+	}
+
+	/**
+	 * Obtiene la hoja de estilo parseada de un contenido.
+	 *
+	 * @param content el contenido CSS
+	 * @return la hoja de estilo o null si no se ha podido parsear
+	 */
+	public CascadingStyleSheet getStyleSheet(final String content) {
+		return get(content).getStyleSheet();
+	}
+
+	/**
+	 * Número de hojas de estilo en caché.
+	 *
+	 * @return the int
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Número de consultas resueltas desde la caché.
+	 *
+	 * @return the hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Número de hojas de estilo parseadas.
+	 *
+	 * @return the misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Calcula la clave de un contenido CSS.
+	 *
+	 * @param content el contenido CSS
+	 * @return el hash SHA-256 del contenido en hexadecimal
+	 */
+	private static String getKey(final String content) {
+		return HashUtils.sha256Hex(content);
+	}
+
+	/**
+	 * Obtiene el número máximo de hojas de estilo en caché.
+	 *
+	 * @return the max entries
+	 */
+	private static int getMaxEntries() {
+		final String value = new PropertiesManager().getValue(IntavConstants.INTAV_PROPERTIES, MAX_ENTRIES_PROPERTY);
+		try {
+			return value != null ? Math.max(1, Integer.parseInt(value.trim())) : DEFAULT_MAX_ENTRIES;
+		} catch (NumberFormatException e) {
+			Logger.putLog("Valor no válido para la propiedad " + MAX_ENTRIES_PROPERTY, ParsedCSSCache.class, Logger.LOG_LEVEL_WARNING);
+			return DEFAULT_MAX_ENTRIES;
+		}
+	}
+
+	/**
+	 * Resultado del parseo de un contenido CSS.
+	 */
+	public static final class ParsedCSS {
+		/** La hoja de estilo o null si no se ha podido parsear. */
+		private final CascadingStyleSheet styleSheet;
+		/** Los errores de parseo recuperables. */
+		private final List<CSSParseError> parseErrors;
+
+		/**
+		 * Instantiates a new parsed CSS.
+		 *
+		 * @param styleSheet  the style sheet
+		 * @param parseErrors the parse errors
+		 */
+		ParsedCSS(final CascadingStyleSheet styleSheet, final List<CSSParseError> parseErrors) {
+			this.styleSheet = styleSheet;
+			this.parseErrors = Collections.unmodifiableList(parseErrors);
+		}
+
+		/**
+		 * Gets the style sheet.
+		 *
+		 * @return la hoja de estilo o null si no se ha podido parsear
+		 */
+		public CascadingStyleSheet getStyleSheet() {
+			return styleSheet;
+		}
+
+		/**
+		 * Gets the parse errors.
+		 *
+		 * @return the parse errors
+		 */
+		public List<CSSParseError> getParseErrors() {
+			return parseErrors;
+		}
+	}
+}
@@ -0,0 +1,181 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.http;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import es.inteco.common.IntavConstants;
+import es.inteco.common.logging.Logger;
+import es.inteco.common.properties.PropertiesManager;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Clientes HTTP compartidos por el rastreador, el evaluador y los validadores.
+ *
+ * Las conexiones con {@link java.net.HttpURLConnection} reutilizan las conexiones persistentes de la JVM, pero solo cuando todas usan la misma factoría de sockets SSL. Por eso la factoría que no
+ * valida certificados se crea una única vez. El número de conexiones persistentes por host se limita con la propiedad del sistema <code>http.maxConnections</code>, que se fija al arrancar la
+ * aplicación con {@link #configureKeepAlive()}.
+ *
+ * Las llamadas a servicios externos usan un único {@link OkHttpClient} con un pool de conexiones acotado y HTTP/2 cuando el servidor lo admite.
+ */
+public final class HttpClientProvider {
+	/** Propiedad con el número máximo de conexiones persistentes por host. */
+	private static final String MAX_CONNECTIONS_PER_HOST_PROPERTY = "http.client.max.connections.per.host";
+	/** Propiedad con el número máximo de conexiones inactivas en el pool. */
+	private static final String MAX_IDLE_CONNECTIONS_PROPERTY = "http.client.max.idle.connections";
+	/** Propiedad con el tiempo (en segundos) que se mantiene abierta una conexión inactiva. */
+	private static final String KEEP_ALIVE_PROPERTY = "http.client.keep.alive.seconds";
+	/** Propiedad del sistema de la JVM con el número de conexiones persistentes por host. */
+	private static final String JVM_MAX_CONNECTIONS = "http.maxConnections";
+	/** Contexto SSL que no valida certificados. */
+	private static SSLContext naiveSSLContext;
+	/** Factoría de sockets SSL que no valida certificados. */
+	private static SSLSocketFactory naiveSSLSocketFactory;
+	/** Indica si se han instalado los valores SSL por defecto de la JVM. */
+	private static boolean defaultsInstalled = false;
+	/** Cliente para servicios externos. */
+	private static OkHttpClient okHttpClient;
+
+	/**
+	 * Instantiates a new http client provider.
+	 */
+	private HttpClientProvider() {
+	}
+
+	/**
+	 * Configura las conexiones persistentes de la JVM si no se han configurado al arrancar.
+	 *
+	 * La JVM lee la propiedad la primera vez que abre una conexión, por lo que debe llamarse al configurar la aplicación, antes de cualquier petición.
+	 */
+	public static void configureKeepAlive() {
+		if (System.getProperty(JVM_MAX_CONNECTIONS) == null) {
+			System.setProperty(JVM_MAX_CONNECTIONS, String.valueOf(getIntValue(MAX_CONNECTIONS_PER_HOST_PROPERTY, 8)));
+		}
+	}
+
+	/**
+	 * Obtiene la factoría de sockets SSL que no valida certificados.
+	 *
+	 * @return the naive SSL socket factory
+	 */
+	public static synchronized SSLSocketFactory getNaiveSSLSocketFactory() {
+		if (naiveSSLSocketFactory == null) {
+			try {
+				// Modificamos el protocolo SSL para solucionar la conexión con
+				// algunos páginas que no son accesibles con SSL/TSL (v1)
+				final SSLContext sc = SSLContext.getInstance("TLSv1.2");
+				sc.init(null, new TrustManager[] { new NaiveTrustManager() }, new java.security.SecureRandom());
+				naiveSSLContext = sc;
+				naiveSSLSocketFactory = sc.getSocketFactory();
+			} catch (Exception e) {
+				Logger.putLog("Excepción: ", HttpClientProvider.class, Logger.LOG_LEVEL_ERROR, e);
+			}
+		}
+		return naiveSSLSocketFactory;
+	}
+
+	/**
+	 * Instala la factoría de sockets SSL que no valida certificados como valor por defecto de la JVM.
+	 *
+	 * @return the naive SSL socket factory
+	 */
+	public static synchronized SSLSocketFactory installNaiveSSLDefaults() {
+		final SSLSocketFactory factory = getNaiveSSLSocketFactory();
+		if (!defaultsInstalled && factory != null) {
+			SSLContext.setDefault(naiveSSLContext);
+			HttpsURLConnection.setDefaultSSLSocketFactory(factory);
+			HttpsURLConnection.setDefaultHostnameVerifier(getNaiveHostnameVerifier());
+			defaultsInstalled = true;
+		}
+		return factory;
+	}
+
+	/**
+	 * Obtiene un verificador de nombres de host que acepta cualquier host.
+	 *
+	 * @return the naive hostname verifier
+	 */
+	public static HostnameVerifier getNaiveHostnameVerifier() {
+		return new HostnameVerifier() {
+			@Override
+			public boolean verify(String s, SSLSession sslSession) {
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Obtiene el cliente compartido para las llamadas a servicios externos.
+	 *
+	 * @return the ok http client
+	 */
+	public static synchronized OkHttpClient getOkHttpClient() {
+		if (okHttpClient == null) {
+			final int maxPerHost = getIntValue(MAX_CONNECTIONS_PER_HOST_PROPERTY, 8);
+			final Dispatcher dispatcher = new Dispatcher();
+			dispatcher.setMaxRequestsPerHost(maxPerHost);
+			final long timeout = getIntValue("validator.timeout", 30000);
+			okHttpClient = new OkHttpClient.Builder().connectionPool(new ConnectionPool(getIntValue(MAX_IDLE_CONNECTIONS_PROPERTY, 16), getIntValue(KEEP_ALIVE_PROPERTY, 60), TimeUnit.SECONDS))
+					.dispatcher(dispatcher).protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)).connectTimeout(timeout, TimeUnit.MILLISECONDS).readTimeout(timeout, TimeUnit.MILLISECONDS)
+					.writeTimeout(timeout, TimeUnit.MILLISECONDS).eventListenerFactory(HttpMetrics.eventListenerFactory()).build();
+		}
+		return okHttpClient;
+	}
+
+	/**
+	 * Obtiene un valor entero de la configuración.
+	 *
+	 * @param key          the key
+	 * @param defaultValue valor por defecto si la propiedad no existe o no es válida
+	 * @return the int value
+	 */
+	private static int getIntValue(final String key, final int defaultValue) {
+		try {
+			final String value = new PropertiesManager().getValue(IntavConstants.INTAV_PROPERTIES, key);
+			return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+		} catch (NumberFormatException e) {
+			Logger.putLog("Valor no válido para la propiedad " + key, HttpClientProvider.class, Logger.LOG_LEVEL_WARNING);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Gestor de confianza que no valida las cadenas de certificados.
+	 */
+	private static final class NaiveTrustManager implements X509TrustManager {
+		@Override
+		public java.security.cert.X509Certificate[] getAcceptedIssuers() {
+			return null;
+		}
+
+		@Override
+		public void checkClientTrusted(java.security.cert.X509Certificate[] certs, String authType) {
+		}
+
+		@Override
+		public void checkServerTrusted(java.security.cert.X509Certificate[] certs, String authType) {
+		}
+	}
+}
@@ -0,0 +1,547 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.HttpsURLConnection;
+
+import es.inteco.common.IntavConstants;
+import es.inteco.common.logging.Logger;
+import es.inteco.common.properties.PropertiesManager;
+import es.inteco.common.utils.HashUtils;
+
+/**
+ * Caché HTTP en disco compartida entre iteraciones del observatorio.
+ *
+ * Guarda las cabeceras ETag y Last-Modified de las respuestas 200 y, opcionalmente, su contenido. En las siguientes peticiones a la misma URL se envían las cabeceras If-None-Match e
+ * If-Modified-Since y, si el servidor responde 304, se reutiliza el contenido guardado. Si el contenido ya no se puede leer, la entrada se elimina con {@link #remove(Entry)} y la petición se repite
+ * sin cabeceras condicionales. El tamaño de la caché se limita con la propiedad <code>http.cache.max.size.mb</code>: cuando se supera se
+ * eliminan las entradas usadas hace más tiempo.
+ *
+ * Cada entrada se identifica por la URL y por la variante de la petición (por defecto, su método HTTP), de modo que una misma URL pedida directamente, a través del renderizador o con HEAD
+ * tiene entradas independientes y una respuesta 304 nunca sirve el contenido de otra variante. Guardar solo las cabeceras de validación no sustituye una entrada que ya tiene el contenido guardado.
+ *
+ * La caché solo se usa si la propiedad <code>http.cache.enabled</code> vale true. Las entradas se guardan en el directorio <code>http.cache.dir</code> (por defecto, un subdirectorio del directorio
+ * temporal).
+ */
+public final class HttpDiskCache {
+	/** Propiedad que activa la caché. */
+	private static final String ENABLED_PROPERTY = "http.cache.enabled";
+	/** Propiedad con el directorio de la caché. */
+	private static final String DIR_PROPERTY = "http.cache.dir";
+	/** Propiedad con el tamaño máximo de la caché en megabytes. */
+	private static final String MAX_SIZE_PROPERTY = "http.cache.max.size.mb";
+	/** Tamaño máximo por defecto en megabytes. */
+	private static final long DEFAULT_MAX_SIZE_MB = 512;
+	/** Extensión de los ficheros con las cabeceras de una entrada. */
+	private static final String META_EXTENSION = ".meta";
+	/** Extensión de los ficheros con el contenido de una entrada. */
+	private static final String BODY_EXTENSION = ".body";
+	/** Caché compartida configurada en intav.properties. */
+	private static HttpDiskCache instance;
+	/** Directorio de la caché o null si la caché no está activa. */
+	private final File cacheDir;
+	/** Tamaño máximo de la caché en bytes. */
+	private final long maxSize;
+	/** Tamaño aproximado de la caché en bytes. */
+	private final AtomicLong size = new AtomicLong();
+	/** Número de respuestas reutilizadas tras una respuesta 304. */
+	private final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * Instantiates a new http disk cache.
+	 *
+	 * @param cacheDir directorio de la caché o null para desactivarla
+	 * @param maxSize  tamaño máximo en bytes
+	 */
+	HttpDiskCache(final File cacheDir, final long maxSize) {
+		this.cacheDir = cacheDir;
+		this.maxSize = maxSize;
+		if (cacheDir != null) {
+			final File[] files = cacheDir.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					size.addAndGet(file.length());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Obtiene la caché compartida.
+	 *
+	 * @return the instance
+	 */
+	public static synchronized HttpDiskCache getInstance() {
+		if (instance == null) {
+			final PropertiesManager pmgr = new PropertiesManager();
+			File dir = null;
+			if ("true".equalsIgnoreCase(pmgr.getValue(IntavConstants.INTAV_PROPERTIES, ENABLED_PROPERTY))) {
+				final String dirValue = pmgr.getValue(IntavConstants.INTAV_PROPERTIES, DIR_PROPERTY);
+				dir = dirValue != null && !dirValue.trim().isEmpty() ? new File(dirValue.trim()) : new File(System.getProperty("java.io.tmpdir"), "oaw-http-cache");
+				if (!dir.isDirectory() && !dir.mkdirs()) {
+					Logger.putLog("No se ha podido crear el directorio de la caché HTTP " + dir + ", la caché queda desactivada", HttpDiskCache.class, Logger.LOG_LEVEL_WARNING);
+					dir = null;
+				}
+			}
+			instance = new HttpDiskCache(dir, getMaxSizeMb(pmgr) * 1024 * 1024);
+		}
+		return instance;
+	}
+
+	/**
+	 * Indica si la caché está activa.
+	 *
+	 * @return true, if is enabled
+	 */
+	public boolean isEnabled() {
+		return cacheDir != null;
+	}
+
+	/**
+	 * Busca la entrada de la URL de una conexión todavía no realizada y, si existe, añade a la petición las cabeceras condicionales. La variante de la entrada es el método de la petición.
+	 *
+	 * @param connection la conexión sin realizar
+	 * @param withBody   si solo interesan las entradas que tienen el contenido guardado
+	 * @return la entrada o null si no existe
+	 */
+	public Entry prepare(final HttpURLConnection connection, final boolean withBody) {
+		return prepare(connection, connection.getRequestMethod(), withBody);
+	}
+
+	/**
+	 * Busca la entrada de la URL y variante de una conexión todavía no realizada y, si existe, añade a la petición las cabeceras condicionales.
+	 *
+	 * @param connection la conexión sin realizar
+	 * @param variant    la variante de la petición
+	 * @param withBody   si solo interesan las entradas que tienen el contenido guardado
+	 * @return la entrada o null si no existe
+	 */
+	public Entry prepare(final HttpURLConnection connection, final String variant, final boolean withBody) {
+		if (cacheDir == null) {
+			return null;
+		}
+		final Entry entry = load(connection.getURL().toString(), variant);
+		if (entry == null || (withBody && !entry.hasBody())) {
+			return null;
+		}
+		if (entry.etag != null) {
+			connection.setRequestProperty("If-None-Match", entry.etag);
+		}
+		if (entry.lastModified != null) {
+			connection.setRequestProperty("If-Modified-Since", entry.lastModified);
+		}
+		return entry;
+	}
+
+	/**
+	 * Comprueba si el servidor ha respondido que la entrada sigue siendo válida.
+	 *
+	 * @param connection la conexión ya realizada
+	 * @param entry      la entrada obtenida con {@link #prepare(HttpURLConnection, boolean)}
+	 * @return true, si la respuesta es 304 y se puede reutilizar la entrada
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public boolean isNotModified(final HttpURLConnection connection, final Entry entry) throws IOException {
+		if (entry != null && connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+			hits.incrementAndGet();
+			entry.touch();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Elimina una entrada, por ejemplo porque el servidor ha respondido 304 pero su contenido ya no se puede leer.
+	 *
+	 * @param entry la entrada obtenida con {@link #prepare(HttpURLConnection, boolean)}
+	 */
+	public void remove(final Entry entry) {
+		delete(entry.metaFile);
+		if (entry.bodyFile != null) {
+			delete(entry.bodyFile);
+		}
+	}
+
+	/**
+	 * Guarda una respuesta 200 si tiene cabeceras de validación y el servidor permite almacenarla. La variante de la entrada es el método de la petición.
+	 *
+	 * @param connection la conexión ya realizada
+	 * @param body       el contenido de la respuesta o null para guardar solo las cabeceras
+	 */
+	public void store(final HttpURLConnection connection, final byte[] body) {
+		store(connection, connection.getRequestMethod(), body);
+	}
+
+	/**
+	 * Guarda una respuesta 200 si tiene cabeceras de validación y el servidor permite almacenarla.
+	 *
+	 * Si no se indica el contenido y ya existe una entrada con contenido para la misma URL y variante, la entrada se conserva: sus cabeceras describen el contenido guardado y la siguiente petición
+	 * condicional la actualizará si ha cambiado.
+	 *
+	 * @param connection la conexión ya realizada
+	 * @param variant    la variante de la petición
+	 * @param body       el contenido de la respuesta o null para guardar solo las cabeceras
+	 */
+	public void store(final HttpURLConnection connection, final String variant, final byte[] body) {
+		if (cacheDir == null) {
+			return;
+		}
+		try {
+			final String etag = connection.getHeaderField("ETag");
+			final String lastModified = connection.getHeaderField("Last-Modified");
+			final String cacheControl = connection.getHeaderField("Cache-Control");
+			if (connection.getResponseCode() != HttpURLConnection.HTTP_OK || (etag == null && lastModified == null)
+					|| (cacheControl != null && cacheControl.toLowerCase().contains("no-store"))) {
+				return;
+			}
+			final String url = connection.getURL().toString();
+			if (body == null) {
+				final Entry existing = load(url, variant);
+				if (existing != null && existing.hasBody()) {
+					return;
+				}
+			}
+			final Properties meta = new Properties();
+			meta.setProperty("url", url);
+			meta.setProperty("variant", variant);
+			if (etag != null) {
+				meta.setProperty("etag", etag);
+			}
+			if (lastModified != null) {
+				meta.setProperty("lastModified", lastModified);
+			}
+			if (connection.getContentType() != null) {
+				meta.setProperty("contentType", connection.getContentType());
+			}
+			meta.setProperty("body", String.valueOf(body != null));
+			final String key = getKey(variant, url);
+			final File bodyFile = new File(cacheDir, key + BODY_EXTENSION);
+			if (body != null) {
+				write(bodyFile, body);
+			} else {
+				delete(bodyFile);
+			}
+			final ByteArrayOutputStream metaContent = new ByteArrayOutputStream();
+			meta.store(metaContent, null);
+			write(new File(cacheDir, key + META_EXTENSION), metaContent.toByteArray());
+			if (size.get() > maxSize) {
+				evict();
+			}
+		} catch (IOException e) {
+			Logger.putLog("No se ha podido guardar en la caché HTTP la respuesta de " + connection.getURL(), HttpDiskCache.class, Logger.LOG_LEVEL_WARNING, e);
+		}
+	}
+
+	/**
+	 * Realiza una petición GET usando la caché y devuelve el contenido de la respuesta si su código es menor que 400.
+	 *
+	 * Si el servidor responde 304 pero el contenido guardado ya no se puede leer (p.ej. se ha eliminado al reducir la caché), la entrada se elimina y la petición se repite sin cabeceras condicionales
+	 * con una conexión nueva con la misma configuración.
+	 *
+	 * @param connection la conexión sin realizar
+	 * @return el contenido o null si la respuesta es un error
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public byte[] getContent(final HttpURLConnection connection) throws IOException {
+		final Map<String, List<String>> requestHeaders = connection.getRequestProperties();
+		final Entry entry = prepare(connection, true);
+		connection.connect();
+		if (isNotModified(connection, entry)) {
+			final byte[] body = entry.getBody();
+			if (body != null) {
+				return body;
+			}
+			Logger.putLog("El contenido guardado de " + connection.getURL() + " no se puede leer, se repite la petición", HttpDiskCache.class, Logger.LOG_LEVEL_WARNING);
+			remove(entry);
+			connection.disconnect();
+			return readContent(reopen(connection, requestHeaders));
+		}
+		return readContent(connection);
+	}
+
+	/**
+	 * Lee el contenido de una respuesta y lo guarda en la caché.
+	 *
+	 * @param connection la conexión
+	 * @return el contenido o null si la respuesta es un error
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private byte[] readContent(final HttpURLConnection connection) throws IOException {
+		if (connection.getResponseCode() >= HttpURLConnection.HTTP_BAD_REQUEST) {
+			return null;
+		}
+		final byte[] body;
+		try (InputStream inputStream = connection.getInputStream()) {
+			body = readFully(inputStream);
+		}
+		store(connection, body);
+		return body;
+	}
+
+	/**
+	 * Abre una conexión nueva a la URL de otra, con su método, redirecciones, tiempos de espera, configuración SSL y las cabeceras que tenía antes de añadir las condicionales.
+	 *
+	 * @param connection     la conexión original
+	 * @param requestHeaders las cabeceras de la petición original sin las condicionales
+	 * @return la conexión sin realizar
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static HttpURLConnection reopen(final HttpURLConnection connection, final Map<String, List<String>> requestHeaders) throws IOException {
+		final HttpURLConnection copy = (HttpURLConnection) connection.getURL().openConnection();
+		copy.setRequestMethod(connection.getRequestMethod());
+		copy.setInstanceFollowRedirects(connection.getInstanceFollowRedirects());
+		copy.setConnectTimeout(connection.getConnectTimeout());
+		copy.setReadTimeout(connection.getReadTimeout());
+		if (connection instanceof HttpsURLConnection && copy instanceof HttpsURLConnection) {
+			((HttpsURLConnection) copy).setSSLSocketFactory(((HttpsURLConnection) connection).getSSLSocketFactory());
+			((HttpsURLConnection) copy).setHostnameVerifier(((HttpsURLConnection) connection).getHostnameVerifier());
+		}
+		for (Map.Entry<String, List<String>> header : requestHeaders.entrySet()) {
+			if (header.getKey() != null) {
+				for (String value : header.getValue()) {
+					copy.addRequestProperty(header.getKey(), value);
+				}
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Número de respuestas reutilizadas desde el arranque.
+	 *
+	 * @return the hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Obtiene el tamaño máximo de la caché de la configuración.
+	 *
+	 * @param pmgr the pmgr
+	 * @return el tamaño en megabytes
+	 */
+	private static long getMaxSizeMb(final PropertiesManager pmgr) {
+		final String value = pmgr.getValue(IntavConstants.INTAV_PROPERTIES, MAX_SIZE_PROPERTY);
+		try {
+			return value != null ? Long.parseLong(value.trim()) : DEFAULT_MAX_SIZE_MB;
+		} catch (NumberFormatException e) {
+			Logger.putLog("Valor no válido para la propiedad " + MAX_SIZE_PROPERTY, HttpDiskCache.class, Logger.LOG_LEVEL_WARNING);
+			return DEFAULT_MAX_SIZE_MB;
+		}
+	}
+
+	/**
+	 * Carga la entrada de una URL y variante.
+	 *
+	 * @param url     the url
+	 * @param variant the variant
+	 * @return la entrada o null si no existe o no se puede leer
+	 */
+	private Entry load(final String url, final String variant) {
+		final String key = getKey(variant, url);
+		final File metaFile = new File(cacheDir, key + META_EXTENSION);
+		if (!metaFile.isFile()) {
+			return null;
+		}
+		final Properties meta = new Properties();
+		try (InputStream inputStream = new FileInputStream(metaFile)) {
+			meta.load(inputStream);
+		} catch (IOException e) {
+			return null;
+		}
+		// Colisión del resumen: la entrada es de otra URL
+		if (!url.equals(meta.getProperty("url")) || !variant.equals(meta.getProperty("variant"))) {
+			return null;
+		}
+		final File bodyFile = new File(cacheDir, key + BODY_EXTENSION);
+		return new Entry(metaFile, "true".equals(meta.getProperty("body")) && bodyFile.isFile() ? bodyFile : null, meta.getProperty("etag"), meta.getProperty("lastModified"),
+				meta.getProperty("contentType"));
+	}
+
+	/**
+	 * Escribe un fichero de la caché de forma atómica.
+	 *
+	 * @param file    the file
+	 * @param content the content
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void write(final File file, final byte[] content) throws IOException {
+		final File tmp = File.createTempFile(file.getName(), ".tmp", cacheDir);
+		try (OutputStream out = new FileOutputStream(tmp)) {
+			out.write(content);
+		}
+		final long previous = file.length();
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		size.addAndGet(content.length - previous);
+	}
+
+	/**
+	 * Elimina un fichero de la caché.
+	 *
+	 * @param file the file
+	 */
+	private void delete(final File file) {
+		final long length = file.length();
+		if (file.delete()) {
+			size.addAndGet(-length);
+		}
+	}
+
+	/**
+	 * Elimina las entradas usadas hace más tiempo hasta dejar la caché al 90% de su tamaño máximo.
+	 */
+	private synchronized void evict() {
+		if (size.get() <= maxSize) {
+			return;
+		}
+		final File[] files = cacheDir.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(final File f1, final File f2) {
+				return Long.compare(f1.lastModified(), f2.lastModified());
+			}
+		});
+		final long target = maxSize * 9 / 10;
+		for (int i = 0; i < files.length && size.get() > target; i++) {
+			delete(files[i]);
+		}
+		Logger.putLog("Caché HTTP reducida a " + size.get() / (1024 * 1024) + " MB", HttpDiskCache.class, Logger.LOG_LEVEL_INFO);
+	}
+
+	/**
+	 * Obtiene el nombre de los ficheros de la entrada de una URL y variante.
+	 *
+	 * @param variant the variant
+	 * @param url     the url
+	 * @return the key
+	 */
+	private static String getKey(final String variant, final String url) {
+		return HashUtils.sha256Hex(variant + ' ' + url);
+	}
+
+	/**
+	 * Lee completamente un stream.
+	 *
+	 * @param inputStream the input stream
+	 * @return the byte[]
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static byte[] readFully(final InputStream inputStream) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[8192];
+		int read;
+		while ((read = inputStream.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Entrada de la caché.
+	 */
+	public static final class Entry {
+		/** Fichero con las cabeceras. */
+		private final File metaFile;
+		/** Fichero con el contenido o null si no se guardó. */
+		private final File bodyFile;
+		/** The etag. */
+		private final String etag;
+		/** The last modified. */
+		private final String lastModified;
+		/** The content type. */
+		private final String contentType;
+
+		/**
+		 * Instantiates a new entry.
+		 *
+		 * @param metaFile     the meta file
+		 * @param bodyFile     the body file
+		 * @param etag         the etag
+		 * @param lastModified the last modified
+		 * @param contentType  the content type
+		 */
+		private Entry(final File metaFile, final File bodyFile, final String etag, final String lastModified, final String contentType) {
+			this.metaFile = metaFile;
+			this.bodyFile = bodyFile;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.contentType = contentType;
+		}
+
+		/**
+		 * Indica si la entrada tiene el contenido guardado.
+		 *
+		 * @return true, if successful
+		 */
+		public boolean hasBody() {
+			return bodyFile != null;
+		}
+
+		/**
+		 * Obtiene el contenido guardado.
+		 *
+		 * @return el contenido o null si no se guardó o ya no está disponible
+		 */
+		public byte[] getBody() {
+			if (bodyFile == null) {
+				return null;
+			}
+			try {
+				return Files.readAllBytes(bodyFile.toPath());
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Gets the content type.
+		 *
+		 * @return the content type
+		 */
+		public String getContentType() {
+			return contentType;
+		}
+
+		/**
+		 * Marca la entrada como usada para que no se elimine al reducir la caché.
+		 */
+		private void touch() {
+			final long now = System.currentTimeMillis();
+			metaFile.setLastModified(now);
+			if (bodyFile != null) {
+				bodyFile.setLastModified(now);
+			}
+		}
+	}
+}
@@ -0,0 +1,247 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.http;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import es.inteco.common.logging.Logger;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+
+/**
+ * Métricas de las peticiones HTTP de la aplicación.
+ *
+ * Acumula el número de peticiones y los tiempos de conexión, negociación TLS y lectura. Las peticiones realizadas con el cliente compartido de {@link HttpClientProvider} se miden automáticamente.
+ * Las peticiones con {@link java.net.HttpURLConnection} no indican si han abierto un socket o han reutilizado una conexión persistente, por lo que para ellas solo se mide la espera hasta
+ * recibir las cabeceras (que incluye la conexión y la negociación TLS cuando las hay) y no cuentan como conexiones nuevas.
+ */
+public final class HttpMetrics {
+	/** Número de peticiones. */
+	private static final AtomicLong REQUESTS = new AtomicLong();
+	/** Número de peticiones fallidas. */
+	private static final AtomicLong FAILURES = new AtomicLong();
+	/** Número de conexiones nuevas. */
+	private static final AtomicLong CONNECTIONS = new AtomicLong();
+	/** Tiempo acumulado de conexión en nanosegundos. */
+	private static final AtomicLong CONNECT_NANOS = new AtomicLong();
+	/** Número de esperas de respuesta de {@link java.net.HttpURLConnection}. */
+	private static final AtomicLong RESPONSE_WAITS = new AtomicLong();
+	/** Tiempo acumulado de espera de respuesta en nanosegundos. */
+	private static final AtomicLong RESPONSE_WAIT_NANOS = new AtomicLong();
+	/** Número de negociaciones TLS. */
+	private static final AtomicLong HANDSHAKES = new AtomicLong();
+	/** Tiempo acumulado de negociación TLS en nanosegundos. */
+	private static final AtomicLong HANDSHAKE_NANOS = new AtomicLong();
+	/** Número de respuestas leídas. */
+	private static final AtomicLong READS = new AtomicLong();
+	/** Tiempo acumulado de lectura de respuestas en nanosegundos. */
+	private static final AtomicLong READ_NANOS = new AtomicLong();
+
+	/**
+	 * Instantiates a new http metrics.
+	 */
+	private HttpMetrics() {
+	}
+
+	/**
+	 * Registra una petición.
+	 */
+	public static void recordRequest() {
+		REQUESTS.incrementAndGet();
+	}
+
+	/**
+	 * Registra una petición fallida.
+	 */
+	public static void recordFailure() {
+		FAILURES.incrementAndGet();
+	}
+
+	/**
+	 * Registra el establecimiento de una conexión nueva. Solo debe llamarse cuando se abre un socket, no cuando se reutiliza una conexión del pool.
+	 *
+	 * @param nanos tiempo empleado en nanosegundos
+	 */
+	public static void recordConnect(final long nanos) {
+		CONNECTIONS.incrementAndGet();
+		CONNECT_NANOS.addAndGet(nanos);
+	}
+
+	/**
+	 * Registra la espera hasta recibir las cabeceras de una petición de la que no se sabe si ha abierto una conexión nueva.
+	 *
+	 * @param nanos tiempo empleado en nanosegundos
+	 */
+	public static void recordResponseWait(final long nanos) {
+		RESPONSE_WAITS.incrementAndGet();
+		RESPONSE_WAIT_NANOS.addAndGet(nanos);
+	}
+
+	/**
+	 * Registra una negociación TLS.
+	 *
+	 * @param nanos tiempo empleado en nanosegundos
+	 */
+	public static void recordHandshake(final long nanos) {
+		HANDSHAKES.incrementAndGet();
+		HANDSHAKE_NANOS.addAndGet(nanos);
+	}
+
+	/**
+	 * Registra la lectura de una respuesta.
+	 *
+	 * @param nanos tiempo empleado en nanosegundos
+	 */
+	public static void recordRead(final long nanos) {
+		READS.incrementAndGet();
+		READ_NANOS.addAndGet(nanos);
+	}
+
+	/**
+	 * Gets the requests.
+	 *
+	 * @return the requests
+	 */
+	public static long getRequests() {
+		return REQUESTS.get();
+	}
+
+	/**
+	 * Gets the connections.
+	 *
+	 * @return the connections
+	 */
+	public static long getConnections() {
+		return CONNECTIONS.get();
+	}
+
+	/**
+	 * Obtiene un resumen de las métricas.
+	 *
+	 * @return the summary
+	 */
+	public static String getSummary() {
+		return String.format("Peticiones HTTP: %d (%d fallidas). Conexiones nuevas: %d (media %d ms). Esperas de respuesta: %d (media %d ms). Negociaciones TLS: %d (media %d ms). Lecturas: %d (media %d ms)",
+				REQUESTS.get(), FAILURES.get(), CONNECTIONS.get(), average(CONNECT_NANOS, CONNECTIONS), RESPONSE_WAITS.get(), average(RESPONSE_WAIT_NANOS, RESPONSE_WAITS), HANDSHAKES.get(),
+				average(HANDSHAKE_NANOS, HANDSHAKES), READS.get(), average(READ_NANOS, READS));
+	}
+
+	/**
+	 * Registra en el log el resumen de las métricas.
+	 */
+	public static void logSummary() {
+		Logger.putLog(getSummary(), HttpMetrics.class, Logger.LOG_LEVEL_INFO);
+	}
+
+	/**
+	 * Calcula la media en milisegundos.
+	 *
+	 * @param nanos tiempo acumulado en nanosegundos
+	 * @param count número de mediciones
+	 * @return la media en milisegundos
+	 */
+	private static long average(final AtomicLong nanos, final AtomicLong count) {
+		final long total = count.get();
+		return total > 0 ? TimeUnit.NANOSECONDS.toMillis(nanos.get() / total) : 0;
+	}
+
+	/**
+	 * Reinicia las métricas.
+	 */
+	static void reset() {
+		REQUESTS.set(0);
+		FAILURES.set(0);
+		CONNECTIONS.set(0);
+		CONNECT_NANOS.set(0);
+		RESPONSE_WAITS.set(0);
+		RESPONSE_WAIT_NANOS.set(0);
+		HANDSHAKES.set(0);
+		HANDSHAKE_NANOS.set(0);
+		READS.set(0);
+		READ_NANOS.set(0);
+	}
+
+	/**
+	 * Crea la factoría de listeners que miden las llamadas del cliente compartido.
+	 *
+	 * @return the event listener factory
+	 */
+	static EventListener.Factory eventListenerFactory() {
+		return new EventListener.Factory() {
+			@Override
+			public EventListener create(final Call call) {
+				return new MetricsEventListener();
+			}
+		};
+	}
+
+	/**
+	 * Listener que mide una llamada del cliente compartido.
+	 */
+	private static final class MetricsEventListener extends EventListener {
+		/** Inicio de la conexión. */
+		private long connectStart;
+		/** Inicio de la negociación TLS. */
+		private long secureConnectStart;
+		/** Inicio de la lectura de la respuesta. */
+		private long responseStart;
+
+		@Override
+		public void callStart(final Call call) {
+			recordRequest();
+		}
+
+		@Override
+		public void connectStart(final Call call, final InetSocketAddress inetSocketAddress, final Proxy proxy) {
+			connectStart = System.nanoTime();
+		}
+
+		@Override
+		public void secureConnectStart(final Call call) {
+			secureConnectStart = System.nanoTime();
+		}
+
+		@Override
+		public void secureConnectEnd(final Call call, final Handshake handshake) {
+			recordHandshake(System.nanoTime() - secureConnectStart);
+		}
+
+		// OkHttp solo avisa de connectStart y connectEnd cuando abre un socket, las
+		// conexiones reutilizadas del pool solo pasan por connectionAcquired
+		@Override
+		public void connectEnd(final Call call, final InetSocketAddress inetSocketAddress, final Proxy proxy, final Protocol protocol) {
+			recordConnect(System.nanoTime() - connectStart);
+		}
+
+		@Override
+		public void responseHeadersStart(final Call call) {
+			responseStart = System.nanoTime();
+		}
+
+		@Override
+		public void responseBodyEnd(final Call call, final long byteCount) {
+			recordRead(System.nanoTime() - responseStart);
+		}
+
+		@Override
+		public void callFailed(final Call call, final IOException ioe) {
+			recordFailure();
+		}
+	}
+}
@@ -0,0 +1,304 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.http;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import es.inteco.common.IntavConstants;
+import es.inteco.common.logging.Logger;
+import es.inteco.common.properties.PropertiesManager;
+import es.inteco.intav.form.CheckedLinks;
+import es.inteco.intav.utils.EvaluatorUtils;
+
+/**
+ * Verificación de enlaces rotos.
+ *
+ * Los enlaces rotos y disponibles se guardan en un {@link CheckedLinks} compartido por todas las páginas del rastreo, de modo que cada enlace se verifica una sola vez por rastreo. Cada página
+ * se evalúa con sus propios resultados ({@link #getPageCheckedLinks(long)}), que comparten esos conjuntos. Los resultados de un rastreo se descartan con {@link #release(long)} cuando termina,
+ * también si falla o se interrumpe. Los de las evaluaciones que no pasan por ahí se descartan cuando llevan sin usarse el tiempo indicado en la propiedad <code>link.check.results.expiry</code>
+ * (en minutos). Los enlaces de una página se pueden verificar en paralelo antes de evaluarla con {@link #verify(Map, CheckedLinks)}; el número de peticiones simultáneas a un mismo servidor se
+ * limita con la propiedad <code>link.check.max.per.host</code>.
+ *
+ * Cada enlace se comprueba primero con una petición HEAD. Solo si el servidor no admite HEAD o responde 404 se repite la petición con GET, para no dar por roto un enlace a un servidor que
+ * responde mal a HEAD. Solo se guardan los resultados de las respuestas HTTP: si la petición falla (tiempo de espera agotado, conexión rechazada...) el enlace se vuelve a verificar al evaluarlo.
+ */
+public final class LinkVerifier {
+	/** Propiedad con el número de hilos de verificación. */
+	private static final String THREADS_PROPERTY = "link.check.threads";
+	/** Propiedad con el número máximo de verificaciones simultáneas por servidor. */
+	private static final String MAX_PER_HOST_PROPERTY = "link.check.max.per.host";
+	/** Propiedad con los minutos sin usarse tras los que se descartan los resultados de un rastreo. */
+	private static final String RESULTS_EXPIRY_PROPERTY = "link.check.results.expiry";
+	/** Resultados de las verificaciones de cada rastreo. */
+	private static final ConcurrentMap<Long, CrawlResults> CRAWL_RESULTS = new ConcurrentHashMap<>();
+	/** Tiempo sin usarse tras el que se descartan los resultados de un rastreo, en milisegundos. */
+	private static final long RESULTS_EXPIRY = TimeUnit.MINUTES.toMillis(Math.max(1, getIntValue(RESULTS_EXPIRY_PROPERTY, 120)));
+	/** Permisos de conexión de cada servidor. */
+	private static final ConcurrentMap<String, Semaphore> HOST_PERMITS = new ConcurrentHashMap<>();
+	/** Número máximo de verificaciones simultáneas por servidor. */
+	private static final int MAX_PER_HOST = Math.max(1, getIntValue(MAX_PER_HOST_PROPERTY, 2));
+	/** Pool de hilos de verificación. */
+	private static ExecutorService executor;
+
+	/**
+	 * Instantiates a new link verifier.
+	 */
+	private LinkVerifier() {
+	}
+
+	/**
+	 * Obtiene los resultados de las verificaciones de un rastreo. Las evaluaciones que no pertenecen a un rastreo obtienen unos resultados propios.
+	 *
+	 * @param idRastreo the id rastreo
+	 * @return the checked links
+	 */
+	public static CheckedLinks getCheckedLinks(final long idRastreo) {
+		if (idRastreo <= 0) {
+			return new CheckedLinks();
+		}
+		final long now = System.currentTimeMillis();
+		CrawlResults results = CRAWL_RESULTS.get(idRastreo);
+		if (results == null) {
+			// Solo se crean resultados al empezar un rastreo, así que basta con descartar aquí los que ya no se usan
+			expire(now);
+			final CrawlResults created = new CrawlResults();
+			final CrawlResults previous = CRAWL_RESULTS.putIfAbsent(idRastreo, created);
+			results = previous != null ? previous : created;
+		}
+		results.lastAccess = now;
+		return results.checkedLinks;
+	}
+
+	/**
+	 * Obtiene los resultados con los que se evalúa una página de un rastreo: comparten los enlaces rotos y disponibles del rastreo, pero los enlaces ya evaluados son propios de la página.
+	 *
+	 * @param idRastreo the id rastreo
+	 * @return the checked links
+	 */
+	public static CheckedLinks getPageCheckedLinks(final long idRastreo) {
+		return CheckedLinks.forPage(getCheckedLinks(idRastreo));
+	}
+
+	/**
+	 * Descarta los resultados de un rastreo terminado.
+	 *
+	 * @param idRastreo the id rastreo
+	 */
+	public static void release(final long idRastreo) {
+		CRAWL_RESULTS.remove(idRastreo);
+	}
+
+	/**
+	 * Descarta los resultados de los rastreos que llevan sin usarse más del tiempo configurado.
+	 *
+	 * @param now el instante actual
+	 */
+	private static void expire(final long now) {
+		for (Iterator<Map.Entry<Long, CrawlResults>> it = CRAWL_RESULTS.entrySet().iterator(); it.hasNext();) {
+			final Map.Entry<Long, CrawlResults> entry = it.next();
+			if (now - entry.getValue().lastAccess > RESULTS_EXPIRY) {
+				Logger.putLog("Descartando los resultados de la verificación de enlaces del rastreo " + entry.getKey() + " sin usar", LinkVerifier.class, Logger.LOG_LEVEL_INFO);
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Verifica en paralelo los enlaces que aún no se han verificado y guarda los resultados. Los enlaces cuya verificación falla sin respuesta HTTP no se guardan.
+	 *
+	 * @param links        URL de los enlaces y referer de cada una (puede ser null)
+	 * @param checkedLinks los resultados del rastreo
+	 */
+	public static void verify(final Map<String, String> links, final CheckedLinks checkedLinks) {
+		final Map<String, Future<Boolean>> pending = new LinkedHashMap<>();
+		for (final Map.Entry<String, String> link : links.entrySet()) {
+			final String url = link.getKey();
+			if (!checkedLinks.getBrokenLinks().contains(url) && !checkedLinks.getAvailablelinks().contains(url)) {
+				pending.put(url, getExecutor().submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						try {
+							return isAvailable(url, link.getValue());
+						} catch (IOException e) {
+							// Igual que en la verificación secuencial. El resto de errores pueden ser temporales: no se guarda ningún resultado
+							return "Already connected".equals(e.getMessage()) ? Boolean.TRUE : null;
+						}
+					}
+				}));
+			}
+		}
+		for (Map.Entry<String, Future<Boolean>> result : pending.entrySet()) {
+			try {
+				final Boolean available = result.getValue().get();
+				if (available == null) {
+					continue;
+				}
+				if (available) {
+					checkedLinks.getAvailablelinks().add(result.getKey());
+				} else {
+					checkedLinks.getBrokenLinks().add(result.getKey());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				// Se verificará de forma secuencial
+				Logger.putLog("Error al verificar el enlace " + result.getKey(), LinkVerifier.class, Logger.LOG_LEVEL_WARNING, e);
+			}
+		}
+	}
+
+	/**
+	 * Comprueba si un enlace está disponible, es decir, si el servidor no responde 404.
+	 *
+	 * @param url     the url
+	 * @param referer la URL de la página que contiene el enlace o null
+	 * @return true, si el enlace está disponible
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static boolean isAvailable(final String url, final String referer) throws IOException {
+		final Semaphore permits = getHostPermits(new URL(url).getHost());
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Verificación interrumpida", e);
+		}
+		HttpURLConnection head = null;
+		HttpURLConnection get = null;
+		try {
+			final HttpDiskCache httpCache = HttpDiskCache.getInstance();
+			head = openConnection(url, "HEAD", referer);
+			final HttpDiskCache.Entry cached = httpCache.prepare(head, false);
+			head.connect();
+			if (httpCache.isNotModified(head, cached)) {
+				return true;
+			}
+			final int headCode = head.getResponseCode();
+			if (headCode != HttpURLConnection.HTTP_NOT_FOUND && headCode != HttpURLConnection.HTTP_BAD_METHOD && headCode != HttpURLConnection.HTTP_NOT_IMPLEMENTED) {
+				httpCache.store(head, null);
+				return true;
+			}
+			get = openConnection(url, "GET", referer);
+			get.connect();
+			final int getCode = get.getResponseCode();
+			httpCache.store(get, null);
+			return getCode != HttpURLConnection.HTTP_NOT_FOUND;
+		} finally {
+			if (head != null) {
+				head.disconnect();
+			}
+			if (get != null) {
+				get.disconnect();
+			}
+			permits.release();
+		}
+	}
+
+	/**
+	 * Abre una conexión con un enlace.
+	 *
+	 * @param url     the url
+	 * @param method  the method
+	 * @param referer the referer
+	 * @return the http URL connection
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static HttpURLConnection openConnection(final String url, final String method, final String referer) throws IOException {
+		final HttpURLConnection connection = EvaluatorUtils.getConnection(url, method, true);
+		if (referer != null) {
+			connection.setRequestProperty("referer", referer);
+		}
+		return connection;
+	}
+
+	/**
+	 * Obtiene los permisos de conexión de un servidor.
+	 *
+	 * @param host the host
+	 * @return the host permits
+	 */
+	private static Semaphore getHostPermits(final String host) {
+		final Semaphore permits = HOST_PERMITS.get(host);
+		if (permits != null) {
+			return permits;
+		}
+		final Semaphore created = new Semaphore(MAX_PER_HOST);
+		final Semaphore previous = HOST_PERMITS.putIfAbsent(host, created);
+		return previous != null ? previous : created;
+	}
+
+	/**
+	 * Obtiene el pool de hilos de verificación.
+	 *
+	 * @return the executor
+	 */
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(Math.max(1, getIntValue(THREADS_PROPERTY, 8)), new ThreadFactory() {
+				private final AtomicInteger counter = new AtomicInteger();
+
+				@Override
+				public Thread newThread(final Runnable runnable) {
+					final Thread thread = new Thread(runnable, "LinkVerifier-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Resultados de las verificaciones de un rastreo y último instante en que se usaron.
+	 */
+	private static final class CrawlResults {
+		/** Enlaces rotos y disponibles del rastreo. */
+		private final CheckedLinks checkedLinks = new CheckedLinks();
+		/** Último instante en que se usaron. */
+		private volatile long lastAccess = System.currentTimeMillis();
+	}
+
+	/**
+	 * Obtiene un valor entero de la configuración.
+	 *
+	 * @param key          the key
+	 * @param defaultValue valor por defecto si la propiedad no existe o no es válida
+	 * @return the int value
+	 */
+	private static int getIntValue(final String key, final int defaultValue) {
+		try {
+			final String value = new PropertiesManager().getValue(IntavConstants.INTAV_PROPERTIES, key);
+			return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+		} catch (NumberFormatException e) {
+			Logger.putLog("Valor no válido para la propiedad " + key, LinkVerifier.class, Logger.LOG_LEVEL_WARNING);
+			return defaultValue;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.http;
+
+import java.sql.Connection;
+
+import es.inteco.common.IntavConstants;
+import es.inteco.common.logging.Logger;
+import es.inteco.common.properties.PropertiesManager;
+import es.inteco.intav.dao.ProxyDAO;
+import es.inteco.intav.form.ProxyForm;
+import es.inteco.plugin.dao.DataBaseManager;
+
+/**
+ * Caché de la configuración del proxy.
+ *
+ * La configuración se lee de la base de datos como mucho una vez cada <code>proxy.cache.ttl</code> milisegundos en lugar de en cada petición HTTP. Cuando se modifica el proxy desde el portal se
+ * debe llamar a {@link #invalidate()} para que el cambio se aplique en la siguiente petición.
+ */
+public final class ProxySettingsCache {
+	/** Propiedad con el tiempo de vida de la configuración en milisegundos. */
+	private static final String TTL_PROPERTY = "proxy.cache.ttl";
+	/** Tiempo de vida por defecto en milisegundos. */
+	private static final long DEFAULT_TTL = 60000;
+	/** Configuración en caché. */
+	private static ProxyForm proxy;
+	/** Instante (en milisegundos) en el que caduca la configuración en caché. */
+	private static long expiresAt = 0;
+
+	/**
+	 * Instantiates a new proxy settings cache.
+	 */
+	private ProxySettingsCache() {
+	}
+
+	/**
+	 * Obtiene una copia de la configuración del proxy.
+	 *
+	 * Si no se puede leer de la base de datos se mantiene la última configuración conocida. Si nunca se ha podido leer se devuelve una configuración sin datos.
+	 *
+	 * @return the proxy
+	 */
+	public static synchronized ProxyForm getProxy() {
+		final long now = System.currentTimeMillis();
+		if (proxy == null || now >= expiresAt) {
+			try (Connection c = DataBaseManager.getConnection()) {
+				proxy = ProxyDAO.getProxy(c);
+				DataBaseManager.closeConnection(c);
+			} catch (Exception e) {
+				Logger.putLog("Error al leer la configuración del proxy", ProxySettingsCache.class, Logger.LOG_LEVEL_ERROR, e);
+				if (proxy == null) {
+					proxy = new ProxyForm();
+				}
+			}
+			expiresAt = now + getTtl();
+		}
+		return copy(proxy);
+	}
+
+	/**
+	 * Descarta la configuración en caché para que se vuelva a leer en la siguiente petición.
+	 */
+	public static synchronized void invalidate() {
+		proxy = null;
+		expiresAt = 0;
+	}
+
+	/**
+	 * Obtiene el tiempo de vida de la configuración.
+	 *
+	 * @return the ttl
+	 */
+	private static long getTtl() {
+		final String value = new PropertiesManager().getValue(IntavConstants.INTAV_PROPERTIES, TTL_PROPERTY);
+		try {
+			return value != null ? Long.parseLong(value.trim()) : DEFAULT_TTL;
+		} catch (NumberFormatException e) {
+			Logger.putLog("Valor no válido para la propiedad " + TTL_PROPERTY, ProxySettingsCache.class, Logger.LOG_LEVEL_WARNING);
+			return DEFAULT_TTL;
+		}
+	}
+
+	/**
+	 * Copia una configuración para que los llamantes no modifiquen la de la caché.
+	 *
+	 * @param source the source
+	 * @return the proxy form
+	 */
+	private static ProxyForm copy(final ProxyForm source) {
+		final ProxyForm target = new ProxyForm();
+		target.setStatus(source.getStatus());
+		target.setUrl(source.getUrl());
+		target.setPort(source.getPort());
+		return target;
+	}
+}
@@ -15,6 +15,8 @@ package es.gob.oaw.language;
 import java.util.Arrays;
 import java.util.Stack;
 
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
@@ -23,6 +25,9 @@ import org.xml.sax.helpers.DefaultHandler;
  * Clase para extraer el texto de una página web excluyendo el texto de aquellas
  * etiquetas que definan un idioma distinto al definido a nivel de página web
  * (etiqueta html).
+ *
+ * El texto se puede extraer como manejador SAX o recorriendo directamente un
+ * documento DOM con {@link #extract(Node)}, sin serializarlo.
  */
 public class ExtractTextHandler extends DefaultHandler {
 
@@ -47,6 +52,9 @@ public class ExtractTextHandler extends DefaultHandler {
 	/** The skip tags. */
 	private String[] skipTags;
 
+	/** Longitud a partir de la cual se deja de extraer texto. */
+	private final int maxLength;
+
 	/**
 	 * Instantiates a new extract text handler.
 	 *
@@ -63,12 +71,7 @@ public class ExtractTextHandler extends DefaultHandler {
 	 * @param extractSameLanguage the extract same language
 	 */
 	public ExtractTextHandler(final String language, final boolean extractSameLanguage) {
-		this.webpageLanguage = language;
-		this.extractSameLanguage = extractSameLanguage;
-		this.languages = new Stack<>();
-		this.languages.push(language);
-		this.extractedText = new StringBuilder(200);
-		this.skipCharacters = false;
+		this(language, extractSameLanguage, null);
 	}
 
 	/**
@@ -79,6 +82,18 @@ public class ExtractTextHandler extends DefaultHandler {
 	 * @param skipTags            the skip tags
 	 */
 	public ExtractTextHandler(final String language, final boolean extractSameLanguage, String[] skipTags) {
+		this(language, extractSameLanguage, skipTags, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Instantiates a new extract text handler.
+	 *
+	 * @param language            the language
+	 * @param extractSameLanguage the extract same language
+	 * @param skipTags            the skip tags
+	 * @param maxLength           longitud a partir de la cual se deja de extraer texto
+	 */
+	public ExtractTextHandler(final String language, final boolean extractSameLanguage, String[] skipTags, final int maxLength) {
 		this.webpageLanguage = language;
 		this.extractSameLanguage = extractSameLanguage;
 		this.languages = new Stack<>();
@@ -86,6 +101,76 @@ public class ExtractTextHandler extends DefaultHandler {
 		this.extractedText = new StringBuilder(200);
 		this.skipCharacters = false;
 		this.skipTags = skipTags;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * Extrae el texto de un nodo DOM y sus descendientes. Se obtiene el mismo texto que al transformar el nodo a SAX con este manejador, pero sin serializarlo y dejando de recorrer el documento
+	 * cuando se alcanza la longitud máxima.
+	 *
+	 * @param node el nodo (normalmente el documento)
+	 */
+	public void extract(final Node node) {
+		if (isFull()) {
+			return;
+		}
+		switch (node.getNodeType()) {
+		case Node.DOCUMENT_NODE:
+		case Node.DOCUMENT_FRAGMENT_NODE:
+			extractChildren(node);
+			break;
+		case Node.ELEMENT_NODE:
+			final Element element = (Element) node;
+			final String localName = getLocalName(element);
+			final String lang = element.hasAttribute("lang") ? element.getAttribute("lang") : element.hasAttribute("xml:lang") ? element.getAttribute("xml:lang") : null;
+			openElement(localName, lang, element.hasAttribute("alt") ? element.getAttribute("alt") : null);
+			extractChildren(element);
+			closeElement(localName);
+			break;
+		case Node.TEXT_NODE:
+		case Node.CDATA_SECTION_NODE:
+			if (!skipCharacters) {
+				processText(node.getNodeValue().trim());
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Extrae el texto de los hijos de un nodo.
+	 *
+	 * @param node the node
+	 */
+	private void extractChildren(final Node node) {
+		for (Node child = node.getFirstChild(); child != null && !isFull(); child = child.getNextSibling()) {
+			extract(child);
+		}
+	}
+
+	/**
+	 * Obtiene el nombre local de un elemento, igual que al transformarlo a SAX.
+	 *
+	 * @param element the element
+	 * @return the local name
+	 */
+	private static String getLocalName(final Element element) {
+		final String localName = element.getLocalName();
+		if (localName != null) {
+			return localName;
+		}
+		final String name = element.getNodeName();
+		return name.substring(name.indexOf(':') + 1);
+	}
+
+	/**
+	 * Comprueba si se ha alcanzado la longitud máxima del texto.
+	 *
+	 * @return true si no se debe extraer más texto
+	 */
+	private boolean isFull() {
+		return extractedText.length() >= maxLength;
 	}
 
 	/**
@@ -99,10 +184,21 @@ public class ExtractTextHandler extends DefaultHandler {
 	 */
 	@Override
 	public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-		final String lang = normalizeLang(attributes.getValue("lang") != null ? attributes.getValue("lang") : attributes.getValue("xml:lang"));
+		openElement(localName, attributes.getValue("lang") != null ? attributes.getValue("lang") : attributes.getValue("xml:lang"), attributes.getValue("alt"));
+	}
+
+	/**
+	 * Procesa el inicio de un elemento.
+	 *
+	 * @param localName the local name
+	 * @param language  el valor del atributo lang o xml:lang
+	 * @param alt       el valor del atributo alt
+	 */
+	private void openElement(final String localName, final String language, final String alt) {
+		final String lang = normalizeLang(language);
 		languages.push(lang != null && !lang.isEmpty() ? lang : languages.peek());
-		if ("img".equalsIgnoreCase(localName) && attributes.getValue("alt") != null) {
-			processText(attributes.getValue("alt").trim());
+		if ("img".equalsIgnoreCase(localName) && alt != null) {
+			processText(alt.trim());
 		} else if ("script".equalsIgnoreCase(localName) || "style".equalsIgnoreCase(localName)) {
 			skipCharacters = true;
 		}
@@ -126,6 +222,15 @@ public class ExtractTextHandler extends DefaultHandler {
 	 */
 	@Override
 	public void endElement(String uri, String localName, String qName) throws SAXException {
+		closeElement(localName);
+	}
+
+	/**
+	 * Procesa el final de un elemento.
+	 *
+	 * @param localName the local name
+	 */
+	private void closeElement(final String localName) {
 		languages.pop();
 		if ("script".equalsIgnoreCase(localName) || "style".equalsIgnoreCase(localName)) {
 			skipCharacters = false;
@@ -79,7 +79,7 @@ public class GuessLanguage {
     }
 
     /** The models. */
-    private final Map<String, Map<String, Integer>> models;
+    private final Map<String, TrigramModel> models;
 
     /** The Constant MIN_LENGTH. */
     // Longitud mínima de texto para poder aplicar el algoritmo con garantías
@@ -92,11 +92,17 @@ public class GuessLanguage {
     /**
 	 * Instantiates a new guess language.
 	 */
-    public GuessLanguage() {
-        models = new HashMap<>();
-        if (models.isEmpty()) {
-            loadModels();
-        }
+    private GuessLanguage() {
+        models = loadModels();
+    }
+
+    /**
+	 * Obtiene la instancia compartida. Los modelos de trigramas se cargan la primera vez y no se modifican, por lo que la instancia se puede usar desde varios hilos a la vez.
+	 *
+	 * @return the instance
+	 */
+    public static GuessLanguage getInstance() {
+        return Holder.INSTANCE;
     }
 
     /**
@@ -280,63 +286,72 @@ public class GuessLanguage {
             return UNKNOWN_LANGUAGE;
         }
 
-        final Map<Integer, String> scores = new TreeMap<>();
-        final Map<Integer, List<String>> model = createOrderedModel(sample);
-
+        final OrderedModel model = createOrderedModel(sample);
+        String language = UNKNOWN_LANGUAGE;
+        int minDistance = Integer.MAX_VALUE;
         for (String key : langs) {
-            if (models.containsKey(key)) {
-                scores.put(distance(model, models.get(key)), key);
+            final TrigramModel knownModel = models.get(key);
+            if (knownModel != null) {
+                // we want the lowest score, less distance = greater chance of match (on ties the last language wins)
+                final int distance = distance(model, knownModel);
+                if (distance <= minDistance) {
+                    minDistance = distance;
+                    language = key;
+                }
             }
         }
-
-        if (scores.isEmpty()) {
-            return UNKNOWN_LANGUAGE;
-        }
-
-        // we want the lowest score, less distance = greater chance of match
-        final Iterator<Entry<Integer, String>> itr = scores.entrySet().iterator();
-        return itr.next().getValue();
+        return language;
     }
 
     /**
-	 * Creates the ordered model.
+	 * Creates the ordered model: los trigramas del texto ordenados de más a menos frecuentes y, a igual frecuencia, por orden de aparición.
 	 *
 	 * @param content the content
-	 * @return the map
+	 * @return the ordered model
 	 */
-    private Map<Integer, List<String>> createOrderedModel(final String content) {
-        final HashMap<String, Integer> trigrams = new HashMap<>();
-        // Map ORDENADO por KEY
-        final Map<Integer, List<String>> otrigrams = new TreeMap<>();
-
-        for (int i = 0; i < (content.length() - 2); ++i) {
-            final String tri = content.substring(i, i + 3).toLowerCase();
-            final Integer integer = trigrams.get(tri);
-            if (integer == null) {
-                trigrams.put(tri, 1);
-            } else {
-                trigrams.put(tri, integer + 1);
-            }
+    private static OrderedModel createOrderedModel(final String content) {
+        final char[] chars = content.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
         }
-
-        for (Entry<String, Integer> entry : trigrams.entrySet()) {
-            // iterator QHash::insertMulti ( const Key & key, const T & value )
-            // Inserts a new item with the key key and a value of value.
-            // If there is already an item with the same key in the hash, this
-            // function will simply create a new one. (This behavior is
-            // different from insert(), which overwrites the value of an
-            // existing item.)
-            // See also insert() and values().
-            // Otrigrams.insertMulti( - trigrams[key], key);
-            List<String> trigram = otrigrams.get(-entry.getValue());
-            if (trigram == null) {
-                trigram = new LinkedList<>();
-                otrigrams.put(-entry.getValue(), trigram);
+        final int numTrigrams = Math.max(0, chars.length - 2);
+        int capacity = 16;
+        while (capacity < numTrigrams * 2) {
+            capacity <<= 1;
+        }
+        // Tabla hash de direccionamiento abierto: posición -> índice del trigrama en distinct
+        final int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        final long[] distinct = new long[numTrigrams];
+        final int[] counts = new int[numTrigrams];
+        int size = 0;
+        for (int i = 0; i < numTrigrams; i++) {
+            final long trigram = TrigramModel.key(chars[i], chars[i + 1], chars[i + 2]);
+            int slot = TrigramModel.hash(trigram) & (capacity - 1);
+            while (table[slot] != -1 && distinct[table[slot]] != trigram) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (table[slot] == -1) {
+                table[slot] = size;
+                distinct[size] = trigram;
+                size++;
             }
-            trigram.add(entry.getKey());
+            counts[table[slot]]++;
         }
 
-        return otrigrams;
+        // Orden por frecuencia descendente y por orden de aparición
+        final long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) (Integer.MAX_VALUE - counts[i]) << 32) | i;
+        }
+        Arrays.sort(order);
+        final OrderedModel model = new OrderedModel(size);
+        for (int i = 0; i < size; i++) {
+            final int index = (int) order[i];
+            model.trigrams[i] = distinct[index];
+            model.counts[i] = counts[index];
+        }
+        return model;
     }
 
     /**
@@ -346,23 +361,24 @@ public class GuessLanguage {
 	 * @param knownModel the known model
 	 * @return the int
 	 */
-    private int distance(final Map<Integer, List<String>> model,
-                         final Map<String, Integer> knownModel) {
+    private static int distance(final OrderedModel model, final TrigramModel knownModel) {
         int counter = -1;
         int dist = 0;
 
-        for (List<String> values : model.values()) {
-            for (String value : values) {
-                if (!value.contains("  ")) {
-                    if (knownModel.containsKey(value.toLowerCase())) {
-                        dist += Math.abs(counter++
-                                - knownModel.get(value.toLowerCase()));
-                    } else {
-                        dist += MAXGRAMS;
-                    }
+        for (int i = 0; i < model.trigrams.length; i++) {
+            final long trigram = model.trigrams[i];
+            if (!hasDoubleSpace(trigram)) {
+                final int rank = knownModel.rank(trigram);
+                if (rank >= 0) {
+                    dist += Math.abs(counter++ - rank);
+                } else {
+                    dist += MAXGRAMS;
                 }
-                if (counter == (MAXGRAMS - 1)) {
-                    break;
+            }
+            // Como en el port original, al llegar al máximo de n-gramas se descartan los restantes de la misma frecuencia
+            if (counter == (MAXGRAMS - 1)) {
+                while (i + 1 < model.counts.length && model.counts[i + 1] == model.counts[i]) {
+                    i++;
                 }
             }
         }
@@ -370,32 +386,78 @@ public class GuessLanguage {
         return dist;
     }
 
+    /**
+	 * Comprueba si un trigrama contiene dos espacios seguidos.
+	 *
+	 * @param trigram the trigram
+	 * @return true, if successful
+	 */
+    private static boolean hasDoubleSpace(final long trigram) {
+        final char first = (char) (trigram >>> 32);
+        final char second = (char) (trigram >>> 16);
+        final char third = (char) trigram;
+        return second == ' ' && (first == ' ' || third == ' ');
+    }
+
     /**
 	 * Load models.
+	 *
+	 * @return los modelos de los idiomas activos
 	 */
-    private void loadModels() {
-        final ClassLoader loader = this.getClass().getClassLoader();
+    private static Map<String, TrigramModel> loadModels() {
+        final Map<String, TrigramModel> models = new HashMap<>();
+        final ClassLoader loader = GuessLanguage.class.getClassLoader();
         for (String trigram : ACTIVE_MODELS) {
-            try {
-                // Se lee el fichero
-                final BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(loader
-                                .getResourceAsStream("languages/trigrams/" + trigram),
-                                "utf-8"));
-                // Asignamos una capacidad adecuada para que no haya operaciones
-                // de rehash (300/.75=400)
-                final HashMap<String, Integer> model = new HashMap<>(405);
+            // Se lee el fichero
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(loader.getResourceAsStream("languages/trigrams/" + trigram), "utf-8"))) {
+                long[] trigrams = new long[MAXGRAMS];
+                int[] ranks = new int[MAXGRAMS];
+                int size = 0;
                 String linea;
                 while ((linea = reader.readLine()) != null) {
-                    model.put(linea.substring(0, 3).toLowerCase(), Integer
-                            .parseInt(linea.substring(3).trim()));
+                    if (size == trigrams.length) {
+                        trigrams = Arrays.copyOf(trigrams, size * 2);
+                        ranks = Arrays.copyOf(ranks, size * 2);
+                    }
+                    trigrams[size] = TrigramModel.key(Character.toLowerCase(linea.charAt(0)), Character.toLowerCase(linea.charAt(1)), Character.toLowerCase(linea.charAt(2)));
+                    ranks[size] = Integer.parseInt(linea.substring(3).trim());
+                    size++;
                 }
-                models.put(trigram, model);
-                reader.close();
+                models.put(trigram, new TrigramModel(trigrams, ranks, size));
             } catch (IOException e) {
                 Logger.putLog("No se ha podido cargar el idioma " + trigram, GuessLanguage.class, Logger.LOG_LEVEL_ERROR, e);
             }
         }
+        return Collections.unmodifiableMap(models);
+    }
+
+    /**
+	 * Trigramas de un texto ordenados por frecuencia.
+	 */
+    private static final class OrderedModel {
+        /** The trigrams. */
+        private final long[] trigrams;
+
+        /** The counts. */
+        private final int[] counts;
+
+        /**
+		 * Instantiates a new ordered model.
+		 *
+		 * @param size the size
+		 */
+        private OrderedModel(final int size) {
+            this.trigrams = new long[size];
+            this.counts = new int[size];
+        }
+    }
+
+    /**
+	 * Carga diferida de la instancia compartida.
+	 */
+    private static final class Holder {
+        /** The Constant INSTANCE. */
+        private static final GuessLanguage INSTANCE = new GuessLanguage();
     }
 
 }
\ No newline at end of file
@@ -51,8 +51,7 @@ public class LanguageChecker {
 	 */
     protected String getLanguage(final String content) {
         if (GuessLanguage.isSupportedLanguage(expectedLanguage)) {
-            final GuessLanguage guessLanguage = new GuessLanguage();
-            return guessLanguage.guessLanguage(content);
+            return GuessLanguage.getInstance().guessLanguage(content);
         } else if (LanguageIdentifier.getSupportedLanguages().contains(expectedLanguage)) {
             final LanguageIdentifier languageIdentifier = new LanguageIdentifier(content);
             return languageIdentifier.getLanguage();
@@ -0,0 +1,105 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.language;
+
+import java.util.Arrays;
+
+/**
+ * Modelo de trigramas de un idioma: la posición de cada trigrama en la lista de los más frecuentes del idioma.
+ *
+ * Cada trigrama se codifica en un long (16 bits por carácter) y se guarda en una tabla hash de direccionamiento abierto, sin objetos por trigrama. Los modelos no se modifican una vez creados.
+ */
+final class TrigramModel {
+	/** Valor de las posiciones libres de la tabla (los trigramas codificados nunca son negativos). */
+	private static final long EMPTY = -1L;
+
+	/** The keys. */
+	private final long[] keys;
+
+	/** The ranks. */
+	private final int[] ranks;
+
+	/** The mask. */
+	private final int mask;
+
+	/**
+	 * Crea un modelo a partir de sus trigramas. Si un trigrama está repetido, prevalece su última posición.
+	 *
+	 * @param trigrams los trigramas codificados con {@link #key(char, char, char)}
+	 * @param ranks    la posición de cada trigrama
+	 * @param size     el número de trigramas
+	 */
+	TrigramModel(final long[] trigrams, final int[] ranks, final int size) {
+		int capacity = 16;
+		while (capacity < size * 2) {
+			capacity <<= 1;
+		}
+		this.keys = new long[capacity];
+		this.ranks = new int[capacity];
+		this.mask = capacity - 1;
+		Arrays.fill(keys, EMPTY);
+		for (int i = 0; i < size; i++) {
+			final int slot = slot(trigrams[i]);
+			keys[slot] = trigrams[i];
+			this.ranks[slot] = ranks[i];
+		}
+	}
+
+	/**
+	 * Obtiene la posición de un trigrama en el modelo.
+	 *
+	 * @param trigram el trigrama codificado con {@link #key(char, char, char)}
+	 * @return la posición o -1 si el trigrama no está en el modelo
+	 */
+	int rank(final long trigram) {
+		final int slot = slot(trigram);
+		return keys[slot] == trigram ? ranks[slot] : -1;
+	}
+
+	/**
+	 * Busca la posición de la tabla de un trigrama: la que ocupa o la primera libre.
+	 *
+	 * @param trigram the trigram
+	 * @return the slot
+	 */
+	private int slot(final long trigram) {
+		int slot = hash(trigram) & mask;
+		while (keys[slot] != EMPTY && keys[slot] != trigram) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Codifica un trigrama en un long.
+	 *
+	 * @param first  the first
+	 * @param second the second
+	 * @param third  the third
+	 * @return el trigrama codificado
+	 */
+	static long key(final char first, final char second, final char third) {
+		return ((long) first << 32) | ((long) second << 16) | third;
+	}
+
+	/**
+	 * Dispersa un trigrama codificado.
+	 *
+	 * @param trigram the trigram
+	 * @return the int
+	 */
+	static int hash(final long trigram) {
+		final long h = trigram * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
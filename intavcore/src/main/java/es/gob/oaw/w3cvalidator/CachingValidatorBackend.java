@@ -0,0 +1,157 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.w3cvalidator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+
+import es.inteco.common.CssValidationError;
+import es.inteco.common.ValidationError;
+import es.inteco.common.utils.HashUtils;
+
+/**
+ * Validador que guarda en caché los resultados de la validación del código HTML de otro validador.
+ *
+ * Los resultados se indexan por el hash del código, de modo que las páginas repetidas (la misma página enlazada con URLs distintas, páginas de error comunes, los reanálisis de un mismo sitio) solo
+ * se validan una vez mientras permanezcan en la caché. Cuando se supera el número máximo de entradas se descartan las usadas hace más tiempo. Los errores de validación se copian al guardarlos y al
+ * devolverlos porque las comprobaciones los modifican.
+ *
+ * La validación de las hojas de estilo no se guarda en caché: el validador remoto descarga por sí mismo las hojas de estilo y el local ya reutiliza el parseo de {@link es.gob.oaw.css.utils.ParsedCSSCache}.
+ */
+final class CachingValidatorBackend implements ValidatorBackend {
+	/** El validador. */
+	private final ValidatorBackend backend;
+	/** Errores de validación del código HTML en orden de uso. */
+	private final Map<String, List<ValidationError>> entries;
+	/** Número de validaciones resueltas desde la caché. */
+	private long hits = 0;
+	/** Número de validaciones realizadas. */
+	private long misses = 0;
+
+	/**
+	 * Instantiates a new caching validator backend.
+	 *
+	 * @param backend    el validador
+	 * @param maxEntries número máximo de resultados en caché
+	 */
+	CachingValidatorBackend(final ValidatorBackend backend, final int maxEntries) {
+		this.backend = backend;
+		this.entries = new LinkedHashMap<String, List<ValidationError>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, List<ValidationError>> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Si la validación falla no se guarda nada en la caché.
+	 */
+	@Override
+	public List<ValidationError> validateHtml(final String contents) throws IOException {
+		final String key = getKey(contents);
+		synchronized (this) {
+			final List<ValidationError> cached = entries.get(key);
+			if (cached != null) {
+				hits++;
+				return copy(cached);
+			}
+		}
+		// Se valida fuera del bloqueo; si dos hilos validan el mismo código ambos resultados son equivalentes
+		final List<ValidationError> validationErrors = backend.validateHtml(contents);
+		final List<ValidationError> cached = Collections.unmodifiableList(copy(validationErrors));
+		synchronized (this) {
+			misses++;
+			entries.put(key, cached);
+		}
+		return validationErrors;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<CssValidationError> validateCss(final Document document, final String url, final String language) {
+		return backend.validateCss(document, url, language);
+	}
+
+	/**
+	 * Número de resultados en caché.
+	 *
+	 * @return the int
+	 */
+	synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Número de validaciones resueltas desde la caché.
+	 *
+	 * @return the hits
+	 */
+	synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Número de validaciones realizadas.
+	 *
+	 * @return the misses
+	 */
+	synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Copia una lista de errores de validación.
+	 *
+	 * @param validationErrors los errores de validación
+	 * @return la copia
+	 */
+	private static List<ValidationError> copy(final List<ValidationError> validationErrors) {
+		final List<ValidationError> copy = new ArrayList<>(validationErrors.size());
+		for (ValidationError validationError : validationErrors) {
+			final ValidationError error = new ValidationError();
+			error.setType(validationError.getType());
+			error.setColumn(validationError.getColumn());
+			error.setLine(validationError.getLine());
+			error.setCode(validationError.getCode());
+			error.setNumErrors(validationError.getNumErrors());
+			error.setNumWarnings(validationError.getNumWarnings());
+			error.setSummary(validationError.isSummary());
+			error.setMessageId(validationError.getMessageId());
+			copy.add(error);
+		}
+		return copy;
+	}
+
+	/**
+	 * Calcula la clave de un código HTML.
+	 *
+	 * @param contents el código HTML
+	 * @return el hash SHA-256 del código en hexadecimal
+	 */
+	private static String getKey(final String contents) {
+		return HashUtils.sha256Hex(contents);
+	}
+}
@@ -0,0 +1,447 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.w3cvalidator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.helger.css.reader.errorhandler.CSSParseError;
+
+import es.gob.oaw.css.utils.ParsedCSSCache;
+import es.gob.oaw.css.utils.ParsedCSSCache.ParsedCSS;
+import es.inteco.common.CssValidationError;
+import es.inteco.common.IntavConstants;
+import es.inteco.common.ValidationError;
+import es.inteco.common.utils.StringUtils;
+
+/**
+ * Validador local, que valida en el propio proceso y sin acceso a red.
+ *
+ * El código HTML se recorre con un analizador léxico que detecta los errores que distinguen las comprobaciones, con los mismos identificadores que asigna {@link W3CValidatorProxy}: atributos
+ * duplicados (11), sintaxis de autocierre en elementos que no son vacíos (70), etiquetas de cierre sin etiqueta de apertura (79), identificadores con espacios (82) e identificadores duplicados (141).
+ * No se detecta el resto de errores del validador del W3C.
+ *
+ * Las hojas de estilo (los elementos <code>style</code> y las hojas enlazadas ya cargadas) se validan sintácticamente con el parseo de {@link ParsedCSSCache}, de modo que cada hoja de estilo distinta
+ * se analiza una sola vez.
+ */
+final class LocalValidatorBackend implements ValidatorBackend {
+	/** Elementos vacíos, que no tienen etiqueta de cierre. */
+	private static final Set<String> VOID_ELEMENTS = new HashSet<>(
+			Arrays.asList("area", "base", "br", "col", "embed", "hr", "img", "input", "keygen", "link", "meta", "param", "source", "track", "wbr"));
+	/** Elementos cuyo contenido es texto hasta su etiqueta de cierre. */
+	private static final Set<String> RAW_TEXT_ELEMENTS = new HashSet<>(Arrays.asList("script", "style", "textarea", "title", "xmp", "iframe", "noembed", "noframes"));
+	/** Elementos que el analizador del navegador crea aunque no aparezcan y cuyas etiquetas de cierre no se comprueban. */
+	private static final Set<String> IMPLIED_ELEMENTS = new HashSet<>(Arrays.asList("html", "head", "body", "p"));
+	/** Elementos que contienen código SVG o MathML, en el que se permite la sintaxis de autocierre. */
+	private static final Set<String> FOREIGN_ELEMENTS = new HashSet<>(Arrays.asList("svg", "math"));
+	/** Longitud máxima del código que se muestra con cada error. */
+	private static final int MAX_CODE_LENGTH = 300;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<ValidationError> validateHtml(final String contents) {
+		return new HtmlScanner(contents).scan();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<CssValidationError> validateCss(final Document document, final String url, final String language) {
+		final List<CssValidationError> cssValidationErrors = new ArrayList<>();
+		final NodeList styles = document.getElementsByTagName("style");
+		for (int i = 0; i < styles.getLength(); i++) {
+			addCssValidationErrors(cssValidationErrors, url, styles.item(i).getTextContent());
+		}
+		final NodeList links = document.getElementsByTagName("link");
+		for (int i = 0; i < links.getLength(); i++) {
+			final Element link = (Element) links.item(i);
+			final Object css = link.getUserData("css");
+			if (css instanceof String) {
+				addCssValidationErrors(cssValidationErrors, link.getAttribute("href"), (String) css);
+			}
+		}
+		return cssValidationErrors;
+	}
+
+	/**
+	 * Añade los errores de sintaxis de una hoja de estilo.
+	 *
+	 * @param cssValidationErrors los errores de validación
+	 * @param uri                 la URI de la hoja de estilo
+	 * @param content             el contenido de la hoja de estilo
+	 */
+	private static void addCssValidationErrors(final List<CssValidationError> cssValidationErrors, final String uri, final String content) {
+		if (StringUtils.isEmpty(content) || content.trim().isEmpty()) {
+			return;
+		}
+		final ParsedCSS parsed = ParsedCSSCache.getInstance().get(content);
+		for (CSSParseError parseError : parsed.getParseErrors()) {
+			final CssValidationError cssValidationError = new CssValidationError();
+			cssValidationError.setUri(uri);
+			cssValidationError.setMessage(parseError.getErrorMessage());
+			if (parseError.getFirstSkippedToken() != null) {
+				cssValidationError.setLine(parseError.getFirstSkippedToken().getBeginLine());
+				cssValidationError.setSkippedString(parseError.getFirstSkippedToken().getImage());
+			} else if (parseError.getLastValidToken() != null) {
+				cssValidationError.setLine(parseError.getLastValidToken().getBeginLine());
+			} else {
+				cssValidationError.setLine(1);
+			}
+			cssValidationError.setContext(parseError.getLastValidToken() != null ? parseError.getLastValidToken().getImage() : "");
+			addCssValidationError(cssValidationErrors, cssValidationError);
+		}
+		if (parsed.getStyleSheet() == null && parsed.getParseErrors().isEmpty()) {
+			final CssValidationError cssValidationError = new CssValidationError();
+			cssValidationError.setUri(uri);
+			cssValidationError.setLine(1);
+			cssValidationError.setMessage("No se ha podido analizar la hoja de estilo");
+			cssValidationError.setContext("");
+			addCssValidationError(cssValidationErrors, cssValidationError);
+		}
+	}
+
+	/**
+	 * Completa un error de validación de CSS con el mismo formato que los del validador remoto y lo añade a la lista.
+	 *
+	 * @param cssValidationErrors los errores de validación
+	 * @param cssValidationError  el error de validación
+	 */
+	private static void addCssValidationError(final List<CssValidationError> cssValidationErrors, final CssValidationError cssValidationError) {
+		cssValidationError.setCode(IntavConstants.MESSAGE_DELIMITER + cssValidationError.getUri() + ": " + cssValidationError.getMessage() + IntavConstants.MESSAGE_DELIMITER + " "
+				+ cssValidationError.getContext() + " { ..." + StringUtils.truncateText(cssValidationError.getSkippedString(), MAX_CODE_LENGTH) + " ... }");
+		cssValidationError.setSummary(false);
+		cssValidationErrors.add(cssValidationError);
+	}
+
+	/**
+	 * Analizador léxico del código HTML. Sigue las reglas de tokenización de HTML5 para etiquetas, atributos, comentarios y elementos de texto, pero no reproduce la construcción del árbol: las etiquetas
+	 * de cierre cierran el último elemento abierto con el mismo nombre.
+	 */
+	private static final class HtmlScanner {
+		/** El código HTML. */
+		private final String html;
+		/** Posición en la que empieza cada línea. */
+		private final int[] lineStarts;
+		/** Los errores encontrados. */
+		private final List<ValidationError> validationErrors = new ArrayList<>();
+		/** Los identificadores encontrados. */
+		private final Set<String> ids = new HashSet<>();
+		/** Los elementos abiertos, el último primero. */
+		private final Deque<String> openElements = new ArrayDeque<>();
+		/** Número de elementos SVG o MathML abiertos. */
+		private int foreignDepth = 0;
+
+		/**
+		 * Instantiates a new html scanner.
+		 *
+		 * @param html el código HTML
+		 */
+		private HtmlScanner(final String html) {
+			this.html = html != null ? html : "";
+			this.lineStarts = getLineStarts(this.html);
+		}
+
+		/**
+		 * Recorre el código HTML.
+		 *
+		 * @return los errores encontrados
+		 */
+		private List<ValidationError> scan() {
+			final int length = html.length();
+			int pos = 0;
+			while (pos < length) {
+				final int start = html.indexOf('<', pos);
+				if (start == -1 || start + 1 >= length) {
+					break;
+				}
+				final char next = html.charAt(start + 1);
+				if (html.startsWith("<!--", start)) {
+					final int end = html.indexOf("-->", start + 4);
+					pos = end == -1 ? length : end + 3;
+				} else if (next == '!' || next == '?') {
+					pos = skipTo(start, '>');
+				} else if (next == '/') {
+					pos = endTag(start);
+				} else if (isAsciiLetter(next)) {
+					pos = startTag(start);
+				} else {
+					pos = start + 1;
+				}
+			}
+			return validationErrors;
+		}
+
+		/**
+		 * Procesa una etiqueta de apertura.
+		 *
+		 * @param start posición del carácter <code>&lt;</code>
+		 * @return posición siguiente a la etiqueta
+		 */
+		private int startTag(final int start) {
+			final int length = html.length();
+			int pos = start + 1;
+			while (pos < length && !isTagNameEnd(html.charAt(pos))) {
+				pos++;
+			}
+			final String name = html.substring(start + 1, pos).toLowerCase(Locale.ENGLISH);
+			final Set<String> attributes = new HashSet<>();
+			boolean selfClosing = false;
+			while (pos < length) {
+				final char c = html.charAt(pos);
+				if (c == '>') {
+					pos++;
+					break;
+				} else if (c == '/') {
+					selfClosing = pos + 1 < length && html.charAt(pos + 1) == '>';
+					pos++;
+				} else if (isWhitespace(c)) {
+					pos++;
+				} else {
+					selfClosing = false;
+					// Nombre del atributo (el primer carácter puede ser '=')
+					final int nameStart = pos;
+					pos++;
+					while (pos < length && !isWhitespace(html.charAt(pos)) && "/>=".indexOf(html.charAt(pos)) == -1) {
+						pos++;
+					}
+					final String attributeName = html.substring(nameStart, pos).toLowerCase(Locale.ENGLISH);
+					pos = skipWhitespace(pos);
+					String value = null;
+					if (pos < length && html.charAt(pos) == '=') {
+						pos = skipWhitespace(pos + 1);
+						if (pos < length && (html.charAt(pos) == '"' || html.charAt(pos) == '\'')) {
+							final int end = html.indexOf(html.charAt(pos), pos + 1);
+							value = html.substring(pos + 1, end == -1 ? length : end);
+							pos = end == -1 ? length : end + 1;
+						} else {
+							final int valueStart = pos;
+							while (pos < length && !isWhitespace(html.charAt(pos)) && html.charAt(pos) != '>') {
+								pos++;
+							}
+							value = html.substring(valueStart, pos);
+						}
+					}
+					if (!attributes.add(attributeName)) {
+						addError(start, pos, "11");
+					} else if ("id".equals(attributeName) && value != null && !value.isEmpty()) {
+						if (containsWhitespace(value)) {
+							addError(start, pos, "82");
+						} else if (!ids.add(value)) {
+							addError(start, pos, "141");
+						}
+					}
+				}
+			}
+			if (VOID_ELEMENTS.contains(name) && foreignDepth == 0) {
+				return pos;
+			}
+			if (selfClosing) {
+				if (foreignDepth > 0) {
+					return pos;
+				}
+				addError(start, pos, "70");
+			}
+			openElements.push(name);
+			if (FOREIGN_ELEMENTS.contains(name)) {
+				foreignDepth++;
+			} else if (foreignDepth == 0 && RAW_TEXT_ELEMENTS.contains(name)) {
+				// El contenido es texto hasta la etiqueta de cierre del elemento
+				final int end = indexOfEndTag(name, pos);
+				return end == -1 ? length : end;
+			}
+			return pos;
+		}
+
+		/**
+		 * Procesa una etiqueta de cierre.
+		 *
+		 * @param start posición del carácter <code>&lt;</code>
+		 * @return posición siguiente a la etiqueta
+		 */
+		private int endTag(final int start) {
+			final int length = html.length();
+			int pos = start + 2;
+			while (pos < length && !isTagNameEnd(html.charAt(pos))) {
+				pos++;
+			}
+			final String name = html.substring(start + 2, pos).toLowerCase(Locale.ENGLISH);
+			pos = skipTo(pos, '>');
+			if (name.isEmpty() || IMPLIED_ELEMENTS.contains(name) || "br".equals(name)) {
+				return pos;
+			}
+			if (openElements.contains(name)) {
+				// Se cierran también los elementos abiertos dentro del que se cierra
+				for (final Iterator<String> it = openElements.iterator(); it.hasNext();) {
+					final String element = it.next();
+					it.remove();
+					if (FOREIGN_ELEMENTS.contains(element)) {
+						foreignDepth--;
+					}
+					if (element.equals(name)) {
+						break;
+					}
+				}
+			} else {
+				addError(start, pos, "79");
+			}
+			return pos;
+		}
+
+		/**
+		 * Añade un error de validación.
+		 *
+		 * @param start     posición en la que empieza la etiqueta con el error
+		 * @param end       posición en la que termina el código del error
+		 * @param messageId identificador del error
+		 */
+		private void addError(final int start, final int end, final String messageId) {
+			int line = Arrays.binarySearch(lineStarts, start);
+			if (line < 0) {
+				line = -line - 2;
+			}
+			final ValidationError validationError = new ValidationError();
+			validationError.setType(IntavConstants.VALIDATION_ERROR_TYPE_ERROR);
+			validationError.setSummary(false);
+			validationError.setLine(line + 1);
+			validationError.setColumn(start - lineStarts[line] + 1);
+			validationError.setCode(StringUtils.truncateText(html.substring(start, Math.min(end, html.length())), MAX_CODE_LENGTH));
+			validationError.setMessageId(messageId);
+			validationErrors.add(validationError);
+		}
+
+		/**
+		 * Busca la etiqueta de cierre de un elemento, sin distinguir mayúsculas y minúsculas.
+		 *
+		 * @param name nombre del elemento
+		 * @param from posición desde la que se busca
+		 * @return posición de la etiqueta o -1 si no se encuentra
+		 */
+		private int indexOfEndTag(final String name, final int from) {
+			int pos = html.indexOf("</", from);
+			while (pos != -1) {
+				final int end = pos + 2 + name.length();
+				if (html.regionMatches(true, pos + 2, name, 0, name.length()) && (end >= html.length() || isTagNameEnd(html.charAt(end)))) {
+					return pos;
+				}
+				pos = html.indexOf("</", pos + 2);
+			}
+			return -1;
+		}
+
+		/**
+		 * Posición siguiente al siguiente carácter indicado.
+		 *
+		 * @param from posición desde la que se busca
+		 * @param c    el carácter
+		 * @return la posición siguiente al carácter o el final del código
+		 */
+		private int skipTo(final int from, final char c) {
+			final int end = html.indexOf(c, from);
+			return end == -1 ? html.length() : end + 1;
+		}
+
+		/**
+		 * Salta los espacios en blanco.
+		 *
+		 * @param from posición desde la que se salta
+		 * @return posición del siguiente carácter que no es un espacio
+		 */
+		private int skipWhitespace(final int from) {
+			int pos = from;
+			while (pos < html.length() && isWhitespace(html.charAt(pos))) {
+				pos++;
+			}
+			return pos;
+		}
+	}
+
+	/**
+	 * Calcula la posición en la que empieza cada línea. Las líneas pueden terminar en LF, CR o CRLF.
+	 *
+	 * @param html el código HTML
+	 * @return las posiciones de inicio de las líneas
+	 */
+	private static int[] getLineStarts(final String html) {
+		int[] lineStarts = new int[64];
+		int lines = 1;
+		for (int i = 0; i < html.length(); i++) {
+			final char c = html.charAt(i);
+			if (c == '\n' || (c == '\r' && (i + 1 == html.length() || html.charAt(i + 1) != '\n'))) {
+				if (lines == lineStarts.length) {
+					lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+				}
+				lineStarts[lines++] = i + 1;
+			}
+		}
+		return Arrays.copyOf(lineStarts, lines);
+	}
+
+	/**
+	 * Comprueba si un carácter termina el nombre de una etiqueta.
+	 *
+	 * @param c el carácter
+	 * @return true, si termina el nombre
+	 */
+	private static boolean isTagNameEnd(final char c) {
+		return isWhitespace(c) || c == '/' || c == '>';
+	}
+
+	/**
+	 * Comprueba si un carácter es un espacio en blanco de HTML.
+	 *
+	 * @param c el carácter
+	 * @return true, si es un espacio en blanco
+	 */
+	private static boolean isWhitespace(final char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+	}
+
+	/**
+	 * Comprueba si un texto contiene espacios en blanco de HTML.
+	 *
+	 * @param text el texto
+	 * @return true, si contiene algún espacio en blanco
+	 */
+	private static boolean containsWhitespace(final String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (isWhitespace(text.charAt(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Comprueba si un carácter es una letra ASCII.
+	 *
+	 * @param c el carácter
+	 * @return true, si es una letra ASCII
+	 */
+	private static boolean isAsciiLetter(final char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.w3cvalidator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import ca.utoronto.atrc.tile.accessibilitychecker.EvaluatorUtility;
+import es.inteco.common.CssValidationError;
+import es.inteco.common.IntavConstants;
+import es.inteco.common.ValidationError;
+import es.inteco.common.properties.PropertiesManager;
+import es.inteco.common.utils.StringUtils;
+
+/**
+ * Validador remoto: el código HTML se envía al validador del W3C (<code>url.w3c.validator</code>) y las hojas de estilo se validan con el validador de CSS del W3C
+ * (<code>url.w3c.css.validator</code>), que descarga por sí mismo la página y sus hojas de estilo.
+ */
+final class RemoteValidatorBackend implements ValidatorBackend {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<ValidationError> validateHtml(final String contents) throws IOException {
+		return W3CValidatorProxy.validate(contents);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<CssValidationError> validateCss(final Document document, final String url, final String language) {
+		final List<CssValidationError> cssValidationErrors = new ArrayList<>();
+		if (StringUtils.isNotEmpty(url)) {
+			cssValidationErrors.addAll(EvaluatorUtility.getCssValidationErrors(url, language));
+		} else {
+			cssValidationErrors.addAll(getCssValidationNotWorksMessage());
+			final List<Element> styleSheets = EvaluatorUtility.getStyleSheets(document);
+			for (Element styleSheet : styleSheets) {
+				cssValidationErrors.addAll(EvaluatorUtility.getCssValidationErrors(styleSheet.getAttribute("href"), language));
+			}
+		}
+		return cssValidationErrors;
+	}
+
+	/**
+	 * Gets the css validation not works message.
+	 *
+	 * @return the css validation not works message
+	 */
+	private static List<CssValidationError> getCssValidationNotWorksMessage() {
+		final List<CssValidationError> cssValidationErrors = new ArrayList<>();
+		final CssValidationError cssValidationError = new CssValidationError();
+		final PropertiesManager pmgr = new PropertiesManager();
+		final String urlHuman = pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "url.w3c.css.validator.human.submit.code");
+		final String link = "<a href='" + urlHuman + "' title='Enlace externo'>Validador de hojas de estilo del W3C</a>";
+		cssValidationError
+				.setCode("En el modo de análisis de código fuente, la validación de las hojas de estilo solo funcionará si éstas se encuentran enlazadas desde algún servidor con acceso externo.");
+		cssValidationError.setCode(cssValidationError.getCode() + " Si no dispone de esta posibilidad, puede validar su hoja de estilos mediante el  " + link);
+		cssValidationError.setLine(1);
+		cssValidationError.setSummary(true);
+		cssValidationErrors.add(cssValidationError);
+		return cssValidationErrors;
+	}
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.w3cvalidator;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.w3c.dom.Document;
+
+import es.inteco.common.CssValidationError;
+import es.inteco.common.ValidationError;
+
+/**
+ * Validador del código HTML y de las hojas de estilo de las páginas evaluadas.
+ *
+ * El validador que se usa se elige con la propiedad <code>validator.backend</code> (ver {@link ValidatorBackends}).
+ */
+public interface ValidatorBackend {
+
+	/**
+	 * Valida el código HTML de una página.
+	 *
+	 * @param contents el código HTML
+	 * @return los errores de validación
+	 * @throws IOException si no se ha podido validar el código
+	 */
+	List<ValidationError> validateHtml(String contents) throws IOException;
+
+	/**
+	 * Valida las hojas de estilo de una página. Se llama después de cargar las hojas de estilo enlazadas, cuyo contenido está en el dato de usuario <code>css</code> de cada elemento
+	 * <code>link</code>.
+	 *
+	 * @param document el documento de la página
+	 * @param url      la URL de la página o vacío si se ha evaluado su código fuente
+	 * @param language el idioma de los mensajes
+	 * @return los errores de validación
+	 */
+	List<CssValidationError> validateCss(Document document, String url, String language);
+}
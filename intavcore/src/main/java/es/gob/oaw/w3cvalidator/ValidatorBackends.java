@@ -0,0 +1,77 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.w3cvalidator;
+
+import es.inteco.common.IntavConstants;
+import es.inteco.common.logging.Logger;
+import es.inteco.common.properties.PropertiesManager;
+
+/**
+ * Acceso al validador configurado.
+ *
+ * La propiedad <code>validator.backend</code> indica el validador: <code>remote</code> (por defecto) usa los validadores del W3C y <code>local</code> valida en el propio proceso, sin acceso a red.
+ * Los resultados de la validación del código HTML se guardan en una caché de <code>validator.cache.max.entries</code> entradas.
+ */
+public final class ValidatorBackends {
+	/** Propiedad con el validador. */
+	private static final String BACKEND_PROPERTY = "validator.backend";
+	/** Propiedad con el número máximo de resultados en caché. */
+	private static final String MAX_ENTRIES_PROPERTY = "validator.cache.max.entries";
+	/** Valor de la propiedad del validador local. */
+	private static final String LOCAL = "local";
+	/** Valor de la propiedad del validador remoto. */
+	private static final String REMOTE = "remote";
+	/** Número máximo de resultados en caché por defecto. */
+	private static final int DEFAULT_MAX_ENTRIES = 1024;
+	/** Instancia compartida. */
+	private static ValidatorBackend instance;
+
+	/**
+	 * Instantiates a new validator backends.
+	 */
+	private ValidatorBackends() {
+	}
+
+	/**
+	 * Obtiene el validador configurado.
+	 *
+	 * @return the instance
+	 */
+	public static synchronized ValidatorBackend getInstance() {
+		if (instance == null) {
+			final PropertiesManager pmgr = new PropertiesManager();
+			final String value = pmgr.getValue(IntavConstants.INTAV_PROPERTIES, BACKEND_PROPERTY);
+			final String backend = value != null ? value.trim() : REMOTE;
+			if (!LOCAL.equalsIgnoreCase(backend) && !REMOTE.equalsIgnoreCase(backend)) {
+				Logger.putLog("Valor no válido para la propiedad " + BACKEND_PROPERTY + ", se usa el validador remoto", ValidatorBackends.class, Logger.LOG_LEVEL_WARNING);
+			}
+			instance = new CachingValidatorBackend(LOCAL.equalsIgnoreCase(backend) ? new LocalValidatorBackend() : new RemoteValidatorBackend(), getMaxEntries());
+		}
+		return instance;
+	}
+
+	/**
+	 * Obtiene el número máximo de resultados en caché.
+	 *
+	 * @return the max entries
+	 */
+	private static int getMaxEntries() {
+		final String value = new PropertiesManager().getValue(IntavConstants.INTAV_PROPERTIES, MAX_ENTRIES_PROPERTY);
+		try {
+			return value != null ? Math.max(1, Integer.parseInt(value.trim())) : DEFAULT_MAX_ENTRIES;
+		} catch (NumberFormatException e) {
+			Logger.putLog("Valor no válido para la propiedad " + MAX_ENTRIES_PROPERTY, ValidatorBackends.class, Logger.LOG_LEVEL_WARNING);
+			return DEFAULT_MAX_ENTRIES;
+		}
+	}
+}
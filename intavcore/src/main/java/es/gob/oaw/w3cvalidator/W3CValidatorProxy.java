@@ -1,11 +1,14 @@
 package es.gob.oaw.w3cvalidator;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 
+import es.gob.oaw.http.HttpClientProvider;
 import es.inteco.common.IntavConstants;
 import es.inteco.common.ValidationError;
 import es.inteco.common.properties.PropertiesManager;
@@ -39,33 +42,56 @@ public final class W3CValidatorProxy {
 	 * @param contents the contents
 	 * @return the list
 	 */
-	@SuppressWarnings("deprecation")
 	public static List<ValidationError> callService(final String contents) {
-		final List<ValidationError> validationErrors = new ArrayList<>();
 		try {
-			final PropertiesManager pmgr = new PropertiesManager();
-			OkHttpClient client = new OkHttpClient().newBuilder().build();
-			MediaType mediaType = MediaType.parse("text/html; charset=utf-8");
-			RequestBody body = RequestBody.create(mediaType, contents);
-			Request request = new Request.Builder().url(pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "url.w3c.validator")).method("POST", body).addHeader("Content-Type", "text/html; charset=utf-8")
-					.build();
-			Response response = client.newCall(request).execute();
-			W3CValidatorResponse r = new Gson().fromJson(response.body().string(), W3CValidatorResponse.class);
-			if (r != null && r.getMessages() != null && !r.getMessages().isEmpty()) {
-				for (Message message : r.getMessages()) {
-					if ("error".equals(message.getType())) {
-						ValidationError validationError = new ValidationError();
-						validationError.setType(IntavConstants.VALIDATION_ERROR_TYPE_ERROR);
-						validationError.setSummary(false);
-						validationError.setColumn(message.getFirstColumn());
-						validationError.setLine(message.getLastLine());
-						validationError.setCode(message.getExtract());
-						validationError.setMessageId(getMessageIdFromErrorMessage(message.getMessage()));
-						validationErrors.add(validationError);
-					}
+			return validate(contents);
+		} catch (Exception e) {
+			return new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Valida un código HTML con el validador del W3C. A diferencia de {@link #callService(String)}, los errores de comunicación con el validador se propagan para que no se confundan con una página
+	 * sin errores.
+	 *
+	 * @param contents the contents
+	 * @return the list
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@SuppressWarnings("deprecation")
+	static List<ValidationError> validate(final String contents) throws IOException {
+		final List<ValidationError> validationErrors = new ArrayList<>();
+		final PropertiesManager pmgr = new PropertiesManager();
+		// Cliente compartido para reutilizar las conexiones con el validador
+		OkHttpClient client = HttpClientProvider.getOkHttpClient();
+		MediaType mediaType = MediaType.parse("text/html; charset=utf-8");
+		RequestBody body = RequestBody.create(mediaType, contents);
+		Request request = new Request.Builder().url(pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "url.w3c.validator")).method("POST", body).addHeader("Content-Type", "text/html; charset=utf-8")
+				.build();
+		final W3CValidatorResponse r;
+		try (Response response = client.newCall(request).execute()) {
+			if (!response.isSuccessful()) {
+				throw new IOException("El validador ha respondido con el código " + response.code());
+			}
+			try {
+				r = new Gson().fromJson(response.body().string(), W3CValidatorResponse.class);
+			} catch (JsonParseException e) {
+				throw new IOException("Respuesta no válida del validador", e);
+			}
+		}
+		if (r != null && r.getMessages() != null && !r.getMessages().isEmpty()) {
+			for (Message message : r.getMessages()) {
+				if ("error".equals(message.getType())) {
+					ValidationError validationError = new ValidationError();
+					validationError.setType(IntavConstants.VALIDATION_ERROR_TYPE_ERROR);
+					validationError.setSummary(false);
+					validationError.setColumn(message.getFirstColumn());
+					validationError.setLine(message.getLastLine());
+					validationError.setCode(message.getExtract());
+					validationError.setMessageId(getMessageIdFromErrorMessage(message.getMessage()));
+					validationErrors.add(validationError);
 				}
 			}
-		} catch (Exception e) {
 		}
 		return validationErrors;
 	}
@@ -28,9 +28,9 @@ import es.inteco.common.logging.Logger;
 import es.inteco.common.properties.PropertiesManager;
 import es.inteco.intav.comun.Incidencia;
 import es.inteco.intav.datos.AnalisisDatos;
+import es.inteco.intav.datos.AnalysisWriter;
 import es.inteco.intav.datos.IncidenciaDatos;
 import es.inteco.intav.persistence.Analysis;
-import es.inteco.intav.utils.CacheUtils;
 import es.inteco.intav.utils.EvaluatorUtils;
 import es.inteco.plugin.Cartucho;
 import es.inteco.plugin.dao.DataBaseManager;
@@ -68,7 +68,8 @@ public class CartuchoAccesibilidad extends Cartucho {
 			Logger.putLog("Excepcion: ", CartuchoAccesibilidad.class, Logger.LOG_LEVEL_ERROR, e);
 		}
 		if (isLast) {
-			CacheUtils.removeFromCache(IntavConstants.CHECKED_LINKS_CACHE_KEY + checkAccesibility.getIdRastreo());
+			// Las tareas post-analisis consultan los análisis del rastreo, que deben estar guardados
+			AnalysisWriter.flush();
 			Logger.putLog("Realizando tareas post-analisis", CartuchoAccesibilidad.class, Logger.LOG_LEVEL_DEBUG);
 			// Calculamos el resultado de la comprobacion titulos diferentes ya
 			// que requiere haber realizado el rastreo completo
@@ -574,9 +574,6 @@ public interface IntavConstants {
 	/** The Constant ACCESSIBILITY_DECLARATION_DOCUMENT. */
 	public static final String ACCESSIBILITY_DECLARATION_DOCUMENT = "accessibilityDeclarationDocument";
 	
-	/** The Constant CHECKED_LINKS_CACHE_KEY. */
-	public static final String CHECKED_LINKS_CACHE_KEY = "checkedLinks_";
-	
 	/** The Constant HAS_CONTENT. */
 	public static final int HAS_CONTENT = 1;
 	
@@ -15,18 +15,22 @@
 ******************************************************************************/
 package es.inteco.intav.datos;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.http.HttpServletRequest;
 
-import org.apache.commons.codec.binary.Base64;
-
 import ca.utoronto.atrc.tile.accessibilitychecker.Evaluation;
 import ca.utoronto.atrc.tile.accessibilitychecker.Evaluator;
 import ca.utoronto.atrc.tile.accessibilitychecker.EvaluatorUtility;
@@ -35,7 +39,6 @@ import es.inteco.common.CheckAccessibility;
 import es.inteco.common.IntavConstants;
 import es.inteco.common.logging.Logger;
 import es.inteco.common.properties.PropertiesManager;
-import es.inteco.common.utils.StringUtils;
 import es.inteco.intav.form.EvaluationForm;
 import es.inteco.intav.persistence.Analysis;
 import es.inteco.intav.utils.EvaluatorUtils;
@@ -45,6 +48,14 @@ import es.inteco.plugin.dao.DataBaseManager;
  * The Class AnalisisDatos.
  */
 public final class AnalisisDatos {
+	/**
+	 * Tamaño de lectura de las consultas de un rastreo completo. MySQL Connector/J solo lee las filas de una en una, en lugar de cargar el resultado entero en memoria, con este valor (o con
+	 * useCursorFetch=true en la URL de conexión). Requiere una consulta de solo lectura y solo avance y no lanzar otras consultas por la misma conexión hasta cerrar el resultado.
+	 */
+	private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+	/** Códigos de las normativas. */
+	private static final ConcurrentMap<String, Integer> GUIDELINE_CODES = new ConcurrentHashMap<>();
+
 	/**
 	 * Instantiates a new analisis datos.
 	 */
@@ -52,49 +63,39 @@ public final class AnalisisDatos {
 	}
 
 	/**
-	 * Sets the analisis.
+	 * Inserta en una misma transacción varios análisis terminados. Se asigna a cada análisis el código generado en base de datos.
 	 *
-	 * @param connection   the connection
-	 * @param analisis     the analisis
-	 * @param cssResources the css resources
-	 * @return the int
+	 * @param connection la conexión, sin autocommit
+	 * @param analyses   the analyses
+	 * @param contents   códigos fuente pendientes de guardar en el {@link SourceStore}, a los que se añaden los de los análisis
 	 * @throws SQLException the SQL exception
 	 */
-	public static int setAnalisis(final Connection connection, final Analysis analisis, final List<CSSResource> cssResources) throws SQLException {
+	static void insertAnalyses(final Connection connection, final List<Analysis> analyses, final Map<String, byte[]> contents) throws SQLException {
 		try (PreparedStatement pstmt = connection.prepareStatement(
-				"INSERT INTO tanalisis (fec_analisis, cod_url, num_duracion, nom_entidad, cod_rastreo, cod_guideline, estado, cod_fuente)" + " VALUES (NOW(), ?, ?, ?, ?, ?, ?, ?);",
+				"INSERT INTO tanalisis (fec_analisis, cod_url, num_duracion, nom_entidad, cod_rastreo, cod_guideline, estado, ref_cod_fuente, checks_ejecutados)"
+						+ " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?);",
 				Statement.RETURN_GENERATED_KEYS)) {
-			connection.setAutoCommit(false);
-			pstmt.setString(1, analisis.getUrl());
-			pstmt.setLong(2, analisis.getTime());
-			pstmt.setString(3, analisis.getEntity());
-			pstmt.setLong(4, analisis.getTracker());
-			pstmt.setInt(5, getCodGuideline(connection, analisis.getGuideline()));
-			pstmt.setInt(6, IntavConstants.STATUS_EXECUTING);
-			// Encode BASE64 code
-			String codigoFuente = analisis.getSource();
-			if (!StringUtils.isEmpty(codigoFuente)) {
-				codigoFuente = new String(Base64.encodeBase64(codigoFuente.getBytes("UTF-8")));
+			for (Analysis analisis : analyses) {
+				pstmt.setTimestamp(1, new Timestamp(analisis.getDate().getTime()));
+				pstmt.setString(2, analisis.getUrl());
+				pstmt.setLong(3, analisis.getTime());
+				pstmt.setString(4, analisis.getEntity());
+				pstmt.setLong(5, analisis.getTracker());
+				pstmt.setInt(6, getCodGuideline(connection, analisis.getGuideline()));
+				pstmt.setInt(7, analisis.getStatus());
+				pstmt.setString(8, SourceStore.add(analisis.getSource(), contents));
+				pstmt.setString(9, analisis.getChecksExecutedStr());
+				pstmt.addBatch();
 			}
-			pstmt.setString(7, codigoFuente);
-			pstmt.executeUpdate();
-			final int codigoAnalisis;
+			pstmt.executeBatch();
 			try (ResultSet rs = pstmt.getGeneratedKeys()) {
-				if (rs.next()) {
-					codigoAnalisis = rs.getInt(1);
-				} else {
-					return 0;
+				for (Analysis analisis : analyses) {
+					if (!rs.next()) {
+						throw new SQLException("No se han obtenido los códigos de todos los análisis insertados");
+					}
+					analisis.setCode(rs.getInt(1));
 				}
 			}
-			saveCSSResources(connection, codigoAnalisis, cssResources);
-			connection.commit();
-			connection.setAutoCommit(true);
-			return codigoAnalisis;
-		} catch (Exception ex) {
-			Logger.putLog(ex.getMessage(), AnalisisDatos.class, Logger.LOG_LEVEL_ERROR, ex);
-			connection.rollback();
-			connection.setAutoCommit(true);
-			return -1;
 		}
 	}
 
@@ -104,19 +105,15 @@ public final class AnalisisDatos {
 	 * @param connection     the connection
 	 * @param codigoAnalisis the codigo analisis
 	 * @param cssResources   the css resources
+	 * @param contents       códigos fuente pendientes de guardar en el {@link SourceStore}, a los que se añaden los de las hojas de estilo
 	 * @throws SQLException the SQL exception
 	 */
-	private static void saveCSSResources(final Connection connection, final int codigoAnalisis, final List<CSSResource> cssResources) throws SQLException {
-		try (PreparedStatement pstmt = connection.prepareStatement("INSERT INTO tanalisis_css (url, codigo, cod_analisis) VALUES (?,?,?);")) {
+	static void saveCSSResources(final Connection connection, final int codigoAnalisis, final List<CSSResource> cssResources, final Map<String, byte[]> contents) throws SQLException {
+		try (PreparedStatement pstmt = connection.prepareStatement("INSERT INTO tanalisis_css (url, ref_codigo, cod_analisis) VALUES (?,?,?);")) {
 			for (CSSResource cssResource : cssResources) {
 				if (cssResource.isImported()) {
 					pstmt.setString(1, cssResource.getStringSource());
-					// Encode BASE64 code
-					String codigoFuente = cssResource.getContent();
-					if (!StringUtils.isEmpty(codigoFuente)) {
-						codigoFuente = new String(Base64.encodeBase64(codigoFuente.getBytes()));
-					}
-					pstmt.setString(2, codigoFuente);
+					pstmt.setString(2, SourceStore.add(cssResource.getContent(), contents));
 					pstmt.setInt(3, codigoAnalisis);
 					pstmt.addBatch();
 				}
@@ -160,7 +157,7 @@ public final class AnalisisDatos {
 	}
 
 	/**
-	 * Gets the cod guideline.
+	 * Gets the cod guideline. Los códigos encontrados se guardan para no consultarlos en cada análisis.
 	 *
 	 * @param connection the connection
 	 * @param guideline  the guideline
@@ -168,11 +165,18 @@ public final class AnalisisDatos {
 	 * @throws SQLException the SQL exception
 	 */
 	private static int getCodGuideline(final Connection connection, final String guideline) throws SQLException {
+		final String desGuideline = getGuideline(guideline);
+		final Integer cached = GUIDELINE_CODES.get(desGuideline);
+		if (cached != null) {
+			return cached;
+		}
 		try (PreparedStatement pstmt = connection.prepareStatement("SELECT cod_guideline FROM tguidelines WHERE des_guideline = ?;")) {
-			pstmt.setString(1, getGuideline(guideline));
+			pstmt.setString(1, desGuideline);
 			try (ResultSet rs = pstmt.executeQuery()) {
 				if (rs.next()) {
-					return rs.getInt("COD_GUIDELINE");
+					final int codGuideline = rs.getInt("COD_GUIDELINE");
+					GUIDELINE_CODES.put(desGuideline, codGuideline);
+					return codGuideline;
 				} else {
 					return 0;
 				}
@@ -196,23 +200,6 @@ public final class AnalisisDatos {
 		}
 	}
 
-	/**
-	 * End analysis success.
-	 *
-	 * @param eval the eval
-	 */
-	public static void endAnalysisSuccess(final Evaluation eval) {
-		try (Connection conn = DataBaseManager.getConnection();
-				final PreparedStatement pstmt = conn.prepareStatement("UPDATE tanalisis SET CHECKS_EJECUTADOS = ?, ESTADO = ? WHERE COD_ANALISIS = ?;")) {
-			pstmt.setString(1, eval.getChecksExecutedStr());
-			pstmt.setInt(2, IntavConstants.STATUS_SUCCESS);
-			pstmt.setLong(3, eval.getIdAnalisis());
-			pstmt.executeUpdate();
-		} catch (Exception e) {
-			Logger.putLog("endAnalysisSuccess: ", AnalisisDatos.class, Logger.LOG_LEVEL_ERROR, e);
-		}
-	}
-
 	/**
 	 * Gets the analisis from id if is not an annexes generation
 	 *
@@ -233,11 +220,8 @@ public final class AnalisisDatos {
 	 */
 	public static Analysis getAnalisisFromId(Connection conn, long id, boolean originAnnexes) {
 		final Analysis analisis = new Analysis();
-		// Decode base 64 cod_fuente
-//		try (PreparedStatement pstmt = conn.prepareStatement(
-//				"SELECT COD_ANALISIS,FEC_ANALISIS,COD_URL,NOM_ENTIDAD,COD_RASTREO,DES_GUIDELINE,CHECKS_EJECUTADOS, FROM_BASE64(COD_FUENTE) as COD_FUENTE FROM tanalisis A INNER JOIN tguidelines G ON A.cod_guideline = G.cod_guideline "
-//						+ "WHERE cod_analisis = ?;")) {
-		String statement = "SELECT COD_ANALISIS, FEC_ANALISIS, COD_URL,NOM_ENTIDAD, COD_RASTREO, DES_GUIDELINE, CHECKS_EJECUTADOS, COD_FUENTE as COD_FUENTE FROM tanalisis A INNER JOIN tguidelines G ON A.cod_guideline = G.cod_guideline WHERE cod_analisis = ?;";
+		// El código fuente está en el almacén de códigos fuente (REF_COD_FUENTE) o, en los análisis antiguos, en Base64 (COD_FUENTE)
+		String statement = "SELECT COD_ANALISIS, FEC_ANALISIS, COD_URL,NOM_ENTIDAD, COD_RASTREO, DES_GUIDELINE, CHECKS_EJECUTADOS, REF_COD_FUENTE, COD_FUENTE FROM tanalisis A INNER JOIN tguidelines G ON A.cod_guideline = G.cod_guideline WHERE cod_analisis = ?;";
 		if (originAnnexes) {
 			statement = "SELECT COD_ANALISIS, FEC_ANALISIS, COD_URL, NOM_ENTIDAD, COD_RASTREO, DES_GUIDELINE, CHECKS_EJECUTADOS FROM tanalisis A INNER JOIN tguidelines G ON A.cod_guideline = G.cod_guideline WHERE cod_analisis = ?;";
 		}
@@ -254,9 +238,7 @@ public final class AnalisisDatos {
 					analisis.setChecksExecutedStr(rs.getString("CHECKS_EJECUTADOS"));
 					String source = "";
 					if (!originAnnexes) {
-						if (rs.getString("COD_FUENTE") != null) {
-							source = new String(Base64.decodeBase64(rs.getString("COD_FUENTE").getBytes()));
-						}
+						source = SourceStore.read(conn, rs.getString("REF_COD_FUENTE"), rs.getString("COD_FUENTE"));
 					}
 					analisis.setSource(source);
 				} else {
@@ -325,6 +307,40 @@ public final class AnalisisDatos {
 		return results;
 	}
 
+	/**
+	 * Obtiene con una sola consulta los datos de todos los análisis terminados de un rastreo que se necesitan para puntuarlos en el observatorio. No se recupera el código fuente de las páginas.
+	 *
+	 * @param conn       the conn
+	 * @param idTracking the id tracking
+	 * @return los análisis ordenados por su identificador
+	 */
+	public static List<Analysis> getObservatoryAnalysisByTracking(final Connection conn, final long idTracking) {
+		final List<Analysis> results = new ArrayList<>();
+		try (PreparedStatement pstmt = conn.prepareStatement(
+				"SELECT COD_ANALISIS, FEC_ANALISIS, COD_URL, NOM_ENTIDAD, COD_RASTREO, DES_GUIDELINE, CHECKS_EJECUTADOS FROM tanalisis A INNER JOIN tguidelines G ON A.cod_guideline = G.cod_guideline "
+						+ "WHERE A.cod_rastreo = ? AND A.checks_ejecutados IS NOT NULL ORDER BY A.cod_analisis",
+				ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+			pstmt.setLong(1, idTracking);
+			pstmt.setFetchSize(STREAMING_FETCH_SIZE);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					final Analysis analisis = new Analysis();
+					analisis.setCode(rs.getInt("COD_ANALISIS"));
+					analisis.setDate(rs.getDate("FEC_ANALISIS"));
+					analisis.setUrl(rs.getString("COD_URL"));
+					analisis.setEntity(rs.getString("NOM_ENTIDAD"));
+					analisis.setTracker(rs.getLong("COD_RASTREO"));
+					analisis.setGuideline(rs.getString("DES_GUIDELINE"));
+					analisis.setChecksExecutedStr(rs.getString("CHECKS_EJECUTADOS"));
+					results.add(analisis);
+				}
+			}
+		} catch (Exception ex) {
+			Logger.putLog(ex.getMessage(), AnalisisDatos.class, Logger.LOG_LEVEL_ERROR, ex);
+		}
+		return results;
+	}
+
 	/**
 	 * Count analysis by tracking.
 	 *
@@ -455,6 +471,32 @@ public final class AnalisisDatos {
 		return evaluationIds;
 	}
 
+	/**
+	 * Escribe el código fuente (en UTF-8) de un análisis sin cargarlo completo en memoria como texto.
+	 *
+	 * @param conn the conn
+	 * @param id   el identificador del análisis
+	 * @param out  donde se escribe el código fuente
+	 * @return true si el análisis tiene código fuente
+	 * @throws SQLException the SQL exception
+	 * @throws IOException  Signals that an I/O exception has occurred.
+	 */
+	public static boolean writeSource(final Connection conn, final long id, final OutputStream out) throws SQLException, IOException {
+		final String hash;
+		final String legacy;
+		try (PreparedStatement pstmt = conn.prepareStatement("SELECT ref_cod_fuente, cod_fuente FROM tanalisis WHERE cod_analisis = ?")) {
+			pstmt.setLong(1, id);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				if (!rs.next()) {
+					return false;
+				}
+				hash = rs.getString(1);
+				legacy = rs.getString(2);
+			}
+		}
+		return SourceStore.copy(SourceStore.open(conn, hash, legacy), out);
+	}
+
 	/**
 	 * Obtiene todos los recursos CSS (CSSDTO) que están asociados a una evaluación, análisis de una página.
 	 *
@@ -464,12 +506,11 @@ public final class AnalisisDatos {
 	public static List<CSSDTO> getCSSResourcesFromEvaluation(final long idCodAnalisis) {
 		final List<CSSDTO> evaluationIds = new ArrayList<>();
 		try (Connection conn = DataBaseManager.getConnection();
-				// Decode codigo BASE64
-				PreparedStatement pstmt = conn.prepareStatement("SELECT url, codigo AS codigo FROM tanalisis_css t WHERE cod_analisis = ?")) {
+				PreparedStatement pstmt = conn.prepareStatement("SELECT id, url, ref_codigo, codigo FROM tanalisis_css t WHERE cod_analisis = ?")) {
 			pstmt.setLong(1, idCodAnalisis);
 			try (ResultSet rs = pstmt.executeQuery()) {
 				while (rs.next()) {
-					evaluationIds.add(new CSSDTO(rs.getString(1), new String(Base64.decodeBase64(rs.getString(2).getBytes()))));
+					evaluationIds.add(new CSSDTO(rs.getLong(1), rs.getString(2), SourceStore.read(conn, rs.getString(3), rs.getString(4))));
 				}
 			}
 		} catch (Exception ex) {
@@ -478,6 +519,54 @@ public final class AnalisisDatos {
 		return evaluationIds;
 	}
 
+	/**
+	 * Obtiene los recursos CSS (CSSDTO) asociados a una evaluación sin su código, que se puede escribir después con {@link #writeCSSResource(Connection, long, OutputStream)}.
+	 *
+	 * @param conn          the conn
+	 * @param idCodAnalisis el identificador de la evaluación.
+	 * @return los recursos CSS, sin código
+	 */
+	public static List<CSSDTO> getCSSReferencesFromEvaluation(final Connection conn, final long idCodAnalisis) {
+		final List<CSSDTO> references = new ArrayList<>();
+		try (PreparedStatement pstmt = conn.prepareStatement("SELECT id, url FROM tanalisis_css t WHERE cod_analisis = ?")) {
+			pstmt.setLong(1, idCodAnalisis);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					references.add(new CSSDTO(rs.getLong(1), rs.getString(2), null));
+				}
+			}
+		} catch (Exception ex) {
+			Logger.putLog(ex.getMessage(), AnalisisDatos.class, Logger.LOG_LEVEL_ERROR, ex);
+		}
+		return references;
+	}
+
+	/**
+	 * Escribe el código (en UTF-8) de un recurso CSS sin cargarlo completo en memoria como texto.
+	 *
+	 * @param conn the conn
+	 * @param id   el identificador del recurso CSS
+	 * @param out  donde se escribe el código
+	 * @return true si el recurso tiene código
+	 * @throws SQLException the SQL exception
+	 * @throws IOException  Signals that an I/O exception has occurred.
+	 */
+	public static boolean writeCSSResource(final Connection conn, final long id, final OutputStream out) throws SQLException, IOException {
+		final String hash;
+		final String legacy;
+		try (PreparedStatement pstmt = conn.prepareStatement("SELECT ref_codigo, codigo FROM tanalisis_css WHERE id = ?")) {
+			pstmt.setLong(1, id);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				if (!rs.next()) {
+					return false;
+				}
+				hash = rs.getString(1);
+				legacy = rs.getString(2);
+			}
+		}
+		return SourceStore.copy(SourceStore.open(conn, hash, legacy), out);
+	}
+
 	/**
 	 * Gets the guideline.
 	 *
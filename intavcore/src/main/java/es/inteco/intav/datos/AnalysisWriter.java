@@ -0,0 +1,346 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.intav.datos;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import es.gob.oaw.css.CSSResource;
+import es.inteco.common.IntavConstants;
+import es.inteco.common.logging.Logger;
+import es.inteco.common.properties.PropertiesManager;
+import es.inteco.intav.comun.Incidencia;
+import es.inteco.intav.persistence.Analysis;
+import es.inteco.plugin.dao.DataBaseManager;
+
+/**
+ * Guardado en segundo plano de los análisis del rastreador.
+ *
+ * Los análisis terminados se encolan y un único hilo los guarda por lotes: cada lote inserta en una misma transacción los análisis, sus hojas de estilo, sus incidencias y los códigos fuente que aún no
+ * estén en el {@link SourceStore}. El tamaño de los lotes se configura con <code>analysis.writer.batch.size</code> y el tiempo que se espera a completar un lote con <code>analysis.writer.linger.ms</code>. Si la cola
+ * (<code>analysis.writer.queue.size</code>) está llena, quien encola espera a que se guarden los análisis pendientes.
+ *
+ * Los análisis encolados no se pueden consultar hasta que se guardan, por lo que antes de leer los análisis de un rastreo hay que llamar a {@link #flush()}. El hilo de guardado no impide que la
+ * JVM termine, por lo que al parar la aplicación hay que llamar a {@link #drain()} para no perder los análisis pendientes. Si el hilo de guardado muere, se arranca otro al encolar o al esperar al
+ * guardado.
+ */
+public final class AnalysisWriter {
+	/** Propiedad con el número máximo de análisis de cada lote. */
+	private static final String BATCH_SIZE_PROPERTY = "analysis.writer.batch.size";
+	/** Propiedad con el número máximo de análisis pendientes de guardar. */
+	private static final String QUEUE_SIZE_PROPERTY = "analysis.writer.queue.size";
+	/** Propiedad con el tiempo (en milisegundos) que se espera a completar un lote. */
+	private static final String LINGER_PROPERTY = "analysis.writer.linger.ms";
+	/** Propiedad con el tiempo máximo (en milisegundos) que se espera al guardado de los análisis pendientes al parar. */
+	private static final String DRAIN_PROPERTY = "analysis.writer.drain.ms";
+	/** Tiempo de espera (en milisegundos) entre comprobaciones del guardado. */
+	private static final long FLUSH_WAIT = 1000;
+	/** Número máximo de análisis de cada lote. */
+	private static final int BATCH_SIZE = Math.max(1, getIntValue(BATCH_SIZE_PROPERTY, 50));
+	/** Tiempo que se espera a completar un lote. */
+	private static final long LINGER = Math.max(0, getIntValue(LINGER_PROPERTY, 500));
+	/** Tiempo máximo que se espera al guardado de los análisis pendientes al parar. */
+	private static final long DRAIN_WAIT = Math.max(0, getIntValue(DRAIN_PROPERTY, 30000));
+	/** Análisis pendientes de guardar. */
+	private static final BlockingQueue<PendingAnalysis> QUEUE = new LinkedBlockingQueue<>(Math.max(1, getIntValue(QUEUE_SIZE_PROPERTY, 200)));
+	/** Bloqueo de las inserciones en la cola, para que el orden de la cola coincida con el del contador. */
+	private static final Object SUBMIT_LOCK = new Object();
+	/** Bloqueo del contador de análisis guardados. */
+	private static final Object WRITTEN_LOCK = new Object();
+	/** Número de guardados en espera. Mientras haya alguno no se espera a completar los lotes. */
+	private static final AtomicInteger FLUSH_REQUESTS = new AtomicInteger();
+	/** Número de análisis encolados. */
+	private static long submitted = 0;
+	/** Número de análisis procesados (guardados o descartados por error). */
+	private static long written = 0;
+	/** Hilo de guardado. */
+	private static Thread writer;
+
+	/**
+	 * Instantiates a new analysis writer.
+	 */
+	private AnalysisWriter() {
+	}
+
+	/**
+	 * Encola un análisis terminado para guardarlo junto con sus hojas de estilo y sus incidencias.
+	 *
+	 * @param analysis     the analysis
+	 * @param cssResources the css resources
+	 * @param incidencias  the incidencias
+	 */
+	public static void submit(final Analysis analysis, final List<CSSResource> cssResources, final List<Incidencia> incidencias) {
+		final PendingAnalysis pending = new PendingAnalysis(analysis, cssResources, incidencias);
+		synchronized (SUBMIT_LOCK) {
+			try {
+				// Mientras la cola esté llena se comprueba que el hilo de guardado sigue vivo, si no nadie la vaciaría
+				do {
+					startWriter();
+				} while (!QUEUE.offer(pending, FLUSH_WAIT, TimeUnit.MILLISECONDS));
+				submitted++;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				Logger.putLog("Interrumpido el guardado del análisis de " + analysis.getUrl(), AnalysisWriter.class, Logger.LOG_LEVEL_ERROR);
+			}
+		}
+	}
+
+	/**
+	 * Espera a que se guarden todos los análisis encolados hasta el momento.
+	 */
+	public static void flush() {
+		try {
+			awaitWritten(getSubmitted(), false, 0);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			Logger.putLog("Interrumpida la espera del guardado de los análisis", AnalysisWriter.class, Logger.LOG_LEVEL_WARNING);
+		}
+	}
+
+	/**
+	 * Espera, como mucho el tiempo configurado en <code>analysis.writer.drain.ms</code>, a que se guarden todos los análisis encolados hasta el momento. A diferencia de {@link #flush()}, la espera
+	 * continúa aunque se interrumpa el hilo (la interrupción se conserva), por lo que sirve al parar la aplicación o al terminar un rastreo interrumpido.
+	 *
+	 * @return true, si se han guardado todos los análisis
+	 */
+	public static boolean drain() {
+		final long target = getSubmitted();
+		boolean interrupted = false;
+		final long deadline = System.currentTimeMillis() + DRAIN_WAIT;
+		try {
+			while (true) {
+				try {
+					final boolean done = awaitWritten(target, true, deadline);
+					if (!done) {
+						Logger.putLog("Quedan análisis sin guardar tras esperar " + DRAIN_WAIT + " milisegundos", AnalysisWriter.class, Logger.LOG_LEVEL_WARNING);
+					}
+					return done;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Obtiene el número de análisis encolados hasta el momento.
+	 *
+	 * @return the submitted
+	 */
+	private static long getSubmitted() {
+		synchronized (SUBMIT_LOCK) {
+			return submitted;
+		}
+	}
+
+	/**
+	 * Espera a que se hayan procesado los análisis indicados. Mientras espera, arranca otro hilo de guardado si el actual ha muerto.
+	 *
+	 * @param target   número de análisis que deben estar procesados
+	 * @param bounded  si la espera está limitada
+	 * @param deadline momento límite de la espera si está limitada
+	 * @return true, si se han procesado los análisis; false si se ha alcanzado el límite
+	 * @throws InterruptedException si se interrumpe la espera
+	 */
+	private static boolean awaitWritten(final long target, final boolean bounded, final long deadline) throws InterruptedException {
+		FLUSH_REQUESTS.incrementAndGet();
+		try {
+			while (true) {
+				synchronized (WRITTEN_LOCK) {
+					if (written >= target) {
+						return true;
+					}
+					final long wait = bounded ? Math.min(FLUSH_WAIT, deadline - System.currentTimeMillis()) : FLUSH_WAIT;
+					if (wait <= 0) {
+						return false;
+					}
+					WRITTEN_LOCK.wait(wait);
+				}
+				startWriter();
+			}
+		} finally {
+			FLUSH_REQUESTS.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Arranca el hilo de guardado si no está arrancado o si ha muerto.
+	 */
+	private static synchronized void startWriter() {
+		if (writer == null || !writer.isAlive()) {
+			if (writer != null) {
+				Logger.putLog("El hilo de guardado de análisis ha terminado, se arranca otro", AnalysisWriter.class, Logger.LOG_LEVEL_WARNING);
+			}
+			writer = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					writeLoop();
+				}
+			}, "AnalysisWriter");
+			writer.setDaemon(true);
+			writer.start();
+		}
+	}
+
+	/**
+	 * Bucle del hilo de guardado. Cualquier error al guardar un lote se registra y se continúa con el siguiente, ya que si el hilo terminase quien encola o espera al guardado se quedaría bloqueado.
+	 */
+	private static void writeLoop() {
+		while (true) {
+			final List<PendingAnalysis> batch = new ArrayList<>(BATCH_SIZE);
+			try {
+				fillBatch(batch);
+				write(batch);
+			} catch (RuntimeException e) {
+				Logger.putLog("Error al guardar los análisis", AnalysisWriter.class, Logger.LOG_LEVEL_ERROR, e);
+			} catch (Error e) {
+				Logger.putLog("Error grave al guardar un lote de " + batch.size() + " análisis, se descartan: " + e, AnalysisWriter.class, Logger.LOG_LEVEL_ERROR);
+			} finally {
+				synchronized (WRITTEN_LOCK) {
+					written += batch.size();
+					WRITTEN_LOCK.notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Saca de la cola los análisis de un lote. Espera a que haya al menos uno y, salvo que alguien esté esperando al guardado, espera un poco a que lleguen más.
+	 *
+	 * @param batch el lote
+	 */
+	private static void fillBatch(final List<PendingAnalysis> batch) {
+		try {
+			batch.add(QUEUE.take());
+			QUEUE.drainTo(batch, BATCH_SIZE - batch.size());
+			// Se espera un poco a que lleguen más análisis, salvo que alguien esté esperando al guardado
+			final long deadline = System.currentTimeMillis() + LINGER;
+			while (batch.size() < BATCH_SIZE && FLUSH_REQUESTS.get() == 0) {
+				final long wait = deadline - System.currentTimeMillis();
+				final PendingAnalysis next = wait > 0 ? QUEUE.poll(wait, TimeUnit.MILLISECONDS) : null;
+				if (next == null) {
+					break;
+				}
+				batch.add(next);
+				QUEUE.drainTo(batch, BATCH_SIZE - batch.size());
+			}
+		} catch (InterruptedException e) {
+			// Se guarda lo que ya se ha sacado de la cola
+			Logger.putLog("Interrumpido el hilo de guardado de análisis", AnalysisWriter.class, Logger.LOG_LEVEL_WARNING);
+		}
+	}
+
+	/**
+	 * Guarda un lote de análisis en una transacción. Si falla, se guarda cada análisis en su propia transacción para no perder el resto del lote.
+	 *
+	 * @param batch the batch
+	 */
+	private static void write(final List<PendingAnalysis> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		final long time = System.currentTimeMillis();
+		try (Connection conn = DataBaseManager.getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				final List<Analysis> analyses = new ArrayList<>(batch.size());
+				for (PendingAnalysis pending : batch) {
+					analyses.add(pending.analysis);
+				}
+				// Los códigos fuente repetidos en el lote (las hojas de estilo comunes del sitio) se guardan una sola vez
+				final Map<String, byte[]> contents = new HashMap<>();
+				AnalisisDatos.insertAnalyses(conn, analyses, contents);
+				final List<Incidencia> incidencias = new ArrayList<>();
+				for (PendingAnalysis pending : batch) {
+					AnalisisDatos.saveCSSResources(conn, pending.analysis.getCode(), pending.cssResources, contents);
+					for (Incidencia incidencia : pending.incidencias) {
+						incidencia.setCodigoAnalisis(pending.analysis.getCode());
+						incidencias.add(incidencia);
+					}
+				}
+				IncidenciaDatos.saveIncidences(conn, incidencias);
+				SourceStore.save(conn, contents);
+				conn.commit();
+				Logger.putLog("Guardados " + batch.size() + " análisis en " + (System.currentTimeMillis() - time) + " milisegundos", AnalysisWriter.class, Logger.LOG_LEVEL_DEBUG);
+			} catch (Exception e) {
+				conn.rollback();
+				if (batch.size() == 1) {
+					Logger.putLog("Error al guardar el análisis de " + batch.get(0).analysis.getUrl(), AnalysisWriter.class, Logger.LOG_LEVEL_ERROR, e);
+				} else {
+					Logger.putLog("Error al guardar un lote de " + batch.size() + " análisis, se guardan por separado", AnalysisWriter.class, Logger.LOG_LEVEL_WARNING, e);
+					for (PendingAnalysis pending : batch) {
+						write(Collections.singletonList(pending));
+					}
+				}
+			} finally {
+				conn.setAutoCommit(true);
+			}
+		} catch (Exception e) {
+			Logger.putLog("Error al guardar los análisis en base de datos", AnalysisWriter.class, Logger.LOG_LEVEL_ERROR, e);
+		}
+	}
+
+	/**
+	 * Obtiene un valor entero de la configuración.
+	 *
+	 * @param key          the key
+	 * @param defaultValue valor por defecto si la propiedad no existe o no es válida
+	 * @return the int value
+	 */
+	private static int getIntValue(final String key, final int defaultValue) {
+		try {
+			final String value = new PropertiesManager().getValue(IntavConstants.INTAV_PROPERTIES, key);
+			return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+		} catch (NumberFormatException e) {
+			Logger.putLog("Valor no válido para la propiedad " + key, AnalysisWriter.class, Logger.LOG_LEVEL_WARNING);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Análisis pendiente de guardar.
+	 */
+	private static final class PendingAnalysis {
+		/** The analysis. */
+		private final Analysis analysis;
+		/** The css resources. */
+		private final List<CSSResource> cssResources;
+		/** The incidencias. */
+		private final List<Incidencia> incidencias;
+
+		/**
+		 * Instantiates a new pending analysis.
+		 *
+		 * @param analysis     the analysis
+		 * @param cssResources the css resources
+		 * @param incidencias  the incidencias
+		 */
+		private PendingAnalysis(final Analysis analysis, final List<CSSResource> cssResources, final List<Incidencia> incidencias) {
+			this.analysis = analysis;
+			this.cssResources = cssResources;
+			this.incidencias = incidencias;
+		}
+	}
+}
@@ -5,6 +5,9 @@ package es.inteco.intav.datos;
  */
 public class CSSDTO {
 
+    /** The id. */
+    private final long id;
+
     /** The url. */
     private final String url;
     
@@ -18,10 +21,31 @@ public class CSSDTO {
 	 * @param codigo the codigo
 	 */
     public CSSDTO(final String url, final String codigo) {
+        this(0, url, codigo);
+    }
+
+    /**
+	 * Instantiates a new cssdto.
+	 *
+	 * @param id     el identificador del recurso en tanalisis_css
+	 * @param url    the url
+	 * @param codigo the codigo
+	 */
+    public CSSDTO(final long id, final String url, final String codigo) {
+        this.id = id;
         this.url = url;
         this.codigo = codigo;
     }
 
+    /**
+	 * Gets the id.
+	 *
+	 * @return the id
+	 */
+    public long getId() {
+        return id;
+    }
+
     /**
 	 * Gets the url.
 	 *
@@ -18,9 +18,12 @@ package es.inteco.intav.datos;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import ca.utoronto.atrc.tile.accessibilitychecker.Evaluator;
 import es.inteco.common.logging.Logger;
@@ -30,6 +33,14 @@ import es.inteco.intav.comun.Incidencia;
  * The Class IncidenciaDatos.
  */
 public final class IncidenciaDatos {
+	/**
+	 * Tamaño de lectura de las consultas de un rastreo completo. MySQL Connector/J solo lee las filas de una en una, en lugar de cargar el resultado entero en memoria, con este valor (o con
+	 * useCursorFetch=true en la URL de conexión). Requiere una consulta de solo lectura y solo avance y no lanzar otras consultas por la misma conexión hasta cerrar el resultado.
+	 */
+	private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+	/** Número máximo de filas de cada sentencia de inserción. */
+	private static final int INSERT_ROWS = 200;
+
 	/**
 	 * Instantiates a new incidencia datos.
 	 */
@@ -37,28 +48,34 @@ public final class IncidenciaDatos {
 	}
 
 	/**
-	 * Save incidence list.
+	 * Guarda las incidencias de uno o varios análisis. Cada incidencia debe llevar el código de su análisis. Las incidencias se insertan en sentencias de varias filas.
 	 *
-	 * @param conn          the conn
-	 * @param idAnalisis    the id analisis
-	 * @param incidenceList the incidence list
+	 * @param conn        the conn
+	 * @param incidencias the incidencias
+	 * @throws SQLException the SQL exception
 	 */
-	public static void saveIncidenceList(final Connection conn, int idAnalisis, final List<Incidencia> incidenceList) {
-		long time = System.currentTimeMillis();
-		try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO tincidencia (COD_COMPROBACION, COD_ANALISIS, COD_LINEA_FUENTE, COD_COLUMNA_FUENTE, DES_FUENTE) VALUES (?, ?, ?, ?, ?)")) {
-			for (Incidencia incidencia : incidenceList) {
-				pstmt.setInt(1, incidencia.getCodigoComprobacion());
-				pstmt.setLong(2, idAnalisis);
-				pstmt.setInt(3, incidencia.getCodigoLineaFuente());
-				pstmt.setInt(4, incidencia.getCodigoColumnaFuente());
-				pstmt.setString(5, incidencia.getCodigoFuente());
-				pstmt.addBatch();
+	static void saveIncidences(final Connection conn, final List<Incidencia> incidencias) throws SQLException {
+		final long time = System.currentTimeMillis();
+		for (int from = 0; from < incidencias.size(); from += INSERT_ROWS) {
+			final List<Incidencia> rows = incidencias.subList(from, Math.min(incidencias.size(), from + INSERT_ROWS));
+			final StringBuilder sql = new StringBuilder("INSERT INTO tincidencia (COD_COMPROBACION, COD_ANALISIS, COD_LINEA_FUENTE, COD_COLUMNA_FUENTE, DES_FUENTE) VALUES ");
+			for (int i = 0; i < rows.size(); i++) {
+				sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+			}
+			try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+				int index = 1;
+				for (Incidencia incidencia : rows) {
+					pstmt.setInt(index++, incidencia.getCodigoComprobacion());
+					pstmt.setLong(index++, incidencia.getCodigoAnalisis());
+					pstmt.setInt(index++, incidencia.getCodigoLineaFuente());
+					pstmt.setInt(index++, incidencia.getCodigoColumnaFuente());
+					pstmt.setString(index++, incidencia.getCodigoFuente());
+				}
+				pstmt.executeUpdate();
 			}
-			pstmt.executeBatch();
-			Logger.putLog("Tiempo de guardado de incidencias en base de datos: " + (System.currentTimeMillis() - time) + " milisegundos", Evaluator.class, Logger.LOG_LEVEL_INFO);
-		} catch (Exception ex) {
-			Logger.putLog("Exception: ", IncidenciaDatos.class, Logger.LOG_LEVEL_ERROR, ex);
 		}
+		Logger.putLog("Tiempo de guardado de " + incidencias.size() + " incidencias en base de datos: " + (System.currentTimeMillis() - time) + " milisegundos", Evaluator.class,
+				Logger.LOG_LEVEL_INFO);
 	}
 
 	/**
@@ -218,4 +235,38 @@ public final class IncidenciaDatos {
 			return Collections.emptyList();
 		}
 	}
+
+	/**
+	 * Obtiene con una sola consulta las verificaciones que han fallado en cada uno de los análisis terminados de un rastreo.
+	 *
+	 * @param conn       the conn
+	 * @param idTracking the id tracking
+	 * @return las incidencias agrupadas por el identificador del análisis
+	 */
+	public static Map<Long, List<Incidencia>> getObservatoryIncidenciasByTracking(final Connection conn, final long idTracking) {
+		final Map<Long, List<Incidencia>> incidencias = new HashMap<>();
+		try (PreparedStatement pstmt = conn.prepareStatement("SELECT I.COD_ANALISIS, I.COD_COMPROBACION, I.COD_INCIDENCIA FROM tincidencia I INNER JOIN tanalisis A ON I.cod_analisis = A.cod_analisis "
+				+ "WHERE A.cod_rastreo = ? AND A.checks_ejecutados IS NOT NULL ORDER BY I.cod_analisis, I.cod_incidencia", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+			pstmt.setLong(1, idTracking);
+			pstmt.setFetchSize(STREAMING_FETCH_SIZE);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					final Incidencia incidencia = new Incidencia();
+					incidencia.setCodigoAnalisis(rs.getInt("COD_ANALISIS"));
+					incidencia.setCodigoComprobacion(rs.getInt("COD_COMPROBACION"));
+					incidencia.setCodigoIncidencia(rs.getInt("COD_INCIDENCIA"));
+					List<Incidencia> incidenciasAnalisis = incidencias.get(rs.getLong("COD_ANALISIS"));
+					if (incidenciasAnalisis == null) {
+						incidenciasAnalisis = new ArrayList<>();
+						incidencias.put(rs.getLong("COD_ANALISIS"), incidenciasAnalisis);
+					}
+					incidenciasAnalisis.add(incidencia);
+				}
+			}
+		} catch (Exception ex) {
+			Logger.putLog(ex.getMessage(), IncidenciaDatos.class, Logger.LOG_LEVEL_ERROR, ex);
+			return Collections.emptyMap();
+		}
+		return incidencias;
+	}
 }
@@ -0,0 +1,267 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.intav.datos;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.codec.binary.Base64;
+
+import es.inteco.common.utils.HashUtils;
+import es.inteco.common.utils.StringUtils;
+
+/**
+ * Almacén de códigos fuente (HTML y CSS) de los análisis.
+ *
+ * Cada contenido distinto se guarda una sola vez en la tabla <code>tfuente</code>, comprimido y con el SHA-256 de su contenido en UTF-8 como clave. Los análisis (<code>tanalisis.ref_cod_fuente</code>)
+ * y sus hojas de estilo (<code>tanalisis_css.ref_codigo</code>) guardan solo la clave, de modo que las hojas de estilo que comparten todas las páginas de un sitio se guardan una única vez.
+ *
+ * El contenido se comprime con el mismo formato que la función <code>COMPRESS()</code> de MySQL (longitud sin comprimir en 4 bytes little-endian seguida del flujo zlib), lo que permite migrar los
+ * códigos fuente antiguos, guardados en Base64, solo con SQL y consultarlos con <code>UNCOMPRESS()</code>.
+ */
+public final class SourceStore {
+	/** Número de claves que se comprueban en cada consulta. */
+	private static final int QUERY_SIZE = 100;
+	/** Tamaño del buffer de copia. */
+	private static final int BUFFER_SIZE = 8192;
+	/** Longitud de la cabecera con el tamaño del contenido sin comprimir. */
+	private static final int HEADER_LENGTH = 4;
+
+	/**
+	 * Instantiates a new source store.
+	 */
+	private SourceStore() {
+	}
+
+	/**
+	 * Añade un contenido a los pendientes de guardar y devuelve su clave. Los contenidos repetidos se añaden una sola vez.
+	 *
+	 * @param content  el contenido
+	 * @param contents contenidos pendientes de guardar, por clave
+	 * @return la clave del contenido o null si está vacío
+	 */
+	static String add(final String content, final Map<String, byte[]> contents) {
+		if (StringUtils.isEmpty(content)) {
+			return null;
+		}
+		final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		final String hash = hash(bytes);
+		if (!contents.containsKey(hash)) {
+			contents.put(hash, bytes);
+		}
+		return hash;
+	}
+
+	/**
+	 * Guarda los contenidos pendientes que no estén ya guardados. Los contenidos que ya existen quedan bloqueados hasta el final de la transacción para que no se eliminen mientras se referencian.
+	 *
+	 * @param connection la conexión, sin autocommit
+	 * @param contents   contenidos pendientes de guardar, por clave
+	 * @throws SQLException the SQL exception
+	 */
+	static void save(final Connection connection, final Map<String, byte[]> contents) throws SQLException {
+		if (contents.isEmpty()) {
+			return;
+		}
+		final Set<String> stored = getStoredHashes(connection, contents.keySet());
+		try (PreparedStatement pstmt = connection.prepareStatement("INSERT IGNORE INTO tfuente (hash, longitud, contenido) VALUES (?, ?, ?)")) {
+			boolean pending = false;
+			for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+				if (!stored.contains(entry.getKey())) {
+					pstmt.setString(1, entry.getKey());
+					pstmt.setLong(2, entry.getValue().length);
+					pstmt.setBytes(3, compress(entry.getValue()));
+					pstmt.addBatch();
+					pending = true;
+				}
+			}
+			if (pending) {
+				pstmt.executeBatch();
+			}
+		}
+	}
+
+	/**
+	 * Obtiene las claves que ya están guardadas.
+	 *
+	 * @param connection the connection
+	 * @param hashes     las claves a comprobar
+	 * @return las claves guardadas
+	 * @throws SQLException the SQL exception
+	 */
+	private static Set<String> getStoredHashes(final Connection connection, final Set<String> hashes) throws SQLException {
+		final Set<String> stored = new HashSet<>();
+		final List<String> list = new ArrayList<>(hashes);
+		for (int from = 0; from < list.size(); from += QUERY_SIZE) {
+			final List<String> chunk = list.subList(from, Math.min(list.size(), from + QUERY_SIZE));
+			final StringBuilder query = new StringBuilder("SELECT hash FROM tfuente WHERE hash IN (");
+			for (int i = 0; i < chunk.size(); i++) {
+				query.append(i == 0 ? "?" : ", ?");
+			}
+			query.append(") LOCK IN SHARE MODE");
+			try (PreparedStatement pstmt = connection.prepareStatement(query.toString())) {
+				for (int i = 0; i < chunk.size(); i++) {
+					pstmt.setString(i + 1, chunk.get(i));
+				}
+				try (ResultSet rs = pstmt.executeQuery()) {
+					while (rs.next()) {
+						stored.add(rs.getString(1));
+					}
+				}
+			}
+		}
+		return stored;
+	}
+
+	/**
+	 * Elimina los contenidos que ya no referencia ningún análisis ni ninguna hoja de estilo.
+	 *
+	 * @param connection the connection
+	 * @return el número de contenidos eliminados
+	 * @throws SQLException the SQL exception
+	 */
+	public static int deleteUnreferenced(final Connection connection) throws SQLException {
+		try (PreparedStatement pstmt = connection.prepareStatement("DELETE FROM tfuente WHERE NOT EXISTS (SELECT 1 FROM tanalisis a WHERE a.ref_cod_fuente = tfuente.hash) "
+				+ "AND NOT EXISTS (SELECT 1 FROM tanalisis_css c WHERE c.ref_codigo = tfuente.hash)")) {
+			return pstmt.executeUpdate();
+		}
+	}
+
+	/**
+	 * Abre para su lectura un código fuente. Si el análisis tiene una referencia al almacén se lee de él y, si no, se decodifica el código fuente antiguo en Base64.
+	 *
+	 * @param connection la conexión, que debe seguir abierta mientras se lee
+	 * @param hash       la clave del contenido o null
+	 * @param legacy     el contenido antiguo en Base64 o null
+	 * @return el contenido en UTF-8 o null si no hay contenido
+	 * @throws SQLException the SQL exception
+	 */
+	static InputStream open(final Connection connection, final String hash, final String legacy) throws SQLException {
+		if (hash != null) {
+			try (PreparedStatement pstmt = connection.prepareStatement("SELECT contenido FROM tfuente WHERE hash = ?")) {
+				pstmt.setString(1, hash);
+				try (ResultSet rs = pstmt.executeQuery()) {
+					return rs.next() ? uncompress(rs.getBytes(1)) : null;
+				}
+			}
+		} else if (!StringUtils.isEmpty(legacy)) {
+			return new ByteArrayInputStream(Base64.decodeBase64(legacy.getBytes(StandardCharsets.US_ASCII)));
+		}
+		return null;
+	}
+
+	/**
+	 * Lee completo un código fuente.
+	 *
+	 * @param connection the connection
+	 * @param hash       la clave del contenido o null
+	 * @param legacy     el contenido antiguo en Base64 o null
+	 * @return el contenido o una cadena vacía si no hay contenido
+	 * @throws SQLException the SQL exception
+	 * @throws IOException  Signals that an I/O exception has occurred.
+	 */
+	static String read(final Connection connection, final String hash, final String legacy) throws SQLException, IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		copy(open(connection, hash, legacy), out);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Copia un contenido abierto con {@link #open(Connection, String, String)} y lo cierra.
+	 *
+	 * @param in  el contenido o null
+	 * @param out the out
+	 * @return true si había contenido
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static boolean copy(final InputStream in, final OutputStream out) throws IOException {
+		if (in == null) {
+			return false;
+		}
+		try (InputStream input = in) {
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Calcula la clave de un contenido.
+	 *
+	 * @param bytes the bytes
+	 * @return el SHA-256 en hexadecimal
+	 */
+	static String hash(final byte[] bytes) {
+		return HashUtils.sha256Hex(bytes);
+	}
+
+	/**
+	 * Comprime un contenido con el formato de <code>COMPRESS()</code> de MySQL.
+	 *
+	 * @param bytes the bytes
+	 * @return el contenido comprimido
+	 */
+	static byte[] compress(final byte[] bytes) {
+		if (bytes.length == 0) {
+			return bytes;
+		}
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + HEADER_LENGTH);
+		final int length = bytes.length & 0x3FFFFFFF;
+		out.write(length);
+		out.write(length >>> 8);
+		out.write(length >>> 16);
+		out.write(length >>> 24);
+		final Deflater deflater = new Deflater();
+		try (DeflaterOutputStream deflaterStream = new DeflaterOutputStream(out, deflater)) {
+			deflaterStream.write(bytes);
+		} catch (IOException e) {
+			// No se produce al escribir en memoria
+			throw new IllegalStateException(e);
+		} finally {
+			deflater.end();
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Abre un contenido comprimido con el formato de <code>COMPRESS()</code> de MySQL.
+	 *
+	 * @param compressed el contenido comprimido
+	 * @return el contenido sin comprimir
+	 */
+	static InputStream uncompress(final byte[] compressed) {
+		if (compressed == null || compressed.length <= HEADER_LENGTH) {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+		return new InflaterInputStream(new ByteArrayInputStream(compressed, HEADER_LENGTH, compressed.length - HEADER_LENGTH));
+	}
+}
@@ -13,86 +13,113 @@
 * Modificaciones: MINHAFP (Ministerio de Hacienda y Función Pública) 
 * Email: observ.accesibilidad@correo.gob.es
 ******************************************************************************/
-package es.inteco.intav.form;
-
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
-
+package es.inteco.intav.form;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * The Class CheckedLinks.
+ *
+ * Resultados de la verificación de enlaces. Los enlaces rotos y disponibles se comparten entre todas las páginas de un rastreo, mientras que los enlaces ya evaluados son propios de cada
+ * página (ver {@link #forPage(CheckedLinks)}). Los conjuntos admiten accesos concurrentes.
  */
-public class CheckedLinks implements Serializable {
-
+public class CheckedLinks implements Serializable {
+
     /** The checked links. */
-    private List<String> checkedLinks;
+    private Set<String> checkedLinks;
     
     /** The broken links. */
-    private List<String> brokenLinks;
+    private Set<String> brokenLinks;
     
     /** The availablelinks. */
-    private List<String> availablelinks;
-
+    private Set<String> availablelinks;
+
     /**
 	 * Instantiates a new checked links.
 	 */
-    public CheckedLinks() {
-        brokenLinks = new ArrayList<>();
-        availablelinks = new ArrayList<>();
-        checkedLinks = new ArrayList<>();
-    }
-
+    public CheckedLinks() {
+        brokenLinks = newConcurrentSet();
+        availablelinks = newConcurrentSet();
+        checkedLinks = newConcurrentSet();
+    }
+
+    /**
+	 * Crea los resultados de una página a partir de los de su rastreo. La página comparte los enlaces rotos y disponibles del rastreo, pero lleva su propio conjunto de enlaces ya evaluados, de
+	 * modo que vaciarlo al evaluar una página no afecta a las demás páginas que se están evaluando a la vez.
+	 *
+	 * @param crawlResults los resultados del rastreo
+	 * @return los resultados de la página
+	 */
+    public static CheckedLinks forPage(final CheckedLinks crawlResults) {
+        final CheckedLinks pageResults = new CheckedLinks();
+        pageResults.brokenLinks = crawlResults.brokenLinks;
+        pageResults.availablelinks = crawlResults.availablelinks;
+        return pageResults;
+    }
+
     /**
 	 * Gets the broken links.
 	 *
 	 * @return the broken links
 	 */
-    public List<String> getBrokenLinks() {
-        return brokenLinks;
-    }
-
+    public Set<String> getBrokenLinks() {
+        return brokenLinks;
+    }
+
     /**
 	 * Sets the broken links.
 	 *
 	 * @param brokenLinks the new broken links
 	 */
-    public void setBrokenLinks(List<String> brokenLinks) {
-        this.brokenLinks = brokenLinks;
-    }
-
+    public void setBrokenLinks(Set<String> brokenLinks) {
+        this.brokenLinks = brokenLinks;
+    }
+
     /**
 	 * Gets the availablelinks.
 	 *
 	 * @return the availablelinks
 	 */
-    public List<String> getAvailablelinks() {
-        return availablelinks;
-    }
-
+    public Set<String> getAvailablelinks() {
+        return availablelinks;
+    }
+
     /**
 	 * Sets the availablelinks.
 	 *
 	 * @param availablelinks the new availablelinks
 	 */
-    public void setAvailablelinks(List<String> availablelinks) {
-        this.availablelinks = availablelinks;
-    }
-
+    public void setAvailablelinks(Set<String> availablelinks) {
+        this.availablelinks = availablelinks;
+    }
+
     /**
 	 * Gets the checked links.
 	 *
 	 * @return the checked links
 	 */
-    public List<String> getCheckedLinks() {
-        return checkedLinks;
-    }
-
+    public Set<String> getCheckedLinks() {
+        return checkedLinks;
+    }
+
     /**
 	 * Sets the checked links.
 	 *
 	 * @param checkedLinks the new checked links
 	 */
-    public void setCheckedLinks(List<String> checkedLinks) {
-        this.checkedLinks = checkedLinks;
-    }
-}
+    public void setCheckedLinks(Set<String> checkedLinks) {
+        this.checkedLinks = checkedLinks;
+    }
+
+    /**
+	 * Crea un conjunto que admite accesos concurrentes.
+	 *
+	 * @return el conjunto
+	 */
+    private static Set<String> newConcurrentSet() {
+        return Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
+}
@@ -15,18 +15,29 @@
 ******************************************************************************/
 package es.inteco.intav.utils;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import com.opensymphony.oscache.base.EntryRefreshPolicy;
 import com.opensymphony.oscache.base.NeedsRefreshException;
 import com.opensymphony.oscache.general.GeneralCacheAdministrator;
 import com.opensymphony.oscache.web.filter.ExpiresRefreshPolicy;
 import es.inteco.common.IntavConstants;
+import es.inteco.common.logging.Logger;
 import es.inteco.common.properties.PropertiesManager;
+import es.inteco.intav.form.ObservatoryEvaluationForm;
 
 /**
  * The Class CacheUtils.
  */
 public final class CacheUtils {
     
+    /** Directorio de la caché con las instantáneas de resultados del observatorio. */
+    private static final String SNAPSHOTS_DIRECTORY = "snapshots";
+
     /** The gca. */
     private static GeneralCacheAdministrator gca = null;
 
@@ -98,6 +109,7 @@ public final class CacheUtils {
 	 */
     public static void removeFromCache(String cacheKey) {
         getCacheAdministratorInstance().removeEntry(cacheKey);
+        deleteSnapshot(getSnapshotFile(cacheKey));
     }
 
     /**
@@ -109,4 +121,129 @@ public final class CacheUtils {
         getCacheAdministratorInstance().cancelUpdate(cacheKey);
     }
 
+    /**
+	 * Obtiene los resultados de una ejecución del observatorio. Se leen de la instantánea binaria de la ejecución si existe y, si no, de la caché. Los resultados que se encuentran en la caché
+	 * (guardados antes de usar instantáneas) se pasan a una instantánea para las siguientes lecturas.
+	 *
+	 * @param cacheKey the cache key
+	 * @return the observatory results
+	 * @throws NeedsRefreshException si los resultados no están guardados
+	 */
+    @SuppressWarnings("unchecked")
+    public static List<ObservatoryEvaluationForm> getObservatoryResults(String cacheKey) throws NeedsRefreshException {
+        final File snapshotFile = getSnapshotFile(cacheKey);
+        if (snapshotFile != null && snapshotFile.isFile()) {
+            try {
+                return ObservatorySnapshot.open(snapshotFile);
+            } catch (IOException e) {
+                Logger.putLog("No se ha podido leer la instantánea " + snapshotFile, CacheUtils.class, Logger.LOG_LEVEL_WARNING, e);
+            }
+        }
+        final List<ObservatoryEvaluationForm> results = (List<ObservatoryEvaluationForm>) getFromCache(cacheKey);
+        if (writeSnapshot(snapshotFile, results)) {
+            getCacheAdministratorInstance().removeEntry(cacheKey);
+        }
+        return results;
+    }
+
+    /**
+	 * Guarda los resultados de una ejecución del observatorio en una instantánea binaria. Si los resultados no se pueden guardar en una instantánea se guardan en la caché.
+	 *
+	 * @param results  the results
+	 * @param cacheKey the cache key
+	 */
+    public static void putObservatoryResults(List<ObservatoryEvaluationForm> results, String cacheKey) {
+        final File snapshotFile = getSnapshotFile(cacheKey);
+        if (writeSnapshot(snapshotFile, results)) {
+            getCacheAdministratorInstance().removeEntry(cacheKey);
+        } else {
+            deleteSnapshot(snapshotFile);
+            putInCacheForever(results, cacheKey);
+        }
+    }
+
+    /**
+	 * Indica si hay una instantánea guardada para una clave. No lee la instantánea ni la caché.
+	 *
+	 * @param cacheKey the cache key
+	 * @return true, si existe la instantánea
+	 */
+    public static boolean hasObservatorySnapshot(String cacheKey) {
+        final File snapshotFile = getSnapshotFile(cacheKey);
+        return snapshotFile != null && snapshotFile.isFile();
+    }
+
+    /**
+	 * Borra las instantáneas con más antigüedad que el periodo de refresco de la caché (cache.refresh.days), incluidas las de ejecuciones ya borradas y los ficheros temporales de escrituras
+	 * interrumpidas. Los resultados de una instantánea borrada se vuelven a calcular la siguiente vez que se piden.
+	 *
+	 * @return el número de ficheros borrados
+	 */
+    public static int deleteExpiredSnapshots() {
+        final PropertiesManager pmgr = new PropertiesManager();
+        final String cachePath = pmgr.getValue(IntavConstants.CACHEINTAV_PROPERTIES, "cache.path");
+        final File[] files = cachePath != null ? new File(cachePath, SNAPSHOTS_DIRECTORY).listFiles() : null;
+        if (files == null) {
+            return 0;
+        }
+        final long limit = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(Integer.parseInt(pmgr.getValue(IntavConstants.CACHEINTAV_PROPERTIES, "cache.refresh.days")));
+        int deleted = 0;
+        for (File file : files) {
+            if (file.isFile() && file.lastModified() < limit) {
+                deleteSnapshot(file);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+	 * Obtiene el fichero de la instantánea de una clave.
+	 *
+	 * @param cacheKey the cache key
+	 * @return el fichero o null si no está configurado el directorio de la caché
+	 */
+    private static File getSnapshotFile(String cacheKey) {
+        final String cachePath = new PropertiesManager().getValue(IntavConstants.CACHEINTAV_PROPERTIES, "cache.path");
+        if (cachePath == null) {
+            return null;
+        }
+        return new File(new File(cachePath, SNAPSHOTS_DIRECTORY), cacheKey.replaceAll("[^A-Za-z0-9_.-]", "_") + ".snapshot");
+    }
+
+    /**
+	 * Escribe una instantánea.
+	 *
+	 * @param snapshotFile the snapshot file
+	 * @param results      the results
+	 * @return true, si se ha escrito la instantánea
+	 */
+    private static boolean writeSnapshot(File snapshotFile, List<ObservatoryEvaluationForm> results) {
+        if (snapshotFile == null || results == null) {
+            return false;
+        }
+        try {
+            Files.createDirectories(snapshotFile.getParentFile().toPath());
+            return ObservatorySnapshot.write(snapshotFile, results);
+        } catch (IOException e) {
+            Logger.putLog("No se ha podido escribir la instantánea " + snapshotFile, CacheUtils.class, Logger.LOG_LEVEL_WARNING, e);
+            return false;
+        }
+    }
+
+    /**
+	 * Borra una instantánea.
+	 *
+	 * @param snapshotFile the snapshot file
+	 */
+    private static void deleteSnapshot(File snapshotFile) {
+        if (snapshotFile != null) {
+            try {
+                Files.deleteIfExists(snapshotFile.toPath());
+            } catch (IOException e) {
+                Logger.putLog("No se ha podido borrar la instantánea " + snapshotFile, CacheUtils.class, Logger.LOG_LEVEL_WARNING, e);
+            }
+        }
+    }
+
 }
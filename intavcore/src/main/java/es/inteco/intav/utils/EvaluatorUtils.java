@@ -33,6 +33,7 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -42,10 +43,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -72,12 +70,13 @@ import ca.utoronto.atrc.tile.accessibilitychecker.EvaluatorUtility;
 import ca.utoronto.atrc.tile.accessibilitychecker.Guideline;
 import ca.utoronto.atrc.tile.accessibilitychecker.GuidelineGroup;
 import ca.utoronto.atrc.tile.accessibilitychecker.Problem;
+import es.gob.oaw.http.HttpClientProvider;
+import es.gob.oaw.http.ProxySettingsCache;
 import es.inteco.common.CheckAccessibility;
 import es.inteco.common.IntavConstants;
 import es.inteco.common.logging.Logger;
 import es.inteco.common.properties.PropertiesManager;
 import es.inteco.common.utils.StringUtils;
-import es.inteco.intav.dao.ProxyDAO;
 import es.inteco.intav.datos.AnalisisDatos;
 import es.inteco.intav.form.AnalysisForm;
 import es.inteco.intav.form.AspectScoreForm;
@@ -438,21 +437,19 @@ public final class EvaluatorUtils {
 	 * @return the string
 	 */
 	public static String serializeXmlElement(Element element, boolean includeChildren) {
-		DOMImplementationLS domImplementationLS = (DOMImplementationLS) element.getOwnerDocument().getImplementation();
-		LSSerializer lsSerializer = domImplementationLS.createLSSerializer();
-		if (element.getNodeType() != Node.DOCUMENT_NODE) {
-			lsSerializer.getDomConfig().setParameter("well-formed", false);
-			lsSerializer.getDomConfig().setParameter("xml-declaration", false);
-		}
 		try {
-			PropertiesManager pmgr = new PropertiesManager();
-			int maxNumElements = Integer.parseInt(pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "max.num.descendants.to.serialize"));
-			int numDescendants = generateNodeList(element, new ArrayList<Node>(), maxNumElements).size();
-			if (includeChildren && numDescendants <= maxNumElements) {
-				return lsSerializer.writeToString(element);
-			} else {
-				return serializeOnlyElement(element);
+			if (includeChildren) {
+				PropertiesManager pmgr = new PropertiesManager();
+				int maxNumElements = Integer.parseInt(pmgr.getValue(IntavConstants.INTAV_PROPERTIES, "max.num.descendants.to.serialize"));
+				if (countElements(element, maxNumElements) <= maxNumElements) {
+					DOMImplementationLS domImplementationLS = (DOMImplementationLS) element.getOwnerDocument().getImplementation();
+					LSSerializer lsSerializer = domImplementationLS.createLSSerializer();
+					lsSerializer.getDomConfig().setParameter("well-formed", false);
+					lsSerializer.getDomConfig().setParameter("xml-declaration", false);
+					return lsSerializer.writeToString(element);
+				}
 			}
+			return serializeOnlyElement(element);
 		} catch (Exception e) {
 			Logger.putLog("Error al serializar el elemento " + element.getNodeName(), EvaluatorUtils.class, Logger.LOG_LEVEL_INFO);
 			return element.getNodeName();
@@ -482,6 +479,23 @@ public final class EvaluatorUtils {
 		return nodeList;
 	}
 
+	/**
+	 * Cuenta los elementos de un subárbol, incluido el nodo raíz si es un elemento, sin pasar del límite indicado.
+	 *
+	 * @param node           el nodo raíz
+	 * @param maxNumElements el límite
+	 * @return el número de elementos o un valor mayor que el límite si se supera
+	 */
+	private static int countElements(final Node node, final int maxNumElements) {
+		int count = node.getNodeType() == Node.ELEMENT_NODE ? 1 : 0;
+		for (Node child = node.getFirstChild(); child != null && count <= maxNumElements; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				count += countElements(child, maxNumElements - count);
+			}
+		}
+		return count;
+	}
+
 	/**
 	 * Serialize only element.
 	 *
@@ -615,9 +629,9 @@ public final class EvaluatorUtils {
 			// Si idRastreo es -1 viene del WS se guarda el análisis sin rastreo
 			// asociado
 			if (checkAccessibility.getIdRastreo() != 0) {
-				// Venimos del rastreador así que hay que salvar los resultados
+				// Venimos del rastreador, los resultados ya se han encolado
+				// para guardarlos en base de datos (AnalysisWriter)
 				evaluation.settevaluation(System.currentTimeMillis() - inicio);
-				AnalisisDatos.endAnalysisSuccess(evaluation);
 			}
 		} catch (Exception e) {
 			Logger.putLog("Se va a guardar el registro de error de la página " + checkAccessibility.getUrl(), EvaluatorUtils.class, Logger.LOG_LEVEL_ERROR, e);
@@ -850,13 +864,15 @@ public final class EvaluatorUtils {
 	 * @return the observatory evaluation form
 	 */
 	public static ObservatoryEvaluationForm generateObservatoryEvaluationForm(Evaluation evaluation, String methodology, boolean isDebugMode, boolean pointWarning) {
-		Guideline guideline;
+		// La metodología se compila una sola vez y se reutiliza para todas las evaluaciones que se puntúan con ella
+		final ObservatoryScoringModel scoringModel;
 		if (StringUtils.isEmpty(methodology)) {
-			guideline = EvaluatorUtility.loadGuideline(evaluation.getGuidelines().get(0));
+			scoringModel = ObservatoryScoringModel.forGuideline(evaluation.getGuidelines().get(0), EvaluatorUtility.loadGuideline(evaluation.getGuidelines().get(0)));
 		} else {
-			guideline = new Guideline();
-			guideline = guideline.initialize(methodology);
+			scoringModel = ObservatoryScoringModel.forMethodology(methodology);
 		}
+		final BitSet executedChecks = ObservatoryScoringModel.getExecutedChecks(evaluation);
+		final BitSet failedChecks = ObservatoryScoringModel.getFailedChecks(evaluation);
 		final ObservatoryEvaluationForm evaluationForm = new ObservatoryEvaluationForm();
 		evaluationForm.setEntity(evaluation.getEntidad());
 		evaluationForm.setUrl(evaluation.getFilename());
@@ -867,30 +883,30 @@ public final class EvaluatorUtils {
 		// cartucho y otros datos más adelante
 		evaluationForm.setIdAnalysis(evaluation.getIdAnalisis());
 		final Map<String, List<Float>> aspects = initializeAspects();
-		for (int i = 0; i < guideline.getGroups().size(); i++) {
-			final GuidelineGroup levelGroup = guideline.getGroups().get(i);
+		for (ObservatoryScoringModel.LevelGroup level : scoringModel.getLevels()) {
+			final GuidelineGroup levelGroup = level.getGroup();
 			final ObservatoryLevelForm observatoryLevelForm = new ObservatoryLevelForm();
 			observatoryLevelForm.setName(levelGroup.getName());
-			for (int j = 0; j < levelGroup.getGroupsVector().size(); j++) {
-				final GuidelineGroup suitabilityGroup = levelGroup.getGroupsVector().get(j);
+			for (ObservatoryScoringModel.SuitabilityGroup suitability : level.getSuitabilityGroups()) {
+				final GuidelineGroup suitabilityGroup = suitability.getGroup();
 				final ObservatorySuitabilityForm observatorySuitabilityForm = new ObservatorySuitabilityForm();
 				observatorySuitabilityForm.setName(suitabilityGroup.getName());
-				for (int k = 0; k < suitabilityGroup.getGroupsVector().size(); k++) {
-					final GuidelineGroup subgroup = suitabilityGroup.getGroupsVector().get(k);
+				for (ObservatoryScoringModel.Subgroup compiledSubgroup : suitability.getSubgroups()) {
+					final GuidelineGroup subgroup = compiledSubgroup.getGroup();
 					final ObservatorySubgroupForm observatorySubgroupForm = new ObservatorySubgroupForm();
 					observatorySubgroupForm.setDescription(subgroup.getName());
 					observatorySubgroupForm.setAspect(subgroup.getAspect());
 					boolean hasProblem = false;
 					boolean hasWarning = false;
 					boolean executedSubgroup = false;
-					for (int l = 0; l < subgroup.getChecksVector().size(); l++) {
-						final Integer check = subgroup.getChecksVector().get(l);
-						if (evaluation.getChecksExecuted().contains(check)) {
-							if (!subgroup.getNoExecutedMarkChecks().contains(check)) {
+					for (int l = 0; l < compiledSubgroup.getNumChecks(); l++) {
+						final int check = compiledSubgroup.getCheck(l);
+						if (ObservatoryScoringModel.contains(executedChecks, check)) {
+							if (compiledSubgroup.marksExecuted(check)) {
 								executedSubgroup = true;
 							}
-							if (evaluation.failsCheck(check)) {
-								if (subgroup.getOnlyWarningChecks().contains(check)) {
+							if (ObservatoryScoringModel.contains(failedChecks, check)) {
+								if (compiledSubgroup.isOnlyWarning(check)) {
 									hasWarning = true;
 									observatorySubgroupForm.getOnlyWarningChecks().add(check);
 								} else {
@@ -1279,18 +1295,6 @@ public final class EvaluatorUtils {
 	 * @throws ProtocolException     the protocol exception
 	 */
 	private static HttpURLConnection generateConnection(final String url, final String method) throws IOException, MalformedURLException, ProtocolException {
-		String proxyActive = "";
-		String proxyHttpHost = "";
-		String proxyHttpPort = "";
-		try (Connection c = DataBaseManager.getConnection()) {
-			ProxyForm proxy = ProxyDAO.getProxy(c);
-			proxyActive = proxy.getStatus() > 0 ? "true" : "false";
-			proxyHttpHost = proxy.getUrl();
-			proxyHttpPort = proxy.getPort();
-			DataBaseManager.closeConnection(c);
-		} catch (Exception e) {
-			Logger.putLog("Error: ", EvaluatorUtils.class, Logger.LOG_LEVEL_ERROR, e);
-		}
 		HttpURLConnection connection = null;
 		// Aplicar el proxy menos a la URL del servicio de diagnótico ya que este
 		// método también es usado por al JSP de conexión
@@ -1324,12 +1328,11 @@ public final class EvaluatorUtils {
 		String proxyActive = "";
 		String proxyHttpHost = "";
 		String proxyHttpPort = "";
-		try (Connection c = DataBaseManager.getConnection()) {
-			ProxyForm proxy = ProxyDAO.getProxy(c);
+		try {
+			ProxyForm proxy = ProxySettingsCache.getProxy();
 			proxyActive = proxy.getStatus() > 0 ? "true" : "false";
 			proxyHttpHost = proxy.getUrl();
 			proxyHttpPort = proxy.getPort();
-			DataBaseManager.closeConnection(c);
 		} catch (Exception e) {
 			Logger.putLog("Error: ", EvaluatorUtils.class, Logger.LOG_LEVEL_ERROR, e);
 		}
@@ -1382,29 +1385,9 @@ public final class EvaluatorUtils {
 	 * @return the naive SSL socket factory
 	 */
 	private static SSLSocketFactory getNaiveSSLSocketFactory() {
-		// Create a trust manager that does not validate certificate chains
-		final TrustManager[] trustAllCerts = new TrustManager[] { new X509TrustManager() {
-			public java.security.cert.X509Certificate[] getAcceptedIssuers() {
-				return null;
-			}
-
-			public void checkClientTrusted(java.security.cert.X509Certificate[] certs, String authType) {
-			}
-
-			public void checkServerTrusted(java.security.cert.X509Certificate[] certs, String authType) {
-			}
-		} };
-		// Install the all-trusting trust manager
-		try {
-			// Modificamos el protocolo SSL para solucionar la conexión con
-			// algunos páginas que no son accesibles con SSL
-			final SSLContext sc = SSLContext.getInstance("TLSv1.2");
-			sc.init(null, trustAllCerts, new java.security.SecureRandom());
-			return sc.getSocketFactory();
-		} catch (Exception e) {
-			Logger.putLog("Excepción: ", EvaluatorUtils.class, Logger.LOG_LEVEL_ERROR, e);
-		}
-		return null;
+		// Se reutiliza siempre la misma factoría para que la JVM pueda
+		// reutilizar las conexiones persistentes
+		return HttpClientProvider.getNaiveSSLSocketFactory();
 	}
 
 	/**
@@ -0,0 +1,367 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.intav.utils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.utoronto.atrc.tile.accessibilitychecker.Evaluation;
+import ca.utoronto.atrc.tile.accessibilitychecker.Guideline;
+import ca.utoronto.atrc.tile.accessibilitychecker.GuidelineGroup;
+import ca.utoronto.atrc.tile.accessibilitychecker.Problem;
+import es.inteco.common.utils.HashUtils;
+
+/**
+ * Modelo de puntuación del observatorio compilado a partir de una metodología.
+ *
+ * Recorre una sola vez el árbol de grupos de la metodología (niveles, adecuaciones y subgrupos) y guarda, para cada subgrupo, sus verificaciones en un array y las listas de verificaciones que no
+ * marcan el subgrupo como ejecutado o que solo generan advertencias en conjuntos de bits. Los modelos se guardan en una caché indexada por el hash del XML de la metodología (o por el nombre de la
+ * normativa si la evaluación no indica metodología), de modo que la metodología se parsea una sola vez aunque se puntúen miles de evaluaciones.
+ *
+ * Los modelos no se modifican una vez creados y se pueden compartir entre hilos.
+ */
+final class ObservatoryScoringModel {
+	/** Número máximo de modelos en caché. */
+	private static final int MAX_MODELS = 32;
+	/** Modelos compilados en orden de uso. */
+	private static final Map<String, ObservatoryScoringModel> MODELS = new LinkedHashMap<String, ObservatoryScoringModel>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, ObservatoryScoringModel> eldest) {
+			return size() > MAX_MODELS;
+		}
+	};
+	/** Grupos de nivel de la metodología. */
+	private final List<LevelGroup> levels;
+
+	/**
+	 * Instantiates a new observatory scoring model.
+	 *
+	 * @param guideline the guideline
+	 */
+	private ObservatoryScoringModel(final Guideline guideline) {
+		final List<LevelGroup> levelGroups = new ArrayList<>(guideline.getGroups().size());
+		for (GuidelineGroup levelGroup : guideline.getGroups()) {
+			levelGroups.add(new LevelGroup(levelGroup));
+		}
+		this.levels = Collections.unmodifiableList(levelGroups);
+	}
+
+	/**
+	 * Obtiene el modelo de puntuación de una metodología.
+	 *
+	 * @param methodology el XML de la metodología
+	 * @return el modelo o null si la metodología no se ha podido leer
+	 */
+	static ObservatoryScoringModel forMethodology(final String methodology) {
+		final String key = "methodology:" + getHash(methodology);
+		final ObservatoryScoringModel cached = getCached(key);
+		if (cached != null) {
+			return cached;
+		}
+		final Guideline guideline = new Guideline().initialize(methodology);
+		return guideline != null ? putCached(key, new ObservatoryScoringModel(guideline)) : null;
+	}
+
+	/**
+	 * Obtiene el modelo de puntuación de una normativa.
+	 *
+	 * @param guidelineFile el nombre de la normativa
+	 * @param guideline     la normativa ya cargada
+	 * @return el modelo o null si la normativa no se ha podido cargar
+	 */
+	static ObservatoryScoringModel forGuideline(final String guidelineFile, final Guideline guideline) {
+		if (guideline == null) {
+			return null;
+		}
+		final String key = "guideline:" + guidelineFile;
+		final ObservatoryScoringModel cached = getCached(key);
+		return cached != null ? cached : putCached(key, new ObservatoryScoringModel(guideline));
+	}
+
+	/**
+	 * Grupos de nivel de la metodología.
+	 *
+	 * @return the levels
+	 */
+	List<LevelGroup> getLevels() {
+		return levels;
+	}
+
+	/**
+	 * Calcula el conjunto de verificaciones ejecutadas en una evaluación.
+	 *
+	 * @param evaluation the evaluation
+	 * @return the executed checks
+	 */
+	static BitSet getExecutedChecks(final Evaluation evaluation) {
+		final BitSet executed = new BitSet();
+		for (Integer check : evaluation.getChecksExecuted()) {
+			if (check != null && check >= 0) {
+				executed.set(check);
+			}
+		}
+		return executed;
+	}
+
+	/**
+	 * Calcula el conjunto de verificaciones que han fallado en una evaluación.
+	 *
+	 * @param evaluation the evaluation
+	 * @return the failed checks
+	 */
+	static BitSet getFailedChecks(final Evaluation evaluation) {
+		final BitSet failed = new BitSet();
+		for (Problem problem : evaluation.getVectorProblems()) {
+			if (problem.getCheck() != null && problem.getCheck().getId() >= 0) {
+				failed.set(problem.getCheck().getId());
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * Comprueba si una verificación está en un conjunto.
+	 *
+	 * @param checks the checks
+	 * @param check  the check
+	 * @return true, si la verificación está en el conjunto
+	 */
+	static boolean contains(final BitSet checks, final int check) {
+		return check >= 0 && checks.get(check);
+	}
+
+	/**
+	 * Convierte una lista de verificaciones en un conjunto de bits.
+	 *
+	 * @param checks the checks
+	 * @return the bit set
+	 */
+	private static BitSet toBitSet(final List<Integer> checks) {
+		final BitSet bitSet = new BitSet();
+		if (checks != null) {
+			for (Integer check : checks) {
+				if (check != null && check >= 0) {
+					bitSet.set(check);
+				}
+			}
+		}
+		return bitSet;
+	}
+
+	/**
+	 * Obtiene un modelo de la caché.
+	 *
+	 * @param key the key
+	 * @return the cached model
+	 */
+	private static ObservatoryScoringModel getCached(final String key) {
+		synchronized (MODELS) {
+			return MODELS.get(key);
+		}
+	}
+
+	/**
+	 * Guarda un modelo en la caché. Si otro hilo ya ha guardado uno se devuelve ese.
+	 *
+	 * @param key   the key
+	 * @param model the model
+	 * @return el modelo guardado
+	 */
+	private static ObservatoryScoringModel putCached(final String key, final ObservatoryScoringModel model) {
+		synchronized (MODELS) {
+			final ObservatoryScoringModel previous = MODELS.get(key);
+			if (previous != null) {
+				return previous;
+			}
+			MODELS.put(key, model);
+			return model;
+		}
+	}
+
+	/**
+	 * Calcula el hash de una metodología.
+	 *
+	 * @param methodology the methodology
+	 * @return el hash SHA-256 en hexadecimal
+	 */
+	private static String getHash(final String methodology) {
+		return HashUtils.sha256Hex(methodology);
+	}
+
+	/**
+	 * Grupo de nivel de la metodología.
+	 */
+	static final class LevelGroup {
+		/** The group. */
+		private final GuidelineGroup group;
+		/** Grupos de adecuación del nivel. */
+		private final List<SuitabilityGroup> suitabilityGroups;
+
+		/**
+		 * Instantiates a new level group.
+		 *
+		 * @param group the group
+		 */
+		private LevelGroup(final GuidelineGroup group) {
+			this.group = group;
+			final List<SuitabilityGroup> suitabilities = new ArrayList<>(group.getGroupsVector().size());
+			for (GuidelineGroup suitabilityGroup : group.getGroupsVector()) {
+				suitabilities.add(new SuitabilityGroup(suitabilityGroup));
+			}
+			this.suitabilityGroups = Collections.unmodifiableList(suitabilities);
+		}
+
+		/**
+		 * Gets the group.
+		 *
+		 * @return the group
+		 */
+		GuidelineGroup getGroup() {
+			return group;
+		}
+
+		/**
+		 * Gets the suitability groups.
+		 *
+		 * @return the suitability groups
+		 */
+		List<SuitabilityGroup> getSuitabilityGroups() {
+			return suitabilityGroups;
+		}
+	}
+
+	/**
+	 * Grupo de adecuación de la metodología.
+	 */
+	static final class SuitabilityGroup {
+		/** The group. */
+		private final GuidelineGroup group;
+		/** Subgrupos de la adecuación. */
+		private final List<Subgroup> subgroups;
+
+		/**
+		 * Instantiates a new suitability group.
+		 *
+		 * @param group the group
+		 */
+		private SuitabilityGroup(final GuidelineGroup group) {
+			this.group = group;
+			final List<Subgroup> compiledSubgroups = new ArrayList<>(group.getGroupsVector().size());
+			for (GuidelineGroup subgroup : group.getGroupsVector()) {
+				compiledSubgroups.add(new Subgroup(subgroup));
+			}
+			this.subgroups = Collections.unmodifiableList(compiledSubgroups);
+		}
+
+		/**
+		 * Gets the group.
+		 *
+		 * @return the group
+		 */
+		GuidelineGroup getGroup() {
+			return group;
+		}
+
+		/**
+		 * Gets the subgroups.
+		 *
+		 * @return the subgroups
+		 */
+		List<Subgroup> getSubgroups() {
+			return subgroups;
+		}
+	}
+
+	/**
+	 * Subgrupo de verificaciones de la metodología.
+	 */
+	static final class Subgroup {
+		/** The group. */
+		private final GuidelineGroup group;
+		/** Verificaciones del subgrupo en el orden de la metodología. */
+		private final int[] checks;
+		/** Verificaciones cuya ejecución no marca el subgrupo como ejecutado. */
+		private final BitSet noExecutedMarkChecks;
+		/** Verificaciones que solo generan advertencias. */
+		private final BitSet onlyWarningChecks;
+
+		/**
+		 * Instantiates a new subgroup.
+		 *
+		 * @param group the group
+		 */
+		private Subgroup(final GuidelineGroup group) {
+			this.group = group;
+			this.checks = new int[group.getChecksVector().size()];
+			for (int i = 0; i < checks.length; i++) {
+				checks[i] = group.getChecksVector().get(i);
+			}
+			this.noExecutedMarkChecks = toBitSet(group.getNoExecutedMarkChecks());
+			this.onlyWarningChecks = toBitSet(group.getOnlyWarningChecks());
+		}
+
+		/**
+		 * Gets the group.
+		 *
+		 * @return the group
+		 */
+		GuidelineGroup getGroup() {
+			return group;
+		}
+
+		/**
+		 * Number of checks.
+		 *
+		 * @return the int
+		 */
+		int getNumChecks() {
+			return checks.length;
+		}
+
+		/**
+		 * Gets the check.
+		 *
+		 * @param index the index
+		 * @return the check
+		 */
+		int getCheck(final int index) {
+			return checks[index];
+		}
+
+		/**
+		 * Comprueba si la ejecución de una verificación marca el subgrupo como ejecutado.
+		 *
+		 * @param check the check
+		 * @return true, si la verificación marca el subgrupo como ejecutado
+		 */
+		boolean marksExecuted(final int check) {
+			return !contains(noExecutedMarkChecks, check);
+		}
+
+		/**
+		 * Comprueba si una verificación solo genera advertencias.
+		 *
+		 * @param check the check
+		 * @return true, si la verificación solo genera advertencias
+		 */
+		boolean isOnlyWarning(final int check) {
+			return contains(onlyWarningChecks, check);
+		}
+	}
+}
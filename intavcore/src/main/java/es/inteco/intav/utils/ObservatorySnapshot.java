@@ -0,0 +1,901 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.intav.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import es.inteco.intav.form.AspectScoreForm;
+import es.inteco.intav.form.ObservatoryEvaluationForm;
+import es.inteco.intav.form.ObservatoryLevelForm;
+import es.inteco.intav.form.ObservatorySubgroupForm;
+import es.inteco.intav.form.ObservatorySuitabilityForm;
+import es.inteco.intav.form.SeedForm;
+
+/**
+ * Instantánea binaria de los resultados de una ejecución del observatorio.
+ *
+ * Sustituye a la serialización Java de la lista de {@link ObservatoryEvaluationForm}. Los datos de cada evaluación se guardan en columnas de tipos primitivos (identificadores, puntuación, semilla,
+ * URL...) y el detalle de niveles, adecuaciones y subgrupos en un array de enteros. Los textos se guardan una sola vez en una tabla de cadenas y la estructura de la metodología (nombres de niveles,
+ * adecuaciones y subgrupos), que es igual en todas las páginas, se guarda una sola vez por estructura distinta.
+ *
+ * El fichero se lee proyectado en memoria: abrir una instantánea no carga las evaluaciones, y cada formulario se construye la primera vez que se pide con {@link #get(int)}. Las consultas de las
+ * columnas ({@link #getScore(int)}, {@link #getCrawlerExecutionId(int)}, {@link #getSeedId(int)}...) no construyen ningún formulario.
+ *
+ * Solo se pueden guardar evaluaciones sin problemas detallados (las que se generan para el observatorio a partir de la base de datos); en otro caso {@link #write(File, List)} devuelve false.
+ */
+public final class ObservatorySnapshot extends AbstractList<ObservatoryEvaluationForm> implements RandomAccess {
+	/** Identificador del formato ("OAWS"). */
+	private static final int MAGIC = 0x4F415753;
+	/** Versión del formato. */
+	private static final int VERSION = 1;
+	/** Tamaño de la cabecera en bytes. */
+	private static final int HEADER_SIZE = 28;
+	/** Número de columnas de tipo long. */
+	private static final int LONG_COLUMNS = 4;
+	/** Número de columnas de tipo int. */
+	private static final int INT_COLUMNS = 7;
+	/** Referencia nula a una cadena, semilla o lista. */
+	private static final int NULL_REF = -1;
+	/** Escala que indica una puntuación nula. */
+	private static final int NULL_SCALE = Integer.MIN_VALUE;
+	/** Valor que indica un identificador nulo. */
+	private static final long NULL_LONG = Long.MIN_VALUE;
+	/** Columnas de tipo long. */
+	private static final int COL_OBSERVATORY_EXECUTION = 0;
+	private static final int COL_CRAWLER_EXECUTION = 1;
+	private static final int COL_ID_ANALYSIS = 2;
+	private static final int COL_SCORE_UNSCALED = 3;
+	/** Columnas de tipo int. */
+	private static final int COL_SCORE_SCALE = 0;
+	private static final int COL_ENTITY = 1;
+	private static final int COL_URL = 2;
+	private static final int COL_SOURCE = 3;
+	private static final int COL_SEED = 4;
+	private static final int COL_STRUCTURE = 5;
+	private static final int COL_DETAIL = 6;
+	/** Número de campos de cada semilla. */
+	private static final int SEED_FIELDS = 5;
+
+	/** Contenido del fichero. */
+	private final ByteBuffer buffer;
+	/** Número de evaluaciones. */
+	private final int size;
+	/** Posición de la tabla de desplazamientos de las cadenas. */
+	private final int stringOffsetsPos;
+	/** Posición del contenido de las cadenas. */
+	private final int stringDataPos;
+	/** Posición de la tabla de semillas. */
+	private final int seedsPos;
+	/** Posición de la tabla de estructuras. */
+	private final int structuresPos;
+	/** Posición de las columnas de tipo long. */
+	private final int longColumnsPos;
+	/** Posición de las columnas de tipo int. */
+	private final int intColumnsPos;
+	/** Posición del array de enteros con el detalle de las evaluaciones y las estructuras. */
+	private final int poolPos;
+	/** Cadenas ya leídas. La instantánea se comparte entre hilos a través de la caché. */
+	private final AtomicReferenceArray<String> strings;
+	/** Formularios ya construidos. */
+	private final AtomicReferenceArray<ObservatoryEvaluationForm> forms;
+
+	/**
+	 * Instantiates a new observatory snapshot.
+	 *
+	 * @param buffer el contenido del fichero
+	 * @throws IOException si el contenido no es una instantánea válida
+	 */
+	private ObservatorySnapshot(final ByteBuffer buffer) throws IOException {
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("El fichero no es una instantánea de resultados del observatorio");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("Versión de instantánea no soportada: " + buffer.getInt(4));
+		}
+		this.buffer = buffer;
+		this.size = buffer.getInt(8);
+		final int stringCount = buffer.getInt(12);
+		final int seedCount = buffer.getInt(16);
+		final int structureCount = buffer.getInt(20);
+		final int poolSize = buffer.getInt(24);
+		this.stringOffsetsPos = HEADER_SIZE;
+		this.stringDataPos = stringOffsetsPos + (stringCount + 1) * 4;
+		this.seedsPos = stringDataPos + buffer.getInt(stringOffsetsPos + stringCount * 4);
+		this.structuresPos = seedsPos + seedCount * SEED_FIELDS * 4;
+		this.longColumnsPos = structuresPos + structureCount * 4;
+		this.intColumnsPos = longColumnsPos + LONG_COLUMNS * size * 8;
+		this.poolPos = intColumnsPos + INT_COLUMNS * size * 4;
+		if (poolPos + poolSize * 4 != buffer.limit()) {
+			throw new IOException("Instantánea de resultados del observatorio incompleta");
+		}
+		this.strings = new AtomicReferenceArray<>(stringCount);
+		this.forms = new AtomicReferenceArray<>(size);
+	}
+
+	/**
+	 * Abre una instantánea proyectando el fichero en memoria.
+	 *
+	 * @param file el fichero
+	 * @return la instantánea
+	 * @throws IOException si no se puede leer el fichero o no es una instantánea válida
+	 */
+	public static ObservatorySnapshot open(final File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return new ObservatorySnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Guarda los resultados de una ejecución en una instantánea. El fichero se escribe en un fichero temporal propio del mismo directorio y se renombra al terminar, de modo que nunca se lee una
+	 * instantánea a medias y dos escrituras simultáneas de la misma ejecución no se pisan.
+	 *
+	 * @param file  el fichero
+	 * @param forms las evaluaciones
+	 * @return true, si se ha guardado la instantánea; false si alguna evaluación tiene datos que el formato no admite
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static boolean write(final File file, final List<ObservatoryEvaluationForm> forms) throws IOException {
+		final SnapshotBuilder builder = new SnapshotBuilder(forms.size());
+		for (ObservatoryEvaluationForm form : forms) {
+			if (!builder.add(form)) {
+				return false;
+			}
+		}
+		final File tmpFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+		boolean written = false;
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+				if (!builder.writeTo(out)) {
+					return false;
+				}
+			}
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			written = true;
+		} finally {
+			if (!written) {
+				Files.deleteIfExists(tmpFile.toPath());
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Construye, si no se ha hecho ya, el formulario de una evaluación.
+	 *
+	 * @param index the index
+	 * @return the observatory evaluation form
+	 */
+	@Override
+	public ObservatoryEvaluationForm get(final int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		final ObservatoryEvaluationForm form = forms.get(index);
+		if (form != null) {
+			return form;
+		}
+		// Si otro hilo lo ha construido a la vez, todos devuelven el mismo formulario
+		forms.compareAndSet(index, null, materialize(index));
+		return forms.get(index);
+	}
+
+	/**
+	 * Número de evaluaciones.
+	 *
+	 * @return the int
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Puntuación de una evaluación.
+	 *
+	 * @param index the index
+	 * @return the score
+	 */
+	public BigDecimal getScore(final int index) {
+		return toDecimal(getLong(COL_SCORE_UNSCALED, index), getInt(COL_SCORE_SCALE, index));
+	}
+
+	/**
+	 * Identificador del rastreo de una evaluación.
+	 *
+	 * @param index the index
+	 * @return the crawler execution id
+	 */
+	public Long getCrawlerExecutionId(final int index) {
+		return toLong(getLong(COL_CRAWLER_EXECUTION, index));
+	}
+
+	/**
+	 * Identificador del análisis de una evaluación.
+	 *
+	 * @param index the index
+	 * @return the id analysis
+	 */
+	public Long getIdAnalysis(final int index) {
+		return toLong(getLong(COL_ID_ANALYSIS, index));
+	}
+
+	/**
+	 * Identificador de la semilla de una evaluación.
+	 *
+	 * @param index the index
+	 * @return el identificador o null si la evaluación no tiene semilla
+	 */
+	public String getSeedId(final int index) {
+		return getSeedField(index, 0);
+	}
+
+	/**
+	 * Categoría de la semilla de una evaluación.
+	 *
+	 * @param index the index
+	 * @return la categoría o null si la evaluación no tiene semilla
+	 */
+	public String getSeedCategory(final int index) {
+		return getSeedField(index, 4);
+	}
+
+	/**
+	 * Comprueba si una verificación ha fallado en una evaluación.
+	 *
+	 * @param index the index
+	 * @param check the check
+	 * @return true, si la verificación está entre las fallidas
+	 */
+	public boolean isCheckFailed(final int index, final int check) {
+		int pos = getInt(COL_DETAIL, index);
+		final int numChecks = getPoolInt(pos++);
+		for (int i = 0; i < numChecks; i++) {
+			if (getPoolInt(pos + i) == check) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Construye el formulario de una evaluación.
+	 *
+	 * @param index the index
+	 * @return the observatory evaluation form
+	 */
+	private ObservatoryEvaluationForm materialize(final int index) {
+		final ObservatoryEvaluationForm form = new ObservatoryEvaluationForm();
+		form.setObservatoryExecutionId(toLong(getLong(COL_OBSERVATORY_EXECUTION, index)));
+		form.setCrawlerExecutionId(getCrawlerExecutionId(index));
+		form.setIdAnalysis(getIdAnalysis(index));
+		form.setScore(getScore(index));
+		form.setEntity(getString(getInt(COL_ENTITY, index)));
+		form.setUrl(getString(getInt(COL_URL, index)));
+		form.setSource(getString(getInt(COL_SOURCE, index)));
+		final int seed = getInt(COL_SEED, index);
+		if (seed != NULL_REF) {
+			final SeedForm seedForm = new SeedForm();
+			final int seedPos = seedsPos + seed * SEED_FIELDS * 4;
+			seedForm.setId(getString(buffer.getInt(seedPos)));
+			seedForm.setName(getString(buffer.getInt(seedPos + 4)));
+			seedForm.setAcronym(getString(buffer.getInt(seedPos + 8)));
+			seedForm.setDependence(getString(buffer.getInt(seedPos + 12)));
+			seedForm.setCategory(getString(buffer.getInt(seedPos + 16)));
+			form.setSeed(seedForm);
+		}
+		final Cursor detail = new Cursor(getInt(COL_DETAIL, index));
+		form.setChecksFailed(readIntegerList(detail));
+		final int numAspects = getPoolInt(detail.pos++);
+		if (numAspects != NULL_REF) {
+			final List<AspectScoreForm> aspects = new ArrayList<>(numAspects);
+			for (int i = 0; i < numAspects; i++) {
+				final AspectScoreForm aspect = new AspectScoreForm();
+				aspect.setName(getString(getPoolInt(detail.pos++)));
+				aspect.setId(readLong(detail));
+				aspect.setScore(readDecimal(detail));
+				aspects.add(aspect);
+			}
+			form.setAspects(aspects);
+		}
+		final Cursor structure = new Cursor(buffer.getInt(structuresPos + getInt(COL_STRUCTURE, index) * 4));
+		final int numLevels = getPoolInt(structure.pos++);
+		for (int i = 0; i < numLevels; i++) {
+			final ObservatoryLevelForm level = new ObservatoryLevelForm();
+			level.setName(getString(getPoolInt(structure.pos++)));
+			level.setScore(readDecimal(detail));
+			final int numSuitabilities = getPoolInt(structure.pos++);
+			for (int j = 0; j < numSuitabilities; j++) {
+				final ObservatorySuitabilityForm suitability = new ObservatorySuitabilityForm();
+				suitability.setName(getString(getPoolInt(structure.pos++)));
+				suitability.setScore(readDecimal(detail));
+				final int numSubgroups = getPoolInt(structure.pos++);
+				for (int k = 0; k < numSubgroups; k++) {
+					final ObservatorySubgroupForm subgroup = new ObservatorySubgroupForm();
+					subgroup.setDescription(getString(getPoolInt(structure.pos++)));
+					subgroup.setAspect(getString(getPoolInt(structure.pos++)));
+					subgroup.setGuidelineId(getString(getPoolInt(structure.pos++)));
+					subgroup.setValue(getPoolInt(detail.pos++));
+					subgroup.setFailChecks(readIntegerList(detail));
+					subgroup.setOnlyWarningChecks(readIntegerList(detail));
+					subgroup.setIgnoreRelatedChecks(readIntegerList(detail));
+					subgroup.setSuccessChecks(readIntegerList(detail));
+					subgroup.setNotExecutedChecks(readIntegerList(detail));
+					suitability.getSubgroups().add(subgroup);
+				}
+				level.getSuitabilityGroups().add(suitability);
+			}
+			form.getGroups().add(level);
+		}
+		return form;
+	}
+
+	/**
+	 * Lee un campo de la semilla de una evaluación.
+	 *
+	 * @param index the index
+	 * @param field the field
+	 * @return el valor del campo o null si la evaluación no tiene semilla
+	 */
+	private String getSeedField(final int index, final int field) {
+		final int seed = getInt(COL_SEED, index);
+		return seed != NULL_REF ? getString(buffer.getInt(seedsPos + (seed * SEED_FIELDS + field) * 4)) : null;
+	}
+
+	/**
+	 * Lee una lista de enteros del detalle.
+	 *
+	 * @param cursor the cursor
+	 * @return la lista o null
+	 */
+	private List<Integer> readIntegerList(final Cursor cursor) {
+		final int length = getPoolInt(cursor.pos++);
+		if (length == NULL_REF) {
+			return null;
+		}
+		final List<Integer> list = new ArrayList<>(length);
+		for (int i = 0; i < length; i++) {
+			list.add(getPoolInt(cursor.pos++));
+		}
+		return list;
+	}
+
+	/**
+	 * Lee un número decimal del detalle.
+	 *
+	 * @param cursor the cursor
+	 * @return the big decimal
+	 */
+	private BigDecimal readDecimal(final Cursor cursor) {
+		final int scale = getPoolInt(cursor.pos++);
+		final long unscaled = ((long) getPoolInt(cursor.pos++) << 32) | (getPoolInt(cursor.pos++) & 0xFFFFFFFFL);
+		return toDecimal(unscaled, scale);
+	}
+
+	/**
+	 * Lee un identificador del detalle.
+	 *
+	 * @param cursor the cursor
+	 * @return the long
+	 */
+	private Long readLong(final Cursor cursor) {
+		final long value = ((long) getPoolInt(cursor.pos++) << 32) | (getPoolInt(cursor.pos++) & 0xFFFFFFFFL);
+		return toLong(value);
+	}
+
+	/**
+	 * Lee una cadena de la tabla de cadenas.
+	 *
+	 * @param ref la referencia
+	 * @return la cadena o null
+	 */
+	private String getString(final int ref) {
+		if (ref == NULL_REF) {
+			return null;
+		}
+		final String value = strings.get(ref);
+		if (value != null) {
+			return value;
+		}
+		final int start = buffer.getInt(stringOffsetsPos + ref * 4);
+		final int end = buffer.getInt(stringOffsetsPos + (ref + 1) * 4);
+		final byte[] bytes = new byte[end - start];
+		final ByteBuffer data = buffer.duplicate();
+		data.position(stringDataPos + start);
+		data.get(bytes);
+		strings.compareAndSet(ref, null, new String(bytes, StandardCharsets.UTF_8));
+		return strings.get(ref);
+	}
+
+	/**
+	 * Lee un valor de una columna de tipo long.
+	 *
+	 * @param column the column
+	 * @param index  the index
+	 * @return the long
+	 */
+	private long getLong(final int column, final int index) {
+		return buffer.getLong(longColumnsPos + (column * size + index) * 8);
+	}
+
+	/**
+	 * Lee un valor de una columna de tipo int.
+	 *
+	 * @param column the column
+	 * @param index  the index
+	 * @return the int
+	 */
+	private int getInt(final int column, final int index) {
+		return buffer.getInt(intColumnsPos + (column * size + index) * 4);
+	}
+
+	/**
+	 * Lee un valor del array de enteros.
+	 *
+	 * @param index the index
+	 * @return the int
+	 */
+	private int getPoolInt(final int index) {
+		return buffer.getInt(poolPos + index * 4);
+	}
+
+	/**
+	 * Convierte un valor guardado en un número decimal.
+	 *
+	 * @param unscaled the unscaled
+	 * @param scale    the scale
+	 * @return el número o null
+	 */
+	private static BigDecimal toDecimal(final long unscaled, final int scale) {
+		return scale != NULL_SCALE ? BigDecimal.valueOf(unscaled, scale) : null;
+	}
+
+	/**
+	 * Convierte un valor guardado en un identificador.
+	 *
+	 * @param value the value
+	 * @return el identificador o null
+	 */
+	private static Long toLong(final long value) {
+		return value != NULL_LONG ? Long.valueOf(value) : null;
+	}
+
+	/**
+	 * Posición de lectura en el array de enteros.
+	 */
+	private static final class Cursor {
+		/** The pos. */
+		private int pos;
+
+		/**
+		 * Instantiates a new cursor.
+		 *
+		 * @param pos the pos
+		 */
+		private Cursor(final int pos) {
+			this.pos = pos;
+		}
+	}
+
+	/**
+	 * Construcción del contenido de una instantánea.
+	 */
+	private static final class SnapshotBuilder {
+		/** Cadenas y su referencia. */
+		private final Map<String, Integer> strings = new LinkedHashMap<>();
+		/** Semillas (referencias de sus campos) y su posición en la tabla. */
+		private final Map<List<Integer>, Integer> seeds = new LinkedHashMap<>();
+		/** Estructuras (referencias de sus nombres) y su posición en el array de enteros. */
+		private final Map<List<Integer>, Integer> structures = new HashMap<>();
+		/** Posición de cada estructura en el array de enteros, en orden de aparición. */
+		private final IntArray structureOffsets = new IntArray(16);
+		/** Columnas de tipo long. */
+		private final long[][] longColumns;
+		/** Columnas de tipo int. */
+		private final int[][] intColumns;
+		/** Array de enteros con el detalle de las evaluaciones y las estructuras. */
+		private final IntArray pool = new IntArray(1024);
+		/** Número de evaluaciones añadidas. */
+		private int count = 0;
+
+		/**
+		 * Instantiates a new snapshot builder.
+		 *
+		 * @param size número de evaluaciones
+		 */
+		private SnapshotBuilder(final int size) {
+			this.longColumns = new long[LONG_COLUMNS][size];
+			this.intColumns = new int[INT_COLUMNS][size];
+		}
+
+		/**
+		 * Añade una evaluación.
+		 *
+		 * @param form the form
+		 * @return true, si la evaluación se puede guardar en el formato
+		 */
+		private boolean add(final ObservatoryEvaluationForm form) {
+			if (!isLong(form.getObservatoryExecutionId()) || !isLong(form.getCrawlerExecutionId()) || !isLong(form.getIdAnalysis()) || !isDecimal(form.getScore())) {
+				return false;
+			}
+			longColumns[COL_OBSERVATORY_EXECUTION][count] = fromLong(form.getObservatoryExecutionId());
+			longColumns[COL_CRAWLER_EXECUTION][count] = fromLong(form.getCrawlerExecutionId());
+			longColumns[COL_ID_ANALYSIS][count] = fromLong(form.getIdAnalysis());
+			longColumns[COL_SCORE_UNSCALED][count] = form.getScore() != null ? form.getScore().unscaledValue().longValue() : 0L;
+			intColumns[COL_SCORE_SCALE][count] = form.getScore() != null ? form.getScore().scale() : NULL_SCALE;
+			intColumns[COL_ENTITY][count] = ref(form.getEntity());
+			intColumns[COL_URL][count] = ref(form.getUrl());
+			intColumns[COL_SOURCE][count] = ref(form.getSource());
+			intColumns[COL_SEED][count] = seedRef(form.getSeed());
+			final int structure = structureRef(form.getGroups());
+			if (structure == NULL_REF) {
+				return false;
+			}
+			intColumns[COL_STRUCTURE][count] = structure;
+			final int detail = pool.size();
+			intColumns[COL_DETAIL][count] = detail;
+			if (!addDetail(form)) {
+				return false;
+			}
+			count++;
+			return true;
+		}
+
+		/**
+		 * Añade al array de enteros el detalle de una evaluación.
+		 *
+		 * @param form the form
+		 * @return true, si el detalle se puede guardar en el formato
+		 */
+		private boolean addDetail(final ObservatoryEvaluationForm form) {
+			addIntegerList(form.getChecksFailed());
+			if (form.getAspects() == null) {
+				pool.add(NULL_REF);
+			} else {
+				pool.add(form.getAspects().size());
+				for (AspectScoreForm aspect : form.getAspects()) {
+					if (!isLong(aspect.getId()) || !isDecimal(aspect.getScore())) {
+						return false;
+					}
+					pool.add(ref(aspect.getName()));
+					addLong(fromLong(aspect.getId()));
+					addDecimal(aspect.getScore());
+				}
+			}
+			for (ObservatoryLevelForm level : form.getGroups()) {
+				if (!isDecimal(level.getScore())) {
+					return false;
+				}
+				addDecimal(level.getScore());
+				for (ObservatorySuitabilityForm suitability : level.getSuitabilityGroups()) {
+					if (!isDecimal(suitability.getScore())) {
+						return false;
+					}
+					addDecimal(suitability.getScore());
+					for (ObservatorySubgroupForm subgroup : suitability.getSubgroups()) {
+						// Los problemas detallados solo se generan en modo depuración o fuera del observatorio
+						if (subgroup.getProblems() != null && !subgroup.getProblems().isEmpty()) {
+							return false;
+						}
+						pool.add(subgroup.getValue());
+						addIntegerList(subgroup.getFailChecks());
+						addIntegerList(subgroup.getOnlyWarningChecks());
+						addIntegerList(subgroup.getIgnoreRelatedChecks());
+						addIntegerList(subgroup.getSuccessChecks());
+						addIntegerList(subgroup.getNotExecutedChecks());
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Obtiene la referencia de la estructura de niveles, adecuaciones y subgrupos de una evaluación, añadiéndola si es nueva.
+		 *
+		 * @param levels the levels
+		 * @return la referencia o NULL_REF si la estructura no se puede guardar en el formato
+		 */
+		private int structureRef(final List<ObservatoryLevelForm> levels) {
+			if (levels == null) {
+				return NULL_REF;
+			}
+			final IntArray structure = new IntArray(64);
+			structure.add(levels.size());
+			for (ObservatoryLevelForm level : levels) {
+				if (level.getSuitabilityGroups() == null) {
+					return NULL_REF;
+				}
+				structure.add(ref(level.getName()));
+				structure.add(level.getSuitabilityGroups().size());
+				for (ObservatorySuitabilityForm suitability : level.getSuitabilityGroups()) {
+					if (suitability.getSubgroups() == null) {
+						return NULL_REF;
+					}
+					structure.add(ref(suitability.getName()));
+					structure.add(suitability.getSubgroups().size());
+					for (ObservatorySubgroupForm subgroup : suitability.getSubgroups()) {
+						structure.add(ref(subgroup.getDescription()));
+						structure.add(ref(subgroup.getAspect()));
+						structure.add(ref(subgroup.getGuidelineId()));
+					}
+				}
+			}
+			final List<Integer> key = structure.toList();
+			Integer structureRef = structures.get(key);
+			if (structureRef == null) {
+				structureRef = structureOffsets.size();
+				structures.put(key, structureRef);
+				structureOffsets.add(pool.size());
+				for (int i = 0; i < structure.size(); i++) {
+					pool.add(structure.get(i));
+				}
+			}
+			return structureRef;
+		}
+
+		/**
+		 * Obtiene la referencia de una semilla, añadiéndola si es nueva.
+		 *
+		 * @param seed the seed
+		 * @return la referencia o NULL_REF
+		 */
+		private int seedRef(final SeedForm seed) {
+			if (seed == null) {
+				return NULL_REF;
+			}
+			final List<Integer> key = Arrays.asList(ref(seed.getId()), ref(seed.getName()), ref(seed.getAcronym()), ref(seed.getDependence()), ref(seed.getCategory()));
+			Integer seedRef = seeds.get(key);
+			if (seedRef == null) {
+				seedRef = seeds.size();
+				seeds.put(key, seedRef);
+			}
+			return seedRef;
+		}
+
+		/**
+		 * Obtiene la referencia de una cadena, añadiéndola si es nueva.
+		 *
+		 * @param value the value
+		 * @return la referencia o NULL_REF
+		 */
+		private int ref(final String value) {
+			if (value == null) {
+				return NULL_REF;
+			}
+			Integer stringRef = strings.get(value);
+			if (stringRef == null) {
+				stringRef = strings.size();
+				strings.put(value, stringRef);
+			}
+			return stringRef;
+		}
+
+		/**
+		 * Añade una lista de enteros.
+		 *
+		 * @param list the list
+		 */
+		private void addIntegerList(final List<Integer> list) {
+			if (list == null) {
+				pool.add(NULL_REF);
+			} else {
+				pool.add(list.size());
+				for (Integer value : list) {
+					pool.add(value);
+				}
+			}
+		}
+
+		/**
+		 * Añade un número decimal.
+		 *
+		 * @param value the value
+		 */
+		private void addDecimal(final BigDecimal value) {
+			if (value == null) {
+				pool.add(NULL_SCALE);
+				addLong(0L);
+			} else {
+				pool.add(value.scale());
+				addLong(value.unscaledValue().longValue());
+			}
+		}
+
+		/**
+		 * Añade un valor de tipo long.
+		 *
+		 * @param value the value
+		 */
+		private void addLong(final long value) {
+			pool.add((int) (value >>> 32));
+			pool.add((int) value);
+		}
+
+		/**
+		 * Escribe la instantánea.
+		 *
+		 * @param out the out
+		 * @return true, si se ha escrito; false si el contenido no cabe en el formato
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		private boolean writeTo(final DataOutputStream out) throws IOException {
+			final List<byte[]> encodedStrings = new ArrayList<>(strings.size());
+			long stringBytes = 0;
+			for (String value : strings.keySet()) {
+				final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				encodedStrings.add(bytes);
+				stringBytes += bytes.length;
+			}
+			final long totalSize = HEADER_SIZE + (strings.size() + 1) * 4L + stringBytes + seeds.size() * SEED_FIELDS * 4L + structureOffsets.size() * 4L + LONG_COLUMNS * count * 8L
+					+ INT_COLUMNS * count * 4L + pool.size() * 4L;
+			if (totalSize > Integer.MAX_VALUE) {
+				return false;
+			}
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(count);
+			out.writeInt(strings.size());
+			out.writeInt(seeds.size());
+			out.writeInt(structureOffsets.size());
+			out.writeInt(pool.size());
+			int offset = 0;
+			for (byte[] bytes : encodedStrings) {
+				out.writeInt(offset);
+				offset += bytes.length;
+			}
+			out.writeInt(offset);
+			for (byte[] bytes : encodedStrings) {
+				out.write(bytes);
+			}
+			for (List<Integer> seed : seeds.keySet()) {
+				for (Integer field : seed) {
+					out.writeInt(field);
+				}
+			}
+			for (int i = 0; i < structureOffsets.size(); i++) {
+				out.writeInt(structureOffsets.get(i));
+			}
+			for (long[] column : longColumns) {
+				for (int i = 0; i < count; i++) {
+					out.writeLong(column[i]);
+				}
+			}
+			for (int[] column : intColumns) {
+				for (int i = 0; i < count; i++) {
+					out.writeInt(column[i]);
+				}
+			}
+			for (int i = 0; i < pool.size(); i++) {
+				out.writeInt(pool.get(i));
+			}
+			return true;
+		}
+
+		/**
+		 * Comprueba si un identificador se puede guardar.
+		 *
+		 * @param value the value
+		 * @return true, si se puede guardar
+		 */
+		private static boolean isLong(final Long value) {
+			return value == null || value != NULL_LONG;
+		}
+
+		/**
+		 * Convierte un identificador en el valor que se guarda.
+		 *
+		 * @param value the value
+		 * @return the long
+		 */
+		private static long fromLong(final Long value) {
+			return value != null ? value : NULL_LONG;
+		}
+
+		/**
+		 * Comprueba si un número decimal se puede guardar.
+		 *
+		 * @param value the value
+		 * @return true, si se puede guardar
+		 */
+		private static boolean isDecimal(final BigDecimal value) {
+			if (value == null) {
+				return true;
+			}
+			final BigInteger unscaled = value.unscaledValue();
+			return unscaled.bitLength() < 64 && value.scale() != NULL_SCALE;
+		}
+	}
+
+	/**
+	 * Array de enteros que crece según se añaden valores.
+	 */
+	private static final class IntArray {
+		/** The data. */
+		private int[] data;
+		/** The size. */
+		private int size = 0;
+
+		/**
+		 * Instantiates a new int array.
+		 *
+		 * @param capacity the capacity
+		 */
+		private IntArray(final int capacity) {
+			this.data = new int[capacity];
+		}
+
+		/**
+		 * Añade un valor.
+		 *
+		 * @param value the value
+		 */
+		private void add(final int value) {
+			if (size == data.length) {
+				data = Arrays.copyOf(data, data.length * 2);
+			}
+			data[size++] = value;
+		}
+
+		/**
+		 * Obtiene un valor.
+		 *
+		 * @param index the index
+		 * @return the int
+		 */
+		private int get(final int index) {
+			return data[index];
+		}
+
+		/**
+		 * Número de valores.
+		 *
+		 * @return the int
+		 */
+		private int size() {
+			return size;
+		}
+
+		/**
+		 * Copia los valores en una lista.
+		 *
+		 * @return the list
+		 */
+		private List<Integer> toList() {
+			final List<Integer> list = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				list.add(data[i]);
+			}
+			return list;
+		}
+	}
+}
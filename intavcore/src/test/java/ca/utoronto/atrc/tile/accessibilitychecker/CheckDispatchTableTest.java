@@ -0,0 +1,71 @@
+package ca.utoronto.atrc.tile.accessibilitychecker;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CheckDispatchTableTest {
+
+    private AllChecks allChecks;
+
+    @Before
+    public void setUp() {
+        allChecks = new AllChecks();
+        allChecks.addCheck(createCheck(1, "img"));
+        allChecks.addCheck(createCheck(2, "img", 3));
+        allChecks.addCheck(createCheck(3, "img"));
+        allChecks.addCheck(createCheck(4, "*"));
+        allChecks.addCheck(createCheck(5, "css"));
+        allChecks.addCheck(createCheck(6, "doctype"));
+    }
+
+    private Check createCheck(final int id, final String triggerElement, final Integer... prerequisites) {
+        final Check check = new Check();
+        check.setId(id);
+        check.setTriggerElement(triggerElement);
+        check.setPrerequisites(Arrays.asList(prerequisites));
+        return check;
+    }
+
+    private int[] ids(final Check[] checks) {
+        final int[] ids = new int[checks.length];
+        for (int i = 0; i < checks.length; i++) {
+            ids[i] = checks[i].getId();
+        }
+        return ids;
+    }
+
+    @Test
+    public void ordersPrerequisitesAndAppendsGeneralChecks() {
+        final CheckDispatchTable table = CheckDispatchTable.compile(Arrays.asList(1, 2, 3, 4, 5, 6), allChecks);
+        Assert.assertArrayEquals(new int[] { 1, 3, 2, 4 }, ids(table.getChecks("img")));
+        Assert.assertArrayEquals(new int[] { 4 }, ids(table.getChecks("p")));
+        Assert.assertSame(table.getChecks("p"), table.getChecks("div"));
+        Assert.assertArrayEquals(new int[] { 5 }, ids(table.getCssChecks()));
+        Assert.assertArrayEquals(new int[] { 6 }, ids(table.getTriggerChecks("doctype")));
+        Assert.assertEquals(0, table.getTriggerChecks("a").length);
+    }
+
+    @Test
+    public void ignoresUnknownChecks() {
+        final CheckDispatchTable table = CheckDispatchTable.compile(Arrays.asList(1, 99), allChecks);
+        Assert.assertArrayEquals(new int[] { 1 }, ids(table.getChecks("img")));
+        Assert.assertEquals(0, table.getChecks("p").length);
+        Assert.assertEquals(0, table.getCssChecks().length);
+        Assert.assertEquals(Arrays.asList(1, 99), table.getChecksSelected());
+    }
+
+    @Test
+    public void sharesTablesByGuidelineAndLevel() {
+        CheckDispatchTable.clear();
+        Assert.assertNull(CheckDispatchTable.getTable("observatorio-inteco-1-0", "aa"));
+        final CheckDispatchTable table = CheckDispatchTable.putTable("observatorio-inteco-1-0", "aa", CheckDispatchTable.compile(Collections.singletonList(1), allChecks));
+        Assert.assertSame(table, CheckDispatchTable.putTable("observatorio-inteco-1-0", "aa", CheckDispatchTable.compile(Collections.singletonList(1), allChecks)));
+        Assert.assertSame(table, CheckDispatchTable.getTable("observatorio-inteco-1-0", "aa"));
+        Assert.assertNull(CheckDispatchTable.getTable("observatorio-inteco-1-0", "a"));
+        CheckDispatchTable.clear();
+    }
+}
@@ -0,0 +1,150 @@
+package ca.utoronto.atrc.tile.accessibilitychecker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import es.gob.oaw.http.LinkVerifier;
+import es.inteco.common.CheckAccessibility;
+import es.inteco.intav.form.CheckedLinks;
+
+public class ConcurrentEvaluationTest {
+
+    private static final int NUM_THREADS = 8;
+
+    private static final int NUM_ROUNDS = 4;
+
+    private static final String[] GUIDELINES = { "observatorio-une-2012", "observatorio-une-2012-b", "observatorio-inteco-1-0" };
+
+    private static final String[] LANGUAGES = { "es", "en" };
+
+    // Las evaluaciones sin rastreo (id 0) no guardan el análisis en base de datos, pero comparten los resultados de los enlaces igual que las páginas de un rastreo
+    private static final long NO_CRAWL_ID = 0L;
+
+    private static final String AVAILABLE_LINK = "http://localhost/disponible.html";
+
+    private static final String BROKEN_LINK = "http://localhost/roto.html";
+
+    private static final String[] PAGES = {
+            "<html lang=\"es\"><head><title>Inicio</title></head><body><h1>Inicio</h1><p>Lorem ipsum</p><img src=\"logo.png\"></body></html>",
+            "<html><head><title></title></head><body><h3>Sin nivel 1</h3><ul><li>Uno</li></ul><img src=\"a.png\" alt=\"\"></body></html>",
+            "<html lang=\"en\"><head><title>Tables</title></head><body><table><tr><td>x</td></tr></table>"
+                    + "<table><tr><th>a</th><th>b</th></tr><tr><td></td><td></td></tr><tr><td></td><td>y</td></tr></table></body></html>",
+            "<html lang=\"es\"><head><title>Formulario</title></head><body><form><input type=\"text\" name=\"nombre\">"
+                    + "<select name=\"s\"><option>1</option></select><input type=\"submit\"></form></body></html>",
+            "<html lang=\"es\"><head><title>Marcos</title></head><body><iframe src=\"a.html\"></iframe><p><b>Negrita</b> <font>texto</font></p>"
+                    + "<table><tr><td><table><tr><td>Anidada</td></tr></table></td></tr></table></body></html>",
+            "<html lang=\"es\"><head><title>Encabezados</title></head><body><h1>Uno</h1><h2>Dos</h2><h4>Cuatro</h4>"
+                    + "<p>Texto<br><br>con saltos</p><blockquote>Cita</blockquote><div tabindex=\"3\">Foco</div></body></html>",
+            "<html lang=\"es\"><head><title>Maquetación</title></head><body>"
+                    + "<table><tr><td>Menú</td><td></td></tr><tr><td></td><td></td></tr></table>"
+                    + "<table><tr><td>Contenido</td><td></td></tr><tr><td></td><td></td></tr></table>"
+                    + "<table><tr><td>Pie</td><td></td></tr><tr><td></td><td></td></tr></table></body></html>",
+            "<html lang=\"es\"><head><title>Enlaces</title></head><body><h1>Enlaces</h1><p><a href=\"" + AVAILABLE_LINK + "\">Uno</a> <a href=\"" + BROKEN_LINK + "\">Dos</a> "
+                    + "<a href=\"" + BROKEN_LINK + "\">Tres</a></p></body></html>" };
+
+    @BeforeClass
+    public static void init() throws Exception {
+        EvaluatorUtility.initialize();
+    }
+
+    @After
+    public void releaseCheckedLinks() {
+        LinkVerifier.release(NO_CRAWL_ID);
+    }
+
+    private static CheckAccessibility getCheckAccessibility(final int page, final long idRastreo) {
+        final CheckAccessibility checkAccessibility = new CheckAccessibility();
+        final String guideline = GUIDELINES[page / PAGES.length];
+        checkAccessibility.setEntity("Tests unitarios");
+        checkAccessibility.setGuideline(guideline);
+        checkAccessibility.setGuidelineFile(guideline + ".xml");
+        checkAccessibility.setLevel("aa");
+        checkAccessibility.setUrl("http://localhost/" + page);
+        checkAccessibility.setIdRastreo(idRastreo);
+        checkAccessibility.setWebService(false);
+        checkAccessibility.setContent(PAGES[page % PAGES.length]);
+        return checkAccessibility;
+    }
+
+    private static String evaluate(final int page, final long idRastreo) throws Exception {
+        final Evaluation evaluation = EvaluatorUtility.getEvaluator().evaluateContent(getCheckAccessibility(page, idRastreo), LANGUAGES[page % LANGUAGES.length]);
+        Assert.assertNotNull(evaluation);
+        final List<String> problems = new ArrayList<>();
+        for (Problem problem : evaluation.getProblems()) {
+            problems.add(problem.getCheck().getId() + " " + problem.getXpath() + " " + problem.getCheck().getErrorString());
+        }
+        Collections.sort(problems);
+        final List<Integer> checksExecuted = new ArrayList<>(evaluation.getChecksExecuted());
+        Collections.sort(checksExecuted);
+        return checksExecuted + "\n" + problems;
+    }
+
+    @Test
+    public void concurrentEvaluationsMatchSequentialEvaluations() throws Exception {
+        assertConcurrentEvaluationsMatchSequentialEvaluations(NO_CRAWL_ID);
+    }
+
+    @Test
+    public void concurrentEvaluationsWithSharedLinksMatchSequentialEvaluations() throws Exception {
+        // Las páginas comparten los enlaces rotos y disponibles, que aquí ya están verificados
+        final CheckedLinks crawlResults = LinkVerifier.getCheckedLinks(NO_CRAWL_ID);
+        crawlResults.getAvailablelinks().add(AVAILABLE_LINK);
+        crawlResults.getBrokenLinks().add(BROKEN_LINK);
+
+        assertConcurrentEvaluationsMatchSequentialEvaluations(NO_CRAWL_ID);
+
+        // Los enlaces ya evaluados son propios de cada página y no llegan a los resultados compartidos
+        Assert.assertSame(crawlResults, LinkVerifier.getCheckedLinks(NO_CRAWL_ID));
+        Assert.assertTrue(crawlResults.getCheckedLinks().isEmpty());
+        Assert.assertTrue(crawlResults.getAvailablelinks().contains(AVAILABLE_LINK));
+        Assert.assertTrue(crawlResults.getBrokenLinks().contains(BROKEN_LINK));
+    }
+
+    private void assertConcurrentEvaluationsMatchSequentialEvaluations(final long idRastreo) throws Exception {
+        final int numPages = PAGES.length * GUIDELINES.length;
+        final List<String> expected = new ArrayList<>();
+        for (int page = 0; page < numPages; page++) {
+            expected.add(evaluate(page, idRastreo));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            final List<Integer> pages = new ArrayList<>();
+            final List<Future<String>> results = new ArrayList<>();
+            for (int round = 0; round < NUM_ROUNDS; round++) {
+                final List<Integer> roundPages = new ArrayList<>();
+                for (int page = 0; page < numPages; page++) {
+                    roundPages.add(page);
+                }
+                // Cada ronda recorre las páginas en un orden distinto
+                Collections.shuffle(roundPages, new Random(round));
+                for (final Integer page : roundPages) {
+                    pages.add(page);
+                    results.add(executor.submit(new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            return evaluate(page, idRastreo);
+                        }
+                    }));
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals("Página " + pages.get(i), expected.get(pages.get(i)), results.get(i).get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
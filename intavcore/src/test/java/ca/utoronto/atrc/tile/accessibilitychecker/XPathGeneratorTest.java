@@ -0,0 +1,59 @@
+package ca.utoronto.atrc.tile.accessibilitychecker;
+
+import java.io.StringReader;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+public class XPathGeneratorTest {
+
+    private static final String HTML = "<html><body><div><p>a</p><P>b</P><span id=\"s\"/></div><div>x<b/>y</div></body></html>";
+
+    private static Document parse() throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(HTML)));
+    }
+
+    @Test
+    public void testXpath() throws Exception {
+        final Document document = parse();
+        final XPathGenerator generator = new XPathGenerator();
+        final Element html = document.getDocumentElement();
+        final Element body = (Element) html.getFirstChild();
+        final Element firstDiv = (Element) body.getFirstChild();
+        final Element secondDiv = (Element) firstDiv.getNextSibling();
+        final NodeList children = firstDiv.getChildNodes();
+
+        Assert.assertEquals("/html", generator.getXpath(html));
+        Assert.assertEquals("/html/body", generator.getXpath(body));
+        Assert.assertEquals("/html/body/div[1]/p[1]", generator.getXpath(children.item(0)));
+        Assert.assertEquals("/html/body/div[1]/p[2]", generator.getXpath(children.item(1)));
+        Assert.assertEquals("/html/body/div[1]/span", generator.getXpath(children.item(2)));
+        Assert.assertEquals("/span/@id", generator.getXpath(((Element) children.item(2)).getAttributeNode("id")));
+        Assert.assertEquals("/html/body/div[2]/text()[1]", generator.getXpath(secondDiv.getFirstChild()));
+        Assert.assertEquals("/html/body/div[2]/b", generator.getXpath(secondDiv.getChildNodes().item(1)));
+        Assert.assertEquals("/html/body/div[2]/text()[2]", generator.getXpath(secondDiv.getLastChild()));
+        // Las expresiones guardadas se reutilizan
+        Assert.assertEquals("/html/body/div[1]/p[2]", new XPathGenerator().getXpath(children.item(1)));
+    }
+
+    @Test
+    public void testLazyProblem() throws Exception {
+        final Document document = parse();
+        final Element span = (Element) document.getElementsByTagName("span").item(0);
+        final Problem problem = new Problem(span);
+        Assert.assertEquals("", problem.getXpath());
+        problem.setXpathNode(span);
+        Assert.assertEquals("/html/body/div[1]/span", problem.getXpath());
+        problem.setXpath("/otro");
+        Assert.assertEquals("/otro", problem.getXpath());
+        Assert.assertNull(new Problem().getXpath());
+        Assert.assertNotNull(problem.getDate());
+        Assert.assertSame(problem.getDate(), problem.getDate());
+    }
+}
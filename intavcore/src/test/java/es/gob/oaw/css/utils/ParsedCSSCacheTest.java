@@ -0,0 +1,42 @@
+package es.gob.oaw.css.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParsedCSSCacheTest {
+
+    private static final String CSS = "@import url(print.css) print; body { color: #000; }";
+
+    @Test
+    public void parsesSameContentOnce() {
+        final ParsedCSSCache cache = new ParsedCSSCache(8);
+        Assert.assertNotNull(cache.getStyleSheet(CSS));
+        Assert.assertSame(cache.getStyleSheet(CSS), cache.getStyleSheet(new String(CSS)));
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(1, cache.getStyleSheet(CSS).getAllImportRules().size());
+    }
+
+    @Test
+    public void keepsParseErrors() {
+        final ParsedCSSCache cache = new ParsedCSSCache(8);
+        final String invalid = "body { color: #000; } p { color: ; } {";
+        Assert.assertFalse(cache.get(invalid).getParseErrors().isEmpty());
+        Assert.assertSame(cache.get(invalid), cache.get(invalid));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        final ParsedCSSCache cache = new ParsedCSSCache(2);
+        cache.get("a { color: red; }");
+        cache.get("b { color: red; }");
+        cache.get("a { color: red; }");
+        cache.get("c { color: red; }");
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(3, cache.getMisses());
+        cache.get("a { color: red; }");
+        Assert.assertEquals(3, cache.getMisses());
+        cache.get("b { color: red; }");
+        Assert.assertEquals(4, cache.getMisses());
+    }
+}
@@ -0,0 +1,49 @@
+package es.gob.oaw.http;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpClientProviderTest {
+
+    @Before
+    public void setUp() {
+        HttpMetrics.reset();
+    }
+
+    @Test
+    public void sharesSSLSocketFactory() {
+        Assert.assertNotNull(HttpClientProvider.getNaiveSSLSocketFactory());
+        Assert.assertSame(HttpClientProvider.getNaiveSSLSocketFactory(), HttpClientProvider.getNaiveSSLSocketFactory());
+    }
+
+    @Test
+    public void sharesOkHttpClient() {
+        Assert.assertSame(HttpClientProvider.getOkHttpClient(), HttpClientProvider.getOkHttpClient());
+        Assert.assertSame(HttpClientProvider.getOkHttpClient().connectionPool(), HttpClientProvider.getOkHttpClient().connectionPool());
+    }
+
+    @Test
+    public void configuresKeepAlive() {
+        HttpClientProvider.configureKeepAlive();
+        Assert.assertNotNull(System.getProperty("http.maxConnections"));
+    }
+
+    @Test
+    public void recordsMetrics() {
+        HttpMetrics.recordRequest();
+        HttpMetrics.recordRequest();
+        HttpMetrics.recordConnect(2000000);
+        Assert.assertEquals(2, HttpMetrics.getRequests());
+        Assert.assertEquals(1, HttpMetrics.getConnections());
+        Assert.assertTrue(HttpMetrics.getSummary().contains("Conexiones nuevas: 1 (media 2 ms)"));
+    }
+
+    @Test
+    public void responseWaitsAreNotConnections() {
+        HttpMetrics.recordRequest();
+        HttpMetrics.recordResponseWait(3000000);
+        Assert.assertEquals(0, HttpMetrics.getConnections());
+        Assert.assertTrue(HttpMetrics.getSummary().contains("Esperas de respuesta: 1 (media 3 ms)"));
+    }
+}
@@ -0,0 +1,170 @@
+package es.gob.oaw.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpDiskCacheTest {
+
+    private static final String CSS = "body { color: #000; }";
+    private static final String ETAG = "\"v1\"";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File cacheDir;
+    private HttpDiskCache cache;
+    private HttpServer server;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private final AtomicBoolean dropBodies = new AtomicBoolean();
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDir = folder.newFolder("cache");
+        cache = new HttpDiskCache(cacheDir, 1024 * 1024);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModifiedResponses.incrementAndGet();
+                    if (dropBodies.get()) {
+                        // El contenido guardado desaparece entre la petición condicional y su respuesta
+                        for (File file : cacheDir.listFiles()) {
+                            if (file.getName().endsWith(".body")) {
+                                file.delete();
+                            }
+                        }
+                    }
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+                } else {
+                    fullResponses.incrementAndGet();
+                    final byte[] body = CSS.getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().add("ETag", ETAG);
+                    exchange.getResponseHeaders().add("Content-Type", "text/css");
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpURLConnection open(final String path) throws IOException {
+        return (HttpURLConnection) new URL("http://localhost:" + server.getAddress().getPort() + path).openConnection();
+    }
+
+    @Test
+    public void reusesBodyOnNotModified() throws IOException {
+        final String path = "/style.css";
+        Assert.assertEquals(CSS, new String(cache.getContent(open(path)), StandardCharsets.UTF_8));
+        Assert.assertEquals(CSS, new String(cache.getContent(open(path)), StandardCharsets.UTF_8));
+        Assert.assertEquals(1, fullResponses.get());
+        Assert.assertEquals(1, notModifiedResponses.get());
+        Assert.assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void boundsCacheSize() throws IOException {
+        final File dir = folder.newFolder("small");
+        final HttpDiskCache smallCache = new HttpDiskCache(dir, 1024);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertNotNull(smallCache.getContent(open("/style-" + i + ".css")));
+        }
+        long size = 0;
+        for (File file : dir.listFiles()) {
+            size += file.length();
+        }
+        Assert.assertTrue(size <= 1024);
+        Assert.assertEquals(20, fullResponses.get());
+    }
+
+    @Test
+    public void storesValidatorsWithoutBody() throws IOException {
+        final String path = "/link";
+        final HttpURLConnection first = open(path);
+        Assert.assertNull(cache.prepare(first, false));
+        first.connect();
+        Assert.assertEquals(HttpURLConnection.HTTP_OK, first.getResponseCode());
+        cache.store(first, null);
+
+        final HttpURLConnection second = open(path);
+        final HttpDiskCache.Entry entry = cache.prepare(second, false);
+        Assert.assertNotNull(entry);
+        Assert.assertFalse(entry.hasBody());
+        second.connect();
+        Assert.assertTrue(cache.isNotModified(second, entry));
+        // Una entrada sin contenido no sirve para recuperar el contenido
+        Assert.assertNull(cache.prepare(open(path), true));
+    }
+
+    @Test
+    public void separatesRequestVariants() throws IOException {
+        final String path = "/page.html";
+        final HttpURLConnection rendered = open(path);
+        Assert.assertNull(cache.prepare(rendered, "RENDER", true));
+        rendered.connect();
+        cache.store(rendered, "RENDER", CSS.getBytes(StandardCharsets.UTF_8));
+
+        Assert.assertNotNull(cache.prepare(open(path), "RENDER", true));
+        Assert.assertNull(cache.prepare(open(path), true));
+        final HttpURLConnection head = open(path);
+        head.setRequestMethod("HEAD");
+        Assert.assertNull(cache.prepare(head, false));
+    }
+
+    @Test
+    public void validatorOnlyStoreKeepsBody() throws IOException {
+        final String path = "/kept.css";
+        Assert.assertNotNull(cache.getContent(open(path)));
+
+        final HttpURLConnection check = open(path);
+        check.connect();
+        Assert.assertEquals(HttpURLConnection.HTTP_OK, check.getResponseCode());
+        cache.store(check, null);
+
+        final HttpDiskCache.Entry entry = cache.prepare(open(path), true);
+        Assert.assertNotNull(entry);
+        Assert.assertEquals(CSS, new String(entry.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void refetchesWhenStoredBodyIsLost() throws IOException {
+        final String path = "/lost.css";
+        Assert.assertNotNull(cache.getContent(open(path)));
+        dropBodies.set(true);
+        Assert.assertEquals(CSS, new String(cache.getContent(open(path)), StandardCharsets.UTF_8));
+        Assert.assertEquals(2, fullResponses.get());
+        Assert.assertEquals(1, notModifiedResponses.get());
+        // La entrada se ha vuelto a guardar con el contenido
+        dropBodies.set(false);
+        Assert.assertEquals(CSS, new String(cache.getContent(open(path)), StandardCharsets.UTF_8));
+        Assert.assertEquals(2, fullResponses.get());
+    }
+}
@@ -0,0 +1,61 @@
+package es.gob.oaw.http;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import es.inteco.intav.form.CheckedLinks;
+
+public class LinkVerifierTest {
+
+    @Test
+    public void sharesResultsWithinCrawl() {
+        final CheckedLinks checkedLinks = LinkVerifier.getCheckedLinks(42);
+        checkedLinks.getBrokenLinks().add("http://localhost/roto");
+        Assert.assertSame(checkedLinks, LinkVerifier.getCheckedLinks(42));
+        Assert.assertNotSame(checkedLinks, LinkVerifier.getCheckedLinks(43));
+        LinkVerifier.release(42);
+        LinkVerifier.release(43);
+        Assert.assertTrue(LinkVerifier.getCheckedLinks(42).getBrokenLinks().isEmpty());
+        LinkVerifier.release(42);
+    }
+
+    @Test
+    public void keepsCheckedLinksPerPage() {
+        final CheckedLinks firstPage = LinkVerifier.getPageCheckedLinks(44);
+        final CheckedLinks secondPage = LinkVerifier.getPageCheckedLinks(44);
+        firstPage.getBrokenLinks().add("http://localhost/roto");
+        firstPage.getAvailablelinks().add("http://localhost/disponible");
+        secondPage.getCheckedLinks().add("http://localhost/roto");
+        Assert.assertTrue(secondPage.getBrokenLinks().contains("http://localhost/roto"));
+        Assert.assertTrue(secondPage.getAvailablelinks().contains("http://localhost/disponible"));
+        firstPage.getCheckedLinks().clear();
+        Assert.assertTrue(secondPage.getCheckedLinks().contains("http://localhost/roto"));
+        Assert.assertTrue(LinkVerifier.getCheckedLinks(44).getCheckedLinks().isEmpty());
+        LinkVerifier.release(44);
+    }
+
+    @Test
+    public void doesNotShareResultsOutsideCrawl() {
+        Assert.assertNotSame(LinkVerifier.getCheckedLinks(0), LinkVerifier.getCheckedLinks(0));
+    }
+
+    @Test
+    public void skipsAlreadyVerifiedLinks() {
+        final CheckedLinks checkedLinks = new CheckedLinks();
+        checkedLinks.getAvailablelinks().add("http://localhost:1/disponible");
+        LinkVerifier.verify(Collections.<String, String>singletonMap("http://localhost:1/disponible", null), checkedLinks);
+        Assert.assertTrue(checkedLinks.getBrokenLinks().isEmpty());
+        Assert.assertEquals(1, checkedLinks.getAvailablelinks().size());
+    }
+
+    @Test
+    public void doesNotStoreFailedConnections() {
+        final CheckedLinks checkedLinks = new CheckedLinks();
+        // Nadie escucha en el puerto 1: la conexión se rechaza y el enlace se volverá a verificar
+        LinkVerifier.verify(Collections.<String, String>singletonMap("http://localhost:1/rechazado", null), checkedLinks);
+        Assert.assertTrue(checkedLinks.getBrokenLinks().isEmpty());
+        Assert.assertTrue(checkedLinks.getAvailablelinks().isEmpty());
+    }
+}
@@ -0,0 +1,104 @@
+package es.gob.oaw.language;
+
+import java.io.StringReader;
+
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import ca.utoronto.atrc.tile.accessibilitychecker.CheckerParser;
+
+public class GuessLanguageTest {
+
+    private static final String ES = "El Observatorio de Accesibilidad Web analiza periódicamente el grado de cumplimiento de los portales de la Administración "
+            + "y publica los resultados para que los responsables de cada sitio puedan corregir los problemas detectados en sus páginas.";
+
+    private static final String EN = "The Web Accessibility Observatory periodically analyses the degree of compliance of public administration websites "
+            + "and publishes the results so that the people responsible for each site can fix the problems found on their pages.";
+
+    private static final String CA = "L'Observatori d'Accessibilitat Web analitza periòdicament el grau de compliment dels portals de l'Administració "
+            + "i publica els resultats perquè els responsables de cada lloc puguin corregir els problemes detectats a les seves pàgines.";
+
+    private static final String FR = "L'Observatoire de l'accessibilité du Web analyse périodiquement le degré de conformité des portails de l'administration "
+            + "et publie les résultats afin que les responsables de chaque site puissent corriger les problèmes détectés dans leurs pages.";
+
+    private static final String DE = "Die Beobachtungsstelle für Barrierefreiheit im Web analysiert regelmäßig, in welchem Umfang die Portale der Verwaltung "
+            + "die Anforderungen erfüllen, und veröffentlicht die Ergebnisse, damit die Verantwortlichen die gefundenen Probleme beheben können.";
+
+    private static final String IT = "L'Osservatorio sull'accessibilità del Web analizza periodicamente il grado di conformità dei portali della pubblica "
+            + "amministrazione e pubblica i risultati affinché i responsabili di ogni sito possano correggere i problemi rilevati nelle loro pagine.";
+
+    private static final String EU = "Web Irisgarritasunaren Behatokiak aldizka aztertzen du administrazioaren atarien betetze maila eta emaitzak argitaratzen ditu, "
+            + "gune bakoitzaren arduradunek beren orrietan aurkitutako arazoak zuzendu ahal izan ditzaten.";
+
+    private static final String RU = "Обсерватория веб-доступности периодически анализирует степень соответствия порталов государственного управления "
+            + "и публикует результаты, чтобы ответственные за каждый сайт могли исправить обнаруженные на их страницах проблемы.";
+
+    @Test
+    public void testGuessLanguage() {
+        final GuessLanguage guessLanguage = GuessLanguage.getInstance();
+        Assert.assertEquals("es", guessLanguage.guessLanguage(ES));
+        Assert.assertEquals("en", guessLanguage.guessLanguage(EN));
+        Assert.assertEquals("ca", guessLanguage.guessLanguage(CA));
+        Assert.assertEquals("fr", guessLanguage.guessLanguage(FR));
+        Assert.assertEquals("de", guessLanguage.guessLanguage(DE));
+        Assert.assertEquals("it", guessLanguage.guessLanguage(IT));
+        Assert.assertEquals("eu", guessLanguage.guessLanguage(EU));
+        Assert.assertEquals("ru", guessLanguage.guessLanguage(RU));
+        Assert.assertEquals(GuessLanguage.UNKNOWN_LANGUAGE, guessLanguage.guessLanguage("Texto corto"));
+    }
+
+    @Test
+    public void testSharedInstance() {
+        Assert.assertSame(GuessLanguage.getInstance(), GuessLanguage.getInstance());
+    }
+
+    @Test
+    public void testLanguageChecker() {
+        Assert.assertTrue(new LanguageChecker("es").isExpectedLanguage(ES));
+        Assert.assertFalse(new LanguageChecker("es").isExpectedLanguage(EN));
+        // El valenciano se comprueba como catalán
+        Assert.assertTrue(new LanguageChecker("va").isExpectedLanguage(CA));
+    }
+
+    @Test
+    public void testExtractFromDocument() throws Exception {
+        final String html = "<html lang=\"es\"><head><title>Título</title><style>body { color: red; }</style><script>var a = 1;</script></head>"
+                + "<body><h1>Encabezado</h1><p>Párrafo con <a href=\"#\" lang=\"en-GB\">English link</a> y <img src=\"a.png\" alt=\"logotipo\"> texto."
+                + "</p><div xml:lang=\"fr\"><p>Texte en français</p><p lang=\"es\">Otra vez en español</p></div>"
+                + "<table><tr><td> Celda </td><td><img src=\"b.png\"></td></tr></table></body></html>";
+        final Document document = parse(html);
+        for (boolean sameLanguage : new boolean[] { true, false }) {
+            final ExtractTextHandler saxHandler = new ExtractTextHandler("es", sameLanguage);
+            TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new SAXResult(saxHandler));
+            final ExtractTextHandler domHandler = new ExtractTextHandler("es", sameLanguage);
+            domHandler.extract(document);
+            Assert.assertEquals(saxHandler.getExtractedText(), domHandler.getExtractedText());
+        }
+        Assert.assertTrue(new ExtractTextHandler("es").getExtractedText().isEmpty());
+    }
+
+    @Test
+    public void testExtractMaxLength() throws Exception {
+        final StringBuilder html = new StringBuilder("<html lang=\"es\"><body>");
+        for (int i = 0; i < 1000; i++) {
+            html.append("<p>").append(ES).append("</p>");
+        }
+        html.append("</body></html>");
+        final ExtractTextHandler handler = new ExtractTextHandler("es", true, null, 5000);
+        handler.extract(parse(html.toString()));
+        Assert.assertTrue(handler.getExtractedText().length() >= 5000);
+        Assert.assertTrue(handler.getExtractedText().length() < 5000 + 2 * ES.length());
+    }
+
+    private static Document parse(final String html) throws Exception {
+        final CheckerParser parser = new CheckerParser(true);
+        parser.parse(new InputSource(new StringReader(html)));
+        return parser.getDocument();
+    }
+}
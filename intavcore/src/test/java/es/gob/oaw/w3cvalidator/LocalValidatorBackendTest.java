@@ -0,0 +1,143 @@
+package es.gob.oaw.w3cvalidator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import es.inteco.common.CssValidationError;
+import es.inteco.common.ValidationError;
+
+public class LocalValidatorBackendTest {
+
+    private final LocalValidatorBackend backend = new LocalValidatorBackend();
+
+    private List<String> validate(final String html) {
+        final List<String> errors = new ArrayList<>();
+        for (ValidationError validationError : backend.validateHtml(html)) {
+            errors.add(validationError.getMessageId() + "@" + validationError.getLine() + ":" + validationError.getColumn());
+        }
+        return errors;
+    }
+
+    @Test
+    public void testValidDocument() {
+        Assert.assertTrue(validate("<!DOCTYPE html>\n<html lang=\"es\"><head><meta charset=\"utf-8\"><title>a</b></title>"
+                + "<script>if (a < b) { document.write('</div>'); }</script></head>\n"
+                + "<body><!-- </span> --><p>Texto<br><br/>con <img src=\"a.png\" alt=\"\"></p>"
+                + "<svg><circle r=\"1\"/><path d=\"M0\"></path></svg><UL><li>Uno<li>Dos</ul></body></html>").isEmpty());
+    }
+
+    @Test
+    public void testDuplicateAttribute() {
+        Assert.assertEquals(listOf("11@2:3"), validate("<p>\n  <a href=\"a\" HREF=\"b\">a</a></p>"));
+    }
+
+    @Test
+    public void testSelfClosingNonVoidElement() {
+        Assert.assertEquals(listOf("70@1:6"), validate("<div><span/></div>"));
+    }
+
+    @Test
+    public void testStrayEndTag() {
+        Assert.assertEquals(listOf("79@1:6", "79@2:1"), validate("<div></a></div>\r\n</img>"));
+    }
+
+    @Test
+    public void testIds() {
+        Assert.assertEquals(listOf("82@1:13", "141@3:1"), validate("<div id=\"a\"><p id=\"b c\"></p>\r<span id=x></span>\n<em id='a'></em></div>"));
+    }
+
+    @Test
+    public void testCss() throws Exception {
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        final Element html = document.createElement("html");
+        document.appendChild(html);
+        final Element style = document.createElement("style");
+        style.setTextContent("body { color: black; }");
+        html.appendChild(style);
+        final Element link = document.createElement("link");
+        link.setAttribute("href", "estilos.css");
+        link.setUserData("css", "p { color: red; }\n\nh1 { color blue; }", null);
+        html.appendChild(link);
+
+        final List<CssValidationError> errors = backend.validateCss(document, "http://localhost/", "es");
+        Assert.assertFalse(errors.isEmpty());
+        for (CssValidationError error : errors) {
+            Assert.assertEquals("estilos.css", error.getUri());
+            Assert.assertEquals(3, error.getLine());
+            Assert.assertFalse(error.isSummary());
+            Assert.assertTrue(error.getCode().contains("estilos.css"));
+        }
+
+        link.setUserData("css", "p { color: red; }\n\nh1 color: blue; }", null);
+        Assert.assertEquals(1, backend.validateCss(document, "http://localhost/", "es").size());
+
+        link.setUserData("css", "p { color: red; }", null);
+        Assert.assertTrue(backend.validateCss(document, "http://localhost/", "es").isEmpty());
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        final List<String> validated = new ArrayList<>();
+        final CachingValidatorBackend cache = new CachingValidatorBackend(new ValidatorBackend() {
+            @Override
+            public List<ValidationError> validateHtml(final String contents) throws IOException {
+                validated.add(contents);
+                if (contents.isEmpty()) {
+                    throw new IOException("Sin contenido");
+                }
+                return backend.validateHtml(contents);
+            }
+
+            @Override
+            public List<CssValidationError> validateCss(final Document document, final String url, final String language) {
+                return new ArrayList<>();
+            }
+        }, 2);
+
+        final String page = "<p id=\"a\"></p><p id=\"a\"></p>";
+        final List<ValidationError> first = cache.validateHtml(page);
+        Assert.assertEquals("141", first.get(0).getMessageId());
+        // Las comprobaciones modifican los errores devueltos
+        first.get(0).setMessageId("232");
+        first.get(0).setLine(0);
+        final List<ValidationError> second = cache.validateHtml(page);
+        Assert.assertEquals("141", second.get(0).getMessageId());
+        Assert.assertEquals(1, second.get(0).getLine());
+        Assert.assertEquals(1, validated.size());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        // Los errores de validación no se guardan
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.validateHtml("");
+                Assert.fail();
+            } catch (IOException e) {
+                // Esperado
+            }
+        }
+        Assert.assertEquals(3, validated.size());
+
+        cache.validateHtml("<p></p>");
+        cache.validateHtml("<div></div>");
+        Assert.assertEquals(2, cache.size());
+        cache.validateHtml(page);
+        Assert.assertEquals(6, validated.size());
+    }
+
+    private static List<String> listOf(final String... values) {
+        final List<String> list = new ArrayList<>();
+        for (String value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,66 @@
+package es.inteco.intav.datos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SourceStoreTest {
+
+    private static final String HTML = "<html lang=\"es\"><head><title>Página de ejemplo</title></head><body><p>Contenido con acentos: áéíóú ñ</p></body></html>";
+
+    @Test
+    public void testCompressRoundTrip() throws Exception {
+        final byte[] bytes = HTML.getBytes(StandardCharsets.UTF_8);
+        final byte[] compressed = SourceStore.compress(bytes);
+        // Cabecera de COMPRESS(): longitud sin comprimir en 4 bytes little-endian
+        Assert.assertEquals(bytes.length, (compressed[0] & 0xFF) | (compressed[1] & 0xFF) << 8 | (compressed[2] & 0xFF) << 16 | (compressed[3] & 0xFF) << 24);
+        Assert.assertArrayEquals(bytes, read(SourceStore.uncompress(compressed)));
+    }
+
+    @Test
+    public void testUncompressMySQL() throws Exception {
+        // SELECT HEX(COMPRESS('a'))
+        Assert.assertEquals("a", new String(read(SourceStore.uncompress(Hex.decodeHex("01000000789C4B040000620062".toCharArray()))), StandardCharsets.UTF_8));
+        // COMPRESS('') devuelve una cadena vacía
+        Assert.assertEquals(0, read(SourceStore.uncompress(new byte[0])).length);
+    }
+
+    @Test
+    public void testHash() {
+        Assert.assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", SourceStore.hash("abc".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testAddDeduplicates() {
+        final Map<String, byte[]> contents = new HashMap<>();
+        final String first = SourceStore.add("body { color: black; }", contents);
+        final String second = SourceStore.add("body { color: black; }", contents);
+        final String third = SourceStore.add("body { color: white; }", contents);
+        Assert.assertEquals(first, second);
+        Assert.assertFalse(first.equals(third));
+        Assert.assertEquals(2, contents.size());
+        Assert.assertNull(SourceStore.add("", contents));
+        Assert.assertNull(SourceStore.add(null, contents));
+        Assert.assertEquals(2, contents.size());
+    }
+
+    @Test
+    public void testReadLegacy() throws Exception {
+        final String legacy = new String(Base64.encodeBase64(HTML.getBytes(StandardCharsets.UTF_8)), StandardCharsets.US_ASCII);
+        Assert.assertEquals(HTML, SourceStore.read(null, null, legacy));
+        Assert.assertEquals("", SourceStore.read(null, null, null));
+    }
+
+    private static byte[] read(final InputStream in) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assert.assertTrue(SourceStore.copy(in, out));
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,65 @@
+package es.inteco.intav.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ca.utoronto.atrc.tile.accessibilitychecker.Guideline;
+import ca.utoronto.atrc.tile.accessibilitychecker.GuidelineGroup;
+
+public class ObservatoryScoringModelTest {
+
+    private static final String[] METHODOLOGIES = { "observatorio-inteco-1-0.xml", "observatorio-une-2012.xml", "observatorio-une-2012-b.xml" };
+
+    private String readMethodology(final String name) throws IOException {
+        try (InputStream in = ObservatoryScoringModelTest.class.getClassLoader().getResourceAsStream("guidelines/" + name);
+             Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+
+    @Test
+    public void reusesCompiledMethodology() throws IOException {
+        final String methodology = readMethodology(METHODOLOGIES[0]);
+        Assert.assertSame(ObservatoryScoringModel.forMethodology(methodology), ObservatoryScoringModel.forMethodology(new String(methodology)));
+        Assert.assertNotSame(ObservatoryScoringModel.forMethodology(methodology), ObservatoryScoringModel.forMethodology(readMethodology(METHODOLOGIES[1])));
+    }
+
+    @Test
+    public void matchesGuidelineGroups() throws IOException {
+        for (String name : METHODOLOGIES) {
+            final String methodology = readMethodology(name);
+            final Guideline guideline = new Guideline().initialize(methodology);
+            final ObservatoryScoringModel model = ObservatoryScoringModel.forMethodology(methodology);
+            Assert.assertEquals(guideline.getGroups().size(), model.getLevels().size());
+            for (int i = 0; i < guideline.getGroups().size(); i++) {
+                final GuidelineGroup levelGroup = guideline.getGroups().get(i);
+                final ObservatoryScoringModel.LevelGroup level = model.getLevels().get(i);
+                Assert.assertEquals(levelGroup.getName(), level.getGroup().getName());
+                Assert.assertEquals(levelGroup.getGroupsVector().size(), level.getSuitabilityGroups().size());
+                for (int j = 0; j < levelGroup.getGroupsVector().size(); j++) {
+                    final GuidelineGroup suitabilityGroup = levelGroup.getGroupsVector().get(j);
+                    final ObservatoryScoringModel.SuitabilityGroup suitability = level.getSuitabilityGroups().get(j);
+                    Assert.assertEquals(suitabilityGroup.getGroupsVector().size(), suitability.getSubgroups().size());
+                    for (int k = 0; k < suitabilityGroup.getGroupsVector().size(); k++) {
+                        final GuidelineGroup subgroup = suitabilityGroup.getGroupsVector().get(k);
+                        final ObservatoryScoringModel.Subgroup compiled = suitability.getSubgroups().get(k);
+                        Assert.assertEquals(subgroup.getName(), compiled.getGroup().getName());
+                        Assert.assertEquals(subgroup.getChecksVector().size(), compiled.getNumChecks());
+                        for (int l = 0; l < compiled.getNumChecks(); l++) {
+                            Assert.assertEquals(subgroup.getChecksVector().get(l).intValue(), compiled.getCheck(l));
+                        }
+                        for (int check = 0; check < 1000; check++) {
+                            Assert.assertEquals(!subgroup.getNoExecutedMarkChecks().contains(check), compiled.marksExecuted(check));
+                            Assert.assertEquals(subgroup.getOnlyWarningChecks().contains(check), compiled.isOnlyWarning(check));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
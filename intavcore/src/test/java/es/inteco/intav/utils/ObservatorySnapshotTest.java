@@ -0,0 +1,244 @@
+package es.inteco.intav.utils;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import es.inteco.intav.form.AspectScoreForm;
+import es.inteco.intav.form.ObservatoryEvaluationForm;
+import es.inteco.intav.form.ObservatoryLevelForm;
+import es.inteco.intav.form.ObservatorySubgroupForm;
+import es.inteco.intav.form.ObservatorySuitabilityForm;
+import es.inteco.intav.form.ProblemForm;
+import es.inteco.intav.form.SeedForm;
+
+public class ObservatorySnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final List<ObservatoryEvaluationForm> forms = new ArrayList<>();
+        forms.add(createForm(1L, "http://www.example.com/", new BigDecimal("7.83"), createSeed("10", "Ejemplo", "Categoría A"), 2, 0));
+        forms.add(createForm(2L, "http://www.example.com/contacto", new BigDecimal("10.00"), createSeed("10", "Ejemplo", "Categoría A"), 2, 1));
+        forms.add(createForm(3L, "http://www.otro.es/", null, null, 1, 2));
+
+        final File file = folder.newFile("observatoryKeyCache1.snapshot");
+        Assert.assertTrue(ObservatorySnapshot.write(file, forms));
+
+        final ObservatorySnapshot snapshot = ObservatorySnapshot.open(file);
+        Assert.assertEquals(forms.size(), snapshot.size());
+        for (int i = 0; i < forms.size(); i++) {
+            assertFormEquals(forms.get(i), snapshot.get(i));
+        }
+    }
+
+    @Test
+    public void testColumns() throws Exception {
+        final List<ObservatoryEvaluationForm> forms = new ArrayList<>();
+        forms.add(createForm(1L, "http://www.example.com/", new BigDecimal("5.50"), createSeed("10", "Ejemplo", "Categoría A"), 2, 0));
+        forms.add(createForm(2L, "http://www.otro.es/", null, null, 2, 1));
+
+        final File file = folder.newFile("columns.snapshot");
+        Assert.assertTrue(ObservatorySnapshot.write(file, forms));
+
+        final ObservatorySnapshot snapshot = ObservatorySnapshot.open(file);
+        Assert.assertEquals(new BigDecimal("5.50"), snapshot.getScore(0));
+        Assert.assertNull(snapshot.getScore(1));
+        Assert.assertEquals(Long.valueOf(101L), snapshot.getCrawlerExecutionId(0));
+        Assert.assertEquals(Long.valueOf(2L), snapshot.getIdAnalysis(1));
+        Assert.assertEquals("10", snapshot.getSeedId(0));
+        Assert.assertEquals("Categoría A", snapshot.getSeedCategory(0));
+        Assert.assertNull(snapshot.getSeedId(1));
+        Assert.assertTrue(snapshot.isCheckFailed(0, 100));
+        Assert.assertFalse(snapshot.isCheckFailed(0, 999));
+        // Los formularios se construyen una sola vez
+        Assert.assertSame(snapshot.get(0), snapshot.get(0));
+    }
+
+    @Test
+    public void testRewriteLeavesNoTemporaryFiles() throws Exception {
+        final List<ObservatoryEvaluationForm> forms = new ArrayList<>();
+        forms.add(createForm(1L, "http://www.example.com/", new BigDecimal("5.50"), createSeed("10", "Ejemplo", "Categoría A"), 2, 0));
+
+        final File file = new File(folder.getRoot(), "rewrite.snapshot");
+        Assert.assertTrue(ObservatorySnapshot.write(file, forms));
+        Assert.assertTrue(ObservatorySnapshot.write(file, forms));
+        Assert.assertArrayEquals(new String[] { "rewrite.snapshot" }, folder.getRoot().list());
+        Assert.assertEquals(1, ObservatorySnapshot.open(file).size());
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final List<ObservatoryEvaluationForm> forms = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            forms.add(createForm(i, "http://www.example.com/" + i, new BigDecimal("5.50"), createSeed("10", "Ejemplo", "Categoría A"), 2, i % 2));
+        }
+        final File file = folder.newFile("concurrent.snapshot");
+        Assert.assertTrue(ObservatorySnapshot.write(file, forms));
+        final ObservatorySnapshot snapshot = ObservatorySnapshot.open(file);
+
+        final ObservatoryEvaluationForm[][] read = new ObservatoryEvaluationForm[4][forms.size()];
+        final Thread[] threads = new Thread[read.length];
+        for (int t = 0; t < threads.length; t++) {
+            final ObservatoryEvaluationForm[] target = read[t];
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < target.length; i++) {
+                        target[i] = snapshot.get(i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < forms.size(); i++) {
+            assertFormEquals(forms.get(i), read[0][i]);
+            for (int t = 1; t < read.length; t++) {
+                Assert.assertSame(read[0][i], read[t][i]);
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final File file = folder.newFile("empty.snapshot");
+        Assert.assertTrue(ObservatorySnapshot.write(file, new ArrayList<ObservatoryEvaluationForm>()));
+        Assert.assertTrue(ObservatorySnapshot.open(file).isEmpty());
+    }
+
+    @Test
+    public void testProblemsNotSupported() throws Exception {
+        final ObservatoryEvaluationForm form = createForm(1L, "http://www.example.com/", BigDecimal.ONE, null, 1, 0);
+        form.getGroups().get(0).getSuitabilityGroups().get(0).getSubgroups().get(0).getProblems().add(new ProblemForm());
+
+        final File file = new File(folder.getRoot(), "problems.snapshot");
+        Assert.assertFalse(ObservatorySnapshot.write(file, Arrays.asList(form)));
+        Assert.assertFalse(file.exists());
+    }
+
+    private ObservatoryEvaluationForm createForm(final long idAnalysis, final String url, final BigDecimal score, final SeedForm seed, final int numLevels, final int variant) {
+        final ObservatoryEvaluationForm form = new ObservatoryEvaluationForm();
+        form.setObservatoryExecutionId(1L);
+        form.setCrawlerExecutionId(100L + variant + (seed != null ? 1 : 0));
+        form.setIdAnalysis(idAnalysis);
+        form.setEntity("Entidad " + variant);
+        form.setUrl(url);
+        form.setScore(score);
+        form.setSeed(seed);
+        form.setChecksFailed(new ArrayList<>(Arrays.asList(100 + variant, 200)));
+        if (variant != 2) {
+            final List<AspectScoreForm> aspects = new ArrayList<>();
+            final AspectScoreForm aspect = new AspectScoreForm();
+            aspect.setName("Navegación");
+            aspect.setId(3L);
+            aspect.setScore(new BigDecimal("-1"));
+            aspects.add(aspect);
+            form.setAspects(aspects);
+        }
+        for (int i = 0; i < numLevels; i++) {
+            final ObservatoryLevelForm level = new ObservatoryLevelForm();
+            level.setName("Nivel " + i);
+            level.setScore(new BigDecimal("8.2" + variant));
+            final ObservatorySuitabilityForm suitability = new ObservatorySuitabilityForm();
+            suitability.setName("A");
+            suitability.setScore(BigDecimal.ZERO);
+            for (int j = 0; j < 3; j++) {
+                final ObservatorySubgroupForm subgroup = new ObservatorySubgroupForm();
+                subgroup.setDescription("Subgrupo " + i + "." + j);
+                subgroup.setAspect("Navegación");
+                subgroup.setValue(j + variant);
+                subgroup.getFailChecks().add(100 + j);
+                subgroup.getSuccessChecks().addAll(Arrays.asList(300, 301 + variant));
+                subgroup.getNotExecutedChecks().add(400);
+                if (j == variant) {
+                    subgroup.getOnlyWarningChecks().add(500);
+                    subgroup.getIgnoreRelatedChecks().add(501);
+                }
+                suitability.getSubgroups().add(subgroup);
+            }
+            level.getSuitabilityGroups().add(suitability);
+            form.getGroups().add(level);
+        }
+        return form;
+    }
+
+    private SeedForm createSeed(final String id, final String name, final String category) {
+        final SeedForm seed = new SeedForm();
+        seed.setId(id);
+        seed.setName(name);
+        seed.setAcronym(name.toUpperCase());
+        seed.setCategory(category);
+        return seed;
+    }
+
+    private void assertFormEquals(final ObservatoryEvaluationForm expected, final ObservatoryEvaluationForm actual) {
+        Assert.assertEquals(expected.getObservatoryExecutionId(), actual.getObservatoryExecutionId());
+        Assert.assertEquals(expected.getCrawlerExecutionId(), actual.getCrawlerExecutionId());
+        Assert.assertEquals(expected.getIdAnalysis(), actual.getIdAnalysis());
+        Assert.assertEquals(expected.getEntity(), actual.getEntity());
+        Assert.assertEquals(expected.getUrl(), actual.getUrl());
+        Assert.assertEquals(expected.getSource(), actual.getSource());
+        Assert.assertEquals(expected.getScore(), actual.getScore());
+        Assert.assertEquals(expected.getChecksFailed(), actual.getChecksFailed());
+        if (expected.getSeed() == null) {
+            Assert.assertNull(actual.getSeed());
+        } else {
+            Assert.assertEquals(expected.getSeed().getId(), actual.getSeed().getId());
+            Assert.assertEquals(expected.getSeed().getName(), actual.getSeed().getName());
+            Assert.assertEquals(expected.getSeed().getAcronym(), actual.getSeed().getAcronym());
+            Assert.assertEquals(expected.getSeed().getDependence(), actual.getSeed().getDependence());
+            Assert.assertEquals(expected.getSeed().getCategory(), actual.getSeed().getCategory());
+        }
+        if (expected.getAspects() == null) {
+            Assert.assertNull(actual.getAspects());
+        } else {
+            Assert.assertEquals(expected.getAspects().size(), actual.getAspects().size());
+            for (int i = 0; i < expected.getAspects().size(); i++) {
+                Assert.assertEquals(expected.getAspects().get(i).getName(), actual.getAspects().get(i).getName());
+                Assert.assertEquals(expected.getAspects().get(i).getId(), actual.getAspects().get(i).getId());
+                Assert.assertEquals(expected.getAspects().get(i).getScore(), actual.getAspects().get(i).getScore());
+            }
+        }
+        Assert.assertEquals(expected.getGroups().size(), actual.getGroups().size());
+        for (int i = 0; i < expected.getGroups().size(); i++) {
+            final ObservatoryLevelForm expectedLevel = expected.getGroups().get(i);
+            final ObservatoryLevelForm actualLevel = actual.getGroups().get(i);
+            Assert.assertEquals(expectedLevel.getName(), actualLevel.getName());
+            Assert.assertEquals(expectedLevel.getScore(), actualLevel.getScore());
+            Assert.assertEquals(expectedLevel.getSuitabilityGroups().size(), actualLevel.getSuitabilityGroups().size());
+            for (int j = 0; j < expectedLevel.getSuitabilityGroups().size(); j++) {
+                final ObservatorySuitabilityForm expectedSuitability = expectedLevel.getSuitabilityGroups().get(j);
+                final ObservatorySuitabilityForm actualSuitability = actualLevel.getSuitabilityGroups().get(j);
+                Assert.assertEquals(expectedSuitability.getName(), actualSuitability.getName());
+                Assert.assertEquals(expectedSuitability.getScore(), actualSuitability.getScore());
+                Assert.assertEquals(expectedSuitability.getSubgroups().size(), actualSuitability.getSubgroups().size());
+                for (int k = 0; k < expectedSuitability.getSubgroups().size(); k++) {
+                    final ObservatorySubgroupForm expectedSubgroup = expectedSuitability.getSubgroups().get(k);
+                    final ObservatorySubgroupForm actualSubgroup = actualSuitability.getSubgroups().get(k);
+                    Assert.assertEquals(expectedSubgroup.getDescription(), actualSubgroup.getDescription());
+                    Assert.assertEquals(expectedSubgroup.getAspect(), actualSubgroup.getAspect());
+                    Assert.assertEquals(expectedSubgroup.getGuidelineId(), actualSubgroup.getGuidelineId());
+                    Assert.assertEquals(expectedSubgroup.getValue(), actualSubgroup.getValue());
+                    Assert.assertEquals(expectedSubgroup.getFailChecks(), actualSubgroup.getFailChecks());
+                    Assert.assertEquals(expectedSubgroup.getOnlyWarningChecks(), actualSubgroup.getOnlyWarningChecks());
+                    Assert.assertEquals(expectedSubgroup.getIgnoreRelatedChecks(), actualSubgroup.getIgnoreRelatedChecks());
+                    Assert.assertEquals(expectedSubgroup.getSuccessChecks(), actualSubgroup.getSuccessChecks());
+                    Assert.assertEquals(expectedSubgroup.getNotExecutedChecks(), actualSubgroup.getNotExecutedChecks());
+                    Assert.assertTrue(actualSubgroup.getProblems().isEmpty());
+                }
+            }
+        }
+    }
+}
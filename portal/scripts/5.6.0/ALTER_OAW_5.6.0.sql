@@ -0,0 +1,26 @@
+-- Almacén de códigos fuente (HTML y CSS) comprimidos y direccionados por contenido.
+-- Cada contenido distinto se guarda una sola vez, con el SHA-256 de su contenido como clave y comprimido con el formato de COMPRESS()
+CREATE TABLE IF NOT EXISTS `tfuente` (
+  `hash` char(64) NOT NULL,
+  `longitud` bigint(20) NOT NULL,
+  `contenido` longblob NOT NULL,
+  PRIMARY KEY (`hash`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- Referencias de los análisis y de sus hojas de estilo al almacén
+ALTER TABLE `tanalisis` MODIFY COLUMN `ref_cod_fuente` CHAR(64) DEFAULT NULL, ADD INDEX `ref_cod_fuente` (`ref_cod_fuente`);
+ALTER TABLE `tanalisis_css` ADD COLUMN `ref_codigo` CHAR(64) DEFAULT NULL, ADD INDEX `ref_codigo` (`ref_codigo`);
+
+-- Migración de los códigos fuente guardados en Base64 (tanalisis.cod_fuente y tanalisis_css.codigo).
+-- La aplicación lee tanto los análisis migrados como los antiguos, por lo que se puede ejecutar en cualquier momento (y por partes, añadiendo un filtro por cod_rastreo)
+INSERT IGNORE INTO `tfuente` (`hash`, `longitud`, `contenido`)
+  SELECT SHA2(FROM_BASE64(cod_fuente), 256), LENGTH(FROM_BASE64(cod_fuente)), COMPRESS(FROM_BASE64(cod_fuente)) FROM `tanalisis` WHERE cod_fuente IS NOT NULL AND cod_fuente <> '';
+UPDATE `tanalisis` SET ref_cod_fuente = SHA2(FROM_BASE64(cod_fuente), 256), cod_fuente = NULL WHERE cod_fuente IS NOT NULL AND cod_fuente <> '';
+
+INSERT IGNORE INTO `tfuente` (`hash`, `longitud`, `contenido`)
+  SELECT SHA2(FROM_BASE64(codigo), 256), LENGTH(FROM_BASE64(codigo)), COMPRESS(FROM_BASE64(codigo)) FROM `tanalisis_css` WHERE codigo IS NOT NULL AND codigo <> '';
+UPDATE `tanalisis_css` SET ref_codigo = SHA2(FROM_BASE64(codigo), 256), codigo = NULL WHERE codigo IS NOT NULL AND codigo <> '';
+
+-- Recuperar el espacio de los códigos fuente antiguos
+OPTIMIZE TABLE `tanalisis`;
+OPTIMIZE TABLE `tanalisis_css`;
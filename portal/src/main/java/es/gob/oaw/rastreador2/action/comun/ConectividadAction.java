@@ -40,6 +40,7 @@ import org.apache.struts.action.ActionMessage;
 
 import com.google.gson.Gson;
 
+import es.gob.oaw.http.ProxySettingsCache;
 import es.gob.oaw.sim.DestinatarioMail;
 import es.gob.oaw.sim.Destinatarios;
 import es.gob.oaw.sim.DestinatariosMail;
@@ -134,6 +135,8 @@ public class ConectividadAction extends Action {
 					proxy.setPort(proxyPort);
 					ProxyDAO.update(c, proxy);
 					DataBaseManager.closeConnection(c);
+					// Los procesos de rastreo y análisis tienen la configuración en caché
+					ProxySettingsCache.invalidate();
 				} catch (Exception e) {
 					Logger.putLog("Error: ", ConectividadAction.class, Logger.LOG_LEVEL_ERROR, e);
 				}
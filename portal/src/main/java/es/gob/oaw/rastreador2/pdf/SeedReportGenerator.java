@@ -0,0 +1,252 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.gob.oaw.rastreador2.pdf;
+
+import static es.inteco.common.Constants.CRAWLER_PROPERTIES;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+import org.apache.struts.util.PropertyMessageResources;
+
+import es.inteco.common.Constants;
+import es.inteco.common.logging.Logger;
+import es.inteco.common.properties.PropertiesManager;
+import es.inteco.intav.datos.AnalisisDatos;
+import es.inteco.plugin.dao.DataBaseManager;
+import es.inteco.rastreador2.actionform.semillas.DependenciaForm;
+import es.inteco.rastreador2.actionform.semillas.SemillaForm;
+import es.inteco.rastreador2.dao.cartucho.CartuchoDAO;
+import es.inteco.rastreador2.dao.observatorio.ObservatorioDAO;
+import es.inteco.rastreador2.dao.rastreo.FulFilledCrawling;
+import es.inteco.rastreador2.dao.rastreo.RastreoDAO;
+import es.inteco.rastreador2.dao.semilla.SemillaDAO;
+import es.inteco.rastreador2.pdf.builder.AnonymousResultExportPdfAccesibilidad;
+import es.inteco.rastreador2.pdf.builder.AnonymousResultExportPdfUNE2012;
+import es.inteco.rastreador2.pdf.builder.AnonymousResultExportPdfUNE2012b;
+import es.inteco.rastreador2.pdf.builder.AnonymousResultExportPdfUNEEN2019;
+import es.inteco.rastreador2.pdf.utils.PDFUtils;
+import es.inteco.rastreador2.pdf.utils.PrimaryExportPdfUtils;
+import es.inteco.rastreador2.utils.SharedThreadPool;
+import es.inteco.utils.FileUtils;
+
+/**
+ * Generación de los informes PDF de las semillas de una iteración de un observatorio.
+ *
+ * Cada semilla tiene una copia de su informe (y del zip con su código fuente) en la carpeta de cada una de sus dependencias. El informe es el mismo en todas ellas, por lo que se genera una sola vez y
+ * después se copia al resto de carpetas. Los informes de las distintas semillas se generan en paralelo en un grupo de hilos compartido por todas las generaciones, cuyo tamaño se configura con
+ * <code>pdf.generator.threads</code>.
+ */
+public class SeedReportGenerator {
+	/** Grupo de hilos de generación de informes, tantos como indique pdf.generator.threads (2 por defecto). */
+	private static final SharedThreadPool REPORT_THREADS = new SharedThreadPool("SeedReportGenerator", "pdf.generator.threads", 2);
+	/** The id observatory. */
+	private final long idObservatory;
+	/** The id observatory execution. */
+	private final long idObservatoryExecution;
+
+	/**
+	 * Instantiates a new seed report generator.
+	 *
+	 * @param idObservatory          the id observatory
+	 * @param idObservatoryExecution the id observatory execution
+	 */
+	public SeedReportGenerator(final long idObservatory, final long idObservatoryExecution) {
+		this.idObservatory = idObservatory;
+		this.idObservatoryExecution = idObservatoryExecution;
+	}
+
+	/**
+	 * Genera los informes de los rastreos indicados que aún no existan y espera a que terminen. El progreso se registra en el log a medida que terminan.
+	 *
+	 * @param fulfilledCrawlings the fulfilled crawlings
+	 * @return true si se han procesado todos los rastreos o false si la generación se ha interrumpido (o se ha cerrado el grupo de hilos) y quedan informes sin generar
+	 */
+	public boolean buildReports(final List<FulFilledCrawling> fulfilledCrawlings) {
+		final CompletionService<Void> completionService = new ExecutorCompletionService<>(REPORT_THREADS.getExecutor());
+		final List<Future<Void>> reports = new ArrayList<>(fulfilledCrawlings.size());
+		for (final FulFilledCrawling fulfilledCrawling : fulfilledCrawlings) {
+			reports.add(completionService.submit(new Runnable() {
+				@Override
+				public void run() {
+					buildReport(fulfilledCrawling.getId(), fulfilledCrawling.getIdCrawling());
+				}
+			}, null));
+		}
+		try {
+			for (int finished = 1; finished <= reports.size(); finished++) {
+				try {
+					completionService.take().get();
+				} catch (ExecutionException e) {
+					Logger.putLog("Exception: ", SeedReportGenerator.class, Logger.LOG_LEVEL_ERROR, e);
+				}
+				Logger.putLog(String.format("Generados %d de %d informes de la iteración %d del observatorio %d", finished, reports.size(), idObservatoryExecution, idObservatory),
+						SeedReportGenerator.class, Logger.LOG_LEVEL_INFO);
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			Logger.putLog("Interrumpida la generación de informes", SeedReportGenerator.class, Logger.LOG_LEVEL_WARNING);
+		} catch (CancellationException e) {
+			Logger.putLog("Cancelada la generación de informes", SeedReportGenerator.class, Logger.LOG_LEVEL_WARNING);
+		}
+		for (Future<Void> report : reports) {
+			report.cancel(true);
+		}
+		return false;
+	}
+
+	/**
+	 * Genera el informe de un rastreo si falta en la carpeta de alguna de las dependencias de la semilla. El informe se genera en una de ellas (o se toma de una que ya lo tenga) y se copia al resto.
+	 *
+	 * @param idRastreoRealizado the id rastreo realizado
+	 * @param idRastreo          the id rastreo
+	 */
+	private void buildReport(final long idRastreoRealizado, final long idRastreo) {
+		try (Connection c = DataBaseManager.getConnection()) {
+			final SemillaForm seed = SemillaDAO.getSeedById(c, RastreoDAO.getIdSeedByIdRastreo(c, idRastreo));
+			File builtPdfFile = null;
+			final List<File> missingPdfFiles = new ArrayList<>();
+			for (File pdfFile : getReportFiles(c, seed)) {
+				if (pdfFile.exists() && new SourceFilesManager(pdfFile.getParentFile()).existsSourcesZip()) {
+					if (builtPdfFile == null) {
+						builtPdfFile = pdfFile;
+					}
+				} else {
+					missingPdfFiles.add(pdfFile);
+				}
+			}
+			if (missingPdfFiles.isEmpty()) {
+				return;
+			}
+			if (builtPdfFile == null) {
+				builtPdfFile = missingPdfFiles.remove(0);
+				if (!buildReport(c, idRastreoRealizado, idRastreo, seed, builtPdfFile)) {
+					return;
+				}
+			}
+			for (File pdfFile : missingPdfFiles) {
+				copyReport(builtPdfFile, pdfFile);
+			}
+		} catch (Exception e) {
+			Logger.putLog("Exception: ", SeedReportGenerator.class, Logger.LOG_LEVEL_ERROR, e);
+		}
+	}
+
+	/**
+	 * Genera el informe de un rastreo y el zip con su código fuente, si no existen.
+	 *
+	 * @param c                  the c
+	 * @param idRastreoRealizado the id rastreo realizado
+	 * @param idRastreo          the id rastreo
+	 * @param seed               the seed
+	 * @param pdfFile            the pdf file
+	 * @return true si el informe se ha generado o false si el rastreo no tiene análisis
+	 * @throws Exception the exception
+	 */
+	private boolean buildReport(final Connection c, final long idRastreoRealizado, final long idRastreo, final SemillaForm seed, final File pdfFile) throws Exception {
+		final List<Long> evaluationIds = AnalisisDatos.getEvaluationIdsFromRastreoRealizado(idRastreoRealizado);
+		if (evaluationIds == null || evaluationIds.isEmpty()) {
+			return false;
+		}
+		if (!pdfFile.exists()) {
+			final es.gob.oaw.rastreador2.observatorio.ObservatoryManager observatoryManager = new es.gob.oaw.rastreador2.observatorio.ObservatoryManager();
+			final List<Long> previousEvaluationIds = AnalisisDatos.getEvaluationIdsFromRastreoRealizado(
+					observatoryManager.getPreviousIdRastreoRealizadoFromIdRastreoAndIdObservatoryExecution(idRastreo, ObservatorioDAO.getPreviousObservatoryExecution(c, idObservatoryExecution)));
+			final long observatoryType = ObservatorioDAO.getObservatoryForm(c, idObservatory).getTipo();
+			String aplicacion = CartuchoDAO.getApplicationFromExecutedObservatoryId(c, idRastreoRealizado, idRastreo);
+			// Desdoblamiento nueva metodologia Nuevo fichero con los textos para las
+			// exportaciones
+			// Añadada UNE-EN2019 y accesibilidad
+			if (Constants.NORMATIVA_ACCESIBILIDAD.equalsIgnoreCase(aplicacion)) {
+				PrimaryExportPdfUtils.exportToPdf(new AnonymousResultExportPdfAccesibilidad(), idRastreoRealizado, evaluationIds, previousEvaluationIds,
+						PropertyMessageResources.getMessageResources(Constants.MESSAGE_RESOURCES_ACCESIBILIDAD), pdfFile.getPath(), seed.getNombre(), "", idObservatoryExecution, observatoryType);
+			} else if (Constants.NORMATIVA_UNE_EN2019.equalsIgnoreCase(aplicacion)) {
+				PrimaryExportPdfUtils.exportToPdf(new AnonymousResultExportPdfUNEEN2019(), idRastreoRealizado, evaluationIds, previousEvaluationIds,
+						PropertyMessageResources.getMessageResources(Constants.MESSAGE_RESOURCES_UNE_EN2019), pdfFile.getPath(), seed.getNombre(), "", idObservatoryExecution, observatoryType);
+			} else if (Constants.NORMATIVA_UNE_2012_B.equalsIgnoreCase(aplicacion)) {
+				PrimaryExportPdfUtils.exportToPdf(new AnonymousResultExportPdfUNE2012b(), idRastreoRealizado, evaluationIds, previousEvaluationIds,
+						PropertyMessageResources.getMessageResources(Constants.MESSAGE_RESOURCES_2012_B), pdfFile.getPath(), seed.getNombre(), "", idObservatoryExecution, observatoryType);
+			} else {
+				PrimaryExportPdfUtils.exportToPdf(new AnonymousResultExportPdfUNE2012(), idRastreoRealizado, evaluationIds, previousEvaluationIds,
+						PropertyMessageResources.getMessageResources("ApplicationResources"), pdfFile.getPath(), seed.getNombre(), "", idObservatoryExecution, observatoryType);
+			}
+		}
+		final SourceFilesManager sourceFilesManager = new SourceFilesManager(pdfFile.getParentFile());
+		if (!sourceFilesManager.existsSourcesZip()) {
+			sourceFilesManager.writeSourceFiles(c, evaluationIds);
+			sourceFilesManager.zipSources(true);
+		}
+		FileUtils.deleteDir(new File(pdfFile.getParent() + File.separator + "temp"));
+		return true;
+	}
+
+	/**
+	 * Copia un informe ya generado, y el zip con su código fuente, a la carpeta de otra dependencia.
+	 *
+	 * @param builtPdfFile el informe generado
+	 * @param pdfFile      el informe que falta
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void copyReport(final File builtPdfFile, final File pdfFile) throws IOException {
+		if (!pdfFile.getParentFile().exists() && !pdfFile.getParentFile().mkdirs()) {
+			throw new IOException("No se ha podido crear el directorio " + pdfFile.getParentFile().getAbsolutePath());
+		}
+		if (!pdfFile.exists()) {
+			Files.copy(builtPdfFile.toPath(), pdfFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		final SourceFilesManager sourceFilesManager = new SourceFilesManager(pdfFile.getParentFile());
+		if (!sourceFilesManager.existsSourcesZip()) {
+			Files.copy(new SourceFilesManager(builtPdfFile.getParentFile()).getSourcesZip().toPath(), sourceFilesManager.getSourcesZip().toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Gets the report files.
+	 *
+	 * @param c    the c
+	 * @param seed the seed
+	 * @return the report files
+	 */
+	private List<File> getReportFiles(final Connection c, final SemillaForm seed) {
+		List<File> pdfFiles = new ArrayList<>();
+		final PropertiesManager pmgr = new PropertiesManager();
+		try {
+			List<DependenciaForm> dependenciasSemilla = SemillaDAO.getSeedDependenciasById(c, seed.getId());
+			if (dependenciasSemilla != null && !dependenciasSemilla.isEmpty()) {
+				for (DependenciaForm dependenciaSemilla : dependenciasSemilla) {
+					String dependOn = PDFUtils.formatSeedName(dependenciaSemilla.getName());
+					if (dependOn == null || dependOn.isEmpty()) {
+						dependOn = Constants.NO_DEPENDENCE;
+					}
+					final String path = pmgr.getValue(CRAWLER_PROPERTIES, "path.inteco.exports.observatory.intav") + idObservatory + File.separator + idObservatoryExecution + File.separator + dependOn
+							+ File.separator + PDFUtils.formatSeedName(seed.getNombre());
+					pdfFiles.add(new File(path + File.separator + PDFUtils.formatSeedName(seed.getNombre()) + ".pdf"));
+				}
+			}
+		} catch (Exception e) {
+			Logger.putLog("Error al obtener las dependencias de la semilla " + seed.getId(), SeedReportGenerator.class, Logger.LOG_LEVEL_ERROR, e);
+		}
+		return pdfFiles;
+	}
+}
@@ -1,12 +1,15 @@
 package es.gob.oaw.rastreador2.pdf;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.URL;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
 
 import org.apache.tika.io.FilenameUtils;
@@ -46,6 +49,15 @@ public class SourceFilesManager {
 		return sourcesFile.exists();
 	}
 
+	/**
+	 * Obtiene el fichero zip que contiene el código fuente.
+	 *
+	 * @return el fichero zip, exista o no.
+	 */
+	public File getSourcesZip() {
+		return sourcesFile;
+	}
+
 	/**
 	 * Escribe en el directorio en el que está inicializado los ficheros de una evaluación de un portal.
 	 *
@@ -60,17 +72,24 @@ public class SourceFilesManager {
 				Logger.putLog("No se ha podido crear el directorio sources - " + pageSourcesDirectory.getAbsolutePath(), PdfGeneratorThread.class, Logger.LOG_LEVEL_ERROR);
 			}
 			try (PrintWriter fw = new PrintWriter(new FileWriter(new File(pageSourcesDirectory, "references.txt"), true))) {
-				final Analysis analysis = AnalisisDatos.getAnalisisFromId(c, evaluationId);
+				// Los códigos fuente se copian del almacén a los ficheros sin cargarlos completos en memoria
+				final Analysis analysis = AnalisisDatos.getAnalisisFromId(c, evaluationId, true);
 				final File htmlTempFile = File.createTempFile("oaw_", "_html.html", pageSourcesDirectory);
-				fw.println(writeTempFile(htmlTempFile, analysis.getSource(), analysis.getUrl()));
-				final List<CSSDTO> cssResourcesFromEvaluation = AnalisisDatos.getCSSResourcesFromEvaluation(evaluationId);
+				try (OutputStream out = new BufferedOutputStream(new FileOutputStream(htmlTempFile))) {
+					AnalisisDatos.writeSource(c, evaluationId, out);
+				}
+				fw.println(htmlTempFile.getName() + " --> " + analysis.getUrl());
+				final List<CSSDTO> cssResourcesFromEvaluation = AnalisisDatos.getCSSReferencesFromEvaluation(c, evaluationId);
 				for (CSSDTO cssdto : cssResourcesFromEvaluation) {
 					final File stylesheetTempFile = createCSSTempFile(cssdto.getUrl(), pageSourcesDirectory);
-					fw.println(writeTempFile(stylesheetTempFile, cssdto.getCodigo(), cssdto.getUrl()));
+					try (OutputStream out = new BufferedOutputStream(new FileOutputStream(stylesheetTempFile))) {
+						AnalisisDatos.writeCSSResource(c, cssdto.getId(), out);
+					}
+					fw.println(stylesheetTempFile.getName() + " --> " + cssdto.getUrl());
 				}
 				index++;
 				fw.flush();
-			} catch (IOException e) {
+			} catch (IOException | SQLException e) {
 				Logger.putLog("Exception al intentar guardar el código fuente", SourceFilesManager.class, Logger.LOG_LEVEL_ERROR, e);
 			}
 		}
@@ -103,18 +122,16 @@ public class SourceFilesManager {
 	 * @param evaluationIds    the evaluation ids
 	 * @param originalFilename the original filename
 	 */
-	@SuppressWarnings("deprecation")
 	public void writeSourceFilesContent(final Connection c, final List<Long> evaluationIds, final String originalFilename) {
 		for (Long evaluationId : evaluationIds) {
 			final File pageSourcesDirectory = new File(parentDir, "codigo_fuente");
 			if (!pageSourcesDirectory.mkdirs()) {
 				Logger.putLog("No se ha podido crear el directorio sources - " + pageSourcesDirectory.getAbsolutePath(), PdfGeneratorThread.class, Logger.LOG_LEVEL_ERROR);
 			}
-			try {
-				final Analysis analysis = AnalisisDatos.getAnalisisFromId(c, evaluationId);
-				final File sourceCode = new File(pageSourcesDirectory + "/" + originalFilename);
-				org.apache.commons.io.FileUtils.writeStringToFile(sourceCode, analysis.getSource());
-			} catch (IOException e) {
+			final File sourceCode = new File(pageSourcesDirectory + "/" + originalFilename);
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(sourceCode))) {
+				AnalisisDatos.writeSource(c, evaluationId, out);
+			} catch (IOException | SQLException e) {
 				Logger.putLog("Exception al intentar guardar el código fuente", SourceFilesManager.class, Logger.LOG_LEVEL_ERROR, e);
 			}
 		}
@@ -126,7 +143,6 @@ public class SourceFilesManager {
 	 * @param c             the c
 	 * @param evaluationIds the evaluation ids
 	 */
-	@SuppressWarnings("deprecation")
 	public void writeSourceFilesContentMultiple(final Connection c, final List<Long> evaluationIds) {
 		int index = 1;
 		for (Long evaluationId : evaluationIds) {
@@ -134,11 +150,11 @@ public class SourceFilesManager {
 			if (!pageSourcesDirectory.mkdirs()) {
 				Logger.putLog("No se ha podido crear el directorio sources - " + pageSourcesDirectory.getAbsolutePath(), PdfGeneratorThread.class, Logger.LOG_LEVEL_ERROR);
 			}
-			try {
-				final Analysis analysis = AnalisisDatos.getAnalisisFromId(c, evaluationId);
-				final File sourceCode = new File(pageSourcesDirectory + "/" + analysis.getUrl());
-				org.apache.commons.io.FileUtils.writeStringToFile(sourceCode, analysis.getSource());
-			} catch (IOException e) {
+			final Analysis analysis = AnalisisDatos.getAnalisisFromId(c, evaluationId, true);
+			final File sourceCode = new File(pageSourcesDirectory + "/" + analysis.getUrl());
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(sourceCode))) {
+				AnalisisDatos.writeSource(c, evaluationId, out);
+			} catch (IOException | SQLException e) {
 				Logger.putLog("Exception al intentar guardar el código fuente", SourceFilesManager.class, Logger.LOG_LEVEL_ERROR, e);
 			}
 			index++;
@@ -178,23 +194,6 @@ public class SourceFilesManager {
 		}
 	}
 
-	/**
-	 * Write temp file.
-	 *
-	 * @param tempFile the temp file
-	 * @param source   the source
-	 * @param url      the url
-	 * @return the string
-	 * @throws FileNotFoundException the file not found exception
-	 */
-	private String writeTempFile(final File tempFile, final String source, final String url) throws FileNotFoundException {
-		try (PrintWriter writer = new PrintWriter(tempFile)) {
-			writer.print(source);
-			writer.flush();
-		}
-		return tempFile.getName() + " --> " + url;
-	}
-
 	/**
 	 * Comprime los ficheros con el código fuente en un archivo zip.
 	 *
@@ -52,6 +52,7 @@ import es.inteco.rastreador2.dao.rastreo.DatosCartuchoRastreoForm;
 import es.inteco.rastreador2.dao.rastreo.RastreoDAO;
 import es.inteco.rastreador2.dao.semilla.SemillaDAO;
 import es.inteco.rastreador2.pdf.utils.ZipUtils;
+import es.inteco.rastreador2.utils.AnnexContext;
 import es.inteco.rastreador2.utils.AnnexUtils;
 import es.inteco.rastreador2.utils.CrawlerUtils;
 import es.inteco.rastreador2.utils.ObservatoryUtils;
@@ -394,9 +395,10 @@ public class ResultadosObservatorioAction extends Action {
 			if (Constants.NORMATIVA_UNE_EN2019.equalsIgnoreCase(application)) {
 				resources = MessageResources.getMessageResources(Constants.MESSAGE_RESOURCES_UNE_EN2019);
 			}
-			AnnexUtils.createAnnexPaginas(resources, idObsExecution, idOperation, null, null);
-			AnnexUtils.createAnnexPortales(resources, idObsExecution, idOperation, null, null);
-			AnnexUtils.createAnnexXLSX2(resources, idObsExecution, idOperation, null);
+			final AnnexContext context = AnnexUtils.createAnnexContext(idObsExecution, null);
+			AnnexUtils.createAnnexPaginas(context, resources, idObsExecution, idOperation, null, null);
+			AnnexUtils.createAnnexPortales(context, resources, idObsExecution, idOperation, null, null);
+			AnnexUtils.createAnnexXLSX2(context, resources, idObsExecution, idOperation, null);
 			final PropertiesManager pmgr = new PropertiesManager();
 			final String exportPath = pmgr.getValue(CRAWLER_PROPERTIES, "export.annex.path");
 			final String zipPath = exportPath + idOperation + File.separator + "anexos.zip";
@@ -19,7 +19,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import es.inteco.common.logging.Logger;
 import es.inteco.plugin.dao.DataBaseManager;
@@ -199,6 +201,33 @@ public final class CartuchoDAO {
 		}
 	}
 
+	/**
+	 * Obtiene con una sola consulta la aplicación del cartucho de cada análisis de un rastreo.
+	 *
+	 * @param c          the c
+	 * @param idTracking the id tracking
+	 * @return la aplicación indexada por el identificador del análisis
+	 * @throws SQLException the SQL exception
+	 */
+	public static Map<Long, String> getApplicationsByTracking(final Connection c, final long idTracking) throws SQLException {
+		final Map<Long, String> applications = new HashMap<>();
+		try (PreparedStatement ps = c.prepareStatement("select ta.cod_analisis, c.aplicacion from cartucho c, tanalisis ta where c.id_guideline=ta.cod_guideline and ta.cod_rastreo=?")) {
+			ps.setLong(1, idTracking);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					// Como en getApplicationFromAnalisisId, si hay varios cartuchos se usa el primero
+					if (!applications.containsKey(rs.getLong("cod_analisis"))) {
+						applications.put(rs.getLong("cod_analisis"), rs.getString("aplicacion"));
+					}
+				}
+			}
+		} catch (SQLException e) {
+			Logger.putLog("Exception: ", ObservatorioDAO.class, Logger.LOG_LEVEL_ERROR, e);
+			throw e;
+		}
+		return applications;
+	}
+
 	public static String getApplicationFromIdExObs(final Connection c, final Long idExobs) throws SQLException {
 		try (PreparedStatement ps = c.prepareStatement(
 				"SELECT c.aplicacion FROM observatorio o JOIN observatorios_realizados obr ON o.id_observatorio = obr.id_observatorio JOIN cartucho c ON o.id_cartucho = c.id_cartucho WHERE obr.id = ?")) {
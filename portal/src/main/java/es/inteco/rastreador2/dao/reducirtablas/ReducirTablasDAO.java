@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import es.inteco.common.logging.Logger;
+import es.inteco.intav.datos.SourceStore;
 import es.inteco.rastreador2.actionform.observatorio.ReducirTablasForm;
 
 /**
@@ -54,7 +55,7 @@ public final class ReducirTablasDAO {
 						try (ResultSet rs2 = ps2.executeQuery()) {
 							while (rs2.next()) { // iterando por los cod_analisis de tanalisis
 								codAnalisis = rs2.getLong("cod_analisis"); // 3652
-								PreparedStatement deleteAnalisisCSS = c.prepareStatement("UPDATE tanalisis_css SET codigo = NULL WHERE cod_analisis = ?");
+								PreparedStatement deleteAnalisisCSS = c.prepareStatement("UPDATE tanalisis_css SET codigo = NULL, ref_codigo = NULL WHERE cod_analisis = ?");
 								deleteAnalisisCSS.setLong(1, codAnalisis);
 								deleteAnalisisCSS.executeUpdate();
 //								PreparedStatement deleteIncidencia = c.prepareStatement("DELETE FROM tincidencia WHERE cod_analisis = ?");
@@ -63,11 +64,13 @@ public final class ReducirTablasDAO {
 							}
 						}
 					}
-					PreparedStatement deleteAnalisis = c.prepareStatement("UPDATE tanalisis SET cod_fuente = NULL WHERE cod_rastreo = ?");
+					PreparedStatement deleteAnalisis = c.prepareStatement("UPDATE tanalisis SET cod_fuente = NULL, ref_cod_fuente = NULL WHERE cod_rastreo = ?");
 					deleteAnalisis.setLong(1, idRastreoRealizado);
 					deleteAnalisis.executeUpdate();
 				}
 			}
+			// Se eliminan del almacén los códigos fuente que ya no usa ningún otro análisis
+			SourceStore.deleteUnreferenced(c);
 		} catch (SQLException e) {
 			Logger.putLog("SQL Exception: ", ReducirTablasDAO.class, Logger.LOG_LEVEL_ERROR, e);
 			throw e;
@@ -23,7 +23,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 import es.inteco.common.Constants;
@@ -81,6 +85,8 @@ public final class SemillaDAO {
 	private static final String L_ID_LISTA = "l.id_lista";
 	/** The Constant SQL_EXCEPTION. */
 	private static final String SQL_EXCEPTION = "SQL Exception: ";
+	/** Número de semillas que se consultan en cada bloque de {@link #getSeedsById(Connection, Collection)}. */
+	private static final int SEED_QUERY_SIZE = 500;
 
 	/**
 	 * Instantiates a new semilla DAO.
@@ -1192,6 +1198,135 @@ public final class SemillaDAO {
 		return semillasForm;
 	}
 
+	/**
+	 * Obtiene de una vez varias semillas con su categoría, ámbito, complejidad, dependencias y etiquetas, igual que {@link #getSeedById(Connection, long)}. Las semillas se consultan por bloques de
+	 * {@link #SEED_QUERY_SIZE} con tres consultas por bloque en lugar de tres consultas por semilla.
+	 *
+	 * @param c          the c
+	 * @param idsSemilla the ids semilla
+	 * @return las semillas encontradas, por identificador
+	 * @throws SQLException the SQL exception
+	 */
+	public static Map<Long, SemillaForm> getSeedsById(Connection c, Collection<Long> idsSemilla) throws SQLException {
+		final Map<Long, SemillaForm> seeds = new LinkedHashMap<>();
+		final List<Long> ids = new ArrayList<>(new LinkedHashSet<>(idsSemilla));
+		for (int from = 0; from < ids.size(); from += SEED_QUERY_SIZE) {
+			final List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + SEED_QUERY_SIZE));
+			final String in = getInClause(chunk.size());
+			try (PreparedStatement ps = c.prepareStatement(
+					"SELECT * FROM lista l LEFT OUTER JOIN categorias_lista cl ON (l.id_categoria = cl.id_categoria) LEFT JOIN ambitos_lista al ON (al.id_ambito = l.id_ambito) LEFT JOIN complejidades_lista cxl ON (cxl.id_complejidad = l.id_complejidad) WHERE l.id_lista IN "
+							+ in)) {
+				setIds(ps, chunk);
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						final SemillaForm semillaForm = new SemillaForm();
+						semillaForm.setId(rs.getLong(ID_LISTA));
+						semillaForm.setListaUrls(convertStringToList(rs.getString(LISTA)));
+						semillaForm.setListaUrlsString(rs.getString(LISTA));
+						semillaForm.setNombre(rs.getString(NOMBRE));
+						semillaForm.setObservaciones(rs.getString("l.observaciones"));
+						CategoriaForm categoriaForm = new CategoriaForm();
+						categoriaForm.setId(rs.getString(ID_CATEGORIA));
+						categoriaForm.setName(rs.getString("cl.nombre"));
+						categoriaForm.setOrden(rs.getInt("cl.orden"));
+						semillaForm.setCategoria(categoriaForm);
+						AmbitoForm ambitoForm = new AmbitoForm();
+						ambitoForm.setId(rs.getString(ID_AMBITO));
+						ambitoForm.setName(rs.getString(NOMBRE_AMB));
+						semillaForm.setAmbito(ambitoForm);
+						final ComplejidadForm complejidadForm = new ComplejidadForm();
+						complejidadForm.setId(rs.getString(ID_COMPLEJIDAD));
+						complejidadForm.setName(rs.getString(NOMBRE_COM));
+						complejidadForm.setProfundidad(rs.getInt(PROFUNDIDAD));
+						complejidadForm.setAmplitud(rs.getInt(AMPLITUD));
+						semillaForm.setComplejidad(complejidadForm);
+						semillaForm.setDependencias(new ArrayList<DependenciaForm>());
+						semillaForm.setEtiquetas(new ArrayList<EtiquetaForm>());
+						semillaForm.setAcronimo(rs.getString("acronimo"));
+						semillaForm.setActiva(rs.getBoolean("activa"));
+						semillaForm.setInDirectory(rs.getBoolean("in_directory"));
+						semillaForm.setEliminar(rs.getBoolean("eliminar"));
+						seeds.put(semillaForm.getId(), semillaForm);
+					}
+				}
+			} catch (SQLException e) {
+				Logger.putLog(SQL_EXCEPTION, SemillaDAO.class, Logger.LOG_LEVEL_ERROR, e);
+				throw e;
+			}
+			// Multidependencia
+			try (PreparedStatement ps = c.prepareStatement(
+					"SELECT sd.id_lista, d.id_dependencia, d.nombre FROM semilla_dependencia sd JOIN dependencia d ON (d.id_dependencia = sd.id_dependencia) WHERE sd.id_lista IN " + in
+							+ " ORDER BY UPPER(d.nombre)")) {
+				setIds(ps, chunk);
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						final SemillaForm semillaForm = seeds.get(rs.getLong(ID_LISTA));
+						if (semillaForm != null) {
+							DependenciaForm dependencia = new DependenciaForm();
+							dependencia.setId(rs.getLong("id_dependencia"));
+							dependencia.setName(rs.getString(NOMBRE));
+							semillaForm.getDependencias().add(dependencia);
+						}
+					}
+				}
+			} catch (SQLException e) {
+				Logger.putLog(SQL_EXCEPTION, SemillaDAO.class, Logger.LOG_LEVEL_ERROR, e);
+				throw e;
+			}
+			// Etiquetas
+			try (PreparedStatement ps = c.prepareStatement(
+					"SELECT se.id_lista, e.id_etiqueta, e.nombre, e.id_clasificacion FROM semilla_etiqueta se JOIN etiqueta e ON (e.id_etiqueta = se.id_etiqueta) WHERE se.id_lista IN " + in
+							+ " ORDER BY UPPER(e.nombre)")) {
+				setIds(ps, chunk);
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						final SemillaForm semillaForm = seeds.get(rs.getLong(ID_LISTA));
+						if (semillaForm != null) {
+							EtiquetaForm etiqueta = new EtiquetaForm();
+							etiqueta.setId(rs.getLong("id_etiqueta"));
+							etiqueta.setName(rs.getString(NOMBRE));
+							ClasificacionForm clasificacion = new ClasificacionForm();
+							clasificacion.setId(rs.getString("id_clasificacion"));
+							etiqueta.setClasificacion(clasificacion);
+							semillaForm.getEtiquetas().add(etiqueta);
+						}
+					}
+				}
+			} catch (SQLException e) {
+				Logger.putLog(SQL_EXCEPTION, SemillaDAO.class, Logger.LOG_LEVEL_ERROR, e);
+				throw e;
+			}
+		}
+		return seeds;
+	}
+
+	/**
+	 * Genera la lista de parámetros de una cláusula IN.
+	 *
+	 * @param size el número de parámetros
+	 * @return la cláusula, por ejemplo (?, ?, ?)
+	 */
+	private static String getInClause(final int size) {
+		final StringBuilder in = new StringBuilder("(");
+		for (int i = 0; i < size; i++) {
+			in.append(i == 0 ? "?" : ", ?");
+		}
+		return in.append(")").toString();
+	}
+
+	/**
+	 * Asigna los identificadores a los parámetros de una consulta.
+	 *
+	 * @param ps  the ps
+	 * @param ids the ids
+	 * @throws SQLException the SQL exception
+	 */
+	private static void setIds(final PreparedStatement ps, final List<Long> ids) throws SQLException {
+		for (int i = 0; i < ids.size(); i++) {
+			ps.setLong(i + 1, ids.get(i));
+		}
+	}
+
 	/**
 	 * Gets the id list.
 	 *
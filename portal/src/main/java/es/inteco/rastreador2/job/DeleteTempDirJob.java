@@ -59,7 +59,7 @@ public class DeleteTempDirJob implements StatefulJob {
     public void execute(JobExecutionContext context) throws JobExecutionException {
 
         deleteFilesJob();
-        //deleteObservatoryCacheJob();
+        deleteObservatoryCacheJob();
 
     }
 
@@ -126,14 +126,24 @@ public class DeleteTempDirJob implements StatefulJob {
 
             for (ObservatorioRealizadoForm fulfilledObservatory : fulfilledObservatories) {
                 String keyCache = Constants.OBSERVATORY_KEY_CACHE + fulfilledObservatory.getId();
+                if (CacheUtils.hasObservatorySnapshot(keyCache)) {
+                    // Las instantáneas caducan por antigüedad más abajo
+                    continue;
+                }
                 try {
                     CacheUtils.getFromCache(keyCache);
                 } catch (NeedsRefreshException e) {
                     Logger.putLog("La caché de la ejecución " + fulfilledObservatory.getId() + " ha caducado. Se va a proceder a borrar", DeleteTempDirJob.class, Logger.LOG_LEVEL_INFO);
+                    CacheUtils.cancelUpdate(keyCache);
                     CacheUtils.removeFromCache(keyCache);
                 }
             }
 
+            int deletedSnapshots = CacheUtils.deleteExpiredSnapshots();
+            if (deletedSnapshots > 0) {
+                Logger.putLog("Se han borrado " + deletedSnapshots + " instantáneas caducadas de resultados del observatorio", DeleteTempDirJob.class, Logger.LOG_LEVEL_INFO);
+            }
+
         } catch (Exception e) {
             Logger.putLog("Se ha producido un error al intentar borrar los archivos expirados de caché", DeleteTempDirJob.class, Logger.LOG_LEVEL_INFO, e);
         } finally {
@@ -39,6 +39,7 @@ import es.inteco.crawler.common.Constants;
 import es.inteco.crawler.dao.EstadoObservatorioDAO;
 import es.inteco.crawler.job.CrawlerData;
 import es.inteco.crawler.job.CrawlerJob;
+import es.inteco.crawler.job.CrawlerSeedExecutor;
 import es.inteco.intav.utils.CacheUtils;
 import es.inteco.intav.utils.EvaluatorUtils;
 import es.inteco.plugin.dao.DataBaseManager;
@@ -67,9 +68,11 @@ import es.inteco.rastreador2.utils.ResultadosAnonimosObservatorioIntavUtils;
  */
 public class ExecuteScheduledObservatory implements StatefulJob, InterruptableJob {
 	/** The interrupted. */
-	private boolean interrupted = false;
-	/** The crawler job. */
-	private CrawlerJob crawlerJob;
+	private volatile boolean interrupted = false;
+	/** The seed executor. */
+	private CrawlerSeedExecutor seedExecutor;
+	/** El rastreo relanzado en curso, que se relanza fuera del grupo de semillas. */
+	private volatile CrawlerJob relaunchJob;
 	/** The observatory id. */
 	private Long observatoryId;
 
@@ -98,6 +101,9 @@ public class ExecuteScheduledObservatory implements StatefulJob, InterruptableJo
 				boolean isFirst = true;
 				int counter = 0;
 				ObservatorioDAO.updateObservatoryStatus(c, idFulfilledObservatory, Constants.LAUNCHED_OBSERVATORY_STATUS);
+				// Las semillas se rastrean en paralelo, la preparación de cada una
+				// sigue siendo secuencial
+				seedExecutor = CrawlerSeedExecutor.newFromProperties();
 				for (CuentaCliente observatory : observatories) {
 					if (!interrupted) {
 						// Volvemos a generarla conexión por si tarda mucho el
@@ -132,9 +138,19 @@ public class ExecuteScheduledObservatory implements StatefulJob, InterruptableJo
 								isFirst = false;
 							}
 							DataBaseManager.closeConnection(c);
-							crawlerJob = new CrawlerJob();
-							crawlerJob.launchCrawler(crawlerData);
-							// SchedulingUtils.start(crawlerData, crawlerJob );
+							seedExecutor.submit(crawlerData, new CrawlerSeedExecutor.ErrorListener() {
+								@Override
+								public void onError(final CrawlerData failedCrawlerData, final Throwable error) {
+									if (error instanceof OutOfMemoryError) {
+										Logger.putLog("Se ha producido un OutOfMemory. ", ExecuteScheduledObservatory.class, Logger.LOG_LEVEL_WARNING);
+										try {
+											administratorErrorMail(error, failedCrawlerData.getUrls().get(0));
+										} catch (SQLException e) {
+											Logger.putLog("Fallo al enviar el correo", ExecuteScheduledObservatory.class, Logger.LOG_LEVEL_ERROR, e);
+										}
+									}
+								}
+							});
 						} catch (Exception e) {
 							Logger.putLog("Se ha producido una Excepcion. ", ExecuteScheduledObservatory.class, Logger.LOG_LEVEL_WARNING, e);
 						} catch (OutOfMemoryError e) {
@@ -142,12 +158,16 @@ public class ExecuteScheduledObservatory implements StatefulJob, InterruptableJo
 							administratorErrorMail(e, url);
 						}
 					} else {
-						c = DataBaseManager.getConnection();
-						ObservatorioDAO.updateObservatoryStatus(c, idFulfilledObservatory, Constants.STOPPED_OBSERVATORY_STATUS);
-						DataBaseManager.closeConnection(c);
 						break;
 					}
 				}
+				// Esperamos a que terminen todas las semillas
+				seedExecutor.awaitCompletion();
+				if (interrupted) {
+					c = DataBaseManager.getConnection();
+					ObservatorioDAO.updateObservatoryStatus(c, idFulfilledObservatory, Constants.STOPPED_OBSERVATORY_STATUS);
+					DataBaseManager.closeConnection(c);
+				}
 				// Ends observatory execution
 				if (!interrupted) {
 					if (c != null && c.isClosed()) {
@@ -298,9 +318,17 @@ public class ExecuteScheduledObservatory implements StatefulJob, InterruptableJo
 		crawlerData.setExtendedTimeoutValue(ObservatorioDAO.getTimeoutFromConfig(c));
 		crawlerData.setExtendedDepth(ObservatorioDAO.getDepthFromConfig(c));
 		crawlerData.setExtendedWidth(ObservatorioDAO.getWidthFromConfig(c));
-		crawlerJob = new CrawlerJob();
-		crawlerJob.launchCrawler(crawlerData);
-		DataBaseManager.closeConnection(c);
+		final CrawlerJob crawlerJob = new CrawlerJob();
+		relaunchJob = crawlerJob;
+		try {
+			// Si se ha parado el observatorio mientras se preparaba el rastreo no llega a lanzarse
+			if (!interrupted) {
+				crawlerJob.launchCrawler(crawlerData);
+			}
+		} finally {
+			relaunchJob = null;
+			DataBaseManager.closeConnection(c);
+		}
 	}
 
 	/**
@@ -379,7 +407,13 @@ public class ExecuteScheduledObservatory implements StatefulJob, InterruptableJo
 	@Override
 	public void interrupt() throws UnableToInterruptJobException {
 		this.interrupted = true;
-		this.crawlerJob.interrupt();
+		if (this.seedExecutor != null) {
+			this.seedExecutor.interrupt();
+		}
+		final CrawlerJob currentRelaunchJob = this.relaunchJob;
+		if (currentRelaunchJob != null) {
+			currentRelaunchJob.interrupt();
+		}
 		Logger.putLog("Lanzando la ejecución del observatorio con id " + observatoryId, ExecuteScheduledObservatory.class, Logger.LOG_LEVEL_INFO);
 	}
 }
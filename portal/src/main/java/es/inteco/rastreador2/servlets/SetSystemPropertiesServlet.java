@@ -15,9 +15,12 @@
 ******************************************************************************/
 package es.inteco.rastreador2.servlets;
 
+import es.gob.oaw.http.HttpClientProvider;
 import es.inteco.common.Constants;
 import es.inteco.common.logging.Logger;
 import es.inteco.common.properties.PropertiesManager;
+import es.inteco.intav.datos.AnalysisWriter;
+import es.inteco.rastreador2.utils.SharedThreadPool;
 
 import javax.net.ssl.*;
 import javax.servlet.*;
@@ -45,12 +48,25 @@ public class SetSystemPropertiesServlet extends GenericServlet {
         PropertiesManager pmgr = new PropertiesManager();
         setTrustStore(pmgr);
         setProxy(pmgr);
+        // Antes de que se abra ninguna conexión, la JVM solo lee el valor una vez
+        HttpClientProvider.configureKeepAlive();
 
         setTrustingAllCerts();
 
         setDefaultHostnameVerifier();
     }
 
+    /**
+	 * Destroy. Los análisis del rastreador se guardan en un hilo que no impide que la JVM termine, así que se espera a que se guarden los pendientes. Después se cierran los grupos de hilos de las
+	 * exportaciones (anexos e informes PDF).
+	 */
+    @Override
+    public void destroy() {
+        AnalysisWriter.drain();
+        SharedThreadPool.shutdownAll();
+        super.destroy();
+    }
+
     /**
 	 * Sets the trust store.
 	 *
@@ -0,0 +1,167 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.rastreador2.utils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import es.inteco.rastreador2.actionform.observatorio.RangeForm;
+import es.inteco.rastreador2.actionform.observatorio.TemplateRangeForm;
+import es.inteco.rastreador2.actionform.semillas.SemillaForm;
+import es.inteco.rastreador2.dao.semilla.SemillaDAO;
+import es.inteco.rastreador2.export.database.form.ObservatoryForm;
+import es.inteco.rastreador2.intav.form.ScoreForm;
+
+/**
+ * Datos de una exportación de anexos.
+ *
+ * Se obtienen una sola vez al comenzar la exportación (ver {@link AnnexUtils#createAnnexContext(Long, String[])}) y no cambian después, de modo que los anexos de una exportación se pueden generar
+ * en paralelo y varias exportaciones pueden ejecutarse a la vez sin compartir datos. Las puntuaciones de las semillas no deben modificarse.
+ */
+public final class AnnexContext {
+	/** Puntuaciones de las semillas de la iteración en cada fecha de ejecución. */
+	private final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmap;
+	/** Puntuaciones de todas las semillas de las iteraciones en cada fecha de ejecución. */
+	private final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmapAdvanced;
+	/** Fechas de ejecución de las iteraciones (yyyy-MM-dd). */
+	private final List<String> executionDates;
+	/** Fechas de ejecución de las iteraciones. */
+	private final List<Date> executionDatesWithFormat_Valid;
+	/** Rangos de evolución de los sitios web. */
+	private final List<RangeForm> websiteRanges;
+	/** Clasificador compilado de los rangos de evolución de los sitios web. */
+	private final ScoreRangeClassifier<RangeForm> websiteRangeClassifier;
+	/** Clasificador compilado de los rangos de la iteración. */
+	private final ScoreRangeClassifier<TemplateRangeForm> iterationRangeClassifier;
+	/** Resultados de la iteración. */
+	private final ObservatoryForm observatory;
+	/** Semillas de las iteraciones, cargadas de una vez, por identificador. */
+	private final Map<Long, SemillaForm> seeds;
+
+	/**
+	 * Instantiates a new annex context.
+	 *
+	 * @param annexmap                       the annexmap
+	 * @param annexmapAdvanced               the annexmap advanced
+	 * @param executionDates                 the execution dates
+	 * @param executionDatesWithFormat_Valid the execution dates with format valid
+	 * @param websiteRanges                  the website ranges
+	 * @param iterationRanges                the iteration ranges
+	 * @param observatory                    the observatory
+	 * @param seeds                          the seeds
+	 */
+	AnnexContext(final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmap, final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmapAdvanced, final List<String> executionDates,
+			final List<Date> executionDatesWithFormat_Valid, final List<RangeForm> websiteRanges, final List<TemplateRangeForm> iterationRanges,
+			final ObservatoryForm observatory, final Map<Long, SemillaForm> seeds) {
+		this.annexmap = Collections.unmodifiableMap(annexmap);
+		this.annexmapAdvanced = Collections.unmodifiableMap(annexmapAdvanced);
+		this.executionDates = Collections.unmodifiableList(new ArrayList<>(executionDates));
+		this.executionDatesWithFormat_Valid = Collections.unmodifiableList(new ArrayList<>(executionDatesWithFormat_Valid));
+		this.websiteRanges = Collections.unmodifiableList(new ArrayList<>(websiteRanges));
+		this.websiteRangeClassifier = ScoreRangeClassifier.forWebsiteRanges(this.websiteRanges);
+		this.iterationRangeClassifier = ScoreRangeClassifier.forIterationRanges(iterationRanges);
+		this.observatory = observatory;
+		this.seeds = Collections.unmodifiableMap(seeds);
+	}
+
+	/**
+	 * Gets the annexmap.
+	 *
+	 * @return the annexmap
+	 */
+	Map<SemillaForm, TreeMap<String, ScoreForm>> getAnnexmap() {
+		return annexmap;
+	}
+
+	/**
+	 * Gets the annexmap advanced.
+	 *
+	 * @return the annexmap advanced
+	 */
+	Map<SemillaForm, TreeMap<String, ScoreForm>> getAnnexmapAdvanced() {
+		return annexmapAdvanced;
+	}
+
+	/**
+	 * Gets the execution dates.
+	 *
+	 * @return the execution dates
+	 */
+	List<String> getExecutionDates() {
+		return executionDates;
+	}
+
+	/**
+	 * Gets the execution dates with format valid.
+	 *
+	 * @return the execution dates with format valid
+	 */
+	List<Date> getExecutionDatesWithFormat_Valid() {
+		return executionDatesWithFormat_Valid;
+	}
+
+	/**
+	 * Gets the website ranges.
+	 *
+	 * @return the website ranges
+	 */
+	List<RangeForm> getWebsiteRanges() {
+		return websiteRanges;
+	}
+
+	/**
+	 * Gets the website range classifier.
+	 *
+	 * @return the website range classifier
+	 */
+	ScoreRangeClassifier<RangeForm> getWebsiteRangeClassifier() {
+		return websiteRangeClassifier;
+	}
+
+	/**
+	 * Gets the iteration range classifier.
+	 *
+	 * @return the iteration range classifier
+	 */
+	ScoreRangeClassifier<TemplateRangeForm> getIterationRangeClassifier() {
+		return iterationRangeClassifier;
+	}
+
+	/**
+	 * Gets the observatory.
+	 *
+	 * @return the observatory
+	 */
+	ObservatoryForm getObservatory() {
+		return observatory;
+	}
+
+	/**
+	 * Obtiene una semilla de las cargadas al crear el contexto. Si no está (se ha añadido a la iteración después), se consulta en base de datos.
+	 *
+	 * @param c      the c
+	 * @param idSeed the id seed
+	 * @return the seed
+	 * @throws SQLException the SQL exception
+	 */
+	SemillaForm getSeed(final Connection c, final long idSeed) throws SQLException {
+		final SemillaForm seed = seeds.get(idSeed);
+		return seed != null ? seed : SemillaDAO.getSeedById(c, idSeed);
+	}
+}
@@ -36,17 +36,19 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
 
 import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -58,10 +60,12 @@ import org.apache.poi.ss.usermodel.CellValue;
 import org.apache.poi.ss.usermodel.ComparisonOperator;
 import org.apache.poi.ss.usermodel.ConditionalFormattingRule;
 import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.PatternFormatting;
 import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.SheetConditionalFormatting;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.util.AreaReference;
@@ -87,6 +91,8 @@ import org.apache.poi.xddf.usermodel.chart.XDDFDataSource;
 import org.apache.poi.xddf.usermodel.chart.XDDFDataSourcesFactory;
 import org.apache.poi.xddf.usermodel.chart.XDDFNumericalDataSource;
 import org.apache.poi.xddf.usermodel.chart.XDDFValueAxis;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFCell;
 import org.apache.poi.xssf.usermodel.XSSFChart;
 import org.apache.poi.xssf.usermodel.XSSFClientAnchor;
@@ -169,6 +175,10 @@ import es.oaw.wcagem.util.ValidationDetails;
 public final class AnnexUtils {
 	/** The Constant BREAK_LINE. */
 	private static final String BREAK_LINE = "\n";
+	/** Rows kept in memory by the streaming XLSX workbooks. */
+	private static final int XLSX_ROW_ACCESS_WINDOW = 100;
+	/** Allocation and compliance changes counted by the rows of the summary tables, in order. */
+	private static final int[] SUMMARY_TABLE_CHANGES = { 1, 3, 2, -2, -3, -1 };
 	/** The Constant TOTALMENTE_CONFORME. */
 	private static final String TOTALMENTE_CONFORME = "totalmente_conforme";
 	/** The Constant PARCIALMENTE_CONFORME. */
@@ -405,36 +415,8 @@ public final class AnnexUtils {
 	private static final String PORTAL_ELEMENT = "portal";
 	/** The Constant BIG_DECIMAL_HUNDRED. */
 	public static final BigDecimal BIG_DECIMAL_HUNDRED = BigDecimal.valueOf(100);
-	/** The excel lines. */
-	private static HashMap<Integer, ExcelLine> excelLines;
-	/** The Column names. */
-	private static List<String> ColumnNames;
-	/** The execution dates. */
-	private static List<String> executionDates = new ArrayList<>();
-	/** The execution dates with format valid. */
-	private static List<Date> executionDatesWithFormat_Valid = new ArrayList<>();
-	/** The dependencies. */
-	private static List<String> dependencies;
-	/** The annexmap. */
-	private static Map<SemillaForm, TreeMap<String, ScoreForm>> annexmap;
-	/** The annexmap advanced. Including all seeds */
-	private static Map<SemillaForm, TreeMap<String, ScoreForm>> annexmapAdvanced;
-	/** The evaluation ids. */
-	private static List<Long> evaluationIds;
-	/** The observatory manager. */
-	private static es.gob.oaw.rastreador2.observatorio.ObservatoryManager observatoryManager;
-	/** The current evaluation page list. */
-	private static List<ObservatoryEvaluationForm> currentEvaluationPageList;
-	/** The website ranges. */
-	private static List<RangeForm> websiteRanges = new ArrayList<>();
-	/** The iteration ranges. */
-	private static List<TemplateRangeForm> iterationRanges = new ArrayList<>();
-	/** The script engine manager. */
-	private static ScriptEngineManager scriptEngineManager = new ScriptEngineManager();
-	/** The script engine. */
-	private static ScriptEngine scriptEngine = scriptEngineManager.getEngineByName("JavaScript");
-	/** Origin annexes */
-	private static final boolean originAnnexes = true;
+	/** Threads that write the annex files, as many as the property export.annex.threads (4 by default). Shared by all the exports. */
+	private static final SharedThreadPool ANNEX_THREADS = new SharedThreadPool("AnnexWriter", "export.annex.threads", 4);
 
 	/**
 	 * Generate all annex.
@@ -453,27 +435,104 @@ public final class AnnexUtils {
 			final String[] tagsToFilterFixed, final String[] exObsIds, final List<ComparisionForm> comparision) throws Exception {
 		Logger.putLog("Inicio de la generación de anexos WARN ", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
 		Logger.putLog("Obteniendo información para la generación de anexos", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
-		generateInfo(idObsExecution, exObsIds, originAnnexes);
+		final AnnexContext context = createAnnexContext(idObsExecution, exObsIds);
 		Logger.putLog("Generando anexos", AnnexUtils.class, Logger.LOG_LEVEL_INFO);
+		// Independent annexes are written at the same time
+		final List<Future<Void>> annexes = new ArrayList<>();
+		annexes.add(ANNEX_THREADS.getExecutor().submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				createAnnexPaginas(context, messageResources, idObsExecution, idOperation, tagsToFilter, exObsIds);
+				return null;
+			}
+		}));
+		annexes.add(ANNEX_THREADS.getExecutor().submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				createAnnexPaginasVerifications(context, messageResources, idObsExecution, idOperation, tagsToFilter, exObsIds);
+				return null;
+			}
+		}));
+		annexes.add(ANNEX_THREADS.getExecutor().submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				createAnnexPaginasCriteria(context, messageResources, idObsExecution, idOperation, tagsToFilter, exObsIds);
+				return null;
+			}
+		}));
+		annexes.add(ANNEX_THREADS.getExecutor().submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				createAnnexPortales(context, messageResources, idObsExecution, idOperation, tagsToFilter, exObsIds);
+				return null;
+			}
+		}));
+		annexes.add(ANNEX_THREADS.getExecutor().submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				createAnnexPortalsVerification(context, messageResources, idObsExecution, idOperation, tagsToFilter, exObsIds);
+				return null;
+			}
+		}));
+		annexes.add(ANNEX_THREADS.getExecutor().submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				createAnnexPortalsCriteria(context, messageResources, idObsExecution, idOperation, tagsToFilter, exObsIds);
+				return null;
+			}
+		}));
+		annexes.add(ANNEX_THREADS.getExecutor().submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				createAnnexXLSX2(context, messageResources, idObsExecution, idOperation, tagsToFilter);
+				// The ranking is built from the iteration annex
+				createAnnexXLSXRanking(messageResources, idObsExecution, idOperation);
+				return null;
+			}
+		}));
+		annexes.add(ANNEX_THREADS.getExecutor().submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				// createAnnexXLSX1_Evolution(context, messageResources, idObsExecution, idOperation, comparision, tagsToFilter);
+				// createAnnexXLSX_PerDependency(context, idOperation, evolutionLines);
+				// The annexes per dependency are built from the rows of the evolution annex
+				final EvolutionLines evolutionLines = createAnnexXLSX1_Evolution_v2(context, messageResources, idObsExecution, idOperation, comparision, tagsToFilter);
+				createAnnexXLSX_PerDependency_v2(context, idOperation, evolutionLines);
+				return null;
+			}
+		}));
+		annexes.add(ANNEX_THREADS.getExecutor().submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				createAnnexProgressEvolutionXLSX(context, messageResources, idObs, idObsExecution, idOperation, tagsToFilter, tagsToFilterFixed, exObsIds, comparision);
+				return null;
+			}
+		}));
+		waitForAnnexes(annexes);
+		Logger.putLog("Fin de la generación de anexos", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
+	}
+
+	/**
+	 * Waits for the annexes being written. An annex that fails does not stop the rest.
+	 *
+	 * @param annexes the annexes
+	 * @throws InterruptedException if interrupted while waiting, the annexes not written yet are cancelled
+	 */
+	private static void waitForAnnexes(final List<Future<Void>> annexes) throws InterruptedException {
 		try {
-			createAnnexPaginas(messageResources, idObsExecution, idOperation, tagsToFilter, exObsIds);
-			createAnnexPaginasVerifications(messageResources, idObsExecution, idOperation, tagsToFilter, exObsIds);
-			createAnnexPaginasCriteria(messageResources, idObsExecution, idOperation, tagsToFilter, exObsIds);
-			createAnnexPortales(messageResources, idObsExecution, idOperation, tagsToFilter, exObsIds);
-			createAnnexPortalsVerification(messageResources, idObsExecution, idOperation, tagsToFilter, exObsIds);
-			createAnnexPortalsCriteria(messageResources, idObsExecution, idOperation, tagsToFilter, exObsIds);
-			createAnnexXLSX2(messageResources, idObsExecution, idOperation, tagsToFilter);
-			// createAnnexXLSX1_Evolution(messageResources, idObsExecution, idOperation, comparision, tagsToFilter);
-			// createAnnexXLSX_PerDependency(idOperation);
-			createAnnexXLSX1_Evolution_v2(messageResources, idObsExecution, idOperation, comparision, tagsToFilter);
-			createAnnexXLSX_PerDependency_v2(idOperation);
-			createAnnexXLSXRanking(messageResources, idObsExecution, idOperation);
-			createAnnexProgressEvolutionXLSX(messageResources, idObs, idObsExecution, idOperation, tagsToFilter, tagsToFilterFixed, exObsIds, comparision);
-		} catch (Exception e) {
-			Logger.putLog("Error en la generación de anexos", AnnexUtils.class, Logger.LOG_LEVEL_ERROR);
+			for (Future<Void> annex : annexes) {
+				try {
+					annex.get();
+				} catch (ExecutionException e) {
+					Logger.putLog("Error en la generación de anexos", AnnexUtils.class, Logger.LOG_LEVEL_ERROR, e);
+				}
+			}
+		} catch (InterruptedException e) {
+			for (Future<Void> annex : annexes) {
+				annex.cancel(true);
+			}
+			throw e;
 		}
-		Logger.putLog("Fin de la generación de anexos", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
-		currentEvaluationPageList = null;
 	}
 
 	/**
@@ -490,32 +549,28 @@ public final class AnnexUtils {
 	 */
 	public static void generateEmailAnnex(final MessageResources messageResources, final Long idObs, final Long idObsExecution, final Long idOperation, final String[] exObsIds,
 			final List<ComparisionForm> comparision, final String[] tagsToFilter) throws Exception {
-		generateInfo(idObsExecution, exObsIds, originAnnexes);
-		createAnnexXLSX1_Evolution(messageResources, idObsExecution, idOperation, comparision, tagsToFilter);
-		createAnnexXLSX_PerDependency(idOperation);
-		createAnnexXLSX1_Evolution_v2(messageResources, idObsExecution, idOperation, comparision, tagsToFilter);
-		createAnnexXLSX_PerDependency_v2(idOperation);
+		final AnnexContext context = createAnnexContext(idObsExecution, exObsIds);
+		createAnnexXLSX_PerDependency(context, idOperation, createAnnexXLSX1_Evolution(context, messageResources, idObsExecution, idOperation, comparision, tagsToFilter));
+		createAnnexXLSX_PerDependency_v2(context, idOperation, createAnnexXLSX1_Evolution_v2(context, messageResources, idObsExecution, idOperation, comparision, tagsToFilter));
 	}
 
 	/**
-	 * Generate info.
+	 * Creates the context of an annex export. It is read only, so it can be shared by the annexes written at the same time.
 	 *
 	 * @param idObsExecution the id obs execution
 	 * @param exObsIds       the ex obs ids
+	 * @return the annex context
 	 * @throws Exception    the exception
 	 * @throws SQLException the SQL exception
 	 */
-	private static void generateInfo(final Long idObsExecution, final String[] exObsIds, final boolean originAnnexes) throws Exception, SQLException {
-		annexmap = createAnnexMap(idObsExecution, exObsIds, false);
-		annexmapAdvanced = createAnnexMap(idObsExecution, exObsIds, true);
-		evaluationIds = AnalisisDatos.getEvaluationIdsFromExecutedObservatory(idObsExecution);
-		observatoryManager = new es.gob.oaw.rastreador2.observatorio.ObservatoryManager();
-		currentEvaluationPageList = observatoryManager.getObservatoryEvaluationsFromObservatoryExecution(idObsExecution, evaluationIds, originAnnexes);
-		Connection c = DataBaseManager.getConnection();
-		// Fill all execution dates
-		{
-			executionDates = new ArrayList<>();
-			executionDatesWithFormat_Valid = new ArrayList<Date>();
+	public static AnnexContext createAnnexContext(final Long idObsExecution, final String[] exObsIds) throws Exception, SQLException {
+		final List<String> executionDates = new ArrayList<>();
+		final List<Date> executionDatesWithFormat_Valid = new ArrayList<Date>();
+		// Results of every execution, loaded once for all the annexes
+		final List<ObservatoryForm> observatoryFormList = new ArrayList<>();
+		ObservatoryForm observatory = null;
+		final Connection c = DataBaseManager.getConnection();
+		try {
 			final ObservatorioForm observatoryForm = ObservatorioDAO.getObservatoryFormFromExecution(c, idObsExecution);
 			final ObservatorioRealizadoForm executedObservatory = ObservatorioDAO.getFulfilledObservatory(c, observatoryForm.getId(), idObsExecution);
 			final List<ObservatorioRealizadoForm> observatoriesList = ObservatorioDAO.getFulfilledObservatories(c, observatoryForm.getId(), Constants.NO_PAGINACION, executedObservatory.getFecha(),
@@ -524,11 +579,48 @@ public final class AnnexUtils {
 				final String executionDateAux = obsR.getFecha().toString().substring(0, obsR.getFecha().toString().indexOf(" ")).replace("/", "_");
 				executionDates.add(executionDateAux);
 				executionDatesWithFormat_Valid.add(obsR.getFecha());
+				final ObservatoryForm executionObservatory = ObservatoryExportManager.getObservatory(obsR.getId());
+				if (executionObservatory != null) {
+					observatoryFormList.add(executionObservatory);
+					if (obsR.getId() == idObsExecution) {
+						observatory = executionObservatory;
+					}
+				}
+			}
+			if (observatory == null) {
+				observatory = ObservatoryExportManager.getObservatory(idObsExecution);
+			}
+			// All the seeds of the executions are loaded at once
+			final Set<Long> seedIds = new HashSet<>();
+			for (ObservatoryForm executionObservatory : observatoryFormList) {
+				addSeedIds(seedIds, executionObservatory);
+			}
+			if (observatory != null) {
+				addSeedIds(seedIds, observatory);
+			}
+			final Map<Long, SemillaForm> seeds = SemillaDAO.getSeedsById(c, seedIds);
+			final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmap = createAnnexMap(idObsExecution, observatoryFormList, seeds, false);
+			final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmapAdvanced = createAnnexMap(idObsExecution, observatoryFormList, seeds, true);
+			final List<RangeForm> websiteRanges = RangeDAO.findAll(c);
+			final List<TemplateRangeForm> iterationRanges = TemplateRangeDAO.findAll(c, idObsExecution);
+			return new AnnexContext(annexmap, annexmapAdvanced, executionDates, executionDatesWithFormat_Valid, websiteRanges, iterationRanges, observatory, seeds);
+		} finally {
+			DataBaseManager.closeConnection(c);
+		}
+	}
+
+	/**
+	 * Adds the seeds of an execution.
+	 *
+	 * @param seedIds     the seed ids
+	 * @param observatory the execution results
+	 */
+	private static void addSeedIds(final Set<Long> seedIds, final ObservatoryForm observatory) {
+		for (CategoryForm category : observatory.getCategoryFormList()) {
+			for (SiteForm siteForm : category.getSiteFormList()) {
+				seedIds.add(Long.valueOf(siteForm.getIdCrawlerSeed()));
 			}
 		}
-		websiteRanges = RangeDAO.findAll(c);
-		iterationRanges = TemplateRangeDAO.findAll(c, idObsExecution);
-		DataBaseManager.closeConnection(c);
 	}
 
 	/**
@@ -546,7 +638,9 @@ public final class AnnexUtils {
 			final List<ComparisionForm> comparision) throws Exception {
 		// Returns a map of dependencies and values of evolution
 		Logger.putLog("Obteniendo información para la generación de datos de evolución", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
-		generateInfo(idObsExecution, exObsIds, originAnnexes);
+		final AnnexContext context = createAnnexContext(idObsExecution, exObsIds);
+		final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmap = context.getAnnexmap();
+		final List<Date> executionDatesWithFormat_Valid = context.getExecutionDatesWithFormat_Valid();
 		Logger.putLog("Generando información de las URAs para la generación de datos de evolución", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
 		List<UraSendResultForm> uraCustomList = new ArrayList<>();
 		// Generate a list of UraSendResultForm with all URA information
@@ -624,11 +718,10 @@ public final class AnnexUtils {
 			uraCustom.setIdObservatoryExecution(idObsExecution);
 			uraCustom.setRangeValue(diffMidScores.floatValue());
 			uraCustom.setIdRange(0L); // prevents not matching range
-			for (TemplateRangeForm range : iterationRanges) {
-				String expression = generateRangeJsExpression(diffMidScores, range.getMinValueOperator(), range.getMaxValueOperator(), range.getMinValue(), range.getMaxValue());
-				if ((boolean) scriptEngine.eval(expression)) {
-					uraCustom.setIdRange(range.getId());
-				}
+			// Si varios rangos contienen la diferencia prevalece el último
+			final TemplateRangeForm range = context.getIterationRangeClassifier().last(diffMidScores);
+			if (range != null) {
+				uraCustom.setIdRange(range.getId());
 			}
 			uraCustomList.add(uraCustom);
 		}
@@ -640,28 +733,6 @@ public final class AnnexUtils {
 		DataBaseManager.closeConnection(c);
 	}
 
-	/**
-	 * Generate range js expression.
-	 *
-	 * @param diffMidScores    the diff mid scores
-	 * @param minValueOperator the min value operator
-	 * @param maxValueOperator the max value operator
-	 * @param minValue         the min value
-	 * @param maxValue         the max value
-	 * @return the string
-	 */
-	private static String generateRangeJsExpression(BigDecimal diffMidScores, final String minValueOperator, final String maxValueOperator, final Float minValue, final Float maxValue) {
-		String expression = "";
-		if (!StringUtils.isEmpty(minValueOperator) && !StringUtils.isEmpty(maxValueOperator)) {
-			expression += minValue + "" + minValueOperator + "" + diffMidScores + " && " + diffMidScores + "" + maxValueOperator + "" + maxValue;
-		} else if (!StringUtils.isEmpty(minValueOperator) && StringUtils.isEmpty(maxValueOperator)) {
-			expression += minValue + "" + minValueOperator + "" + diffMidScores;
-		} else if (StringUtils.isEmpty(minValueOperator) && !StringUtils.isEmpty(maxValueOperator)) {
-			expression += diffMidScores + "" + maxValueOperator + "" + maxValue;
-		}
-		return expression;
-	}
-
 	/****
 	 * 
 	 * 
@@ -676,6 +747,7 @@ public final class AnnexUtils {
 	/**
 	 * Creates the annex paginas.
 	 *
+	 * @param context          the annex context
 	 * @param messageResources the message resources
 	 * @param idObsExecution   the id obs execution
 	 * @param idOperation      the id operation
@@ -683,11 +755,11 @@ public final class AnnexUtils {
 	 * @param exObsIds         the ex obs ids
 	 * @throws Exception the exception
 	 */
-	public static void createAnnexPaginas(final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter, final String[] exObsIds)
+	public static void createAnnexPaginas(final AnnexContext context, final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter, final String[] exObsIds)
 			throws Exception {
 		try (Connection c = DataBaseManager.getConnection(); FileWriter writer = getFileWriter(idOperation, "anexo-paginas.xml")) {
 			Logger.putLog("Generando anexo: anexo-paginas.xml", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
-			generateXmlPages(messageResources, idObsExecution, tagsToFilter, c, writer, false, false);
+			generateXmlPages(context, messageResources, idObsExecution, tagsToFilter, c, writer, false, false);
 		} catch (Exception e) {
 			Logger.putLog("Error al generar el anexo: anexo-paginas.xml", AnnexUtils.class, Logger.LOG_LEVEL_ERROR, e);
 			throw e;
@@ -698,6 +770,7 @@ public final class AnnexUtils {
 	/**
 	 * Creates the annex paginas.
 	 *
+	 * @param context          the annex context
 	 * @param messageResources the message resources
 	 * @param idObsExecution   the id obs execution
 	 * @param idOperation      the id operation
@@ -705,11 +778,11 @@ public final class AnnexUtils {
 	 * @param exObsIds         the ex obs ids
 	 * @throws Exception the exception
 	 */
-	public static void createAnnexPaginasVerifications(final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter, final String[] exObsIds)
+	public static void createAnnexPaginasVerifications(final AnnexContext context, final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter, final String[] exObsIds)
 			throws Exception {
 		try (Connection c = DataBaseManager.getConnection(); FileWriter writer = getFileWriter(idOperation, "anexo-paginas-verificaciones.xml")) {
 			Logger.putLog("Generando anexo: anexo-paginas-verificaciones.xml", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
-			generateXmlPages(messageResources, idObsExecution, tagsToFilter, c, writer, true, false);
+			generateXmlPages(context, messageResources, idObsExecution, tagsToFilter, c, writer, true, false);
 		} catch (Exception e) {
 			Logger.putLog("Error al generar el anexo: anexo-paginas-verificaciones", AnnexUtils.class, Logger.LOG_LEVEL_ERROR, e);
 			throw e;
@@ -720,6 +793,7 @@ public final class AnnexUtils {
 	/**
 	 * Creates the annex paginas criteria.
 	 *
+	 * @param context          the annex context
 	 * @param messageResources the message resources
 	 * @param idObsExecution   the id obs execution
 	 * @param idOperation      the id operation
@@ -727,11 +801,11 @@ public final class AnnexUtils {
 	 * @param exObsIds         the ex obs ids
 	 * @throws Exception the exception
 	 */
-	public static void createAnnexPaginasCriteria(final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter, final String[] exObsIds)
+	public static void createAnnexPaginasCriteria(final AnnexContext context, final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter, final String[] exObsIds)
 			throws Exception {
 		try (Connection c = DataBaseManager.getConnection(); FileWriter writer = getFileWriter(idOperation, "anexo-paginas-criterios.xml")) {
 			Logger.putLog("Generando anexo: anexo-paginas-criterios.xml", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
-			generateXmlPages(messageResources, idObsExecution, tagsToFilter, c, writer, false, true);
+			generateXmlPages(context, messageResources, idObsExecution, tagsToFilter, c, writer, false, true);
 		} catch (Exception e) {
 			Logger.putLog("Error al generar el anexo: anexo-paginas-criterios.xml", AnnexUtils.class, Logger.LOG_LEVEL_ERROR, e);
 			throw e;
@@ -742,6 +816,7 @@ public final class AnnexUtils {
 	/**
 	 * Generate xml pages.
 	 *
+	 * @param context          the annex context
 	 * @param messageResources the message resources
 	 * @param idObsExecution   the id obs execution
 	 * @param tagsToFilter     the tags to filter
@@ -754,17 +829,18 @@ public final class AnnexUtils {
 	 * @throws Exception    the exception
 	 * @throws SQLException the SQL exception
 	 */
-	private static void generateXmlPages(final MessageResources messageResources, final Long idObsExecution, final String[] tagsToFilter, Connection c, FileWriter writer, final boolean verifications,
+	private static void generateXmlPages(final AnnexContext context, final MessageResources messageResources, final Long idObsExecution, final String[] tagsToFilter, Connection c, FileWriter writer, final boolean verifications,
 			final boolean criterias) throws IOException, SAXException, Exception, SQLException {
+		final es.gob.oaw.rastreador2.observatorio.ObservatoryManager observatoryManager = new es.gob.oaw.rastreador2.observatorio.ObservatoryManager();
 		final ContentHandler hd = getContentHandler(writer);
 		hd.startDocument();
 		hd.startElement(EMPTY_STRING, EMPTY_STRING, RESULTADOS_ELEMENT, null);
-		final ObservatoryForm observatoryForm = ObservatoryExportManager.getObservatory(idObsExecution);
+		final ObservatoryForm observatoryForm = context.getObservatory();
 		for (CategoryForm categoryForm : observatoryForm.getCategoryFormList()) {
 			if (categoryForm != null) {
 				for (SiteForm siteForm : categoryForm.getSiteFormList()) {
 					if (siteForm != null) {
-						final SemillaForm semillaForm = SemillaDAO.getSeedById(c, Long.parseLong(siteForm.getIdCrawlerSeed()));
+						final SemillaForm semillaForm = context.getSeed(c, Long.parseLong(siteForm.getIdCrawlerSeed()));
 						// Filter by tags
 						List<String> tagList = null;
 						if (tagsToFilter != null) {
@@ -874,6 +950,12 @@ public final class AnnexUtils {
 							writeTag(hd, PAGINAS, String.valueOf(ObservatorioDAO.getNumCrawls(c, idObsExecution, semillaForm.getId())));
 							hd.startElement(EMPTY_STRING, EMPTY_STRING, PAGINAS, null);
 							Map<String, Map<String, ValidationDetails>> wcagCompliance = null;
+							// Evaluations of the seed pages, to write their verifications
+							List<ObservatoryEvaluationForm> seedEvaluationPageList = null;
+							if (verifications) {
+								final List<Long> seedEvaluationIds = AnalisisDatos.getEvaluationIdsFromExecutedObservatoryAndIdSeed(idObsExecution, semillaForm.getId());
+								seedEvaluationPageList = observatoryManager.getObservatoryEvaluationsFromObservatoryExecution(idObsExecution, seedEvaluationIds, true);
+							}
 							// Only generate this info once
 							if (criterias) {
 								final List<Long> analysisIdsByTracking = AnalisisDatos.getEvaluationIdsFromExecutedObservatoryAndIdSeed(idObsExecution, Long.valueOf(siteForm.getIdCrawlerSeed()));
@@ -889,7 +971,7 @@ public final class AnnexUtils {
 									writeTag(hd, ADECUACION, ObservatoryUtils.getValidationLevel(messageResources, pageForm.getLevel()));
 									// OAW Verifications
 									if (verifications) {
-										ObservatoryEvaluationForm evaluationForm = currentEvaluationPageList.stream()
+										ObservatoryEvaluationForm evaluationForm = seedEvaluationPageList.stream()
 												.filter(evaluation -> pageForm.getUrl().equals(evaluation.getUrl()) && evaluation.getSeed().getId().equals(String.valueOf(semillaForm.getId())))
 												.findFirst().orElse(null);
 										if (evaluationForm != null) {
@@ -964,6 +1046,7 @@ public final class AnnexUtils {
 	/**
 	 * Creates the annex portales.
 	 *
+	 * @param context          the annex context
 	 * @param messageResources the message resources
 	 * @param idObsExecution   the id obs execution
 	 * @param idOperation      the id operation
@@ -971,11 +1054,11 @@ public final class AnnexUtils {
 	 * @param exObsIds         the ex obs ids
 	 * @throws Exception the exception
 	 */
-	public static void createAnnexPortales(final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter, final String[] exObsIds)
+	public static void createAnnexPortales(final AnnexContext context, final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter, final String[] exObsIds)
 			throws Exception {
 		try (Connection c = DataBaseManager.getConnection(); FileWriter writer = getFileWriter(idOperation, "anexo-portales.xml")) {
 			Logger.putLog("Generando anexo: anexo-portales.xml", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
-			generateXmlPortal(messageResources, idObsExecution, tagsToFilter, c, writer, false, false, false);
+			generateXmlPortal(context, messageResources, idObsExecution, tagsToFilter, c, writer, false, false, false);
 		} catch (Exception e) {
 			Logger.putLog("Error al generar el anexo: anexo-portales.xml", AnnexUtils.class, Logger.LOG_LEVEL_ERROR, e);
 			throw e;
@@ -986,6 +1069,7 @@ public final class AnnexUtils {
 	/**
 	 * Creates the annex portals verification.
 	 *
+	 * @param context          the annex context
 	 * @param messageResources the message resources
 	 * @param idObsExecution   the id obs execution
 	 * @param idOperation      the id operation
@@ -993,11 +1077,11 @@ public final class AnnexUtils {
 	 * @param exObsIds         the ex obs ids
 	 * @throws Exception the exception
 	 */
-	public static void createAnnexPortalsVerification(final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter, final String[] exObsIds)
+	public static void createAnnexPortalsVerification(final AnnexContext context, final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter, final String[] exObsIds)
 			throws Exception {
 		try (Connection c = DataBaseManager.getConnection(); FileWriter writer = getFileWriter(idOperation, "anexo-portales-verificaciones.xml")) {
 			Logger.putLog("Generando anexo: anexo-portales-verificaciones.xml", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
-			generateXmlPortal(messageResources, idObsExecution, tagsToFilter, c, writer, true, true, false);
+			generateXmlPortal(context, messageResources, idObsExecution, tagsToFilter, c, writer, true, true, false);
 		} catch (Exception e) {
 			Logger.putLog("Error al generar el anexo: anexo-portales-verificaciones.xml", AnnexUtils.class, Logger.LOG_LEVEL_ERROR, e);
 			throw e;
@@ -1008,6 +1092,7 @@ public final class AnnexUtils {
 	/**
 	 * Creates the annex criteria portal.
 	 *
+	 * @param context          the annex context
 	 * @param messageResources the message resources
 	 * @param idObsExecution   the id obs execution
 	 * @param idOperation      the id operation
@@ -1015,11 +1100,11 @@ public final class AnnexUtils {
 	 * @param exObsIds         the ex obs ids
 	 * @throws Exception the exception
 	 */
-	public static void createAnnexPortalsCriteria(final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter, final String[] exObsIds)
+	public static void createAnnexPortalsCriteria(final AnnexContext context, final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter, final String[] exObsIds)
 			throws Exception {
 		try (Connection c = DataBaseManager.getConnection(); FileWriter writer = getFileWriter(idOperation, "anexo-portales-criterios.xml")) {
 			Logger.putLog("Generando anexo: anexo-portales-criterios.xml", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
-			generateXmlPortal(messageResources, idObsExecution, tagsToFilter, c, writer, false, true, true);
+			generateXmlPortal(context, messageResources, idObsExecution, tagsToFilter, c, writer, false, true, true);
 		} catch (Exception e) {
 			Logger.putLog("Error generar el anexo: anexo-portales-criterios.xml", AnnexUtils.class, Logger.LOG_LEVEL_ERROR, e);
 			throw e;
@@ -1030,6 +1115,7 @@ public final class AnnexUtils {
 	/**
 	 * Generate xml portal.
 	 *
+	 * @param context          the annex context
 	 * @param messageResources the message resources
 	 * @param idObsExecution   the id obs execution
 	 * @param tagsToFilter     the tags to filter
@@ -1040,8 +1126,10 @@ public final class AnnexUtils {
 	 * @param criterias        the criterias
 	 * @throws Exception
 	 */
-	private static void generateXmlPortal(final MessageResources messageResources, final Long idObsExecution, final String[] tagsToFilter, Connection c, FileWriter writer, final boolean verifications,
+	private static void generateXmlPortal(final AnnexContext context, final MessageResources messageResources, final Long idObsExecution, final String[] tagsToFilter, Connection c, FileWriter writer, final boolean verifications,
 			final boolean onlyLast, final boolean criterias) throws Exception {
+		final es.gob.oaw.rastreador2.observatorio.ObservatoryManager observatoryManager = new es.gob.oaw.rastreador2.observatorio.ObservatoryManager();
+		final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmap = context.getAnnexmap();
 		final ContentHandler hd = getContentHandler(writer);
 		hd.startDocument();
 		hd.startElement(EMPTY_STRING, EMPTY_STRING, RESULTADOS_ELEMENT, null);
@@ -1236,28 +1324,31 @@ public final class AnnexUtils {
 	/**
 	 * Creates the XLSX annex.
 	 *
+	 * @param context          the annex context
 	 * @param messageResources the message resources
 	 * @param idObsExecution   the id obs execution
 	 * @param idOperation      the id operation
 	 * @param tagsToFilter     the tags to filter
 	 * @throws Exception the exception
 	 */
-	public static void createAnnexXLSX2(final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter) throws Exception {
-		ColumnNames = new ArrayList<>();
+	public static void createAnnexXLSX2(final AnnexContext context, final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter) throws Exception {
+		final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmap = context.getAnnexmap();
 		Logger.putLog("Generando anexo: " + FILE_2_ITERATION_XLSX_NAME, AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
+		final SXSSFWorkbook wb = createStreamingWorkbook(XLSX_ROW_ACCESS_WINDOW);
 		try (Connection c = DataBaseManager.getConnection(); FileOutputStream writer = getFileOutputStream(idOperation, FILE_2_ITERATION_XLSX_NAME)) {
-			final ObservatoryForm observatoryForm = ObservatoryExportManager.getObservatory(idObsExecution);
+			final ObservatoryForm observatoryForm = context.getObservatory();
 			final String ObservatoryFormDate = observatoryForm.getDate().substring(0, 10);
 			final String[] ColumnNames = new String[] { ID, NOMBRE, "namecat", AMBITO2, COMPLEJIDAD, DEPENDE_DE, SEMILLA2, TEMATICA, DISTRIBUCION, RECURRENCIA, OTROS, PAGINAS,
 					"puntuacion_" + ObservatoryFormDate, "adecuacion_" + ObservatoryFormDate, "cumplimiento_" + ObservatoryFormDate, NV_PREFFIX + ObservatoryFormDate, A_PREFFIX + ObservatoryFormDate,
 					AA_PREFFIX + ObservatoryFormDate, NC_PREFFIX + ObservatoryFormDate, PC_PREFFIX + ObservatoryFormDate, TC_PREFFIX + ObservatoryFormDate };
-			XSSFWorkbook wb = new XSSFWorkbook();
-			XSSFSheet sheet = wb.createSheet(SHEET_RESULTS_NAME);
-			XSSFRow row;
-			XSSFCell cell;
+			final SXSSFSheet sheet = wb.createSheet(SHEET_RESULTS_NAME);
+			final FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+			final XlsxColumnWidths columnWidths = new XlsxColumnWidths();
+			Row row;
+			Cell cell;
 			int rowIndex = 0;
 			int columnIndex = 0;
-			XlsxUtils xlsxUtils = new XlsxUtils(wb);
+			XlsxUtils xlsxUtils = new XlsxUtils(wb.getXSSFWorkbook());
 			final CellStyle headerStyle = xlsxUtils.getCellStyleByName(XlsxUtils.ROYAL_BLUE_BACKGROUND_WHITE10_FONT);
 			final CellStyle shadowStyle = xlsxUtils.getCellStyleByName(XlsxUtils.PALE_BLUE_BACKGROUND_WHITE10_FONT);
 			// Add headers
@@ -1268,12 +1359,16 @@ public final class AnnexUtils {
 				cell.setCellStyle(headerStyle);
 				columnIndex++;
 			}
+			columnWidths.update(row);
 			// The sheet already has headers, so we start in the second row.
 			rowIndex++;
 			int categoryStarts;
 			for (CategoryForm categoryForm : observatoryForm.getCategoryFormList()) {
 				categoryStarts = rowIndex;
 				if (categoryForm != null) {
+					// Seed names and allocation/compliance values of the category, used by its graphs once the rows have been flushed
+					final List<String> categorySeeds = new ArrayList<>();
+					final List<Double[]> categoryLevels = new ArrayList<>();
 					for (Map.Entry<SemillaForm, TreeMap<String, ScoreForm>> semillaEntry : annexmap.entrySet()) {
 						final SemillaForm semillaForm = semillaEntry.getKey();
 						if (categoryForm.getName().equals(semillaForm.getCategoria().getName()) && hasTags(semillaForm, tagsToFilter)) {
@@ -1445,41 +1540,47 @@ public final class AnnexUtils {
 							cell.setCellType(CellType.NUMERIC);
 							cell.setCellFormula("IF($O" + excelRowNumber + "=\"Plenamente conforme\",$M" + excelRowNumber + ",0)");
 							cell.setCellStyle(shadowStyle);
+							finishRows(sheet, rowIndex, rowIndex, evaluator, columnWidths);
+							categorySeeds.add(semillaForm.getNombre());
+							final Double[] levels = new Double[6];
+							for (int i = 0; i < levels.length; i++) {
+								levels[i] = row.getCell(15 + i).getNumericCellValue();
+							}
+							categoryLevels.add(levels);
 							rowIndex++;
 						}
 					}
-					// Increase width of columns to match content
-					for (int i = 0; i < ColumnNames.length; i++) {
-						sheet.autoSizeColumn(i);
-					}
 					// Create graph into the Category sheet
-					if (categoryForm.getSiteFormList().size() > 0) {
+					if (categoryForm.getSiteFormList().size() > 0 && !categorySeeds.isEmpty()) {
 						/*
 						 * Excel allows sheet names up to 31 chars in length but other applications (such as OpenOffice) allow more. Some versions of Excel crash with names longer than 31 chars,
 						 * others - truncate such names to 31 character.
 						 */
 						String currentCategory = categoryForm.getName().substring(0, Math.min(categoryForm.getName().length(), 31));
-						if (wb.getSheet(currentCategory) == null) {
-							wb.createSheet(currentCategory);
-							InsertGraphIntoSheetByCategory(wb, wb.getSheet(currentCategory), categoryStarts, rowIndex, true);
-							InsertGraphIntoSheetByCategory(wb, wb.getSheet(currentCategory), categoryStarts, rowIndex, false);
+						if (wb.getXSSFWorkbook().getSheet(currentCategory) == null) {
+							final XSSFSheet categorySheet = wb.getXSSFWorkbook().createSheet(currentCategory);
+							InsertGraphIntoSheetByCategory(wb.getXSSFWorkbook(), categorySheet, categoryStarts, rowIndex, true, categorySeeds, categoryLevels);
+							InsertGraphIntoSheetByCategory(wb.getXSSFWorkbook(), categorySheet, categoryStarts, rowIndex, false, categorySeeds, categoryLevels);
 						}
 					}
 				}
 			}
-			XSSFFormulaEvaluator.evaluateAllFormulaCells(wb);
+			// Increase width of columns to match content
+			columnWidths.apply(sheet);
 			wb.write(writer);
 			wb.close();
 		} catch (Exception e) {
 			Logger.putLog("Error al generar el anexo: " + FILE_2_ITERATION_XLSX_NAME, AnnexUtils.class, Logger.LOG_LEVEL_ERROR, e);
 			throw e;
+		} finally {
+			wb.dispose();
 		}
-		System.gc();
 	}
 
 	/**
 	 * Creates the XLSX evolution annex.
 	 *
+	 * @param context          the annex context
 	 * @param messageResources the message resources
 	 * @param idObsExecution   the id obs execution
 	 * @param idOperation      the id operation
@@ -1487,9 +1588,14 @@ public final class AnnexUtils {
 	 * @param tagsToFilter     the tags to filter
 	 * @throws Exception the exception
 	 */
-	public static void createAnnexXLSX1_Evolution(final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final List<ComparisionForm> comparision,
+	public static EvolutionLines createAnnexXLSX1_Evolution(final AnnexContext context, final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final List<ComparisionForm> comparision,
 			final String[] tagsToFilter) throws Exception {
-		dependencies = new ArrayList<>();
+		final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmap = context.getAnnexmap();
+		final List<String> executionDates = context.getExecutionDates();
+		final List<Date> executionDatesWithFormat_Valid = context.getExecutionDatesWithFormat_Valid();
+		final List<RangeForm> websiteRanges = context.getWebsiteRanges();
+		final List<String> dependencies = new ArrayList<>();
+		final HashMap<Integer, ExcelLine> excelLines = new HashMap<>();
 		Logger.putLog("Generando anexo: " + FILE_1_EVOLUTION_XLSX_NAME, AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
 		try (Connection c = DataBaseManager.getConnection(); FileOutputStream writer = getFileOutputStream(idOperation, FILE_1_EVOLUTION_XLSX_NAME)) {
 			XSSFWorkbook wb = new XSSFWorkbook();
@@ -1500,13 +1606,12 @@ public final class AnnexUtils {
 			int rowIndex = 0;
 			int columnIndex = 0;
 			// executionDates = new ArrayList<>();
-			excelLines = new HashMap<>();
 			ExcelLine excelLine;
 			XlsxUtils xlsxUtils = new XlsxUtils(wb);
 			final CellStyle headerStyle = xlsxUtils.getCellStyleByName(XlsxUtils.ROYAL_BLUE_BACKGROUND_WHITE10_FONT);
 			final CellStyle shadowStyle = xlsxUtils.getCellStyleByName(XlsxUtils.PALE_BLUE_BACKGROUND_WHITE10_FONT);
 			// Add headers without values
-			ColumnNames = new ArrayList<>();
+			final List<String> ColumnNames = new ArrayList<>();
 			ColumnNames.add(ID);
 			ColumnNames.add(NOMBRE);
 			ColumnNames.add(SEGMENTO);
@@ -1837,7 +1942,7 @@ public final class AnnexUtils {
 							String columnFirstLetter = GetFirstLetterPreviousExecution(comparision, semillaForm.getEtiquetas(), ColumnNames, PUNTUACION, false);
 							String columnSecondLetter = GetExcelColumnNameForNumber(numberOfFixedColumns + 1 + (3 * executionDates.size() - 3));
 							cell = row.createCell(ColumnNames.indexOf(EVOL_PUNTUACION_ANT));
-							String formula = generateComparisionFormula(columnFirstLetter, columnSecondLetter);
+							String formula = generateComparisionFormula(context, columnFirstLetter, columnSecondLetter);
 							cell.setCellFormula(formula);
 							cell.setCellStyle(shadowStyle);
 						}
@@ -1868,7 +1973,7 @@ public final class AnnexUtils {
 							String columnFirstLetter = GetFirstLetterPreviousExecution(comparision, semillaForm.getEtiquetas(), ColumnNames, PUNTUACION, true);
 							String columnSecondLetter = GetExcelColumnNameForNumber(numberOfFixedColumns + 1 + (3 * executionDates.size() - 3));
 							cell = row.createCell(ColumnNames.indexOf(EVOL_PUNTUACION_PRIMER));
-							String formula = generateComparisionFormula(columnFirstLetter, columnSecondLetter);
+							String formula = generateComparisionFormula(context, columnFirstLetter, columnSecondLetter);
 							cell.setCellFormula(formula);
 							cell.setCellStyle(shadowStyle);
 						}
@@ -1904,9 +2009,9 @@ public final class AnnexUtils {
 			// Compliance
 			nextStartPos = InsertSummaryTableCompliance(sheet, nextStartPos + 5, ColumnNames, headerStyle, shadowStyle);
 			String title = "Datos de evolución de PUNTUACIÓN con respecto a la ITERACION ANTERIOR (Nº de sitios web por segmentos)";
-			nextStartPos = InsertCategoriesTable(sheet, nextStartPos + 5, categories, headerStyle, shadowStyle, rowIndex, ColumnNames.indexOf(EVOL_PUNTUACION_ANT) + 1, title);
+			nextStartPos = InsertCategoriesTable(context, ColumnNames, sheet, nextStartPos + 5, categories, headerStyle, shadowStyle, rowIndex, ColumnNames.indexOf(EVOL_PUNTUACION_ANT) + 1, title);
 			title = "Datos de evolución de PUNTUACIÓN con respecto a la PRIMERA ITERACIÓN (Nº de sitios web por segmentos)";
-			nextStartPos = InsertCategoriesTable(sheet, nextStartPos + 5, categories, headerStyle, shadowStyle, rowIndex, ColumnNames.indexOf(EVOL_PUNTUACION_PRIMER) + 1, title);
+			nextStartPos = InsertCategoriesTable(context, ColumnNames, sheet, nextStartPos + 5, categories, headerStyle, shadowStyle, rowIndex, ColumnNames.indexOf(EVOL_PUNTUACION_PRIMER) + 1, title);
 			// Insert graph sheets per category
 			for (String category : categories) {
 				/*
@@ -1933,8 +2038,8 @@ public final class AnnexUtils {
 				if (wb.getSheet(categorySheetName) == null && categoryFirstRow != 0 && categoryLastRow != 0) {
 					wb.createSheet(categorySheetName);
 					XSSFSheet currentSheet = wb.getSheet(categorySheetName);
-					InsertGraphIntoSheetByEvolution(wb, currentSheet, categoryFirstRow, categoryLastRow, true, numberOfFixedColumns);
-					InsertGraphIntoSheetByEvolution(wb, currentSheet, categoryFirstRow, categoryLastRow, false, numberOfFixedColumns);
+					InsertGraphIntoSheetByEvolution(context, ColumnNames, wb, currentSheet, categoryFirstRow, categoryLastRow, true, numberOfFixedColumns);
+					InsertGraphIntoSheetByEvolution(context, ColumnNames, wb, currentSheet, categoryFirstRow, categoryLastRow, false, numberOfFixedColumns);
 				}
 			}
 			// Increase width of columns to match content
@@ -1983,11 +2088,13 @@ public final class AnnexUtils {
 			throw e;
 		}
 		System.gc();
+		return new EvolutionLines(excelLines, dependencies);
 	}
 
 	/**
 	 * Creates the annex XLSX 1 evolution v 2.
 	 *
+	 * @param context          the annex context
 	 * @param messageResources the message resources
 	 * @param idObsExecution   the id obs execution
 	 * @param idOperation      the id operation
@@ -1995,24 +2102,30 @@ public final class AnnexUtils {
 	 * @param tagsToFilter     the tags to filter
 	 * @throws Exception the exception
 	 */
-	public static void createAnnexXLSX1_Evolution_v2(final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final List<ComparisionForm> comparision,
+	public static EvolutionLines createAnnexXLSX1_Evolution_v2(final AnnexContext context, final MessageResources messageResources, final Long idObsExecution, final Long idOperation, final List<ComparisionForm> comparision,
 			final String[] tagsToFilter) throws Exception {
-		dependencies = new ArrayList<>();
+		final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmap = context.getAnnexmap();
+		final List<String> executionDates = context.getExecutionDates();
+		final List<RangeForm> websiteRanges = context.getWebsiteRanges();
+		final List<String> dependencies = new ArrayList<>();
+		final HashMap<Integer, ExcelLine> excelLines = new HashMap<>();
 		Logger.putLog("Generando anexo: " + FILE_1_EVOLUTION_XLSX_NAME_V2, AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
+		// Every seed block must fit in the window to evaluate its formulas and merge its cells
+		final SXSSFWorkbook wb = createStreamingWorkbook(Math.max(XLSX_ROW_ACCESS_WINDOW, executionDates.size() + 1));
 		try (Connection c = DataBaseManager.getConnection(); FileOutputStream writer = getFileOutputStream(idOperation, FILE_1_EVOLUTION_XLSX_NAME_V2)) {
-			XSSFWorkbook wb = new XSSFWorkbook();
-			XSSFSheet sheet = wb.createSheet(SHEET_RESULTS_NAME);
-			XSSFRow row;
-			XSSFCell cell;
+			final SXSSFSheet sheet = wb.createSheet(SHEET_RESULTS_NAME);
+			final FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+			final XlsxColumnWidths columnWidths = new XlsxColumnWidths();
+			Row row;
+			Cell cell;
 			int rowIndex = 0;
 			int columnIndex = 0;
-			excelLines = new HashMap<>();
 			ExcelLine excelLine;
-			XlsxUtils xlsxUtils = new XlsxUtils(wb);
+			XlsxUtils xlsxUtils = new XlsxUtils(wb.getXSSFWorkbook());
 			final CellStyle headerStyle = xlsxUtils.getCellStyleByName(XlsxUtils.ROYAL_BLUE_BACKGROUND_WHITE10_FONT);
 			final CellStyle shadowStyle = xlsxUtils.getCellStyleByName(XlsxUtils.PALE_BLUE_BACKGROUND_WHITE10_FONT);
 			// Add headers without values
-			ColumnNames = new ArrayList<>();
+			final List<String> ColumnNames = new ArrayList<>();
 			ColumnNames.add(ID);
 			ColumnNames.add(NOMBRE);
 			ColumnNames.add(N_ITERACION);
@@ -2042,6 +2155,8 @@ public final class AnnexUtils {
 			ColumnNames.add(EVOL_PUNTUACION_PRIMER);
 			ColumnNames.add(EVOL_ADECUACION_PRIMER);
 			ColumnNames.add(EVOL_CUMPLIMIENTO_PRIMER);
+			// Values counted by the summary and category tables, which cannot be evaluated once the rows have been flushed
+			final XlsxValueCounts resultCounts = new XlsxValueCounts();
 			// Create header row
 			row = sheet.createRow(rowIndex);
 			for (String name : ColumnNames) {
@@ -2050,6 +2165,7 @@ public final class AnnexUtils {
 				cell.setCellStyle(headerStyle);
 				columnIndex++;
 			}
+			columnWidths.update(row);
 			rowIndex++;
 			/*
 			 * Category names list created by generation Evolution and reused generating PerDependency annex.
@@ -2065,8 +2181,11 @@ public final class AnnexUtils {
 			}
 			// Sort all category names
 			// Collections.sort(categories);
+			// First and last row (exclusive) of every category, used by the graphs once the rows have been flushed
+			final Map<String, int[]> categoryRows = new HashMap<>();
 			// Loop to insert fixed values
 			for (String currentCategory : categories) {
+				final int categoryFirstRow = rowIndex;
 				for (Map.Entry<SemillaForm, TreeMap<String, ScoreForm>> semillaEntry : annexmap.entrySet()) {
 					// Filter if not has tags
 					final SemillaForm semillaForm = semillaEntry.getKey();
@@ -2227,7 +2346,7 @@ public final class AnnexUtils {
 						int iteration = 0;
 						for (String iterationDate : executionDates) {
 							final int iterationRowIndex = rowIndex + iteration;
-							XSSFRow rowIteration = null;
+							Row rowIteration = null;
 							if (iteration == 0) {
 								rowIteration = sheet.getRow(iterationRowIndex);
 							} else {
@@ -2284,7 +2403,7 @@ public final class AnnexUtils {
 						iteration = 0;
 						for (Map.Entry<String, ScoreForm> entry : semillaEntry.getValue().entrySet()) {
 							// final int iterationRowIndex = rowIndex + iteration;
-							XSSFRow rowIteration = null;
+							Row rowIteration = null;
 							// The row is displaced n positions depending of date index in list
 							final String iterationDate = entry.getKey().substring(0, entry.getKey().indexOf(" "));
 							final String executionDateAux = iterationDate.replace("/", "_");
@@ -2355,7 +2474,7 @@ public final class AnnexUtils {
 							cell = row.createCell(ColumnNames.indexOf(EVOL_PUNTUACION_ANT));
 							int firstRow = GetPreviousExecutionRow(sheet, comparision, semillaForm.getEtiquetas(), false, rowIndex, rowIndex + executionDates.size(),
 									ColumnNames.indexOf(FECHA_ITERACION));
-							String formula = generateComparisionPunctuactionFormula_v2(ColumnNames.indexOf(PUNTUACION) + 1, firstRow, rowIndex + executionDates.size());
+							String formula = generateComparisionPunctuactionFormula_v2(context, ColumnNames.indexOf(PUNTUACION) + 1, firstRow, rowIndex + executionDates.size());
 							cell.setCellFormula(formula);
 							cell.setCellStyle(shadowStyle);
 						}
@@ -2382,7 +2501,7 @@ public final class AnnexUtils {
 							cell = row.createCell(ColumnNames.indexOf(EVOL_PUNTUACION_PRIMER));
 							int firstRow = GetPreviousExecutionRow(sheet, comparision, semillaForm.getEtiquetas(), true, rowIndex, rowIndex + executionDates.size(),
 									ColumnNames.indexOf(FECHA_ITERACION));
-							String formula = generateComparisionPunctuactionFormula_v2(ColumnNames.indexOf(PUNTUACION) + 1, firstRow, rowIndex + executionDates.size());
+							String formula = generateComparisionPunctuactionFormula_v2(context, ColumnNames.indexOf(PUNTUACION) + 1, firstRow, rowIndex + executionDates.size());
 							cell.setCellFormula(formula);
 							cell.setCellStyle(shadowStyle);
 						}
@@ -2407,33 +2526,34 @@ public final class AnnexUtils {
 						excelLines.put(rowIndex, excelLine);
 						// Merge some cells if execution dates > 1
 						if (executionDates.size() > 1) {
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(ID), ColumnNames.indexOf(ID)));
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(NOMBRE), ColumnNames.indexOf(NOMBRE)));
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(SEMILLA2), ColumnNames.indexOf(SEMILLA2)));
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(AMBITO2), ColumnNames.indexOf(AMBITO2)));
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(DEPENDE_DE), ColumnNames.indexOf(DEPENDE_DE)));
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(SEGMENTO), ColumnNames.indexOf(SEGMENTO)));
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(COMPLEJIDAD), ColumnNames.indexOf(COMPLEJIDAD)));
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(PAGINAS), ColumnNames.indexOf(PAGINAS)));
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(TEMATICA), ColumnNames.indexOf(TEMATICA)));
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(DISTRIBUCION), ColumnNames.indexOf(DISTRIBUCION)));
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(RECURRENCIA), ColumnNames.indexOf(RECURRENCIA)));
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(OTROS), ColumnNames.indexOf(OTROS)));
-							sheet.addMergedRegion(
+							final int firstMergedRegion = sheet.getNumMergedRegions();
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(ID), ColumnNames.indexOf(ID)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(NOMBRE), ColumnNames.indexOf(NOMBRE)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(SEMILLA2), ColumnNames.indexOf(SEMILLA2)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(AMBITO2), ColumnNames.indexOf(AMBITO2)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(DEPENDE_DE), ColumnNames.indexOf(DEPENDE_DE)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(SEGMENTO), ColumnNames.indexOf(SEGMENTO)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(COMPLEJIDAD), ColumnNames.indexOf(COMPLEJIDAD)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(PAGINAS), ColumnNames.indexOf(PAGINAS)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(TEMATICA), ColumnNames.indexOf(TEMATICA)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(DISTRIBUCION), ColumnNames.indexOf(DISTRIBUCION)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(RECURRENCIA), ColumnNames.indexOf(RECURRENCIA)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(OTROS), ColumnNames.indexOf(OTROS)));
+							sheet.addMergedRegionUnsafe(
 									new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(EVOL_PUNTUACION_ANT), ColumnNames.indexOf(EVOL_PUNTUACION_ANT)));
-							sheet.addMergedRegion(
+							sheet.addMergedRegionUnsafe(
 									new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(EVOL_ADECUACION_ANT), ColumnNames.indexOf(EVOL_ADECUACION_ANT)));
-							sheet.addMergedRegion(
+							sheet.addMergedRegionUnsafe(
 									new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(EVOL_CUMPLIMIENTO_ANT), ColumnNames.indexOf(EVOL_CUMPLIMIENTO_ANT)));
-							sheet.addMergedRegion(
+							sheet.addMergedRegionUnsafe(
 									new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(EVOL_PUNTUACION_PRIMER), ColumnNames.indexOf(EVOL_PUNTUACION_PRIMER)));
-							sheet.addMergedRegion(
+							sheet.addMergedRegionUnsafe(
 									new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(EVOL_ADECUACION_PRIMER), ColumnNames.indexOf(EVOL_ADECUACION_PRIMER)));
-							sheet.addMergedRegion(
+							sheet.addMergedRegionUnsafe(
 									new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(EVOL_CUMPLIMIENTO_PRIMER), ColumnNames.indexOf(EVOL_CUMPLIMIENTO_PRIMER)));
-							// Fix border of merged cells
+							// Fix border of the merged cells of this seed
 							int numMerged = sheet.getNumMergedRegions();
-							for (int i = 0; i < numMerged; i++) {
+							for (int i = firstMergedRegion; i < numMerged; i++) {
 								CellRangeAddress mergedRegions = sheet.getMergedRegion(i);
 								RegionUtil.setBorderTop(BorderStyle.THIN, mergedRegions, sheet);
 								RegionUtil.setBorderLeft(BorderStyle.THIN, mergedRegions, sheet);
@@ -2441,17 +2561,33 @@ public final class AnnexUtils {
 								RegionUtil.setBorderBottom(BorderStyle.THIN, mergedRegions, sheet);
 							}
 						}
+						finishRows(sheet, rowIndex, rowIndex + executionDates.size() - 1, evaluator, columnWidths);
+						countEvolutionValues(resultCounts, sheet.getRow(rowIndex), ColumnNames);
 						rowIndex = rowIndex + executionDates.size();
 					}
 				}
+				if (rowIndex > categoryFirstRow) {
+					categoryRows.put(currentCategory, new int[] { categoryFirstRow, rowIndex });
+				}
 			}
-			int nextStartPos = InsertSummaryTable(sheet, rowIndex + 5, ColumnNames, headerStyle, shadowStyle);
+			// Increase width of columns to match content
+			columnWidths.apply(sheet);
+			// The counts are set as the cached values of every table as soon as it is written, while its rows are still in the window
+			int tableStartPos = rowIndex + 5;
+			int nextStartPos = InsertSummaryTable(sheet, tableStartPos, ColumnNames, headerStyle, shadowStyle);
+			setSummaryTableCounts(sheet, tableStartPos, resultCounts, EVOL_ADECUACION_ANT, EVOL_ADECUACION_PRIMER);
 			// Compliance
-			nextStartPos = InsertSummaryTableCompliance(sheet, nextStartPos + 5, ColumnNames, headerStyle, shadowStyle);
+			tableStartPos = nextStartPos + 5;
+			nextStartPos = InsertSummaryTableCompliance(sheet, tableStartPos, ColumnNames, headerStyle, shadowStyle);
+			setSummaryTableCounts(sheet, tableStartPos, resultCounts, EVOL_CUMPLIMIENTO_ANT, EVOL_CUMPLIMIENTO_PRIMER);
 			String title = "Datos de evolución de PUNTUACIÓN con respecto a la ITERACION ANTERIOR (Nº de sitios web por segmentos)";
-			nextStartPos = InsertCategoriesTable(sheet, nextStartPos + 5, categories, headerStyle, shadowStyle, rowIndex, ColumnNames.indexOf(EVOL_PUNTUACION_ANT) + 1, title);
+			tableStartPos = nextStartPos + 5;
+			nextStartPos = InsertCategoriesTable(context, ColumnNames, sheet, tableStartPos, categories, headerStyle, shadowStyle, rowIndex, ColumnNames.indexOf(EVOL_PUNTUACION_ANT) + 1, title);
+			setCategoriesTableCounts(context, sheet, tableStartPos, categories, resultCounts, EVOL_PUNTUACION_ANT);
 			title = "Datos de evolución de PUNTUACIÓN con respecto a la PRIMERA ITERACIÓN (Nº de sitios web por segmentos)";
-			nextStartPos = InsertCategoriesTable(sheet, nextStartPos + 5, categories, headerStyle, shadowStyle, rowIndex, ColumnNames.indexOf(EVOL_PUNTUACION_PRIMER) + 1, title);
+			tableStartPos = nextStartPos + 5;
+			nextStartPos = InsertCategoriesTable(context, ColumnNames, sheet, tableStartPos, categories, headerStyle, shadowStyle, rowIndex, ColumnNames.indexOf(EVOL_PUNTUACION_PRIMER) + 1, title);
+			setCategoriesTableCounts(context, sheet, tableStartPos, categories, resultCounts, EVOL_PUNTUACION_PRIMER);
 			// Insert graph sheets per category
 			for (String category : categories) {
 				/*
@@ -2460,53 +2596,18 @@ public final class AnnexUtils {
 				 */
 				if (category != null) {
 					String categorySheetName = category.substring(0, Math.min(category.length(), 31));
-					// Search category initial and final row.
-					int categoryFirstRow = 0;
-					int categoryLastRow = 0;
-					// Starts 1 because always first row was header
-					for (int i = 1; i < rowIndex; i++) {
-						row = sheet.getRow(i);
-						if (row != null) {
-							cell = row.getCell(ColumnNames.indexOf(SEGMENTO));
-							if (cell != null) { // merged cells return null
-								if (cell.getStringCellValue().equals(category)) {
-									if (categoryFirstRow == 0) {
-										categoryFirstRow = i;
-									}
-									categoryLastRow = i + executionDates.size(); // every seed has all iterations
-								}
-							}
-						}
-					}
-					if (wb.getSheet(categorySheetName) == null && categoryFirstRow != 0 && categoryLastRow != 0) {
-						wb.createSheet(categorySheetName);
-						XSSFSheet currentSheet = wb.getSheet(categorySheetName);
-						InsertGraphIntoSheetByEvolution_v2(wb, currentSheet, categoryFirstRow, categoryLastRow - 1, true);
-						InsertGraphIntoSheetByEvolution_v2(wb, currentSheet, categoryFirstRow, categoryLastRow - 1, false);
+					// Category initial and final row.
+					final int[] categoryRange = categoryRows.get(category);
+					if (wb.getXSSFWorkbook().getSheet(categorySheetName) == null && categoryRange != null) {
+						XSSFSheet currentSheet = wb.getXSSFWorkbook().createSheet(categorySheetName);
+						InsertGraphIntoSheetByEvolution_v2(context, ColumnNames, wb.getXSSFWorkbook(), currentSheet, categoryRange[0], categoryRange[1] - 1, true);
+						InsertGraphIntoSheetByEvolution_v2(context, ColumnNames, wb.getXSSFWorkbook(), currentSheet, categoryRange[0], categoryRange[1] - 1, false);
 						currentSheet.setZoom(60);
 					}
 				}
 			}
-			// Increase width of columns to match content
-			for (int i = 0; i < ColumnNames.size(); i++) {
-				sheet.autoSizeColumn(i);
-			}
-			XSSFFormulaEvaluator.evaluateAllFormulaCells(wb);
-			// Clear -1 cell values
-			for (int i = 0; i < sheet.getLastRowNum(); i++) {
-				Row r = sheet.getRow(i);
-				if (r != null) {
-					for (int j = 0; j < r.getLastCellNum(); j++) {
-						Cell cX = r.getCell(j);
-						if (cX != null && CellType.NUMERIC.equals(cX.getCellType()) && cX.getNumericCellValue() == -1) {
-							cX.setCellStyle(shadowStyle);
-							cX.setBlank();
-						}
-					}
-				}
-			}
 			// Add a legend with custom text
-			XSSFDrawing draw = sheet.createDrawingPatriarch();
+			XSSFDrawing draw = wb.getXSSFWorkbook().getSheet(SHEET_RESULTS_NAME).createDrawingPatriarch();
 			XSSFTextBox tb1 = draw.createTextbox(new XSSFClientAnchor(0, 0, 0, 0, 0, nextStartPos + 5, 10, nextStartPos + 5 + 6));
 			tb1.setLineStyleColor(0, 0, 0);
 			tb1.setLineWidth(1);
@@ -2530,17 +2631,24 @@ public final class AnnexUtils {
 		} catch (Exception e) {
 			Logger.putLog("Error al generar el anexo: " + FILE_1_EVOLUTION_XLSX_NAME, AnnexUtils.class, Logger.LOG_LEVEL_ERROR, e);
 			throw e;
+		} finally {
+			wb.dispose();
 		}
-		System.gc();
+		return new EvolutionLines(excelLines, dependencies);
 	}
 
 	/**
 	 * Creates the XLSX evolution annex per dependency. NEEDS THE EXECUTION OF createAnnexXLSX_Evolution METHOD PREVIOULY TO CONSTRUCT THE DATA DICTIONARY FROM DATABASE INFO.
 	 *
-	 * @param idOperation the id operation
+	 * @param context        the annex context
+	 * @param idOperation    the id operation
+	 * @param evolutionLines the rows and dependencies of the evolution annex
 	 * @throws Exception the exception
 	 */
-	public static void createAnnexXLSX_PerDependency(final Long idOperation) throws Exception {
+	public static void createAnnexXLSX_PerDependency(final AnnexContext context, final Long idOperation, final EvolutionLines evolutionLines) throws Exception {
+		final List<String> executionDates = context.getExecutionDates();
+		final Map<Integer, ExcelLine> excelLines = evolutionLines.getExcelLines();
+		final List<String> dependencies = evolutionLines.getDependencies();
 		final int numberOfFixedColumns = 12;
 		// Iterate through dependencies to create each file
 		for (String currentDependency : dependencies) {
@@ -2557,7 +2665,7 @@ public final class AnnexUtils {
 				final CellStyle shadowStyle = xlsxUtils.getCellStyleByName(XlsxUtils.PALE_BLUE_BACKGROUND_WHITE10_FONT);
 				row = sheet.createRow(rowIndex);
 				// Add headers without values
-				ColumnNames = new ArrayList<>();
+				final List<String> ColumnNames = new ArrayList<>();
 				ColumnNames.add(ID);
 				ColumnNames.add(NOMBRE);
 				ColumnNames.add("namecat");
@@ -2739,10 +2847,10 @@ public final class AnnexUtils {
 				XSSFSheet currentSheet2 = wb.createSheet("Iteración SW");
 				XSSFSheet currentSheet3 = wb.createSheet("Iteración Global");
 				if (rowIndex > 1) {
-					InsertGraphIntoSheetByDependency(currentSheet, rowIndex, true, numberOfFixedColumns, false);
-					InsertGraphIntoSheetByDependency(currentSheet, rowIndex, false, numberOfFixedColumns, false);
-					InsertGraphIntoSheetByDependency(currentSheet2, rowIndex, true, numberOfFixedColumns, true);
-					InsertGraphIntoSheetByDependency(currentSheet2, rowIndex, false, numberOfFixedColumns, true);
+					InsertGraphIntoSheetByDependency(context, ColumnNames, currentSheet, rowIndex, true, numberOfFixedColumns, false);
+					InsertGraphIntoSheetByDependency(context, ColumnNames, currentSheet, rowIndex, false, numberOfFixedColumns, false);
+					InsertGraphIntoSheetByDependency(context, ColumnNames, currentSheet2, rowIndex, true, numberOfFixedColumns, true);
+					InsertGraphIntoSheetByDependency(context, ColumnNames, currentSheet2, rowIndex, false, numberOfFixedColumns, true);
 					InsertAgregatePieChar(currentSheet3, rowIndex, ColumnNames, xlsxUtils);
 				}
 				XSSFFormulaEvaluator.evaluateAllFormulaCells(wb);
@@ -2764,26 +2872,38 @@ public final class AnnexUtils {
 	/**
 	 * Creates the annex XLS X per dependency v 2.
 	 *
-	 * @param idOperation the id operation
+	 * @param context        the annex context
+	 * @param idOperation    the id operation
+	 * @param evolutionLines the rows and dependencies of the evolution annex
 	 * @throws Exception the exception
 	 */
-	public static void createAnnexXLSX_PerDependency_v2(final Long idOperation) throws Exception {
+	public static void createAnnexXLSX_PerDependency_v2(final AnnexContext context, final Long idOperation, final EvolutionLines evolutionLines) throws Exception {
+		final List<String> executionDates = context.getExecutionDates();
+		final Map<Integer, ExcelLine> excelLines = evolutionLines.getExcelLines();
+		final List<String> dependencies = evolutionLines.getDependencies();
 		// Iterate through dependencies to create each file
 		for (String currentDependency : dependencies) {
 			Logger.putLog("Generando anexo: " + currentDependency + ".xlsx", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
+			// Every seed block must fit in the window to evaluate its formulas and merge its cells
+			final SXSSFWorkbook wb = createStreamingWorkbook(Math.max(XLSX_ROW_ACCESS_WINDOW, executionDates.size() + 1));
 			try (FileOutputStream writer = getFileOutputStream(idOperation, "/Dependencias_v2/" + currentDependency + ".xlsx")) {
-				XSSFWorkbook wb = new XSSFWorkbook();
-				XSSFSheet sheet = wb.createSheet(SHEET_RESULTS_NAME);
-				XSSFRow row;
-				XSSFCell cell;
+				final SXSSFSheet sheet = wb.createSheet(SHEET_RESULTS_NAME);
+				final FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+				final XlsxColumnWidths columnWidths = new XlsxColumnWidths();
+				// Rows with the seed names and rows of the last iteration, used by the graphs once the rows have been flushed
+				final List<Integer> seedRows = new ArrayList<>();
+				final List<Integer> lastIterationRows = new ArrayList<>();
+				final String lastExecutionDate = executionDates.get(executionDates.size() - 1);
+				Row row;
+				Cell cell;
 				int rowIndex = 0;
 				int columnIndex = 0;
-				XlsxUtils xlsxUtils = new XlsxUtils(wb);
+				XlsxUtils xlsxUtils = new XlsxUtils(wb.getXSSFWorkbook());
 				final CellStyle headerStyle = xlsxUtils.getCellStyleByName(XlsxUtils.ROYAL_BLUE_BACKGROUND_WHITE10_FONT);
 				final CellStyle shadowStyle = xlsxUtils.getCellStyleByName(XlsxUtils.PALE_BLUE_BACKGROUND_WHITE10_FONT);
 				row = sheet.createRow(rowIndex);
 				// Add headers without values
-				ColumnNames = new ArrayList<>();
+				final List<String> ColumnNames = new ArrayList<>();
 				ColumnNames.add(ID);
 				ColumnNames.add(NOMBRE);
 				ColumnNames.add(N_ITERACION);
@@ -2807,6 +2927,8 @@ public final class AnnexUtils {
 				ColumnNames.add(NO_CONFORME);
 				ColumnNames.add(PARCIALMENTE_CONFORME);
 				ColumnNames.add(TOTALMENTE_CONFORME);
+				// Allocation and compliance of the last iteration, counted for the pie chart tables because the rows are flushed before writing them
+				final XlsxValueCounts lastIterationCounts = new XlsxValueCounts();
 				// Create header row
 				row = sheet.createRow(rowIndex);
 				Logger.putLog("Generando anexo: " + currentDependency + ".xlsx: Column Names.", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
@@ -2816,6 +2938,7 @@ public final class AnnexUtils {
 					cell.setCellStyle(headerStyle);
 					columnIndex++;
 				}
+				columnWidths.update(row);
 				rowIndex++;
 				Logger.putLog("Generando anexo: " + currentDependency + ".xlsx: Excel lines.", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
 				for (Map.Entry<Integer, ExcelLine> currentLine : excelLines.entrySet()) {
@@ -2831,6 +2954,9 @@ public final class AnnexUtils {
 						cell = row.createCell(ColumnNames.indexOf(NOMBRE));
 						cell.setCellValue(currentLine.getValue().getNombre());
 						cell.setCellStyle(shadowStyle);
+						if (!StringUtils.isEmpty(currentLine.getValue().getNombre())) {
+							seedRows.add(rowIndex);
+						}
 						// "namecat"
 						cell = row.createCell(ColumnNames.indexOf(SEGMENTO));
 						cell.setCellValue(currentLine.getValue().getNamecat());
@@ -2879,12 +3005,15 @@ public final class AnnexUtils {
 						int iteration = 0;
 						for (String iterationDate : executionDates) {
 							final int iterationRowIndex = rowIndex + iteration;
-							XSSFRow rowIteration = null;
+							Row rowIteration = null;
 							if (iteration == 0) {
 								rowIteration = sheet.getRow(iterationRowIndex);
 							} else {
 								rowIteration = sheet.createRow(iterationRowIndex);
 							}
+							if (iterationDate.equals(lastExecutionDate)) {
+								lastIterationRows.add(iterationRowIndex);
+							}
 							// Iteration number
 							columnIndex = ColumnNames.indexOf(N_ITERACION);
 							cell = rowIteration.createCell(columnIndex);
@@ -2974,7 +3103,7 @@ public final class AnnexUtils {
 						// Add a row aditional for every date before first
 						iteration = 0;
 						for (ExcelExecution execution : currentLine.getValue().getExecutions()) {
-							XSSFRow rowIteration = null;
+							Row rowIteration = null;
 							// Row is displaced n positios depending of index of date in list
 							final int iterationRowIndex = rowIndex + executionDates.indexOf(execution.getDate());
 							rowIteration = sheet.getRow(iterationRowIndex);
@@ -2992,6 +3121,10 @@ public final class AnnexUtils {
 							cell = rowIteration.getCell(ColumnNames.indexOf(CUMPLIMIENTO));
 							cell.setCellValue(execution.getCompliance());
 							cell.setCellStyle(shadowStyle);
+							if (execution.getDate().equals(lastExecutionDate)) {
+								lastIterationCounts.add(ADECUACION, execution.getAdequacy());
+								lastIterationCounts.add(CUMPLIMIENTO, execution.getCompliance());
+							}
 							// Not valid
 							String columnFirstLetter = GetExcelColumnNameForNumber(ColumnNames.indexOf(ADECUACION) + 1);
 							String columnSecondLetter = GetExcelColumnNameForNumber(ColumnNames.indexOf(PUNTUACION) + 1);
@@ -3030,8 +3163,8 @@ public final class AnnexUtils {
 						}
 						// Merge some cells if execution dates > 1
 						if (executionDates.size() > 1) {
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(ID), ColumnNames.indexOf(ID)));
-							sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(NOMBRE), ColumnNames.indexOf(NOMBRE)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(ID), ColumnNames.indexOf(ID)));
+							sheet.addMergedRegionUnsafe(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(NOMBRE), ColumnNames.indexOf(NOMBRE)));
 							/*
 							 * sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(SEMILLA2), ColumnNames.indexOf(SEMILLA2)));
 							 * sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(AMBITO2), ColumnNames.indexOf(AMBITO2)));
@@ -3045,46 +3178,42 @@ public final class AnnexUtils {
 							 * sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex + executionDates.size() - 1, ColumnNames.indexOf(OTROS), ColumnNames.indexOf(OTROS)));
 							 */
 						}
+						finishRows(sheet, rowIndex, rowIndex + executionDates.size() - 1, evaluator, columnWidths);
 						rowIndex = rowIndex + executionDates.size();
 					}
 				}
 				// Increase width of columns to match content
-				for (int i = 0; i < ColumnNames.size(); i++) {
-					sheet.autoSizeColumn(i);
-				}
-				XSSFSheet currentSheet = wb.createSheet("Evolución SW");
-				XSSFSheet currentSheet2 = wb.createSheet("Iteración SW");
-				XSSFSheet currentSheet3 = wb.createSheet("Iteración Global");
+				columnWidths.apply(sheet);
+				XSSFSheet currentSheet = wb.getXSSFWorkbook().createSheet("Evolución SW");
+				XSSFSheet currentSheet2 = wb.getXSSFWorkbook().createSheet("Iteración SW");
+				XSSFSheet currentSheet3 = wb.getXSSFWorkbook().createSheet("Iteración Global");
 				Logger.putLog("Generando anexo: " + currentDependency + ".xlsx: Evolution", AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
 				if (rowIndex > 1) {
 					// Evolution
-					InsertGraphIntoSheetByEvolution_v2(wb, currentSheet, 1, rowIndex - 1, false);
-					InsertGraphIntoSheetByEvolution_v2(wb, currentSheet, 1, rowIndex - 1, true);
+					InsertGraphIntoSheetByEvolution_v2(context, ColumnNames, wb.getXSSFWorkbook(), currentSheet, 1, rowIndex - 1, false);
+					InsertGraphIntoSheetByEvolution_v2(context, ColumnNames, wb.getXSSFWorkbook(), currentSheet, 1, rowIndex - 1, true);
 					// Last iteration
 					String iterationDate = executionDates.get(executionDates.size() - 1);
 					try {
 						Date tmp = new SimpleDateFormat("yyyy-MM-dd").parse(iterationDate);
-						InsertGraphIntoSheetByDependency_v2(currentSheet2, rowIndex, false, new SimpleDateFormat("dd/MM/yyyy").format(tmp));
-						InsertGraphIntoSheetByDependency_v2(currentSheet2, rowIndex, true, new SimpleDateFormat("dd/MM/yyyy").format(tmp));
+						InsertGraphIntoSheetByDependency_v2(ColumnNames, currentSheet2, rowIndex, false, new SimpleDateFormat("dd/MM/yyyy").format(tmp), seedRows, lastIterationRows);
+						InsertGraphIntoSheetByDependency_v2(ColumnNames, currentSheet2, rowIndex, true, new SimpleDateFormat("dd/MM/yyyy").format(tmp), seedRows, lastIterationRows);
 					} catch (ParseException e) {
 						Logger.putLog("Error al parsear las fechas", AnnexUtils.class, Logger.LOG_LEVEL_ERROR);
 					}
-					InsertAgregatePieChar_v2(currentSheet3, rowIndex, ColumnNames, xlsxUtils);
+					InsertAgregatePieChar_v2(context, currentSheet3, rowIndex, ColumnNames, xlsxUtils, lastIterationCounts);
 				}
-				XSSFFormulaEvaluator.evaluateAllFormulaCells(wb);
 				// Hide Id Column
-				CTCol col = sheet.getCTWorksheet().getColsArray(0).addNewCol();
-				col.setMin(1);
-				col.setMax(1);
-				col.setHidden(true);
+				sheet.setColumnHidden(ColumnNames.indexOf(ID), true);
 				wb.write(writer);
 				wb.close();
 			} catch (Exception e) {
 				Logger.putLog("Error al generar el anexo: " + currentDependency + ".xlsx", AnnexUtils.class, Logger.LOG_LEVEL_ERROR, e);
 				throw e;
+			} finally {
+				wb.dispose();
 			}
 		}
-		System.gc();
 	}
 
 	/**
@@ -3152,6 +3281,7 @@ public final class AnnexUtils {
 	/**
 	 * Creates the annex progress evolution XLSX.
 	 *
+	 * @param context           the annex context
 	 * @param messageResources  the message resources
 	 * @param idObs             the id obs
 	 * @param idObsExecution    the id obs execution
@@ -3162,17 +3292,18 @@ public final class AnnexUtils {
 	 * @param comparision       the comparision
 	 * @throws Exception the exception
 	 */
-	private static void createAnnexProgressEvolutionXLSX(final MessageResources messageResources, final Long idObs, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter,
+	private static void createAnnexProgressEvolutionXLSX(final AnnexContext context, final MessageResources messageResources, final Long idObs, final Long idObsExecution, final Long idOperation, final String[] tagsToFilter,
 			final String[] tagsToFilterFixed, final String[] exObsIds, final List<ComparisionForm> comparision) throws Exception {
+		final List<String> executionDates = context.getExecutionDates();
 		Logger.putLog("Generando anexo: " + FILE_4_EVOLUTION_AND_PROGRESS_XLSX_NAME, AnnexUtils.class, Logger.LOG_LEVEL_WARNING);
 		try (Connection c = DataBaseManager.getConnection(); FileOutputStream writer = getFileOutputStream(idOperation, FILE_4_EVOLUTION_AND_PROGRESS_XLSX_NAME)) {
 			final XSSFWorkbook wb = new XSSFWorkbook();
 			final XSSFSheet globalSheet = wb.createSheet("Global");
 			// First sheet global part
 			XlsxUtils xlsxUtils = new XlsxUtils(wb);
-			generateGlobalProgressEvolutionSheet(globalSheet, messageResources, idObs, idObsExecution, idOperation, null, EVOLUTION_OF_THE_ESTIMATED_ADEQUACY_LEVEL_IN_GLOBAL_TERMS,
+			generateGlobalProgressEvolutionSheet(context, globalSheet, messageResources, idObs, idObsExecution, idOperation, null, EVOLUTION_OF_THE_ESTIMATED_ADEQUACY_LEVEL_IN_GLOBAL_TERMS,
 					EVOLUTION_OF_THE_COMPLIANCE_SITUATION_INTENDED_TO_BE_IMPLEMENTED_IN_GLOBAL_TERMS, null, null, false, 0, xlsxUtils, "");
-			generateGlobalProgressEvolutionSheet(globalSheet, messageResources, idObs, idObsExecution, idOperation, tagsToFilterFixed, EVOLUTION_OF_THE_ESTIMATED_ADEQUACY_LEVEL_FIXED_PART,
+			generateGlobalProgressEvolutionSheet(context, globalSheet, messageResources, idObs, idObsExecution, idOperation, tagsToFilterFixed, EVOLUTION_OF_THE_ESTIMATED_ADEQUACY_LEVEL_FIXED_PART,
 					EVOLUTION_OF_THE_COMPLIANCE_SITUATION_TARGETED_FIXED_PART, null, null, false, 40 + (executionDates.size()), xlsxUtils, "");
 			// Add a legend with custom text
 			XSSFDrawing draw = globalSheet.createDrawingPatriarch();
@@ -3207,12 +3338,12 @@ public final class AnnexUtils {
 				if (pageObservatoryMapCat != null) {
 					String currentCategory = category.getName().substring(0, Math.min(category.getName().length(), 31));
 					final XSSFSheet categorySheet = wb.createSheet(currentCategory);
-					generateGlobalProgressEvolutionSheet(categorySheet, messageResources, idObs, idObsExecution, idOperation, null,
+					generateGlobalProgressEvolutionSheet(context, categorySheet, messageResources, idObs, idObsExecution, idOperation, null,
 							messageResources.getMessage("annex.xlsx.global.progress.allocation.segment.global.title", new String[] { category.getName() }),
 							messageResources.getMessage("annex.xlsx.global.progress.compliance.segment.global.title", new String[] { category.getName() }),
 							messageResources.getMessage("annex.xlsx.global.progress.allocation.segment.fixed.title", new String[] { category.getName() }),
 							messageResources.getMessage("annex.xlsx.global.progress.compliance.segment.fixed.title", new String[] { category.getName() }), true, 0, xlsxUtils, category.getName());
-					generateGlobalProgressEvolutionSheet(categorySheet, messageResources, idObs, idObsExecution, idOperation, tagsToFilterFixed,
+					generateGlobalProgressEvolutionSheet(context, categorySheet, messageResources, idObs, idObsExecution, idOperation, tagsToFilterFixed,
 							messageResources.getMessage("annex.xlsx.global.progress.allocation.segment.fixed.title", new String[] { category.getName() }),
 							messageResources.getMessage("annex.xlsx.global.progress.compliance.segment.fixed.title", new String[] { category.getName() }),
 							messageResources.getMessage("annex.xlsx.global.progress.allocation.segment.fixed.title", new String[] { category.getName() }),
@@ -3224,7 +3355,7 @@ public final class AnnexUtils {
 			}
 			// Final sheet comparision
 			final Connection conn = DataBaseManager.getConnection();
-			generateSummaryProgression(wb, conn, idOperation, comparision, tagsToFilterFixed);
+			generateSummaryProgression(context, wb, conn, idOperation, comparision, tagsToFilterFixed);
 			DataBaseManager.closeConnection(conn);
 			XSSFFormulaEvaluator.evaluateAllFormulaCells(wb);
 			wb.write(writer);
@@ -3269,16 +3400,18 @@ public final class AnnexUtils {
 	/**
 	 * Generate summary progression.
 	 *
+	 * @param context           the annex context
 	 * @param wb                the wb
 	 * @param conn              the conn
 	 * @param idOperation       the id operation
 	 * @param comparision       the comparision
 	 * @param tagsToFilterFixed the tags to filter fixed
-	 * @throws SQLException    the SQL exception
-	 * @throws ScriptException the script exception
+	 * @throws SQLException the SQL exception
 	 */
-	private static void generateSummaryProgression(final XSSFWorkbook wb, final Connection conn, final Long idOperation, final List<ComparisionForm> comparision, final String[] tagsToFilterFixed)
-			throws SQLException, ScriptException {
+	private static void generateSummaryProgression(final AnnexContext context, final XSSFWorkbook wb, final Connection conn, final Long idOperation, final List<ComparisionForm> comparision, final String[] tagsToFilterFixed)
+			throws SQLException {
+		final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmap = context.getAnnexmap();
+		final List<RangeForm> websiteRanges = context.getWebsiteRanges();
 		// Loop to insert puntuation evolution compare with previous.
 		// To select comparision column in comparision object, check if seed has tagId of comparision to select column by date
 		SummaryEvolution globalSummaryFirst = new SummaryEvolution(websiteRanges);
@@ -3287,10 +3420,10 @@ public final class AnnexUtils {
 		SummaryEvolution fixedSummaryPrevious = new SummaryEvolution(websiteRanges);
 		for (Map.Entry<SemillaForm, TreeMap<String, ScoreForm>> semillaEntry : annexmap.entrySet()) {
 			// Apply websites ranges
-			countEvolution(conn, comparision, globalSummaryPrevious, semillaEntry, false, null);
-			countEvolution(conn, comparision, globalSummaryFirst, semillaEntry, true, null);
-			countEvolution(conn, comparision, fixedSummaryPrevious, semillaEntry, false, tagsToFilterFixed);
-			countEvolution(conn, comparision, fixedSummaryFirst, semillaEntry, true, tagsToFilterFixed);
+			countEvolution(context, conn, comparision, globalSummaryPrevious, semillaEntry, false, null);
+			countEvolution(context, conn, comparision, globalSummaryFirst, semillaEntry, true, null);
+			countEvolution(context, conn, comparision, fixedSummaryPrevious, semillaEntry, false, tagsToFilterFixed);
+			countEvolution(context, conn, comparision, fixedSummaryFirst, semillaEntry, true, tagsToFilterFixed);
 		}
 		XSSFSheet improvementSheet = wb.createSheet(SHEET_IMPROVMENTS_TITLE);
 		int currentRow = 10;
@@ -3442,17 +3575,17 @@ public final class AnnexUtils {
 	/**
 	 * Count evolution.
 	 *
+	 * @param context           the annex context
 	 * @param c                 the c
 	 * @param comparision       the comparision
 	 * @param globalSummary     the global summary
 	 * @param semillaEntry      the semilla entry
 	 * @param isFirst           the is first
 	 * @param tagsToFilterFixed the tags to filter fixed
-	 * @throws SQLException    the SQL exception
-	 * @throws ScriptException the script exception
+	 * @throws SQLException the SQL exception
 	 */
-	private static void countEvolution(final Connection c, final List<ComparisionForm> comparision, SummaryEvolution globalSummary, Map.Entry<SemillaForm, TreeMap<String, ScoreForm>> semillaEntry,
-			final boolean isFirst, final String[] tagsToFilterFixed) throws SQLException, ScriptException {
+	private static void countEvolution(final AnnexContext context, final Connection c, final List<ComparisionForm> comparision, SummaryEvolution globalSummary, Map.Entry<SemillaForm, TreeMap<String, ScoreForm>> semillaEntry,
+			final boolean isFirst, final String[] tagsToFilterFixed) throws SQLException {
 		final SemillaForm semillaForm = semillaEntry.getKey();
 		Map<RangeForm, Integer> rangeMap = globalSummary.getRangeMaps();
 		if (semillaForm != null && semillaForm.getId() != 0) {
@@ -3482,18 +3615,15 @@ public final class AnnexUtils {
 								}
 							}
 							BigDecimal diffScore = lastScore.subtract(scoreComparision);
-							for (RangeForm range : websiteRanges) {
-								String expression = generateRangeJsExpression(diffScore, range.getMinValueOperator(), range.getMaxValueOperator(), range.getMinValue(), range.getMaxValue());
-								if ((boolean) scriptEngine.eval(expression)) {
-									Integer val = rangeMap.get(range);
-									if (val != null) {
-										val++;
-									} else {
-										val = 1;
-									}
-									rangeMap.put(range, val);
-									break;
+							final RangeForm range = context.getWebsiteRangeClassifier().first(diffScore);
+							if (range != null) {
+								Integer val = rangeMap.get(range);
+								if (val != null) {
+									val++;
+								} else {
+									val = 1;
 								}
+								rangeMap.put(range, val);
 							}
 							break;
 						}
@@ -3526,17 +3656,14 @@ public final class AnnexUtils {
 						}
 					}
 					BigDecimal diffScore = lastScore.subtract(scoreComparision);
-					for (RangeForm range : websiteRanges) {
-						String expression = generateRangeJsExpression(diffScore, range.getMinValueOperator(), range.getMaxValueOperator(), range.getMinValue(), range.getMaxValue());
-						if ((boolean) scriptEngine.eval(expression)) {
-							Integer val = rangeMap.get(range);
-							if (val != null) {
-								val++;
-							} else {
-								val = 1;
-							}
-							rangeMap.put(range, val);
+					for (RangeForm range : context.getWebsiteRangeClassifier().classify(diffScore)) {
+						Integer val = rangeMap.get(range);
+						if (val != null) {
+							val++;
+						} else {
+							val = 1;
 						}
+						rangeMap.put(range, val);
 					}
 				}
 			}
@@ -3546,6 +3673,7 @@ public final class AnnexUtils {
 	/**
 	 * Generate global progress evolution sheet.
 	 *
+	 * @param context                      the annex context
 	 * @param sheet                        the sheet
 	 * @param messageResources             the message resources
 	 * @param idObs                        the id obs
@@ -3561,9 +3689,11 @@ public final class AnnexUtils {
 	 * @param xlsxUtils                    the xlsx utils
 	 * @param categoryName                 the category name
 	 */
-	private static void generateGlobalProgressEvolutionSheet(final XSSFSheet sheet, final MessageResources messageResources, final Long idObs, final Long idObsExecution, final Long idOperation,
+	private static void generateGlobalProgressEvolutionSheet(final AnnexContext context, final XSSFSheet sheet, final MessageResources messageResources, final Long idObs, final Long idObsExecution, final Long idOperation,
 			final String[] tagsToFilter, final String titleAllocationGraphicGlobal, final String titleComplianceGraphicGlobal, final String titleAllocationGraphicFixed,
 			final String titleComplianceGrpahicFixed, final boolean generateFixedGraphics, final int initRow, final XlsxUtils xlsxUtils, final String categoryName) {
+		final Map<SemillaForm, TreeMap<String, ScoreForm>> annexmapAdvanced = context.getAnnexmapAdvanced();
+		final List<Date> executionDatesWithFormat_Valid = context.getExecutionDatesWithFormat_Valid();
 		final PropertiesManager pmgr = new PropertiesManager();
 		final DateFormat df = new SimpleDateFormat(pmgr.getValue(CRAWLER_PROPERTIES, KEY_DATE_FORMAT_EVOLUTION));
 		int rowCount = initRow;
@@ -4353,11 +4483,13 @@ public final class AnnexUtils {
 	/**
 	 * Generate comparision formula.
 	 *
+	 * @param context            the annex context
 	 * @param columnFirstLetter  the column first letter
 	 * @param columnSecondLetter the column second letter
 	 * @return the string
 	 */
-	private static String generateComparisionFormula(final String columnFirstLetter, final String columnSecondLetter) {
+	private static String generateComparisionFormula(final AnnexContext context, final String columnFirstLetter, final String columnSecondLetter) {
+		final List<RangeForm> websiteRanges = context.getWebsiteRanges();
 		final String substractColumnsResult = columnSecondLetter + ":" + columnSecondLetter + "-" + columnFirstLetter + ":" + columnFirstLetter;
 		String formula = "IF(" + columnSecondLetter + ":" + columnSecondLetter + "=\"\",\"\",\"\")";
 		if (websiteRanges != null && !websiteRanges.isEmpty()) {
@@ -4452,12 +4584,14 @@ public final class AnnexUtils {
 	/**
 	 * Generate comparision punctuaction formula v 2.
 	 *
+	 * @param context  the annex context
 	 * @param column   the column
 	 * @param firstRow the first row
 	 * @param lastRow  the last row
 	 * @return the string
 	 */
-	private static String generateComparisionPunctuactionFormula_v2(final int column, final int firstRow, final int lastRow) {
+	private static String generateComparisionPunctuactionFormula_v2(final AnnexContext context, final int column, final int firstRow, final int lastRow) {
+		final List<RangeForm> websiteRanges = context.getWebsiteRanges();
 		String columName = GetExcelColumnNameForNumber(column);
 		String firstCell = columName + firstRow;
 		String secondCell = columName + lastRow;
@@ -4507,7 +4641,7 @@ public final class AnnexUtils {
 	 * @param columnIndex      the column index
 	 * @return the int
 	 */
-	private static int GetPreviousExecutionRow(final XSSFSheet sheet, final List<ComparisionForm> comparision, final List<EtiquetaForm> labels, final boolean compareWithFirst, final int firstRow,
+	private static int GetPreviousExecutionRow(final Sheet sheet, final List<ComparisionForm> comparision, final List<EtiquetaForm> labels, final boolean compareWithFirst, final int firstRow,
 			final int lastRow, final int columnIndex) {
 		String previousDate = "";
 		if (comparision != null) {
@@ -4719,12 +4853,16 @@ public final class AnnexUtils {
 	/**
 	 * Insert agregate pie char.
 	 *
+	 * @param context       the annex context
 	 * @param currentSheet3 the current sheet 3
 	 * @param rowIndex      the row index
 	 * @param columnNames   the column names
 	 * @param xlsxUtils     the xlsx utils
+	 * @param lastIterationCounts the allocation and compliance values of the last iteration, set as the cached values of the tables before plotting them
 	 */
-	private static void InsertAgregatePieChar_v2(XSSFSheet currentSheet3, int rowIndex, List<String> columnNames, final XlsxUtils xlsxUtils) {
+	private static void InsertAgregatePieChar_v2(final AnnexContext context, XSSFSheet currentSheet3, int rowIndex, List<String> ColumnNames, final XlsxUtils xlsxUtils,
+			final XlsxValueCounts lastIterationCounts) {
+		final List<String> executionDates = context.getExecutionDates();
 		int adecuationColumn = ColumnNames.indexOf(ADECUACION) + 1;
 		int dateColumn = ColumnNames.indexOf(FECHA_ITERACION) + 1;
 		String iterationDate = executionDates.get(executionDates.size() - 1);
@@ -4778,6 +4916,7 @@ public final class AnnexUtils {
 		cell = row.createCell(2);
 		cell.setCellFormula("B4/SUM(B2:B4)");
 		cell.setCellStyle(percentCenterStyle);
+		setPieTableCounts(currentSheet3, 1, lastIterationCounts, ADECUACION, "AA", "A", "No Válido");
 		currentSheet3.autoSizeColumn(0);
 		currentSheet3.autoSizeColumn(1);
 		currentSheet3.autoSizeColumn(2);
@@ -4853,6 +4992,7 @@ public final class AnnexUtils {
 		cell = row.createCell(2);
 		cell.setCellFormula("B29/SUM(B27:B29)");
 		cell.setCellStyle(percentCenterStyle);
+		setPieTableCounts(currentSheet3, 26, lastIterationCounts, CUMPLIMIENTO, "Plenamente conforme", "Parcialmente conforme", "No conforme");
 		currentSheet3.autoSizeColumn(0);
 		currentSheet3.autoSizeColumn(1);
 		currentSheet3.autoSizeColumn(2);
@@ -4883,12 +5023,13 @@ public final class AnnexUtils {
 	/**
 	 * Fill null cell in range.
 	 *
+	 * @param ColumnNames      the column names
 	 * @param sheetAt          the sheet at
 	 * @param categoryFirstRow the category first row
 	 * @param categoryLastRow  the category last row
 	 * @param firstSerieColumn the first serie column
 	 */
-	private static void FillNullCellInRange(XSSFSheet sheetAt, int categoryFirstRow, int categoryLastRow, int firstSerieColumn) {
+	private static void FillNullCellInRange(final List<String> ColumnNames, XSSFSheet sheetAt, int categoryFirstRow, int categoryLastRow, int firstSerieColumn) {
 		for (int i = categoryFirstRow; i <= categoryLastRow; i++) {
 			XSSFRow row = sheetAt.getRow(i);
 			if (row != null) {
@@ -4911,7 +5052,7 @@ public final class AnnexUtils {
 	 * @param shadowStyle      the shadow style
 	 * @return the int
 	 */
-	private static int InsertSummaryTable(XSSFSheet sheet, int RowStartPosition, List<String> ColumnNames, CellStyle headerStyle, CellStyle shadowStyle) {
+	private static int InsertSummaryTable(Sheet sheet, int RowStartPosition, List<String> ColumnNames, CellStyle headerStyle, CellStyle shadowStyle) {
 		// create light shadow cell style CENTERED
 		CellStyle shadowStyleCentered = sheet.getWorkbook().createCellStyle();
 		shadowStyleCentered.setWrapText(true);
@@ -4923,8 +5064,8 @@ public final class AnnexUtils {
 		shadowStyleCentered.setBorderTop(BorderStyle.THIN);
 		shadowStyleCentered.setBorderRight(BorderStyle.THIN);
 		shadowStyleCentered.setBorderLeft(BorderStyle.THIN);
-		XSSFCell cell;
-		XSSFRow row;
+		Cell cell;
+		Row row;
 		// Insert Summary table.
 		String columnResumeNamePrevious = GetExcelColumnNameForNumber(ColumnNames.indexOf(EVOL_ADECUACION_ANT) + 1);
 		String columnResumeNameFirst = GetExcelColumnNameForNumber(ColumnNames.indexOf(EVOL_ADECUACION_PRIMER) + 1);
@@ -5021,7 +5162,7 @@ public final class AnnexUtils {
 	 * @param shadowStyle      the shadow style
 	 * @return the int
 	 */
-	private static int InsertSummaryTableCompliance(XSSFSheet sheet, int RowStartPosition, List<String> ColumnNames, CellStyle headerStyle, CellStyle shadowStyle) {
+	private static int InsertSummaryTableCompliance(Sheet sheet, int RowStartPosition, List<String> ColumnNames, CellStyle headerStyle, CellStyle shadowStyle) {
 		// create light shadow cell style CENTERED
 		CellStyle shadowStyleCentered = sheet.getWorkbook().createCellStyle();
 		shadowStyleCentered.setWrapText(true);
@@ -5033,8 +5174,8 @@ public final class AnnexUtils {
 		shadowStyleCentered.setBorderTop(BorderStyle.THIN);
 		shadowStyleCentered.setBorderRight(BorderStyle.THIN);
 		shadowStyleCentered.setBorderLeft(BorderStyle.THIN);
-		XSSFCell cell;
-		XSSFRow row;
+		Cell cell;
+		Row row;
 		// Insert Summary table.
 		String columnResumeNamePrevious = GetExcelColumnNameForNumber(ColumnNames.indexOf(EVOL_CUMPLIMIENTO_ANT) + 1);
 		String columnResumeNameFirst = GetExcelColumnNameForNumber(ColumnNames.indexOf(EVOL_CUMPLIMIENTO_PRIMER) + 1);
@@ -5124,6 +5265,8 @@ public final class AnnexUtils {
 	/**
 	 * Insert categories table.
 	 *
+	 * @param context          the annex context
+	 * @param ColumnNames      the column names
 	 * @param sheet            the sheet
 	 * @param RowStartPosition the row start position
 	 * @param categories       the categories
@@ -5134,8 +5277,9 @@ public final class AnnexUtils {
 	 * @param title            the title
 	 * @return the int
 	 */
-	private static int InsertCategoriesTable(XSSFSheet sheet, int RowStartPosition, List<String> categories, CellStyle headerStyle, CellStyle shadowStyle, int lastDataRow, int columnSourceData,
+	private static int InsertCategoriesTable(final AnnexContext context, final List<String> ColumnNames, Sheet sheet, int RowStartPosition, List<String> categories, CellStyle headerStyle, CellStyle shadowStyle, int lastDataRow, int columnSourceData,
 			String title) {
+		final List<RangeForm> websiteRanges = context.getWebsiteRanges();
 		// create light shadow cell style CENTERED
 		CellStyle shadowStyleCentered = sheet.getWorkbook().createCellStyle();
 		shadowStyleCentered.setWrapText(true);
@@ -5147,8 +5291,8 @@ public final class AnnexUtils {
 		shadowStyleCentered.setBorderTop(BorderStyle.THIN);
 		shadowStyleCentered.setBorderRight(BorderStyle.THIN);
 		shadowStyleCentered.setBorderLeft(BorderStyle.THIN);
-		XSSFCell cell;
-		XSSFRow row;
+		Cell cell;
+		Row row;
 		// Insert Summary table.
 		row = sheet.createRow(RowStartPosition);
 		cell = row.createCell(0);
@@ -5234,8 +5378,10 @@ public final class AnnexUtils {
 	 * @param categoryFirstRow the category first row
 	 * @param categoryLastRow  the category last row
 	 * @param isFirst          the is first
+	 * @param seeds            the seed names of the category rows
+	 * @param levels           the allocation and compliance values (NV, A, AA, NC, PC, TC) of the category rows
 	 */
-	private static void InsertGraphIntoSheetByCategory(XSSFWorkbook wb, XSSFSheet sheet, int categoryFirstRow, int categoryLastRow, boolean isFirst) {
+	private static void InsertGraphIntoSheetByCategory(XSSFWorkbook wb, XSSFSheet sheet, int categoryFirstRow, int categoryLastRow, boolean isFirst, List<String> seeds, List<Double[]> levels) {
 		if (sheet != null) {
 			XSSFDrawing drawing = sheet.createDrawingPatriarch();
 			XSSFClientAnchor anchor = drawing.createAnchor(0, 0, 0, 0, 0, isFirst ? 4 : 45, Math.max(categoryLastRow - categoryFirstRow, 16), isFirst ? 40 : 85);
@@ -5257,21 +5403,23 @@ public final class AnnexUtils {
 			plotArea.getValAxArray()[0].addNewMajorGridlines();
 			plotArea.getValAxArray(0).getScaling().addNewMax().setVal(10);
 			plotArea.getValAxArray(0).getScaling().addNewMin().setVal(0);
-			// Get agency names
-			XDDFDataSource<String> agencies = XDDFDataSourcesFactory.fromStringCellRange(wb.getSheetAt(0), new CellRangeAddress(categoryFirstRow, categoryLastRow - 1, 1, 1));
+			// Get agency names. The data rows are not in memory, so the values are taken from the lists and the series keep the reference to the cells
+			final String dataSheetName = wb.getSheetAt(0).getSheetName();
+			XDDFDataSource<String> agencies = XDDFDataSourcesFactory.fromArray(seeds.toArray(new String[seeds.size()]),
+					new CellRangeAddress(categoryFirstRow, categoryLastRow - 1, 1, 1).formatAsString(dataSheetName, true));
 			// First serie ("No válido" / "No Conforme")
-			XDDFNumericalDataSource<Double> values1 = XDDFDataSourcesFactory.fromNumericCellRange(wb.getSheetAt(0),
-					new CellRangeAddress(categoryFirstRow, categoryLastRow - 1, isFirst ? 15 : 18, isFirst ? 15 : 18));
+			XDDFNumericalDataSource<Double> values1 = XDDFDataSourcesFactory.fromArray(getLevelValues(levels, isFirst ? 0 : 3),
+					new CellRangeAddress(categoryFirstRow, categoryLastRow - 1, isFirst ? 15 : 18, isFirst ? 15 : 18).formatAsString(dataSheetName, true));
 			XDDFChartData.Series series1 = data.addSeries(agencies, values1);
 			series1.setTitle(isFirst ? ALLOCATION_NOT_VALID_LITERAL : COMPLIANCE_NOT_LITERAL, null);
 			// Second serie ("A" / "Parcialmente conforme")
-			XDDFNumericalDataSource<Double> values2 = XDDFDataSourcesFactory.fromNumericCellRange(wb.getSheetAt(0),
-					new CellRangeAddress(categoryFirstRow, categoryLastRow - 1, isFirst ? 16 : 19, isFirst ? 16 : 19));
+			XDDFNumericalDataSource<Double> values2 = XDDFDataSourcesFactory.fromArray(getLevelValues(levels, isFirst ? 1 : 4),
+					new CellRangeAddress(categoryFirstRow, categoryLastRow - 1, isFirst ? 16 : 19, isFirst ? 16 : 19).formatAsString(dataSheetName, true));
 			XDDFChartData.Series series2 = data.addSeries(agencies, values2);
 			series2.setTitle(isFirst ? ALLOCATION_A_LITERAL : COMPLIANCE_PARTIAL_LITERAL, null);
 			// Third serie ("AA" / "Plenamente conforme")
-			XDDFNumericalDataSource<Double> values3 = XDDFDataSourcesFactory.fromNumericCellRange(wb.getSheetAt(0),
-					new CellRangeAddress(categoryFirstRow, categoryLastRow - 1, isFirst ? 17 : 20, isFirst ? 17 : 20));
+			XDDFNumericalDataSource<Double> values3 = XDDFDataSourcesFactory.fromArray(getLevelValues(levels, isFirst ? 2 : 5),
+					new CellRangeAddress(categoryFirstRow, categoryLastRow - 1, isFirst ? 17 : 20, isFirst ? 17 : 20).formatAsString(dataSheetName, true));
 			XDDFChartData.Series series3 = data.addSeries(agencies, values3);
 			series3.setTitle(isFirst ? ALLOCATION_AA_LITERAL : COMPLIANCE_TOTAL_LITERAL, null);
 			chart.plot(data);
@@ -5295,6 +5443,8 @@ public final class AnnexUtils {
 	/**
 	 * Insert graph into sheet by evolution.
 	 *
+	 * @param context              the annex context
+	 * @param ColumnNames          the column names
 	 * @param wb                   the wb
 	 * @param currentSheet         the current sheet
 	 * @param categoryFirstRow     the category first row
@@ -5302,7 +5452,8 @@ public final class AnnexUtils {
 	 * @param isFirst              the is first
 	 * @param numberOfFixedColumns the number of fixed columns
 	 */
-	private static void InsertGraphIntoSheetByEvolution(XSSFWorkbook wb, XSSFSheet currentSheet, int categoryFirstRow, int categoryLastRow, boolean isFirst, int numberOfFixedColumns) {
+	private static void InsertGraphIntoSheetByEvolution(final AnnexContext context, final List<String> ColumnNames, XSSFWorkbook wb, XSSFSheet currentSheet, int categoryFirstRow, int categoryLastRow, boolean isFirst, int numberOfFixedColumns) {
+		final List<String> executionDates = context.getExecutionDates();
 		XSSFDrawing drawing = currentSheet.createDrawingPatriarch();
 		XSSFClientAnchor anchor = drawing.createAnchor(0, 0, 0, 0, 0, isFirst ? 4 : 45, Math.max(categoryLastRow - categoryFirstRow, 16), isFirst ? 40 : 85);
 		XSSFChart chart = drawing.createChart(anchor);
@@ -5331,21 +5482,21 @@ public final class AnnexUtils {
 		for (String date : executionDates) {
 			int firstSerieColumn = numberOfFixedColumns + (executionDates.size() * 3) + (6 * executionDates.indexOf(date));
 			// First serie ("No válido" / "No Conforme")
-			FillNullCellInRange(wb.getSheetAt(0), categoryFirstRow, categoryLastRow, firstSerieColumn + (isFirst ? 0 : 3));
+			FillNullCellInRange(ColumnNames, wb.getSheetAt(0), categoryFirstRow, categoryLastRow, firstSerieColumn + (isFirst ? 0 : 3));
 			XDDFNumericalDataSource<Double> values1 = XDDFDataSourcesFactory.fromNumericCellRange(wb.getSheetAt(0),
 					new CellRangeAddress(categoryFirstRow, categoryLastRow, firstSerieColumn + (isFirst ? 0 : 3), firstSerieColumn + (isFirst ? 0 : 3)));
 			XDDFChartData.Series series1 = data.addSeries(agencies, values1);
 			series1.setTitle((isFirst ? NV_PREFFIX : NC_PREFFIX) + date, null);
 			solidFillSeries(data, iteration++, PresetColor.RED);
 			// Second serie ("A" / "Parcialmente conforme")
-			FillNullCellInRange(wb.getSheetAt(0), categoryFirstRow, categoryLastRow, firstSerieColumn + (isFirst ? 1 : 4));
+			FillNullCellInRange(ColumnNames, wb.getSheetAt(0), categoryFirstRow, categoryLastRow, firstSerieColumn + (isFirst ? 1 : 4));
 			XDDFNumericalDataSource<Double> values2 = XDDFDataSourcesFactory.fromNumericCellRange(wb.getSheetAt(0),
 					new CellRangeAddress(categoryFirstRow, categoryLastRow, firstSerieColumn + (isFirst ? 1 : 4), firstSerieColumn + (isFirst ? 1 : 4)));
 			XDDFChartData.Series series2 = data.addSeries(agencies, values2);
 			series2.setTitle((isFirst ? A_PREFFIX : PC_PREFFIX) + date, null);
 			solidFillSeries(data, iteration++, XDDFColor.from(hex2Rgb(YELLOW_OAW_HTML)));
 			// Third serie ("AA" / "Plenamente conforme")
-			FillNullCellInRange(wb.getSheetAt(0), categoryFirstRow, categoryLastRow, firstSerieColumn + (isFirst ? 2 : 5));
+			FillNullCellInRange(ColumnNames, wb.getSheetAt(0), categoryFirstRow, categoryLastRow, firstSerieColumn + (isFirst ? 2 : 5));
 			XDDFNumericalDataSource<Double> values3 = XDDFDataSourcesFactory.fromNumericCellRange(wb.getSheetAt(0),
 					new CellRangeAddress(categoryFirstRow, categoryLastRow, firstSerieColumn + (isFirst ? 2 : 5), firstSerieColumn + (isFirst ? 2 : 5)));
 			XDDFChartData.Series series3 = data.addSeries(agencies, values3);
@@ -5369,13 +5520,17 @@ public final class AnnexUtils {
 	/**
 	 * Insert graph into sheet by evolution v 2.
 	 *
+	 * @param context          the annex context
+	 * @param ColumnNames      the column names
 	 * @param wb               the wb
 	 * @param currentSheet     the current sheet
 	 * @param categoryFirstRow the category first row
 	 * @param categoryLastRow  the category last row
 	 * @param isFirst          the is first
 	 */
-	private static void InsertGraphIntoSheetByEvolution_v2(XSSFWorkbook wb, XSSFSheet currentSheet, int categoryFirstRow, int categoryLastRow, boolean isFirst) {
+	private static void InsertGraphIntoSheetByEvolution_v2(final AnnexContext context, final List<String> ColumnNames, XSSFWorkbook wb, XSSFSheet currentSheet, int categoryFirstRow, int categoryLastRow, boolean isFirst) {
+		final List<String> executionDates = context.getExecutionDates();
+		final List<RangeForm> websiteRanges = context.getWebsiteRanges();
 		// Only in first graphic add legend
 		if (isFirst) {
 			// Add a legend with custom text
@@ -5479,13 +5634,16 @@ public final class AnnexUtils {
 	/**
 	 * Insert graph into sheet by dependency.
 	 *
+	 * @param context              the annex context
+	 * @param ColumnNames          the column names
 	 * @param currentSheet         the current sheet
 	 * @param rowIndex             the row index
 	 * @param isFirst              the is first
 	 * @param numberOfFixedColumns the number of fixed columns
 	 * @param onlyLastIteration    the only last iteration
 	 */
-	private static void InsertGraphIntoSheetByDependency(XSSFSheet currentSheet, int rowIndex, boolean isFirst, int numberOfFixedColumns, boolean onlyLastIteration) {
+	private static void InsertGraphIntoSheetByDependency(final AnnexContext context, final List<String> ColumnNames, XSSFSheet currentSheet, int rowIndex, boolean isFirst, int numberOfFixedColumns, boolean onlyLastIteration) {
+		final List<String> executionDates = context.getExecutionDates();
 		XSSFDrawing drawing = currentSheet.createDrawingPatriarch();
 		XSSFClientAnchor anchor = drawing.createAnchor(0, 0, 0, 0, 0, isFirst ? 4 : 45, Math.max(rowIndex, 16), isFirst ? 40 : 85);
 		XSSFChart chart = drawing.createChart(anchor);
@@ -5515,21 +5673,21 @@ public final class AnnexUtils {
 			if (!onlyLastIteration || (onlyLastIteration && i == (executionDates.size() - 1))) {
 				int firstSerieColumn = numberOfFixedColumns + (executionDates.size() * 3) + (6 * executionDates.indexOf(date));
 				// First serie ("No válido" / "No Conforme")
-				FillNullCellInRange(currentSheet.getWorkbook().getSheetAt(0), 1, rowIndex - 1, firstSerieColumn + (isFirst ? 0 : 3));
+				FillNullCellInRange(ColumnNames, currentSheet.getWorkbook().getSheetAt(0), 1, rowIndex - 1, firstSerieColumn + (isFirst ? 0 : 3));
 				XDDFNumericalDataSource<Double> values1 = XDDFDataSourcesFactory.fromNumericCellRange(currentSheet.getWorkbook().getSheetAt(0),
 						new CellRangeAddress(1, rowIndex - 1, firstSerieColumn + (isFirst ? 0 : 3), firstSerieColumn + (isFirst ? 0 : 3)));
 				XDDFChartData.Series series1 = data.addSeries(agencies, values1);
 				series1.setTitle((isFirst ? NV_PREFFIX : NC_PREFFIX) + date, null);
 				solidFillSeries(data, iteration++, PresetColor.RED);
 				// Second serie ("A" / "Parcialmente conforme")
-				FillNullCellInRange(currentSheet.getWorkbook().getSheetAt(0), 1, rowIndex - 1, firstSerieColumn + (isFirst ? 1 : 4));
+				FillNullCellInRange(ColumnNames, currentSheet.getWorkbook().getSheetAt(0), 1, rowIndex - 1, firstSerieColumn + (isFirst ? 1 : 4));
 				XDDFNumericalDataSource<Double> values2 = XDDFDataSourcesFactory.fromNumericCellRange(currentSheet.getWorkbook().getSheetAt(0),
 						new CellRangeAddress(1, rowIndex - 1, firstSerieColumn + (isFirst ? 1 : 4), firstSerieColumn + (isFirst ? 1 : 4)));
 				XDDFChartData.Series series2 = data.addSeries(agencies, values2);
 				series2.setTitle((isFirst ? A_PREFFIX : PC_PREFFIX) + date, null);
 				solidFillSeries(data, iteration++, XDDFColor.from(hex2Rgb(YELLOW_OAW_HTML)));
 				// Third serie ("AA" / "Plenamente conforme")
-				FillNullCellInRange(currentSheet.getWorkbook().getSheetAt(0), 1, rowIndex - 1, firstSerieColumn + (isFirst ? 2 : 5));
+				FillNullCellInRange(ColumnNames, currentSheet.getWorkbook().getSheetAt(0), 1, rowIndex - 1, firstSerieColumn + (isFirst ? 2 : 5));
 				XDDFNumericalDataSource<Double> values3 = XDDFDataSourcesFactory.fromNumericCellRange(currentSheet.getWorkbook().getSheetAt(0),
 						new CellRangeAddress(1, rowIndex - 1, firstSerieColumn + (isFirst ? 2 : 5), firstSerieColumn + (isFirst ? 2 : 5)));
 				XDDFChartData.Series series3 = data.addSeries(agencies, values3);
@@ -5555,12 +5713,16 @@ public final class AnnexUtils {
 	/**
 	 * Insert graph into sheet by dependency v 2.
 	 *
+	 * @param ColumnNames   the column names
 	 * @param currentSheet  the current sheet
 	 * @param lastRow       the last row
 	 * @param isFirst       the is first
 	 * @param iterationDate the iteration date
+	 * @param seedRows          the rows with the seed names
+	 * @param lastIterationRows the rows of the last iteration
 	 */
-	private static void InsertGraphIntoSheetByDependency_v2(XSSFSheet currentSheet, int lastRow, boolean isFirst, final String iterationDate) {
+	private static void InsertGraphIntoSheetByDependency_v2(final List<String> ColumnNames, XSSFSheet currentSheet, int lastRow, boolean isFirst, final String iterationDate, final List<Integer> seedRows,
+			final List<Integer> lastIterationRows) {
 		XSSFDrawing drawing = currentSheet.createDrawingPatriarch();
 		XSSFClientAnchor anchor = drawing.createAnchor(0, 0, 0, 0, 1, isFirst ? 1 : 45, Math.max(lastRow, 16), isFirst ? 40 : 85);
 		XSSFChart chart = drawing.createChart(anchor);
@@ -5569,7 +5731,7 @@ public final class AnnexUtils {
 		XDDFChartLegend legend = chart.getOrAddLegend();
 		CTPlotArea ctPlotArea = chart.getCTChart().getPlotArea();
 		// Get agency names
-		final XSSFSheet dataSheet = currentSheet.getWorkbook().getSheetAt(0);
+		final String dataSheetName = currentSheet.getWorkbook().getSheetName(0);
 		chart.setTitleOverlay(false);
 		// do not auto delete the title; is necessary for showing title in Calc
 		if (chart.getCTChart().getAutoTitleDeleted() == null)
@@ -5626,11 +5788,8 @@ public final class AnnexUtils {
 			CTStrRef ctAXStrRef = cttAxDataSource.addNewStrRef();
 			List<String> rangesString = new ArrayList<>();
 			// Determinate what is row of last iteration
-			for (int i = 1; i < lastRow; i++) {
-				if (dataSheet.getRow(i) != null && dataSheet.getRow(i).getCell(ColumnNames.indexOf(NOMBRE)) != null
-						&& !StringUtils.isEmpty(dataSheet.getRow(i).getCell(ColumnNames.indexOf(NOMBRE)).getStringCellValue())) {
-					rangesString.add(new CellRangeAddress(i, i, ColumnNames.indexOf(NOMBRE), ColumnNames.indexOf(NOMBRE)).formatAsString(dataSheet.getSheetName(), true));
-				}
+			for (int i : seedRows) {
+				rangesString.add(new CellRangeAddress(i, i, ColumnNames.indexOf(NOMBRE), ColumnNames.indexOf(NOMBRE)).formatAsString(dataSheetName, true));
 			}
 			if (!rangesString.isEmpty()) {
 				StringBuilder rangeString = new StringBuilder();
@@ -5648,11 +5807,8 @@ public final class AnnexUtils {
 			CTNumDataSource ctNumDataSource = ctBarSer.addNewVal();
 			rangesString = new ArrayList<>();
 			// Determinate what is row of last iteration
-			for (int i = 1; i < lastRow; i++) {
-				if (dataSheet.getRow(i) != null && dataSheet.getRow(i).getCell(ColumnNames.indexOf(FECHA_ITERACION)) != null
-						&& iterationDate.equalsIgnoreCase(dataSheet.getRow(i).getCell(ColumnNames.indexOf(FECHA_ITERACION)).getStringCellValue())) {
-					rangesString.add(new CellRangeAddress(i, i, j + firstColumn, j + firstColumn).formatAsString(dataSheet.getSheetName(), true));
-				}
+			for (int i : lastIterationRows) {
+				rangesString.add(new CellRangeAddress(i, i, j + firstColumn, j + firstColumn).formatAsString(dataSheetName, true));
 			}
 			if (!rangesString.isEmpty()) {
 				StringBuilder rangeString = new StringBuilder();
@@ -5738,6 +5894,164 @@ public final class AnnexUtils {
 		return new FileWriter(file);
 	}
 
+	/**
+	 * Creates a streaming XLSX workbook. Only the last rows of every sheet are kept in memory and the rest are flushed to compressed temporary files, so the memory used does not depend on the number
+	 * of seeds. The workbook must be disposed after writing it to delete the temporary files.
+	 *
+	 * Formulas are not evaluated before writing: rows are evaluated with {@link #finishRows(Sheet, int, int, FormulaEvaluator, XlsxColumnWidths)} while they are in memory, and the summary tables that
+	 * count values of flushed rows get the values counted with an {@link XlsxValueCounts}. Excel recalculates everything when the file is opened.
+	 *
+	 * @param rowAccessWindow the number of rows kept in memory
+	 * @return the streaming workbook
+	 */
+	private static SXSSFWorkbook createStreamingWorkbook(final int rowAccessWindow) {
+		final SXSSFWorkbook wb = new SXSSFWorkbook(rowAccessWindow);
+		wb.setCompressTempFiles(true);
+		wb.setForceFormulaRecalculation(true);
+		return wb;
+	}
+
+	/**
+	 * Finishes a block of rows of a streaming sheet before they are flushed: evaluates their formulas, which only reference cells of the same block, and tracks the length of their values to compute
+	 * the column widths.
+	 *
+	 * @param sheet        the sheet
+	 * @param firstRow     the first row
+	 * @param lastRow      the last row (inclusive)
+	 * @param evaluator    the formula evaluator
+	 * @param columnWidths the column widths
+	 */
+	private static void finishRows(final Sheet sheet, final int firstRow, final int lastRow, final FormulaEvaluator evaluator, final XlsxColumnWidths columnWidths) {
+		for (int i = firstRow; i <= lastRow; i++) {
+			final Row row = sheet.getRow(i);
+			if (row != null) {
+				for (Cell cell : row) {
+					if (cell.getCellType() == CellType.FORMULA) {
+						evaluator.evaluateFormulaCell(cell);
+					}
+				}
+				columnWidths.update(row);
+			}
+		}
+	}
+
+	/**
+	 * Counts the evolution values of a seed block read by the summary and category tables. These values are only written in the first row of the block.
+	 *
+	 * @param counts      the counts
+	 * @param row         the first row of the block, already evaluated
+	 * @param ColumnNames the column names
+	 */
+	private static void countEvolutionValues(final XlsxValueCounts counts, final Row row, final List<String> ColumnNames) {
+		for (String column : new String[] { EVOL_ADECUACION_ANT, EVOL_ADECUACION_PRIMER, EVOL_CUMPLIMIENTO_ANT, EVOL_CUMPLIMIENTO_PRIMER }) {
+			counts.add(column, XlsxValueCounts.getValue(row.getCell(ColumnNames.indexOf(column))));
+		}
+		final Object segment = XlsxValueCounts.getValue(row.getCell(ColumnNames.indexOf(SEGMENTO)));
+		for (String column : new String[] { EVOL_PUNTUACION_ANT, EVOL_PUNTUACION_PRIMER }) {
+			counts.add(SEGMENTO, segment, column, XlsxValueCounts.getValue(row.getCell(ColumnNames.indexOf(column))));
+		}
+	}
+
+	/**
+	 * Sets the counts as the cached values of a table written by {@link #InsertSummaryTable(Sheet, int, List, CellStyle, CellStyle)} or
+	 * {@link #InsertSummaryTableCompliance(Sheet, int, List, CellStyle, CellStyle)}.
+	 *
+	 * @param sheet            the sheet
+	 * @param RowStartPosition the row start position of the table
+	 * @param counts           the counts
+	 * @param previousColumn   the column with the evolution from the previous iteration
+	 * @param firstColumn      the column with the evolution from the first iteration
+	 */
+	private static void setSummaryTableCounts(final Sheet sheet, final int RowStartPosition, final XlsxValueCounts counts, final String previousColumn, final String firstColumn) {
+		int previousTotal = 0;
+		int firstTotal = 0;
+		for (int i = 0; i < SUMMARY_TABLE_CHANGES.length; i++) {
+			final Row row = sheet.getRow(RowStartPosition + 1 + i);
+			final int previous = counts.get(previousColumn, SUMMARY_TABLE_CHANGES[i]);
+			final int first = counts.get(firstColumn, SUMMARY_TABLE_CHANGES[i]);
+			row.getCell(1).setCellValue(previous);
+			row.getCell(2).setCellValue(first);
+			previousTotal += previous;
+			firstTotal += first;
+		}
+		final Row totalRow = sheet.getRow(RowStartPosition + SUMMARY_TABLE_CHANGES.length + 1);
+		totalRow.getCell(1).setCellValue(previousTotal);
+		totalRow.getCell(2).setCellValue(firstTotal);
+	}
+
+	/**
+	 * Sets the counts as the cached values of a table written by {@link #InsertCategoriesTable}.
+	 *
+	 * @param context          the annex context
+	 * @param sheet            the sheet
+	 * @param RowStartPosition the row start position of the table
+	 * @param categories       the categories
+	 * @param counts           the counts
+	 * @param column           the column with the score evolution
+	 */
+	private static void setCategoriesTableCounts(final AnnexContext context, final Sheet sheet, final int RowStartPosition, final List<String> categories, final XlsxValueCounts counts,
+			final String column) {
+		final List<RangeForm> websiteRanges = context.getWebsiteRanges();
+		if (websiteRanges == null || websiteRanges.isEmpty()) {
+			return;
+		}
+		final int[] totals = new int[websiteRanges.size()];
+		for (int i = 0; i < categories.size(); i++) {
+			final Row row = sheet.getRow(RowStartPosition + i + 2);
+			for (int j = 0; j < websiteRanges.size(); j++) {
+				final int count = counts.get(SEGMENTO, categories.get(i), column, websiteRanges.get(j).getName());
+				row.getCell(j + 1).setCellValue(count);
+				totals[j] += count;
+			}
+		}
+		final Row totalRow = sheet.getRow(RowStartPosition + categories.size() + 2);
+		int total = 0;
+		for (int j = 0; j < totals.length; j++) {
+			totalRow.getCell(j + 1).setCellValue(totals[j]);
+			total += totals[j];
+		}
+		totalRow.getCell(websiteRanges.size() + 1).setCellValue(total);
+	}
+
+	/**
+	 * Sets the counts as the cached values of a pie chart table: one row per value with its count and its percent over the total. The percents are left to Excel when the total is 0.
+	 *
+	 * @param sheet    the sheet
+	 * @param firstRow the first row with values
+	 * @param counts   the counts
+	 * @param column   the counted column
+	 * @param values   the values of the rows
+	 */
+	private static void setPieTableCounts(final Sheet sheet, final int firstRow, final XlsxValueCounts counts, final String column, final String... values) {
+		int total = 0;
+		for (String value : values) {
+			total += counts.get(column, value);
+		}
+		for (int i = 0; i < values.length; i++) {
+			final Row row = sheet.getRow(firstRow + i);
+			final int count = counts.get(column, values[i]);
+			row.getCell(1).setCellValue(count);
+			if (total > 0) {
+				row.getCell(2).setCellValue((double) count / total);
+			}
+		}
+	}
+
+	/**
+	 * Gets one of the allocation and compliance values of the category rows.
+	 *
+	 * @param levels the values (NV, A, AA, NC, PC, TC) of every row
+	 * @param index  the index of the value
+	 * @return the values
+	 */
+	private static Double[] getLevelValues(final List<Double[]> levels, final int index) {
+		final Double[] values = new Double[levels.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = levels.get(i)[index];
+		}
+		return values;
+	}
+
 	/**
 	 * Gets the file writer.
 	 *
@@ -5787,34 +6101,23 @@ public final class AnnexUtils {
 	/**
 	 * Creates the annex map.
 	 *
-	 * @param idObsExecution the id obs execution
-	 * @param exObsIds       the ex obs ids
+	 * @param idObsExecution      the id obs execution
+	 * @param observatoryFormList the results of the executions
+	 * @param seeds               the seeds of the executions, by id
+	 * @param addAllSeeds         whether to add the seeds of every execution or only those of the main execution
 	 * @return the map
 	 */
-	private static Map<SemillaForm, TreeMap<String, ScoreForm>> createAnnexMap(final Long idObsExecution, final String[] exObsIds, boolean addAllSeeds) {
+	private static Map<SemillaForm, TreeMap<String, ScoreForm>> createAnnexMap(final Long idObsExecution, final List<ObservatoryForm> observatoryFormList, final Map<Long, SemillaForm> seeds,
+			boolean addAllSeeds) {
 		final Map<SemillaForm, TreeMap<String, ScoreForm>> seedMapFilled = new HashMap<>();
 		Map<Long, TreeMap<String, ScoreForm>> seedMap = new HashMap<>();
-		Connection c = null;
 		try {
-			c = DataBaseManager.getConnection();
-			final ObservatorioForm observatoryForm = ObservatorioDAO.getObservatoryFormFromExecution(c, idObsExecution);
-			final ObservatorioRealizadoForm executedObservatory = ObservatorioDAO.getFulfilledObservatory(c, observatoryForm.getId(), idObsExecution);
-			List<String> selectedExecutionSeedIdsList = new ArrayList<String>();
-			// Filter by idObsEx
-			final List<ObservatorioRealizadoForm> observatoriesList = ObservatorioDAO.getFulfilledObservatories(c, observatoryForm.getId(), Constants.NO_PAGINACION, executedObservatory.getFecha(),
-					false, exObsIds);
-			final List<ObservatoryForm> observatoryFormList = new ArrayList<>();
-			for (ObservatorioRealizadoForm orForm : observatoriesList) {
-				final ObservatoryForm observatory = ObservatoryExportManager.getObservatory(orForm.getId());
-				if (observatory != null) {
-					observatoryFormList.add(observatory);
-					if (addAllSeeds || (!addAllSeeds && observatory.getIdExecution().equals(idObsExecution.toString()))) {
-						for (CategoryForm category : observatory.getCategoryFormList()) {
-							for (SiteForm siteForm : category.getSiteFormList()) {
-								if (selectedExecutionSeedIdsList != null && !selectedExecutionSeedIdsList.contains(siteForm.getIdCrawlerSeed())) {
-									selectedExecutionSeedIdsList.add(siteForm.getIdCrawlerSeed());
-								}
-							}
+			final Set<String> selectedExecutionSeedIdsList = new HashSet<String>();
+			for (ObservatoryForm observatory : observatoryFormList) {
+				if (addAllSeeds || (!addAllSeeds && observatory.getIdExecution().equals(idObsExecution.toString()))) {
+					for (CategoryForm category : observatory.getCategoryFormList()) {
+						for (SiteForm siteForm : category.getSiteFormList()) {
+							selectedExecutionSeedIdsList.add(siteForm.getIdCrawlerSeed());
 						}
 					}
 				}
@@ -5866,24 +6169,15 @@ public final class AnnexUtils {
 					}
 				}
 			}
-			// Retrive seed form to prevent extra database querys in other methods
+			// Seed forms come from the seeds loaded at once, to prevent extra database querys in other methods
 			for (Map.Entry<Long, TreeMap<String, ScoreForm>> semillaEntry : seedMap.entrySet()) {
-				final SemillaForm semillaForm = SemillaDAO.getSeedById(c, semillaEntry.getKey());
+				final SemillaForm semillaForm = seeds.containsKey(semillaEntry.getKey()) ? seeds.get(semillaEntry.getKey()) : new SemillaForm();
 				seedMapFilled.put(semillaForm, semillaEntry.getValue());
 			}
 		} catch (Exception e) {
 			Logger.putLog("Error al recuperar las semillas del Observatorio al crear el anexo", AnnexUtils.class, Logger.LOG_LEVEL_ERROR, e);
-		} finally {
-			seedMap = null;
-			System.gc();
-			try {
-				DataBaseManager.closeConnection(c);
-			} catch (Exception e) {
-				Logger.putLog("Excepción", AnnexUtils.class, Logger.LOG_LEVEL_ERROR, e);
-			}
 		}
 		seedMap = null;
-		System.gc();
 		return seedMapFilled;
 	}
 
@@ -5906,6 +6200,45 @@ public final class AnnexUtils {
 		}
 	}
 
+	/**
+	 * The rows and dependencies of an evolution annex, used to create the annexes per dependency.
+	 */
+	public static final class EvolutionLines {
+		/** The excel lines. */
+		private final HashMap<Integer, ExcelLine> excelLines;
+		/** The dependencies. */
+		private final List<String> dependencies;
+
+		/**
+		 * Instantiates a new evolution lines.
+		 *
+		 * @param excelLines   the excel lines
+		 * @param dependencies the dependencies
+		 */
+		private EvolutionLines(final HashMap<Integer, ExcelLine> excelLines, final List<String> dependencies) {
+			this.excelLines = excelLines;
+			this.dependencies = dependencies;
+		}
+
+		/**
+		 * Gets the excel lines.
+		 *
+		 * @return the excel lines
+		 */
+		private HashMap<Integer, ExcelLine> getExcelLines() {
+			return excelLines;
+		}
+
+		/**
+		 * Gets the dependencies.
+		 *
+		 * @return the dependencies
+		 */
+		private List<String> getDependencies() {
+			return dependencies;
+		}
+	}
+
 	/**
 	 * The Class ExcelLine.
 	 */
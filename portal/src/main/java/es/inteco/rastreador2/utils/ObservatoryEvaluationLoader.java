@@ -0,0 +1,121 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.rastreador2.utils;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import ca.utoronto.atrc.tile.accessibilitychecker.Evaluation;
+import ca.utoronto.atrc.tile.accessibilitychecker.Evaluator;
+import ca.utoronto.atrc.tile.accessibilitychecker.EvaluatorUtility;
+import es.inteco.common.Constants;
+import es.inteco.intav.form.ObservatoryEvaluationForm;
+import es.inteco.intav.form.SeedForm;
+import es.inteco.intav.utils.EvaluatorUtils;
+import es.inteco.rastreador2.actionform.rastreo.FulfilledCrawlingForm;
+import es.inteco.rastreador2.dao.cartucho.CartuchoDAO;
+import es.inteco.rastreador2.dao.observatorio.ObservatorioDAO;
+import es.inteco.rastreador2.dao.rastreo.RastreoDAO;
+
+/**
+ * Carga de las evaluaciones puntuadas de una ejecución del observatorio.
+ *
+ * La metodología de la ejecución se recupera una sola vez. Los datos se cargan rastreo a rastreo: para cada rastreo, los análisis, sus incidencias, los cartuchos y los datos de la semilla se
+ * recuperan con una consulta cada uno, en lugar de varias consultas por página analizada. Así el número de consultas crece con el número de rastreos y no con el de páginas, y los resultados en
+ * bruto de un rastreo se leen en streaming y se descartan antes de pasar al siguiente.
+ */
+public final class ObservatoryEvaluationLoader {
+
+	/**
+	 * Instantiates a new observatory evaluation loader.
+	 */
+	private ObservatoryEvaluationLoader() {
+	}
+
+	/**
+	 * Obtiene las evaluaciones puntuadas de todas las páginas de los rastreos indicados.
+	 *
+	 * @param c                      the c
+	 * @param observatoryExecutionId the observatory execution id
+	 * @param crawlerExecutionIds    the crawler execution ids
+	 * @param pointWarning           si las advertencias puntúan 0.5
+	 * @return las evaluaciones en el orden de los rastreos y, dentro de cada rastreo, de los análisis
+	 * @throws Exception the exception
+	 */
+	public static List<ObservatoryEvaluationForm> getObservatoryEvaluations(final Connection c, final long observatoryExecutionId, final List<Long> crawlerExecutionIds,
+			final boolean pointWarning) throws Exception {
+		return getObservatoryEvaluations(c, observatoryExecutionId, crawlerExecutionIds, Boolean.valueOf(pointWarning));
+	}
+
+	/**
+	 * Obtiene las evaluaciones puntuadas de todas las páginas de los rastreos indicados. Las advertencias puntúan 0.5 solo en los análisis cuyo cartucho es de la normativa UNE-EN2019.
+	 *
+	 * @param c                      the c
+	 * @param observatoryExecutionId the observatory execution id
+	 * @param crawlerExecutionIds    the crawler execution ids
+	 * @return las evaluaciones en el orden de los rastreos y, dentro de cada rastreo, de los análisis
+	 * @throws Exception the exception
+	 */
+	public static List<ObservatoryEvaluationForm> getObservatoryEvaluationsByCartridge(final Connection c, final long observatoryExecutionId, final List<Long> crawlerExecutionIds)
+			throws Exception {
+		return getObservatoryEvaluations(c, observatoryExecutionId, crawlerExecutionIds, null);
+	}
+
+	/**
+	 * Obtiene las evaluaciones puntuadas de todas las páginas de los rastreos indicados.
+	 *
+	 * @param c                      the c
+	 * @param observatoryExecutionId the observatory execution id
+	 * @param crawlerExecutionIds    the crawler execution ids
+	 * @param pointWarning           si las advertencias puntúan 0.5 o null para decidirlo según el cartucho de cada análisis
+	 * @return the observatory evaluations
+	 * @throws Exception the exception
+	 */
+	private static List<ObservatoryEvaluationForm> getObservatoryEvaluations(final Connection c, final long observatoryExecutionId, final List<Long> crawlerExecutionIds,
+			final Boolean pointWarning) throws Exception {
+		// Inicializamos el evaluador
+		if (!EvaluatorUtility.isInitialized()) {
+			EvaluatorUtility.initialize();
+		}
+		final Evaluator evaluator = new Evaluator();
+		final String methodology = ObservatorioDAO.getMethodology(c, observatoryExecutionId);
+		final List<ObservatoryEvaluationForm> observatoryEvaluationList = new ArrayList<>();
+		for (Long idExecution : crawlerExecutionIds) {
+			final List<Evaluation> evaluations = evaluator.getObservatoryAnalisisByTracking(c, idExecution, EvaluatorUtils.getDocList());
+			if (evaluations.isEmpty()) {
+				continue;
+			}
+			final FulfilledCrawlingForm ffCrawling = RastreoDAO.getFullfilledCrawlingExecution(c, idExecution);
+			final Map<Long, String> applications = pointWarning == null ? CartuchoDAO.getApplicationsByTracking(c, idExecution) : null;
+			for (Evaluation evaluation : evaluations) {
+				// Only in NORMATIVA UNE EN2019, warnings points 0.5
+				final boolean evaluationPointWarning = pointWarning != null ? pointWarning : Constants.NORMATIVA_UNE_EN2019.equalsIgnoreCase(applications.get(evaluation.getIdAnalisis()));
+				final ObservatoryEvaluationForm evaluationForm = EvaluatorUtils.generateObservatoryEvaluationForm(evaluation, methodology, false, evaluationPointWarning);
+				evaluationForm.setObservatoryExecutionId(observatoryExecutionId);
+				if (ffCrawling != null) {
+					final SeedForm seedForm = new SeedForm();
+					seedForm.setId(String.valueOf(ffCrawling.getSeed().getId()));
+					seedForm.setAcronym(ffCrawling.getSeed().getAcronimo());
+					seedForm.setName(ffCrawling.getSeed().getNombre());
+					// Multidependencia
+					seedForm.setCategory(ffCrawling.getSeed().getCategoria().getName());
+					evaluationForm.setSeed(seedForm);
+				}
+				observatoryEvaluationList.add(evaluationForm);
+			}
+		}
+		return observatoryEvaluationList;
+	}
+}
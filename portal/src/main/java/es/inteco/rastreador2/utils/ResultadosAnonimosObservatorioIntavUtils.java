@@ -1273,13 +1273,12 @@ public final class ResultadosAnonimosObservatorioIntavUtils {
 		List<ObservatoryEvaluationForm> observatoryEvaluationList = null;
 		Connection conn = null;
 		try {
-			observatoryEvaluationList = (List<ObservatoryEvaluationForm>) CacheUtils.getFromCache(Constants.OBSERVATORY_KEY_CACHE + executionId);
+			observatoryEvaluationList = CacheUtils.getObservatoryResults(Constants.OBSERVATORY_KEY_CACHE + executionId);
 		} catch (NeedsRefreshException nre) {
 			Logger.putLog("La cache con id " + Constants.OBSERVATORY_KEY_CACHE + executionId + " no está disponible, se va a regenerar", ResultadosAnonimosObservatorioIntavUtils.class,
 					Logger.LOG_LEVEL_WARNING);
 			try {
 				observatoryEvaluationList = new ArrayList<>();
-				List<Long> listAnalysis = new ArrayList<>();
 				conn = DataBaseManager.getConnection();
 				List<Long> listExecutionsIds = new ArrayList<>();
 				if (idCrawler == null) {
@@ -1288,39 +1287,7 @@ public final class ResultadosAnonimosObservatorioIntavUtils {
 					listExecutionsIds.add(idCrawler);
 				}
 				if (pageExecutionList == null) {
-					for (Long idExecution : listExecutionsIds) {
-						listAnalysis.addAll(AnalisisDatos.getAnalysisIdsByTracking(conn, idExecution));
-					}
-					// Inicializamos el evaluador
-					if (!EvaluatorUtility.isInitialized()) {
-						EvaluatorUtility.initialize();
-					}
-					final Evaluator evaluator = new Evaluator();
-					int i = 1;
-					for (Long idAnalysis : listAnalysis) {
-						// Logger.putLog(" i= " + i + "/" + listAnalysis.size() + "(" + idAnalysis + ")", ResultadosAnonimosObservatorioIntavUtils.class, Logger.LOG_LEVEL_ERROR);
-						i++;
-						final Evaluation evaluation = evaluator.getObservatoryAnalisisDB(conn, idAnalysis, EvaluatorUtils.getDocList(), originAnnexes);
-						final String methodology = ObservatorioDAO.getMethodology(conn, Long.parseLong(executionId));
-						RastreoDAO.getFullfilledCrawlingExecution(conn, Long.parseLong(executionId));
-						String aplicacion = CartuchoDAO.getApplicationFromAnalisisId(conn, idAnalysis);
-						// Only in NORMATIVA UNE EN2019, warnings points 0.5
-						final ObservatoryEvaluationForm evaluationForm = EvaluatorUtils.generateObservatoryEvaluationForm(evaluation, methodology, false,
-								Constants.NORMATIVA_UNE_EN2019.equalsIgnoreCase(aplicacion) ? true : false);
-						evaluationForm.setObservatoryExecutionId(Long.parseLong(executionId));
-						final FulfilledCrawlingForm ffCrawling = RastreoDAO.getFullfilledCrawlingExecution(conn, evaluationForm.getCrawlerExecutionId());
-						if (ffCrawling != null) {
-							final SeedForm seedForm = new SeedForm();
-							seedForm.setId(String.valueOf(ffCrawling.getSeed().getId()));
-							seedForm.setAcronym(ffCrawling.getSeed().getAcronimo());
-							seedForm.setName(ffCrawling.getSeed().getNombre());
-							// Multidependencia
-							seedForm.setCategory(ffCrawling.getSeed().getCategoria().getName());
-							evaluationForm.setSeed(seedForm);
-						}
-						observatoryEvaluationList.add(evaluationForm);
-						evaluationForm.getScore();
-					}
+					observatoryEvaluationList.addAll(ObservatoryEvaluationLoader.getObservatoryEvaluationsByCartridge(conn, Long.parseLong(executionId), listExecutionsIds));
 				} else {
 					for (ObservatoryEvaluationForm observatory : pageExecutionList) {
 						if (listExecutionsIds.contains(observatory.getCrawlerExecutionId())) {
@@ -1334,7 +1301,7 @@ public final class ResultadosAnonimosObservatorioIntavUtils {
 			} finally {
 				DataBaseManager.closeConnection(conn);
 			}
-			CacheUtils.putInCacheForever(observatoryEvaluationList, Constants.OBSERVATORY_KEY_CACHE + executionId);
+			CacheUtils.putObservatoryResults(observatoryEvaluationList, Constants.OBSERVATORY_KEY_CACHE + executionId);
 		}
 		return filterObservatoriesByComplexity(observatoryEvaluationList, Long.parseLong(executionId), categoryId);
 	}
@@ -43,25 +43,18 @@ import org.jfree.data.general.DefaultPieDataset;
 
 import com.opensymphony.oscache.base.NeedsRefreshException;
 
-import ca.utoronto.atrc.tile.accessibilitychecker.Evaluation;
-import ca.utoronto.atrc.tile.accessibilitychecker.Evaluator;
-import ca.utoronto.atrc.tile.accessibilitychecker.EvaluatorUtility;
 import es.inteco.common.Constants;
 import es.inteco.common.logging.Logger;
 import es.inteco.common.properties.PropertiesManager;
-import es.inteco.intav.datos.AnalisisDatos;
 import es.inteco.intav.form.ObservatoryEvaluationForm;
 import es.inteco.intav.form.ObservatoryLevelForm;
 import es.inteco.intav.form.ObservatorySiteEvaluationForm;
 import es.inteco.intav.form.ObservatorySubgroupForm;
 import es.inteco.intav.form.ObservatorySuitabilityForm;
-import es.inteco.intav.form.SeedForm;
 import es.inteco.intav.utils.CacheUtils;
-import es.inteco.intav.utils.EvaluatorUtils;
 import es.inteco.plugin.dao.DataBaseManager;
 import es.inteco.rastreador2.actionform.observatorio.ModalityComparisonForm;
 import es.inteco.rastreador2.actionform.observatorio.ObservatorioForm;
-import es.inteco.rastreador2.actionform.rastreo.FulfilledCrawlingForm;
 import es.inteco.rastreador2.actionform.semillas.CategoriaForm;
 import es.inteco.rastreador2.dao.observatorio.ObservatorioDAO;
 import es.inteco.rastreador2.dao.rastreo.RastreoDAO;
@@ -1067,18 +1060,16 @@ public final class ResultadosAnonimosObservatorioUNE2012BUtils {
 	 * @return the global result data
 	 * @throws Exception the exception
 	 */
-	@SuppressWarnings("unchecked")
 	public static List<ObservatoryEvaluationForm> getGlobalResultData(final String executionId, final long categoryId, final List<ObservatoryEvaluationForm> pageExecutionList, final Long idCrawler)
 			throws Exception {
 		List<ObservatoryEvaluationForm> observatoryEvaluationList;
 		try {
-			observatoryEvaluationList = (List<ObservatoryEvaluationForm>) CacheUtils.getFromCache(Constants.OBSERVATORY_KEY_CACHE + executionId);
+			observatoryEvaluationList = CacheUtils.getObservatoryResults(Constants.OBSERVATORY_KEY_CACHE + executionId);
 		} catch (NeedsRefreshException nre) {
 			Logger.putLog("La cache con id " + Constants.OBSERVATORY_KEY_CACHE + executionId + " no está disponible, se va a regenerar", ResultadosAnonimosObservatorioUNE2012BUtils.class,
 					Logger.LOG_LEVEL_WARNING);
 			try (Connection c = DataBaseManager.getConnection()) {
 				observatoryEvaluationList = new ArrayList<>();
-				final List<Long> listAnalysis = new ArrayList<>();
 				List<Long> listExecutionsIds = new ArrayList<>();
 				if (idCrawler == null) {
 					listExecutionsIds = RastreoDAO.getExecutionObservatoryCrawlerIds(c, Long.parseLong(executionId), Constants.COMPLEXITY_SEGMENT_NONE);
@@ -1086,31 +1077,7 @@ public final class ResultadosAnonimosObservatorioUNE2012BUtils {
 					listExecutionsIds.add(idCrawler);
 				}
 				if (pageExecutionList == null) {
-					for (Long idExecution : listExecutionsIds) {
-						listAnalysis.addAll(AnalisisDatos.getAnalysisIdsByTracking(c, idExecution));
-					}
-					// Inicializamos el evaluador
-					if (!EvaluatorUtility.isInitialized()) {
-						EvaluatorUtility.initialize();
-					}
-					final Evaluator evaluator = new Evaluator();
-					for (Long idAnalysis : listAnalysis) {
-						final Evaluation evaluation = evaluator.getObservatoryAnalisisDB(c, idAnalysis, EvaluatorUtils.getDocList());
-						final String methodology = ObservatorioDAO.getMethodology(c, Long.parseLong(executionId));
-						final ObservatoryEvaluationForm evaluationForm = EvaluatorUtils.generateObservatoryEvaluationForm(evaluation, methodology, false, false);
-						evaluationForm.setObservatoryExecutionId(Long.parseLong(executionId));
-						final FulfilledCrawlingForm ffCrawling = RastreoDAO.getFullfilledCrawlingExecution(c, evaluationForm.getCrawlerExecutionId());
-						if (ffCrawling != null) {
-							final SeedForm seedForm = new SeedForm();
-							seedForm.setId(String.valueOf(ffCrawling.getSeed().getId()));
-							seedForm.setAcronym(ffCrawling.getSeed().getAcronimo());
-							seedForm.setName(ffCrawling.getSeed().getNombre());
-							// Multidependencia
-							seedForm.setCategory(ffCrawling.getSeed().getCategoria().getName());
-							evaluationForm.setSeed(seedForm);
-						}
-						observatoryEvaluationList.add(evaluationForm);
-					}
+					observatoryEvaluationList.addAll(ObservatoryEvaluationLoader.getObservatoryEvaluations(c, Long.parseLong(executionId), listExecutionsIds, false));
 				} else {
 					for (ObservatoryEvaluationForm observatory : pageExecutionList) {
 						if (listExecutionsIds.contains(observatory.getCrawlerExecutionId())) {
@@ -1122,7 +1089,7 @@ public final class ResultadosAnonimosObservatorioUNE2012BUtils {
 				Logger.putLog("Error en getGlobalResultData", ResultadosAnonimosObservatorioUNE2012BUtils.class, Logger.LOG_LEVEL_ERROR, e);
 				throw e;
 			}
-			CacheUtils.putInCacheForever(observatoryEvaluationList, Constants.OBSERVATORY_KEY_CACHE + executionId);
+			CacheUtils.putObservatoryResults(observatoryEvaluationList, Constants.OBSERVATORY_KEY_CACHE + executionId);
 		}
 		return filterObservatoriesByComplexity(observatoryEvaluationList, Long.parseLong(executionId), categoryId);
 	}
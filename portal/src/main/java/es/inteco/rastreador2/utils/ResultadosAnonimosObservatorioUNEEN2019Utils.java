@@ -43,27 +43,20 @@ import org.jfree.data.KeyToGroupMap;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
 
-import ca.utoronto.atrc.tile.accessibilitychecker.Evaluation;
-import ca.utoronto.atrc.tile.accessibilitychecker.Evaluator;
-import ca.utoronto.atrc.tile.accessibilitychecker.EvaluatorUtility;
 import es.inteco.common.Constants;
 import es.inteco.common.logging.Logger;
 import es.inteco.common.properties.PropertiesManager;
 import es.inteco.crawler.dao.EstadoObservatorioDAO;
-import es.inteco.intav.datos.AnalisisDatos;
 import es.inteco.intav.form.ObservatoryEvaluationForm;
 import es.inteco.intav.form.ObservatoryLevelForm;
 import es.inteco.intav.form.ObservatorySiteEvaluationForm;
 import es.inteco.intav.form.ObservatorySubgroupForm;
 import es.inteco.intav.form.ObservatorySuitabilityForm;
-import es.inteco.intav.form.SeedForm;
 import es.inteco.intav.utils.CacheUtils;
-import es.inteco.intav.utils.EvaluatorUtils;
 import es.inteco.plugin.dao.DataBaseManager;
 import es.inteco.rastreador2.actionform.observatorio.ComplianceComparisonForm;
 import es.inteco.rastreador2.actionform.observatorio.ModalityComparisonForm;
 import es.inteco.rastreador2.actionform.observatorio.ObservatorioForm;
-import es.inteco.rastreador2.actionform.rastreo.FulfilledCrawlingForm;
 import es.inteco.rastreador2.actionform.semillas.AmbitoForm;
 import es.inteco.rastreador2.actionform.semillas.CategoriaForm;
 import es.inteco.rastreador2.actionform.semillas.ComplejidadForm;
@@ -2083,7 +2076,6 @@ public final class ResultadosAnonimosObservatorioUNEEN2019Utils {
 				Logger.LOG_LEVEL_WARNING);
 		try (Connection c = DataBaseManager.getConnection()) {
 			observatoryEvaluationList = new ArrayList<>();
-			final List<Long> listAnalysis = new ArrayList<>();
 			List<Long> listExecutionsIds = new ArrayList<>();
 			if (idCrawler == null) {
 				// Filter by tags
@@ -2096,31 +2088,7 @@ public final class ResultadosAnonimosObservatorioUNEEN2019Utils {
 				listExecutionsIds.add(idCrawler);
 			}
 			if (pageExecutionList == null) {
-				for (Long idExecution : listExecutionsIds) {
-					listAnalysis.addAll(AnalisisDatos.getAnalysisIdsByTracking(c, idExecution));
-				}
-				// Inicializamos el evaluador
-				if (!EvaluatorUtility.isInitialized()) {
-					EvaluatorUtility.initialize();
-				}
-				final Evaluator evaluator = new Evaluator();
-				for (Long idAnalysis : listAnalysis) {
-					final Evaluation evaluation = evaluator.getObservatoryAnalisisDB(c, idAnalysis, EvaluatorUtils.getDocList(), originAnnexes);
-					final String methodology = ObservatorioDAO.getMethodology(c, Long.parseLong(executionId));
-					final ObservatoryEvaluationForm evaluationForm = EvaluatorUtils.generateObservatoryEvaluationForm(evaluation, methodology, false, true);
-					evaluationForm.setObservatoryExecutionId(Long.parseLong(executionId));
-					final FulfilledCrawlingForm ffCrawling = RastreoDAO.getFullfilledCrawlingExecution(c, evaluationForm.getCrawlerExecutionId());
-					if (ffCrawling != null) {
-						final SeedForm seedForm = new SeedForm();
-						seedForm.setId(String.valueOf(ffCrawling.getSeed().getId()));
-						seedForm.setAcronym(ffCrawling.getSeed().getAcronimo());
-						seedForm.setName(ffCrawling.getSeed().getNombre());
-						// Multidependencia
-						seedForm.setCategory(ffCrawling.getSeed().getCategoria().getName());
-						evaluationForm.setSeed(seedForm);
-					}
-					observatoryEvaluationList.add(evaluationForm);
-				}
+				observatoryEvaluationList.addAll(ObservatoryEvaluationLoader.getObservatoryEvaluations(c, Long.parseLong(executionId), listExecutionsIds, true));
 			} else {
 				for (ObservatoryEvaluationForm observatory : pageExecutionList) {
 					if (listExecutionsIds.contains(observatory.getCrawlerExecutionId())) {
@@ -2132,7 +2100,7 @@ public final class ResultadosAnonimosObservatorioUNEEN2019Utils {
 			Logger.putLog("Error en getGlobalResultData", ResultadosAnonimosObservatorioUNEEN2019Utils.class, Logger.LOG_LEVEL_ERROR, e);
 			throw e;
 		}
-		CacheUtils.putInCacheForever(observatoryEvaluationList, Constants.OBSERVATORY_KEY_CACHE + executionId);
+		CacheUtils.putObservatoryResults(observatoryEvaluationList, Constants.OBSERVATORY_KEY_CACHE + executionId);
 		// Filter by category or complexity
 		if (!isComplexityFilter) {
 			return filterObservatoriesByCategory(observatoryEvaluationList, Long.parseLong(executionId), categoryId);
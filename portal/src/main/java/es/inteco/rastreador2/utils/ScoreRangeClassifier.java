@@ -0,0 +1,404 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.rastreador2.utils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import es.inteco.rastreador2.actionform.observatorio.RangeForm;
+import es.inteco.rastreador2.actionform.observatorio.TemplateRangeForm;
+
+/**
+ * Clasificador de puntuaciones en rangos.
+ *
+ * Cada rango se define con un valor mínimo y un valor máximo, cada uno con su operador, y contiene las puntuaciones x para las que se cumple <code>mínimo operador x</code> y
+ * <code>x operador máximo</code> (si solo se indica uno de los operadores se comprueba solo ese extremo). Los rangos se compilan una sola vez en intervalos ordenados por su límite inferior, de modo
+ * que para clasificar una puntuación solo se comprueban los rangos cuyo límite inferior no la supera.
+ *
+ * Las comparaciones reproducen las que se hacían evaluando la expresión en JavaScript: los valores se comparan como números de doble precisión obtenidos de su representación decimal, un valor nulo se
+ * compara como 0 con los operadores de orden y es distinto de cualquier número con los de igualdad, y los rangos sin operadores no contienen ninguna puntuación.
+ *
+ * @param <T> el tipo de los rangos
+ */
+public final class ScoreRangeClassifier<T> {
+	/** Intervalos ordenados por su límite inferior. */
+	private final Interval<T>[] intervals;
+	/** Límites inferiores de {@link #intervals}. */
+	private final double[] lowerBounds;
+
+	/**
+	 * Instantiates a new score range classifier.
+	 *
+	 * @param intervals los intervalos en el orden de definición de los rangos
+	 */
+	@SuppressWarnings("unchecked")
+	private ScoreRangeClassifier(final List<Interval<T>> intervals) {
+		this.intervals = intervals.toArray(new Interval[intervals.size()]);
+		Arrays.sort(this.intervals, new Comparator<Interval<T>>() {
+			@Override
+			public int compare(final Interval<T> o1, final Interval<T> o2) {
+				final int compare = Double.compare(o1.lowerBound, o2.lowerBound);
+				return compare != 0 ? compare : Integer.compare(o1.order, o2.order);
+			}
+		});
+		this.lowerBounds = new double[this.intervals.length];
+		for (int i = 0; i < this.intervals.length; i++) {
+			this.lowerBounds[i] = this.intervals[i].lowerBound;
+		}
+	}
+
+	/**
+	 * Compila los rangos de evolución de los sitios web.
+	 *
+	 * @param ranges los rangos
+	 * @return el clasificador
+	 * @throws IllegalArgumentException si algún rango tiene un operador no válido
+	 */
+	public static ScoreRangeClassifier<RangeForm> forWebsiteRanges(final List<RangeForm> ranges) {
+		final List<Interval<RangeForm>> intervals = new ArrayList<>();
+		if (ranges != null) {
+			for (RangeForm range : ranges) {
+				intervals.add(new Interval<>(range, intervals.size(), range.getMinValueOperator(), range.getMinValue(), range.getMaxValueOperator(), range.getMaxValue()));
+			}
+		}
+		return new ScoreRangeClassifier<>(intervals);
+	}
+
+	/**
+	 * Compila los rangos de una iteración.
+	 *
+	 * @param ranges los rangos
+	 * @return el clasificador
+	 * @throws IllegalArgumentException si algún rango tiene un operador no válido
+	 */
+	public static ScoreRangeClassifier<TemplateRangeForm> forIterationRanges(final List<TemplateRangeForm> ranges) {
+		final List<Interval<TemplateRangeForm>> intervals = new ArrayList<>();
+		if (ranges != null) {
+			for (TemplateRangeForm range : ranges) {
+				intervals.add(new Interval<>(range, intervals.size(), range.getMinValueOperator(), range.getMinValue(), range.getMaxValueOperator(), range.getMaxValue()));
+			}
+		}
+		return new ScoreRangeClassifier<>(intervals);
+	}
+
+	/**
+	 * Obtiene los rangos que contienen una puntuación.
+	 *
+	 * @param score la puntuación
+	 * @return los rangos, en el orden en el que se han definido
+	 */
+	public List<T> classify(final BigDecimal score) {
+		final double value = score.doubleValue();
+		final int candidates = countCandidates(value);
+		final List<Interval<T>> matches = new ArrayList<>();
+		for (int i = 0; i < candidates; i++) {
+			if (intervals[i].contains(value)) {
+				matches.add(intervals[i]);
+			}
+		}
+		if (matches.size() > 1) {
+			Collections.sort(matches, new Comparator<Interval<T>>() {
+				@Override
+				public int compare(final Interval<T> o1, final Interval<T> o2) {
+					return Integer.compare(o1.order, o2.order);
+				}
+			});
+		}
+		final List<T> ranges = new ArrayList<>(matches.size());
+		for (Interval<T> match : matches) {
+			ranges.add(match.range);
+		}
+		return ranges;
+	}
+
+	/**
+	 * Obtiene el primer rango, en el orden de definición, que contiene una puntuación.
+	 *
+	 * @param score la puntuación
+	 * @return el rango o null si ninguno la contiene
+	 */
+	public T first(final BigDecimal score) {
+		final double value = score.doubleValue();
+		final int candidates = countCandidates(value);
+		Interval<T> first = null;
+		for (int i = 0; i < candidates; i++) {
+			if ((first == null || intervals[i].order < first.order) && intervals[i].contains(value)) {
+				first = intervals[i];
+			}
+		}
+		return first != null ? first.range : null;
+	}
+
+	/**
+	 * Obtiene el último rango, en el orden de definición, que contiene una puntuación.
+	 *
+	 * @param score la puntuación
+	 * @return el rango o null si ninguno la contiene
+	 */
+	public T last(final BigDecimal score) {
+		final double value = score.doubleValue();
+		final int candidates = countCandidates(value);
+		Interval<T> last = null;
+		for (int i = 0; i < candidates; i++) {
+			if ((last == null || intervals[i].order > last.order) && intervals[i].contains(value)) {
+				last = intervals[i];
+			}
+		}
+		return last != null ? last.range : null;
+	}
+
+	/**
+	 * Cuenta los intervalos cuyo límite inferior no supera un valor, que son los únicos que lo pueden contener.
+	 *
+	 * @param value el valor
+	 * @return el número de intervalos candidatos, que son los primeros de {@link #intervals}
+	 */
+	private int countCandidates(final double value) {
+		int low = 0;
+		int high = lowerBounds.length;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			// Los límites NaN (operadores de igualdad con NaN) se ordenan al final y nunca contienen el valor
+			if (lowerBounds[mid] <= value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Operadores de comparación de los extremos de los rangos.
+	 */
+	private enum Operator {
+		/** Menor que. */
+		LT("<"),
+		/** Menor o igual que. */
+		LE("<="),
+		/** Mayor que. */
+		GT(">"),
+		/** Mayor o igual que. */
+		GE(">="),
+		/** Igual a. */
+		EQ("=="),
+		/** Estrictamente igual a. */
+		STRICT_EQ("==="),
+		/** Distinto de. */
+		NE("!="),
+		/** Estrictamente distinto de. */
+		STRICT_NE("!==");
+
+		/** El símbolo del operador. */
+		private final String symbol;
+
+		/**
+		 * Instantiates a new operator.
+		 *
+		 * @param symbol el símbolo
+		 */
+		Operator(final String symbol) {
+			this.symbol = symbol;
+		}
+
+		/**
+		 * Obtiene el operador de un símbolo.
+		 *
+		 * @param symbol el símbolo
+		 * @return el operador
+		 * @throws IllegalArgumentException si el símbolo no es un operador de comparación
+		 */
+		static Operator fromSymbol(final String symbol) {
+			for (Operator operator : values()) {
+				if (operator.symbol.equals(symbol.trim())) {
+					return operator;
+				}
+			}
+			throw new IllegalArgumentException("Operador de rango no válido: " + symbol);
+		}
+
+		/**
+		 * Compara dos valores.
+		 *
+		 * @param left  el valor izquierdo
+		 * @param right el valor derecho
+		 * @return el resultado de la comparación
+		 */
+		boolean apply(final double left, final double right) {
+			switch (this) {
+			case LT:
+				return left < right;
+			case LE:
+				return left <= right;
+			case GT:
+				return left > right;
+			case GE:
+				return left >= right;
+			case EQ:
+			case STRICT_EQ:
+				return left == right;
+			default:
+				return left != right;
+			}
+		}
+
+		/**
+		 * Indica si es un operador de igualdad o desigualdad.
+		 *
+		 * @return true, si lo es
+		 */
+		boolean isEquality() {
+			return this == EQ || this == STRICT_EQ || this == NE || this == STRICT_NE;
+		}
+	}
+
+	/**
+	 * Extremo de un rango: la comparación de la puntuación con un valor.
+	 */
+	private static final class Bound {
+		/** El operador. */
+		private final Operator operator;
+		/** El valor o NaN si es nulo. */
+		private final double value;
+		/** Indica si el valor es nulo. */
+		private final boolean nullValue;
+		/** Indica si el valor está a la izquierda del operador (extremo mínimo) o a la derecha (extremo máximo). */
+		private final boolean valueFirst;
+
+		/**
+		 * Instantiates a new bound.
+		 *
+		 * @param operator   el operador
+		 * @param value      el valor
+		 * @param valueFirst si el valor está a la izquierda del operador
+		 */
+		private Bound(final Operator operator, final Float value, final boolean valueFirst) {
+			this.operator = operator;
+			this.nullValue = value == null;
+			// Se usa la representación decimal del valor, como en la expresión JavaScript, y no su valor binario exacto
+			this.value = value != null ? Double.parseDouble(value.toString()) : Double.NaN;
+			this.valueFirst = valueFirst;
+		}
+
+		/**
+		 * Comprueba si una puntuación cumple la comparación.
+		 *
+		 * @param score la puntuación
+		 * @return true, si la cumple
+		 */
+		private boolean test(final double score) {
+			if (nullValue) {
+				if (operator.isEquality()) {
+					// null no es igual a ningún número
+					return operator == Operator.NE || operator == Operator.STRICT_NE;
+				}
+				// null se convierte en 0 en las comparaciones de orden
+				return valueFirst ? operator.apply(0, score) : operator.apply(score, 0);
+			}
+			return valueFirst ? operator.apply(value, score) : operator.apply(score, value);
+		}
+
+		/**
+		 * Obtiene el límite inferior de las puntuaciones que cumplen la comparación.
+		 *
+		 * @return el límite inferior o -infinito si no lo hay
+		 */
+		private double getLowerBound() {
+			final double bound = nullValue ? 0 : value;
+			if (nullValue && operator.isEquality()) {
+				return Double.NEGATIVE_INFINITY;
+			}
+			switch (operator) {
+			case LT:
+			case LE:
+				return valueFirst ? bound : Double.NEGATIVE_INFINITY;
+			case GT:
+			case GE:
+				return valueFirst ? Double.NEGATIVE_INFINITY : bound;
+			case EQ:
+			case STRICT_EQ:
+				return bound;
+			default:
+				return Double.NEGATIVE_INFINITY;
+			}
+		}
+	}
+
+	/**
+	 * Rango compilado.
+	 *
+	 * @param <T> el tipo del rango
+	 */
+	private static final class Interval<T> {
+		/** El rango. */
+		private final T range;
+		/** Posición del rango en la definición. */
+		private final int order;
+		/** Los extremos del rango. */
+		private final Bound[] bounds;
+		/** Límite inferior de las puntuaciones que contiene el rango. */
+		private final double lowerBound;
+
+		/**
+		 * Instantiates a new interval.
+		 *
+		 * @param range            el rango
+		 * @param order            posición del rango en la definición
+		 * @param minValueOperator el operador del valor mínimo
+		 * @param minValue         el valor mínimo
+		 * @param maxValueOperator el operador del valor máximo
+		 * @param maxValue         el valor máximo
+		 */
+		private Interval(final T range, final int order, final String minValueOperator, final Float minValue, final String maxValueOperator, final Float maxValue) {
+			this.range = range;
+			this.order = order;
+			final List<Bound> list = new ArrayList<>(2);
+			if (!StringUtils.isEmpty(minValueOperator)) {
+				list.add(new Bound(Operator.fromSymbol(minValueOperator), minValue, true));
+			}
+			if (!StringUtils.isEmpty(maxValueOperator)) {
+				list.add(new Bound(Operator.fromSymbol(maxValueOperator), maxValue, false));
+			}
+			this.bounds = list.toArray(new Bound[list.size()]);
+			double lower = bounds.length > 0 ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+			for (Bound bound : bounds) {
+				lower = Math.max(lower, bound.getLowerBound());
+			}
+			this.lowerBound = lower;
+		}
+
+		/**
+		 * Comprueba si el rango contiene una puntuación.
+		 *
+		 * @param score la puntuación
+		 * @return true, si la contiene
+		 */
+		private boolean contains(final double score) {
+			if (bounds.length == 0) {
+				return false;
+			}
+			for (Bound bound : bounds) {
+				if (!bound.test(score)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.rastreador2.utils;
+
+import static es.inteco.common.Constants.CRAWLER_PROPERTIES;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import es.inteco.common.logging.Logger;
+import es.inteco.common.properties.PropertiesManager;
+
+/**
+ * Grupo de hilos compartido por todas las ejecuciones de una misma tarea de exportación (anexos, informes PDF), para que varias exportaciones simultáneas no multipliquen la memoria usada.
+ *
+ * El grupo se crea la primera vez que se usa con el número de hilos configurado en crawler.properties. Sus hilos son daemon, así que no impiden que la JVM termine: al parar la aplicación se cierran
+ * todos los grupos con {@link #shutdownAll()}.
+ */
+public final class SharedThreadPool {
+	/** Grupos creados, para cerrarlos al parar la aplicación. */
+	private static final List<SharedThreadPool> POOLS = new CopyOnWriteArrayList<>();
+	/** Prefijo del nombre de los hilos. */
+	private final String name;
+	/** Propiedad con el número de hilos. */
+	private final String threadsProperty;
+	/** Número de hilos por defecto. */
+	private final int defaultThreads;
+	/** The executor. */
+	private ExecutorService executor;
+
+	/**
+	 * Crea un grupo de hilos. Los hilos no se crean hasta que se usa.
+	 *
+	 * @param name            el prefijo del nombre de los hilos
+	 * @param threadsProperty la propiedad de crawler.properties con el número de hilos
+	 * @param defaultThreads  el número de hilos si la propiedad no existe o no es válida
+	 */
+	public SharedThreadPool(final String name, final String threadsProperty, final int defaultThreads) {
+		this.name = name;
+		this.threadsProperty = threadsProperty;
+		this.defaultThreads = defaultThreads;
+		POOLS.add(this);
+	}
+
+	/**
+	 * Obtiene el grupo de hilos y lo crea si no existe.
+	 *
+	 * @return the executor
+	 */
+	public synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(getThreads(), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(final Runnable r) {
+					final Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Cierra el grupo de hilos e interrumpe las tareas en curso. Las que aún no se habían empezado se cancelan, para que no se quede esperándolas quien las envió. Si se vuelve a usar se crea otro.
+	 */
+	public synchronized void shutdown() {
+		if (executor != null) {
+			for (Runnable pending : executor.shutdownNow()) {
+				if (pending instanceof Future) {
+					((Future<?>) pending).cancel(false);
+				}
+			}
+			executor = null;
+		}
+	}
+
+	/**
+	 * Cierra todos los grupos de hilos. Se llama al parar la aplicación.
+	 */
+	public static void shutdownAll() {
+		for (SharedThreadPool pool : POOLS) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Obtiene el número de hilos configurado.
+	 *
+	 * @return the threads
+	 */
+	private int getThreads() {
+		final String value = new PropertiesManager().getValue(CRAWLER_PROPERTIES, threadsProperty);
+		if (value != null) {
+			try {
+				return Math.max(1, Integer.parseInt(value.trim()));
+			} catch (NumberFormatException e) {
+				Logger.putLog("Valor no válido para la propiedad " + threadsProperty, SharedThreadPool.class, Logger.LOG_LEVEL_WARNING);
+			}
+		}
+		return defaultThreads;
+	}
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.rastreador2.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.NumberToTextConverter;
+
+/**
+ * Anchos de columna calculados a partir de la longitud máxima de los valores escritos.
+ *
+ * Sustituye a {@link Sheet#autoSizeColumn(int)}, que tiene que recorrer todas las filas de la hoja (y en los libros en streaming ya no están en memoria): las filas se registran a medida que se escriben
+ * y al final se aplica a cada columna el ancho de su valor más largo. En los textos con saltos de línea se tiene en cuenta la línea más larga.
+ */
+public class XlsxColumnWidths {
+	/** Caracteres que se añaden al valor más largo de cada columna. */
+	private static final int PADDING = 2;
+	/** Ancho máximo de una columna, en caracteres. */
+	static final int MAX_WIDTH = 80;
+	/** Unidades de ancho de un carácter (1/256 del ancho de un carácter). */
+	private static final int CHARACTER_WIDTH = 256;
+	/** Longitud máxima de los valores de cada columna. */
+	private final Map<Integer, Integer> lengths = new TreeMap<>();
+
+	/**
+	 * Registra los valores de una fila. Las celdas con fórmula se miden por su último valor calculado.
+	 *
+	 * @param row the row
+	 */
+	public void update(final Row row) {
+		for (Cell cell : row) {
+			final int length = getLength(cell);
+			final Integer current = lengths.get(cell.getColumnIndex());
+			if (current == null || length > current) {
+				lengths.put(cell.getColumnIndex(), length);
+			}
+		}
+	}
+
+	/**
+	 * Aplica los anchos calculados a una hoja.
+	 *
+	 * @param sheet the sheet
+	 */
+	public void apply(final Sheet sheet) {
+		for (Map.Entry<Integer, Integer> entry : lengths.entrySet()) {
+			sheet.setColumnWidth(entry.getKey(), toWidth(entry.getValue()));
+		}
+	}
+
+	/**
+	 * Obtiene el ancho calculado para una columna.
+	 *
+	 * @param column the column
+	 * @return el ancho en unidades de 1/256 de carácter o -1 si no se ha registrado ningún valor de la columna
+	 */
+	public int getWidth(final int column) {
+		final Integer length = lengths.get(column);
+		return length != null ? toWidth(length) : -1;
+	}
+
+	/**
+	 * Convierte una longitud en caracteres en un ancho de columna.
+	 *
+	 * @param length the length
+	 * @return the width
+	 */
+	private static int toWidth(final int length) {
+		return Math.min(length + PADDING, MAX_WIDTH) * CHARACTER_WIDTH;
+	}
+
+	/**
+	 * Obtiene la longitud del valor de una celda.
+	 *
+	 * @param cell the cell
+	 * @return the length
+	 */
+	private static int getLength(final Cell cell) {
+		CellType type = cell.getCellType();
+		if (type == CellType.FORMULA) {
+			type = cell.getCachedFormulaResultType();
+		}
+		switch (type) {
+		case STRING:
+			return getTextLength(cell.getStringCellValue());
+		case NUMERIC:
+			return NumberToTextConverter.toText(cell.getNumericCellValue()).length();
+		case BOOLEAN:
+			return String.valueOf(cell.getBooleanCellValue()).length();
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Obtiene la longitud de la línea más larga de un texto.
+	 *
+	 * @param text the text
+	 * @return the length
+	 */
+	private static int getTextLength(final String text) {
+		int max = 0;
+		int start = 0;
+		int end;
+		while ((end = text.indexOf('\n', start)) != -1) {
+			max = Math.max(max, end - start);
+			start = end + 1;
+		}
+		return Math.max(max, text.length() - start);
+	}
+}
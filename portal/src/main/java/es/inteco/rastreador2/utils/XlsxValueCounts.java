@@ -0,0 +1,102 @@
+/*******************************************************************************
+* Copyright (C) 2017 MINHAFP, Ministerio de Hacienda y Función Pública,
+* This program is licensed and may be used, modified and redistributed under the terms
+* of the European Public License (EUPL), either version 1.2 or (at your option) any later
+* version as soon as they are approved by the European Commission.
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+* ANY KIND, either express or implied. See the License for the specific language governing
+* permissions and more details.
+* You should have received a copy of the EUPL1.2 license along with this program; if not,
+* you may find it at http://eur-lex.europa.eu/legal-content/EN/TXT/?uri=CELEX:32017D0863
+******************************************************************************/
+package es.inteco.rastreador2.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+
+/**
+ * Recuento de los valores de las filas de datos de un libro en streaming, para dar valor calculado a las tablas de resumen que se escriben al final.
+ *
+ * En un SXSSFWorkbook las filas que salen de la ventana se escriben a disco y el evaluador de fórmulas ya no puede leerlas, así que las fórmulas que cuentan valores de toda la hoja (COUNTIF, COUNTIFS)
+ * quedarían sin valor calculado. A medida que se escribe cada bloque de filas se cuentan las combinaciones de valores que leen esas fórmulas y, al escribir las tablas, los recuentos se guardan como
+ * valor calculado de sus celdas. Solo se guarda un contador por combinación distinta, no los valores de cada fila.
+ */
+public class XlsxValueCounts {
+	/** Número de veces que se ha contado cada combinación de valores. */
+	private final Map<List<Object>, Integer> counts = new HashMap<>();
+
+	/**
+	 * Cuenta una vez una combinación de valores. Los números se cuentan como double, igual que los guarda la hoja, y los textos sin distinguir mayúsculas y minúsculas, igual que COUNTIF.
+	 *
+	 * @param values los valores (p.ej. nombre de columna y valor de la celda)
+	 */
+	public void add(final Object... values) {
+		final List<Object> key = toKey(values);
+		final Integer count = counts.get(key);
+		counts.put(key, count != null ? count + 1 : 1);
+	}
+
+	/**
+	 * Obtiene el número de veces que se ha contado una combinación de valores.
+	 *
+	 * @param values los valores
+	 * @return el número de veces
+	 */
+	public int get(final Object... values) {
+		final Integer count = counts.get(toKey(values));
+		return count != null ? count : 0;
+	}
+
+	/**
+	 * Obtiene el valor de una celda para contarlo. De las celdas con fórmula se obtiene su último valor calculado.
+	 *
+	 * @param cell the cell
+	 * @return el texto, el número (double), el booleano o null si la celda no existe o no tiene valor
+	 */
+	public static Object getValue(final Cell cell) {
+		if (cell == null) {
+			return null;
+		}
+		CellType type = cell.getCellType();
+		if (type == CellType.FORMULA) {
+			type = cell.getCachedFormulaResultType();
+		}
+		switch (type) {
+		case STRING:
+			return cell.getStringCellValue();
+		case NUMERIC:
+			return cell.getNumericCellValue();
+		case BOOLEAN:
+			return cell.getBooleanCellValue();
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Construye la clave de una combinación de valores.
+	 *
+	 * @param values the values
+	 * @return the key
+	 */
+	private static List<Object> toKey(final Object[] values) {
+		final List<Object> key = new ArrayList<>(values.length);
+		for (Object value : values) {
+			if (value instanceof Number) {
+				key.add(((Number) value).doubleValue());
+			} else if (value instanceof String) {
+				key.add(((String) value).toLowerCase(Locale.ROOT));
+			} else {
+				key.add(value);
+			}
+		}
+		return key;
+	}
+}
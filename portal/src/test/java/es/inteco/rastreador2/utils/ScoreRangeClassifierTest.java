@@ -0,0 +1,155 @@
+package es.inteco.rastreador2.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import es.inteco.rastreador2.actionform.observatorio.RangeForm;
+import es.inteco.rastreador2.actionform.observatorio.TemplateRangeForm;
+
+public class ScoreRangeClassifierTest {
+
+    private static final String[] OPERATORS = { "", "<", "<=", ">", ">=", "==", "!=" };
+
+    private static final Float[] VALUES = { null, -2.5f, -0.1f, 0f, 0.1f, 0.3f, 1.7f };
+
+    private static ScriptEngine scriptEngine;
+
+    @BeforeClass
+    public static void init() {
+        scriptEngine = new ScriptEngineManager().getEngineByName("JavaScript");
+    }
+
+    // Expresión con la que se clasificaban las puntuaciones antes de compilar los rangos
+    private static String generateRangeJsExpression(BigDecimal diffMidScores, final String minValueOperator, final String maxValueOperator, final Float minValue, final Float maxValue) {
+        String expression = "";
+        if (!StringUtils.isEmpty(minValueOperator) && !StringUtils.isEmpty(maxValueOperator)) {
+            expression += minValue + "" + minValueOperator + "" + diffMidScores + " && " + diffMidScores + "" + maxValueOperator + "" + maxValue;
+        } else if (!StringUtils.isEmpty(minValueOperator) && StringUtils.isEmpty(maxValueOperator)) {
+            expression += minValue + "" + minValueOperator + "" + diffMidScores;
+        } else if (StringUtils.isEmpty(minValueOperator) && !StringUtils.isEmpty(maxValueOperator)) {
+            expression += diffMidScores + "" + maxValueOperator + "" + maxValue;
+        }
+        return expression;
+    }
+
+    private static RangeForm range(final long id, final String minValueOperator, final Float minValue, final String maxValueOperator, final Float maxValue) {
+        final RangeForm range = new RangeForm();
+        range.setId(id);
+        range.setName("Rango " + id);
+        range.setMinValueOperator(minValueOperator);
+        range.setMinValue(minValue);
+        range.setMaxValueOperator(maxValueOperator);
+        range.setMaxValue(maxValue);
+        return range;
+    }
+
+    private static List<BigDecimal> scores() {
+        final List<BigDecimal> scores = new ArrayList<>();
+        for (Float value : VALUES) {
+            if (value != null) {
+                final BigDecimal score = new BigDecimal(value.toString());
+                scores.add(score);
+                scores.add(score.add(new BigDecimal("0.01")));
+                scores.add(score.subtract(new BigDecimal("0.01")));
+            }
+        }
+        // Diferencias de medias como las de los anexos, con la escala de las puntuaciones
+        final Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            final BigDecimal last = new BigDecimal(random.nextInt(1001)).divide(new BigDecimal(100)).setScale(2);
+            final BigDecimal previous = new BigDecimal(random.nextInt(1001)).divide(new BigDecimal(100)).setScale(2);
+            scores.add(last.subtract(previous).divide(new BigDecimal(1 + random.nextInt(7)), RoundingMode.HALF_UP));
+        }
+        scores.add(new BigDecimal("1E+1"));
+        scores.add(new BigDecimal("0.10000001"));
+        scores.add(new BigDecimal("-0.00"));
+        return scores;
+    }
+
+    @Test
+    public void testMatchesJavaScript() throws Exception {
+        Assume.assumeTrue(scriptEngine != null);
+        final List<BigDecimal> scores = scores();
+        long id = 0;
+        for (String minOperator : OPERATORS) {
+            for (String maxOperator : OPERATORS) {
+                for (Float minValue : VALUES) {
+                    for (Float maxValue : VALUES) {
+                        if (minOperator.isEmpty() && maxOperator.isEmpty()) {
+                            continue;
+                        }
+                        final RangeForm range = range(++id, minOperator, minValue, maxOperator, maxValue);
+                        final ScoreRangeClassifier<RangeForm> classifier = ScoreRangeClassifier.forWebsiteRanges(Arrays.asList(range));
+                        // Se evalúan todas las puntuaciones en una sola expresión que devuelve un 1 o un 0 por puntuación
+                        final StringBuilder expressions = new StringBuilder("''");
+                        final StringBuilder actual = new StringBuilder();
+                        for (BigDecimal score : scores) {
+                            expressions.append(" + ((").append(generateRangeJsExpression(score, minOperator, maxOperator, minValue, maxValue)).append(") ? 1 : 0)");
+                            actual.append(classifier.first(score) != null ? 1 : 0);
+                        }
+                        Assert.assertEquals(range.toString(), scriptEngine.eval(expressions.toString()), actual.toString());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBandAssignments() throws Exception {
+        Assume.assumeTrue(scriptEngine != null);
+        // Rangos solapados y desordenados, como los puede configurar un usuario
+        final List<RangeForm> ranges = Arrays.asList(range(1, "<", 2.5f, "", null), range(2, "<", -2.5f, "<=", 2.5f), range(3, "", null, "<=", -2.5f), range(4, "<=", 0f, "<", 0.3f),
+                range(5, "<=", -0.1f, "<=", 0.1f));
+        final ScoreRangeClassifier<RangeForm> classifier = ScoreRangeClassifier.forWebsiteRanges(ranges);
+        for (BigDecimal score : scores()) {
+            final List<RangeForm> expected = new ArrayList<>();
+            for (RangeForm range : ranges) {
+                if ((boolean) scriptEngine.eval(generateRangeJsExpression(score, range.getMinValueOperator(), range.getMaxValueOperator(), range.getMinValue(), range.getMaxValue()))) {
+                    expected.add(range);
+                }
+            }
+            Assert.assertEquals(score.toString(), expected, classifier.classify(score));
+            Assert.assertEquals(score.toString(), expected.isEmpty() ? null : expected.get(0), classifier.first(score));
+            Assert.assertEquals(score.toString(), expected.isEmpty() ? null : expected.get(expected.size() - 1), classifier.last(score));
+        }
+    }
+
+    @Test
+    public void testIterationRanges() {
+        final TemplateRangeForm low = new TemplateRangeForm();
+        low.setId(1L);
+        low.setMaxValueOperator("<");
+        low.setMaxValue(0f);
+        final TemplateRangeForm high = new TemplateRangeForm();
+        high.setId(2L);
+        high.setMinValueOperator("<=");
+        high.setMinValue(0f);
+        final ScoreRangeClassifier<TemplateRangeForm> classifier = ScoreRangeClassifier.forIterationRanges(Arrays.asList(low, high));
+        Assert.assertSame(low, classifier.last(new BigDecimal("-0.01")));
+        Assert.assertSame(high, classifier.last(BigDecimal.ZERO));
+        Assert.assertTrue(ScoreRangeClassifier.forIterationRanges(new ArrayList<TemplateRangeForm>()).classify(BigDecimal.ONE).isEmpty());
+    }
+
+    @Test
+    public void testRangeWithoutOperators() {
+        Assert.assertNull(ScoreRangeClassifier.forWebsiteRanges(Arrays.asList(range(1, "", 0f, null, 1f))).first(BigDecimal.ZERO));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidOperator() {
+        ScoreRangeClassifier.forWebsiteRanges(Arrays.asList(range(1, "=", 0f, "", null)));
+    }
+}
@@ -0,0 +1,56 @@
+package es.inteco.rastreador2.utils;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class XlsxColumnWidthsTest {
+
+    @Test
+    public void widthsFollowLongestValue() throws Exception {
+        final SXSSFWorkbook wb = new SXSSFWorkbook(1);
+        try {
+            final SXSSFSheet sheet = wb.createSheet("Resultados");
+            final FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+            final XlsxColumnWidths columnWidths = new XlsxColumnWidths();
+            for (int i = 0; i < 3; i++) {
+                final Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i == 1 ? "Ministerio de Hacienda" : "AA");
+                row.createCell(1).setCellValue("Uno\nDos dos\nTres");
+                row.createCell(2).setCellValue(12.5);
+                final Cell formula = row.createCell(3);
+                formula.setCellFormula("IF(C" + (i + 1) + ">10,\"Plenamente conforme\",0)");
+                evaluator.evaluateFormulaCell(formula);
+                columnWidths.update(row);
+            }
+            // Las filas anteriores ya no están en memoria
+            Assert.assertNull(sheet.getRow(0));
+            columnWidths.apply(sheet);
+            Assert.assertEquals(("Ministerio de Hacienda".length() + 2) * 256, sheet.getColumnWidth(0));
+            Assert.assertEquals(("Dos dos".length() + 2) * 256, sheet.getColumnWidth(1));
+            Assert.assertEquals(("12.5".length() + 2) * 256, sheet.getColumnWidth(2));
+            Assert.assertEquals(("Plenamente conforme".length() + 2) * 256, sheet.getColumnWidth(3));
+            Assert.assertEquals(-1, columnWidths.getWidth(4));
+        } finally {
+            wb.dispose();
+        }
+    }
+
+    @Test
+    public void widthIsLimited() {
+        final SXSSFWorkbook wb = new SXSSFWorkbook();
+        try {
+            final XlsxColumnWidths columnWidths = new XlsxColumnWidths();
+            final Row row = wb.createSheet("Resultados").createRow(0);
+            row.createCell(0).setCellValue(new String(new char[500]).replace('\0', 'x'));
+            columnWidths.update(row);
+            Assert.assertEquals(XlsxColumnWidths.MAX_WIDTH * 256, columnWidths.getWidth(0));
+        } finally {
+            wb.dispose();
+        }
+    }
+}
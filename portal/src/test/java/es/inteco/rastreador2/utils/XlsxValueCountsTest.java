@@ -0,0 +1,55 @@
+package es.inteco.rastreador2.utils;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class XlsxValueCountsTest {
+
+    @Test
+    public void countsCombinationsOfValues() {
+        final XlsxValueCounts counts = new XlsxValueCounts();
+        counts.add("Evolución adecuación", 1.0);
+        counts.add("Evolución adecuación", 1);
+        counts.add("Evolución adecuación", -2.0);
+        counts.add("Segmento", "AGE", "Evolución puntuación", "Mejora");
+        counts.add("Segmento", "CCAA", "Evolución puntuación", "Mejora");
+
+        Assert.assertEquals(2, counts.get("Evolución adecuación", 1));
+        Assert.assertEquals(1, counts.get("Evolución adecuación", -2));
+        Assert.assertEquals(0, counts.get("Evolución adecuación", 3));
+        Assert.assertEquals(1, counts.get("Segmento", "AGE", "Evolución puntuación", "Mejora"));
+        Assert.assertEquals(0, counts.get("Segmento", "AGE", "Evolución puntuación", "Empeora"));
+        // Como COUNTIF, los textos no distinguen mayúsculas y minúsculas
+        Assert.assertEquals(1, counts.get("segmento", "age", "Evolución Puntuación", "MEJORA"));
+    }
+
+    @Test
+    public void countsCachedValuesOfFlushedRows() throws Exception {
+        final SXSSFWorkbook wb = new SXSSFWorkbook(2);
+        try {
+            final SXSSFSheet sheet = wb.createSheet("Resultados");
+            final FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+            final XlsxValueCounts counts = new XlsxValueCounts();
+            for (int i = 0; i < 6; i++) {
+                final Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i % 2 == 0 ? "AA" : "A");
+                final Cell formula = row.createCell(1);
+                formula.setCellFormula("IF(A" + (i + 1) + "=\"AA\",1,0)");
+                evaluator.evaluateFormulaCell(formula);
+                counts.add("Adecuación", XlsxValueCounts.getValue(row.getCell(0)), XlsxValueCounts.getValue(formula));
+            }
+            // Las primeras filas ya no están en memoria
+            Assert.assertNull(sheet.getRow(0));
+            Assert.assertEquals(3, counts.get("Adecuación", "AA", 1));
+            Assert.assertEquals(3, counts.get("Adecuación", "A", 0));
+            Assert.assertNull(XlsxValueCounts.getValue(sheet.getRow(5).getCell(2)));
+        } finally {
+            wb.dispose();
+        }
+    }
+}